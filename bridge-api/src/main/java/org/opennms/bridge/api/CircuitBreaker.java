@@ -0,0 +1,206 @@
+package org.opennms.bridge.api;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Count-based circuit breaker for calls to one failure domain, such as a cloud provider region.
+ * The breaker opens when the failure rate or the slow-call rate over the last {@code windowSize} calls
+ * reaches its threshold. While open, calls fail fast; after the open duration a few probe calls are let
+ * through (half-open), and the breaker closes if they all succeed or opens again otherwise.
+ */
+public final class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long slowCallMillis;
+    private final double slowCallRateThreshold;
+    private final long openMillis;
+    private final int halfOpenCalls;
+
+    // Ring of recent outcomes: bit 0 failed, bit 1 slow
+    private final byte[] outcomes;
+    private int next;
+    private int recorded;
+    private int failures;
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int probesIssued;
+    private int probesSucceeded;
+    private long rejected;
+    private long transitions;
+    private String lastFailure;
+
+    /**
+     * @param windowSize            number of recent calls the rates are computed over
+     * @param minimumCalls          calls required before the breaker can open
+     * @param failureRateThreshold  failure rate, in percent, at which the breaker opens
+     * @param slowCallMillis        duration above which a call counts as slow
+     * @param slowCallRateThreshold slow-call rate, in percent, at which the breaker opens
+     * @param openMillis            time the breaker stays open before probing
+     * @param halfOpenCalls         probe calls let through while half-open
+     */
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, long slowCallMillis,
+                          double slowCallRateThreshold, long openMillis, int halfOpenCalls) {
+        this.windowSize = Math.max(1, windowSize);
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, this.windowSize));
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallMillis = slowCallMillis;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.openMillis = openMillis;
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+        this.outcomes = new byte[this.windowSize];
+    }
+
+    /**
+     * Ask for permission to make a call.
+     *
+     * @return false if the call must fail fast
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openMillis) {
+                rejected++;
+                return false;
+            }
+            transition(State.HALF_OPEN);
+            probesIssued = 0;
+            probesSucceeded = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesIssued >= halfOpenCalls) {
+                rejected++;
+                return false;
+            }
+            probesIssued++;
+        }
+        return true;
+    }
+
+    /**
+     * Record a call that completed; a call slower than the slow-call duration counts as slow.
+     *
+     * @param durationMillis duration of the call
+     */
+    public synchronized void onSuccess(long durationMillis) {
+        boolean slow = durationMillis >= slowCallMillis;
+        if (state == State.HALF_OPEN) {
+            if (slow) {
+                open();
+            } else if (++probesSucceeded >= halfOpenCalls) {
+                transition(State.CLOSED);
+                reset();
+            }
+            return;
+        }
+        record(false, slow);
+    }
+
+    /**
+     * Record a call that failed.
+     *
+     * @param durationMillis duration of the call
+     * @param error          the failure, for status reporting
+     */
+    public synchronized void onFailure(long durationMillis, Throwable error) {
+        lastFailure = error != null ? error.getMessage() : null;
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true, durationMillis >= slowCallMillis);
+    }
+
+    /**
+     * Hand back the permission of a call whose outcome says nothing about the failure domain, such as one cut
+     * short by the caller's deadline. A half-open probe released this way is issued again to the next call.
+     */
+    public synchronized void release() {
+        if (state == State.HALF_OPEN && probesIssued > probesSucceeded) {
+            probesIssued--;
+        }
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+            // Reported as half-open; the transition itself happens on the next call
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    /**
+     * Get the breaker state and recent rates.
+     *
+     * @return map of state values
+     */
+    public synchronized Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("state", getState().name());
+        map.put("calls", recorded);
+        map.put("failureRate", rate(failures));
+        map.put("slowCallRate", rate(slowCalls));
+        map.put("rejected", rejected);
+        map.put("transitions", transitions);
+        if (state != State.CLOSED) {
+            map.put("openedAt", Instant.ofEpochMilli(openedAt).toString());
+        }
+        if (lastFailure != null) {
+            map.put("lastFailure", lastFailure);
+        }
+        return map;
+    }
+
+    private void record(boolean failed, boolean slow) {
+        if (recorded == windowSize) {
+            byte evicted = outcomes[next];
+            failures -= evicted & 1;
+            slowCalls -= (evicted >> 1) & 1;
+        } else {
+            recorded++;
+        }
+        outcomes[next] = (byte) ((failed ? 1 : 0) | (slow ? 2 : 0));
+        failures += failed ? 1 : 0;
+        slowCalls += slow ? 1 : 0;
+        next = (next + 1) % windowSize;
+
+        if (state == State.CLOSED && recorded >= minimumCalls
+                && (rate(failures) >= failureRateThreshold || rate(slowCalls) >= slowCallRateThreshold)) {
+            open();
+        }
+    }
+
+    private double rate(int count) {
+        return recorded == 0 ? 0 : Math.round(count * 1000.0 / recorded) / 10.0;
+    }
+
+    private void open() {
+        transition(State.OPEN);
+        openedAt = System.currentTimeMillis();
+        reset();
+    }
+
+    private void reset() {
+        next = 0;
+        recorded = 0;
+        failures = 0;
+        slowCalls = 0;
+    }
+
+    private void transition(State newState) {
+        if (state != newState) {
+            state = newState;
+            transitions++;
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package org.opennms.bridge.api;
 
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 
@@ -56,6 +59,48 @@ public interface CloudProvider {
      */
     MetricCollection collect(CloudResource resource) throws CloudProviderException;
     
+    /**
+     * Collect metrics from a resource as a columnar batch.
+     * Providers that can fill a batch directly should override this to avoid building a MetricCollection.
+     * 
+     * @param resource the cloud resource to collect from
+     * @return collected metrics
+     * @throws CloudProviderException if collection fails
+     */
+    default MetricBatch collectBatch(CloudResource resource) throws CloudProviderException {
+        return MetricBatch.fromCollection(collect(resource));
+    }
+    
+    /**
+     * Collect metrics for several resources with as few provider calls as possible.
+     * Resources missing from the result are collected individually with {@link #collectBatch}.
+     * 
+     * @param resources the cloud resources to collect from
+     * @return collected metrics by resource ID; empty if the provider has no fleet-wide collection
+     */
+    default Map<String, MetricBatch> collectBatches(Collection<CloudResource> resources) {
+        return Collections.emptyMap();
+    }
+    
+    /**
+     * Get the time after a collection period closes until the provider has published all of its data.
+     * Used with resources that declare a {@link CollectionTiming#PERIOD_PROPERTY}.
+     * 
+     * @return the publication delay
+     */
+    default Duration getPublicationDelay() {
+        return Duration.ZERO;
+    }
+    
+    /**
+     * Get runtime status of the provider, such as cache and throttling statistics.
+     * 
+     * @return map of status values; empty if the provider reports none
+     */
+    default Map<String, Object> getStatus() {
+        return Collections.emptyMap();
+    }
+    
     /**
      * Get available regions/locations for this provider.
      * 
@@ -30,6 +30,17 @@ public class CloudResource {
         this.region = region;
     }
     
+    /**
+     * Constructor for variants that keep tags and properties in their own storage.
+     */
+    protected CloudResource(String id, String name, String type, String region, String status) {
+        this.id = id;
+        this.name = name;
+        this.type = type;
+        this.region = region;
+        this.status = status;
+    }
+    
     public String getId() {
         return id;
     }
@@ -97,9 +108,9 @@ public class CloudResource {
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
+        if (!(o instanceof CloudResource)) return false;
         CloudResource that = (CloudResource) o;
-        return Objects.equals(id, that.id);
+        return Objects.equals(id, that.getResourceId());
     }
     
     @Override
@@ -122,7 +133,7 @@ public class CloudResource {
      * @return the provider ID
      */
     public String getProviderId() {
-        return (String) properties.getOrDefault("providerId", null);
+        return (String) getProperties().get("providerId");
     }
     
     /**
@@ -131,7 +142,7 @@ public class CloudResource {
      * @return the provider type
      */
     public String getProviderType() {
-        return (String) properties.getOrDefault("providerType", null);
+        return (String) getProperties().get("providerType");
     }
     
     /**
@@ -0,0 +1,21 @@
+package org.opennms.bridge.api;
+
+/**
+ * Consumer of collected metric samples, such as OpenNMS submission.
+ * Each resource's samples are collected once per interval and delivered to every listener.
+ */
+public interface CollectionListener {
+
+    /**
+     * Called once for each newly collected batch.
+     * A batch that a listener delivered, and that no listener failed on, is marked delivered, which lets the
+     * provider move past its samples; otherwise the samples are collected again.
+     *
+     * @param providerId the provider ID
+     * @param resource   the resource the samples belong to
+     * @param batch      the collected samples
+     * @return true if the samples were delivered, false if the listener skipped them
+     * @throws Exception if delivery failed
+     */
+    boolean onCollected(String providerId, CloudResource resource, MetricBatch batch) throws Exception;
+}
@@ -0,0 +1,62 @@
+package org.opennms.bridge.api;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service for managing collection logs and collection results.
+ */
+public interface CollectionLogService {
+    
+    /**
+     * Add a collection log entry for a provider
+     * 
+     * @param providerId the provider ID
+     * @param logEntry the log entry
+     */
+    void addLogEntry(String providerId, Map<String, Object> logEntry);
+    
+    /**
+     * Store the result of a collection for a provider
+     * 
+     * @param providerId the provider ID
+     * @param collection the collected metrics
+     */
+    default void storeCollectionResult(String providerId, MetricCollection collection) {
+    }
+    
+    /**
+     * Get collection logs for a provider
+     * 
+     * @param providerId the provider ID
+     * @return list of log entries
+     */
+    List<Map<String, Object>> getProviderLogs(String providerId);
+    
+    /**
+     * Query collection logs for a provider with level, action and time filters.
+     * Results are returned newest first and paged with a cursor.
+     * 
+     * @param providerId the provider ID
+     * @param query the filter and paging parameters
+     * @return the matching page of log entries
+     */
+    default LogPage queryLogs(String providerId, LogQuery query) {
+        return LogPage.fromMaps(getProviderLogs(providerId), query);
+    }
+    
+    /**
+     * Get recent collection results for a provider
+     * 
+     * @param providerId the provider ID
+     * @return list of collection result data
+     */
+    List<Map<String, Object>> getCollectionResults(String providerId);
+    
+    /**
+     * Clear logs and results for a provider
+     * 
+     * @param providerId the provider ID
+     */
+    void clearProviderLogs(String providerId);
+}
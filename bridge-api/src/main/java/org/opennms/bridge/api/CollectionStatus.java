@@ -15,6 +15,7 @@ public class CollectionStatus {
         RUNNING,
         COMPLETED,
         FAILED,
+        TIMED_OUT,
         DISABLED
     }
     
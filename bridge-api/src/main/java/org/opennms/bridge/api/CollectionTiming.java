@@ -0,0 +1,69 @@
+package org.opennms.bridge.api;
+
+import java.time.Duration;
+
+/**
+ * Period-aligned collection timing.
+ * Providers whose data is published per fixed period declare that period on each resource with
+ * {@link #PERIOD_PROPERTY}; collection of such a resource then runs once per period, just after the
+ * provider's publication delay has passed, so every call finds complete datapoints.
+ */
+public final class CollectionTiming {
+
+    /**
+     * Resource property holding the collection period in seconds.
+     */
+    public static final String PERIOD_PROPERTY = "collectionPeriodSeconds";
+
+    private CollectionTiming() {
+    }
+
+    /**
+     * Get the collection period declared by a resource.
+     *
+     * @param resource the cloud resource
+     * @return the period, or null if the resource does not declare one
+     */
+    public static Duration getPeriod(CloudResource resource) {
+        Object value = resource.getProperties().get(PERIOD_PROPERTY);
+        if (value == null) {
+            return null;
+        }
+        try {
+            long seconds = value instanceof Number ? ((Number) value).longValue() : Long.parseLong(value.toString());
+            return seconds > 0 ? Duration.ofSeconds(seconds) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Round an interval up to a whole number of periods.
+     *
+     * @param interval the requested interval
+     * @param period   the collection period
+     * @return the aligned interval, at least one period
+     */
+    public static Duration alignInterval(Duration interval, Duration period) {
+        long periodMillis = period.toMillis();
+        long periods = Math.max(1, (interval.toMillis() + periodMillis - 1) / periodMillis);
+        return Duration.ofMillis(periods * periodMillis);
+    }
+
+    /**
+     * Get the first run time at or after a given time at which the latest period is complete,
+     * i.e. a period boundary plus the publication delay.
+     *
+     * @param notBeforeMillis  earliest run time in epoch milliseconds
+     * @param period           the collection period
+     * @param publicationDelay time after a period closes until its data is complete
+     * @return the run time in epoch milliseconds
+     */
+    public static long nextRun(long notBeforeMillis, Duration period, Duration publicationDelay) {
+        long periodMillis = period.toMillis();
+        long delayMillis = publicationDelay != null ? publicationDelay.toMillis() : 0;
+        long boundary = Math.floorDiv(notBeforeMillis - delayMillis, periodMillis) * periodMillis;
+        long run = boundary + delayMillis;
+        return run >= notBeforeMillis ? run : run + periodMillis;
+    }
+}
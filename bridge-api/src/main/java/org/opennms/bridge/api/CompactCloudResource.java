@@ -0,0 +1,418 @@
+package org.opennms.bridge.api;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Memory-efficient cloud resource for large inventories.
+ * Hot attributes are typed fields, low-cardinality values are shared through a {@link ValueDictionary},
+ * tags and remaining properties are stored in compact arrays, and the hash code is precomputed.
+ * {@link #getTags()} and {@link #getProperties()} return read-only views with the same keys
+ * a regular {@link CloudResource} built by the discovery strategies would have.
+ * The resource is copy-on-write: the first {@code addTag}/{@code setTags} or {@code addProperty}/{@code setProperties}
+ * replaces the compact storage with regular maps, so code written against {@link CloudResource} keeps working.
+ */
+public final class CompactCloudResource extends CloudResource {
+
+    private static final ValueDictionary VALUES = new ValueDictionary(100_000);
+
+    private static final String[] NO_ENTRIES = new String[0];
+
+    // Property keys served from typed fields, in iteration order
+    private static final String[] TYPED_KEYS = {
+            "providerId", "instanceId", "region", "state", "instanceType", "availabilityZone", "address",
+            "privateIpAddress", "publicAddress", "publicIpAddress", "vpcId", "subnetId", "platform"
+    };
+
+    private final String providerId;
+    private final String instanceType;
+    private final String availabilityZone;
+    private final String privateAddress;
+    private final String publicAddress;
+    private final String vpcId;
+    private final String subnetId;
+    private final String platform;
+    private final Map<String, String> tags;
+    private final Map<String, Object> extraProperties;
+    private final Map<String, Object> properties;
+    private int hash;
+
+    // Regular maps replacing the compact storage once modified
+    private Map<String, String> modifiedTags;
+    private Map<String, Object> modifiedProperties;
+
+    private CompactCloudResource(Builder builder) {
+        super(builder.id, builder.name, VALUES.intern(builder.type), VALUES.intern(builder.region),
+                VALUES.intern(builder.status));
+        this.providerId = VALUES.intern(builder.providerId);
+        this.instanceType = VALUES.intern(builder.instanceType);
+        this.availabilityZone = VALUES.intern(builder.availabilityZone);
+        this.privateAddress = builder.privateAddress;
+        this.publicAddress = builder.publicAddress;
+        this.vpcId = VALUES.intern(builder.vpcId);
+        this.subnetId = VALUES.intern(builder.subnetId);
+        this.platform = VALUES.intern(builder.platform);
+        this.tags = builder.tags.isEmpty()
+                ? Collections.emptyMap()
+                : new CompactStringMap<>(builder.tags.toArray(NO_ENTRIES));
+        this.extraProperties = builder.properties.isEmpty()
+                ? Collections.emptyMap()
+                : new CompactStringMap<>(builder.properties.toArray(NO_ENTRIES));
+        this.properties = new PropertiesView();
+        this.hash = super.hashCode();
+    }
+
+    /**
+     * Create a builder for a compact resource.
+     *
+     * @param id     resource ID
+     * @param type   resource type
+     * @param region region
+     * @return the builder
+     */
+    public static Builder builder(String id, String type, String region) {
+        return new Builder(id, type, region);
+    }
+
+    /**
+     * Get the shared dictionary used for low-cardinality values.
+     *
+     * @return the value dictionary
+     */
+    public static ValueDictionary getValueDictionary() {
+        return VALUES;
+    }
+
+    @Override
+    public String getProviderId() {
+        return typedValue("providerId", providerId);
+    }
+
+    public String getInstanceType() {
+        return typedValue("instanceType", instanceType);
+    }
+
+    public String getAvailabilityZone() {
+        return typedValue("availabilityZone", availabilityZone);
+    }
+
+    public String getPrivateAddress() {
+        return typedValue("privateIpAddress", privateAddress);
+    }
+
+    public String getPublicAddress() {
+        return typedValue("publicIpAddress", publicAddress);
+    }
+
+    public String getVpcId() {
+        return typedValue("vpcId", vpcId);
+    }
+
+    public String getSubnetId() {
+        return typedValue("subnetId", subnetId);
+    }
+
+    public String getPlatform() {
+        return typedValue("platform", platform);
+    }
+
+    @Override
+    public Map<String, String> getTags() {
+        return modifiedTags != null ? modifiedTags : tags;
+    }
+
+    @Override
+    public Map<String, Object> getProperties() {
+        return modifiedProperties != null ? modifiedProperties : properties;
+    }
+
+    @Override
+    public String getProviderType() {
+        return (String) getProperties().get("providerType");
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public void setId(String id) {
+        super.setId(id);
+        hash = super.hashCode();
+    }
+
+    @Override
+    public void setTags(Map<String, String> tags) {
+        modifiedTags = tags != null ? tags : new HashMap<>();
+    }
+
+    @Override
+    public void setProperties(Map<String, Object> properties) {
+        modifiedProperties = properties != null ? properties : new HashMap<>();
+    }
+
+    @Override
+    public void addTag(String key, String value) {
+        if (modifiedTags == null) {
+            modifiedTags = new HashMap<>(tags);
+        }
+        modifiedTags.put(key, value);
+    }
+
+    @Override
+    public void addProperty(String key, Object value) {
+        if (modifiedProperties == null) {
+            modifiedProperties = new HashMap<>(properties);
+        }
+        modifiedProperties.put(key, value);
+    }
+
+    /**
+     * Get a typed attribute, from the regular property map once the properties were modified.
+     */
+    private String typedValue(String key, String value) {
+        Map<String, Object> modified = modifiedProperties;
+        if (modified == null) {
+            return value;
+        }
+        Object current = modified.get(key);
+        return current != null ? current.toString() : null;
+    }
+
+    /**
+     * Look up a property that is stored as a typed field.
+     */
+    private Object typedProperty(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        switch ((String) key) {
+            case "providerId":
+                return providerId;
+            case "instanceId":
+                return getId();
+            case "region":
+                return getRegion();
+            case "state":
+                return getStatus();
+            case "instanceType":
+                return instanceType;
+            case "availabilityZone":
+                return availabilityZone;
+            case "address":
+            case "privateIpAddress":
+                return privateAddress;
+            case "publicAddress":
+            case "publicIpAddress":
+                return publicAddress;
+            case "vpcId":
+                return vpcId;
+            case "subnetId":
+                return subnetId;
+            case "platform":
+                return platform;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Read-only map view over the typed fields and the extra properties.
+     * Iteration walks the fields and the extra property array in place instead of copying them.
+     */
+    private final class PropertiesView extends AbstractMap<String, Object> {
+
+        private Set<Entry<String, Object>> entries;
+
+        @Override
+        public Object get(Object key) {
+            Object value = typedProperty(key);
+            return value != null ? value : extraProperties.get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            if (entries == null) {
+                entries = new AbstractSet<Entry<String, Object>>() {
+                    @Override
+                    public Iterator<Entry<String, Object>> iterator() {
+                        return new EntryIterator();
+                    }
+
+                    @Override
+                    public int size() {
+                        int size = 0;
+                        Iterator<Entry<String, Object>> iterator = iterator();
+                        while (iterator.hasNext()) {
+                            iterator.next();
+                            size++;
+                        }
+                        return size;
+                    }
+                };
+            }
+            return entries;
+        }
+    }
+
+    /**
+     * Iterator over the set typed fields, then the extra properties that no typed field shadows.
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+        private int typedIndex;
+        private final Iterator<Map.Entry<String, Object>> extra = extraProperties.entrySet().iterator();
+        private Map.Entry<String, Object> next;
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && typedIndex < TYPED_KEYS.length) {
+                String key = TYPED_KEYS[typedIndex++];
+                Object value = typedProperty(key);
+                if (value != null) {
+                    next = new AbstractMap.SimpleImmutableEntry<>(key, value);
+                }
+            }
+            while (next == null && extra.hasNext()) {
+                Map.Entry<String, Object> entry = extra.next();
+                if (typedProperty(entry.getKey()) == null) {
+                    next = entry;
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Map.Entry<String, Object> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Map.Entry<String, Object> entry = next;
+            next = null;
+            return entry;
+        }
+    }
+
+    /**
+     * Builder for {@link CompactCloudResource}.
+     */
+    public static final class Builder {
+        private final String id;
+        private final String type;
+        private final String region;
+        private String name;
+        private String status;
+        private String providerId;
+        private String instanceType;
+        private String availabilityZone;
+        private String privateAddress;
+        private String publicAddress;
+        private String vpcId;
+        private String subnetId;
+        private String platform;
+        private final List<String> tags = new ArrayList<>();
+        private final List<String> properties = new ArrayList<>();
+
+        private Builder(String id, String type, String region) {
+            this.id = id;
+            this.type = type;
+            this.region = region;
+        }
+
+        public Builder name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        public Builder status(String status) {
+            this.status = status;
+            return this;
+        }
+
+        public Builder providerId(String providerId) {
+            this.providerId = providerId;
+            return this;
+        }
+
+        public Builder instanceType(String instanceType) {
+            this.instanceType = instanceType;
+            return this;
+        }
+
+        public Builder availabilityZone(String availabilityZone) {
+            this.availabilityZone = availabilityZone;
+            return this;
+        }
+
+        public Builder privateAddress(String privateAddress) {
+            this.privateAddress = privateAddress;
+            return this;
+        }
+
+        public Builder publicAddress(String publicAddress) {
+            this.publicAddress = publicAddress;
+            return this;
+        }
+
+        public Builder vpcId(String vpcId) {
+            this.vpcId = vpcId;
+            return this;
+        }
+
+        public Builder subnetId(String subnetId) {
+            this.subnetId = subnetId;
+            return this;
+        }
+
+        public Builder platform(String platform) {
+            this.platform = platform;
+            return this;
+        }
+
+        /**
+         * Add a tag. The key is always interned; pass {@code internValue} for low-cardinality values.
+         */
+        public Builder tag(String key, String value, boolean internValue) {
+            if (key != null && value != null) {
+                tags.add(VALUES.intern(key));
+                tags.add(internValue ? VALUES.intern(value) : value);
+            }
+            return this;
+        }
+
+        /**
+         * Add a low-cardinality property that has no typed field. Keys and values are interned.
+         */
+        public Builder property(String key, String value) {
+            return property(key, value, true);
+        }
+
+        /**
+         * Add a property that has no typed field. The key is always interned.
+         */
+        public Builder property(String key, String value, boolean internValue) {
+            if (key != null && value != null) {
+                properties.add(VALUES.intern(key));
+                properties.add(internValue ? VALUES.intern(value) : value);
+            }
+            return this;
+        }
+
+        public CompactCloudResource build() {
+            return new CompactCloudResource(this);
+        }
+    }
+}
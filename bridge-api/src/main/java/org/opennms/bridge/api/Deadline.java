@@ -0,0 +1,166 @@
+package org.opennms.bridge.api;
+
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Point in time by which a unit of work, such as one collection or discovery run, must finish.
+ * The deadline of the running task is bound to its thread with {@link #enter()}, so client code deep in the call
+ * stack can bound its own request timeouts by the time that remains.
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    // Client library timeouts that do not extend a JDK timeout type
+    private static final Set<Class<? extends Throwable>> TIMEOUT_TYPES = new CopyOnWriteArraySet<>();
+
+    private final long expiresAtMillis;
+
+    private Deadline(long expiresAtMillis) {
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    /**
+     * Create a deadline a given time from now.
+     *
+     * @param timeout time allowed
+     * @return the deadline
+     */
+    public static Deadline after(Duration timeout) {
+        return new Deadline(System.currentTimeMillis() + Math.max(0, timeout.toMillis()));
+    }
+
+    /**
+     * Get the deadline bound to the current thread.
+     *
+     * @return the deadline, or null if the thread runs without one
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Bound a timeout by the current thread's deadline.
+     *
+     * @param timeout the timeout used without a deadline
+     * @return the smaller of the timeout and the time remaining
+     * @throws ExceededException if the current deadline has already passed
+     */
+    public static Duration limit(Duration timeout) {
+        Deadline deadline = current();
+        if (deadline == null) {
+            return timeout;
+        }
+        Duration remaining = deadline.check();
+        return remaining.compareTo(timeout) < 0 ? remaining : timeout;
+    }
+
+    /**
+     * Check whether an exception, or one of its causes, is a timeout.
+     * Socket and connect timeouts are {@link InterruptedIOException}s; timeouts of client libraries outside the JDK
+     * are recognized once registered with {@link #registerTimeoutType(Class)}.
+     */
+    public static boolean isTimeout(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof ExceededException || t instanceof TimeoutException || t instanceof InterruptedIOException) {
+                return true;
+            }
+            for (Class<? extends Throwable> type : TIMEOUT_TYPES) {
+                if (type.isInstance(t)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Have {@link #isTimeout(Throwable)} recognize a client library's timeout exception, and its subclasses.
+     *
+     * @param type the exception type
+     */
+    public static void registerTimeoutType(Class<? extends Throwable> type) {
+        TIMEOUT_TYPES.add(type);
+    }
+
+    /**
+     * Bind this deadline to the current thread until the returned scope is closed.
+     *
+     * @return the scope, restoring the previous deadline on close
+     */
+    public Scope enter() {
+        Scope scope = new Scope(CURRENT.get());
+        CURRENT.set(this);
+        return scope;
+    }
+
+    public Instant getExpiry() {
+        return Instant.ofEpochMilli(expiresAtMillis);
+    }
+
+    /**
+     * Get the time left before the deadline.
+     *
+     * @return the remaining time, zero once expired
+     */
+    public Duration remaining() {
+        return Duration.ofMillis(Math.max(0, expiresAtMillis - System.currentTimeMillis()));
+    }
+
+    public boolean isExpired() {
+        return System.currentTimeMillis() >= expiresAtMillis;
+    }
+
+    /**
+     * Fail if the deadline has passed.
+     *
+     * @return the remaining time
+     * @throws ExceededException if the deadline has passed
+     */
+    public Duration check() {
+        Duration remaining = remaining();
+        if (remaining.isZero()) {
+            throw new ExceededException("Deadline " + getExpiry() + " exceeded");
+        }
+        return remaining;
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline{" + getExpiry() + '}';
+    }
+
+    /**
+     * Binding of a deadline to a thread.
+     */
+    public static final class Scope implements AutoCloseable {
+        private final Deadline previous;
+
+        private Scope(Deadline previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * Thrown when work runs past its deadline.
+     */
+    public static class ExceededException extends RuntimeException {
+        public ExceededException(String message) {
+            super(message);
+        }
+    }
+}
@@ -33,6 +33,18 @@ public interface DiscoveryLogService {
      */
     List<Map<String, Object>> getProviderLogs(String providerId);
     
+    /**
+     * Query discovery logs for a provider with level, action and time filters.
+     * Results are returned newest first and paged with a cursor.
+     * 
+     * @param providerId the provider ID
+     * @param query the filter and paging parameters
+     * @return the matching page of log entries
+     */
+    default LogPage queryLogs(String providerId, LogQuery query) {
+        return LogPage.fromMaps(getProviderLogs(providerId), query);
+    }
+    
     /**
      * Get discovered resources for a provider
      * 
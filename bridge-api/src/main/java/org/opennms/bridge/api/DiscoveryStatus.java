@@ -15,6 +15,7 @@ public class DiscoveryStatus {
         RUNNING,
         COMPLETED,
         FAILED,
+        TIMED_OUT,
         DISABLED
     }
     
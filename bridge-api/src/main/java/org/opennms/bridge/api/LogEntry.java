@@ -0,0 +1,171 @@
+package org.opennms.bridge.api;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable discovery or collection log entry.
+ * Common fields are stored as typed fields; anything else is kept in a small detail map.
+ */
+public final class LogEntry {
+
+    public enum Level {
+        DEBUG,
+        INFO,
+        WARN,
+        ERROR;
+
+        /**
+         * Parse a level name, falling back to INFO for unknown values.
+         *
+         * @param name level name (case-insensitive)
+         * @return the level
+         */
+        public static Level parse(String name) {
+            if (name == null) {
+                return INFO;
+            }
+            switch (name.trim().toUpperCase(Locale.ROOT)) {
+                case "DEBUG":
+                case "TRACE":
+                    return DEBUG;
+                case "WARN":
+                case "WARNING":
+                    return WARN;
+                case "ERROR":
+                    return ERROR;
+                default:
+                    return INFO;
+            }
+        }
+    }
+
+    private final long sequence;
+    private final long timestamp;
+    private final Level level;
+    private final String action;
+    private final String region;
+    private final String resourceId;
+    private final String message;
+    private final Map<String, Object> details;
+
+    public LogEntry(long sequence, long timestamp, Level level, String action, String region,
+                    String resourceId, String message, Map<String, Object> details) {
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.level = level != null ? level : Level.INFO;
+        this.action = action;
+        this.region = region;
+        this.resourceId = resourceId;
+        this.message = message;
+        this.details = details == null || details.isEmpty()
+                ? Collections.emptyMap()
+                : Collections.unmodifiableMap(details);
+    }
+
+    /**
+     * Build an entry from a legacy map-based log entry.
+     * Well-known keys become typed fields; the remaining keys are kept as details.
+     *
+     * @param sequence the sequence number assigned by the log store
+     * @param logEntry the map-based log entry
+     * @return the typed entry
+     */
+    public static LogEntry fromMap(long sequence, Map<String, Object> logEntry) {
+        Map<String, Object> details = new HashMap<>(logEntry);
+        details.remove("sequence");
+        long timestamp = toEpochMillis(details.remove("timestamp"));
+        Object levelValue = details.remove("level");
+        String action = asString(details.remove("action"));
+        String region = asString(details.remove("region"));
+        String message = asString(details.remove("message"));
+        String resourceId = asString(details.remove("resourceId"));
+
+        Level level;
+        if (levelValue != null) {
+            level = Level.parse(levelValue.toString());
+        } else if (details.containsKey("error") || (action != null && action.endsWith("_error"))) {
+            level = Level.ERROR;
+        } else {
+            level = Level.INFO;
+        }
+        return new LogEntry(sequence, timestamp, level, action, region, resourceId, message, details);
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public String getResourceId() {
+        return resourceId;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public Map<String, Object> getDetails() {
+        return details;
+    }
+
+    /**
+     * Convert to the map representation used by the REST API.
+     *
+     * @return map of entry fields
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>(details);
+        map.put("sequence", sequence);
+        map.put("timestamp", new Date(timestamp));
+        map.put("level", level.name());
+        if (action != null) {
+            map.put("action", action);
+        }
+        if (region != null) {
+            map.put("region", region);
+        }
+        if (resourceId != null) {
+            map.put("resourceId", resourceId);
+        }
+        if (message != null) {
+            map.put("message", message);
+        }
+        return map;
+    }
+
+    private static long toEpochMillis(Object value) {
+        if (value instanceof Date) {
+            return ((Date) value).getTime();
+        } else if (value instanceof Instant) {
+            return ((Instant) value).toEpochMilli();
+        } else if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        return System.currentTimeMillis();
+    }
+
+    private static String asString(Object value) {
+        return value != null ? value.toString() : null;
+    }
+}
@@ -0,0 +1,85 @@
+package org.opennms.bridge.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of log entries, newest first.
+ */
+public class LogPage {
+
+    private final List<LogEntry> entries;
+    private final Long nextCursor;
+
+    public LogPage(List<LogEntry> entries, Long nextCursor) {
+        this.entries = entries != null ? entries : Collections.emptyList();
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Page through map-based log entries stored oldest first.
+     * Used by log services that do not keep typed entries. An entry's {@code sequence} value is its cursor, so
+     * paging stays stable while older entries are trimmed; entries without one fall back to their list position.
+     *
+     * @param providerLogs the log entries, oldest first
+     * @param query the filter and paging parameters
+     * @return the matching page
+     */
+    public static LogPage fromMaps(List<Map<String, Object>> providerLogs, LogQuery query) {
+        List<Map<String, Object>> logs = providerLogs != null ? new ArrayList<>(providerLogs) : Collections.emptyList();
+        List<LogEntry> page = new ArrayList<>();
+        for (int i = logs.size() - 1; i >= 0; i--) {
+            Map<String, Object> log = logs.get(i);
+            if (log == null) {
+                continue;
+            }
+            Object sequenceValue = log.get("sequence");
+            long sequence = sequenceValue instanceof Number ? ((Number) sequenceValue).longValue() : i + 1;
+            if (query.getCursor() != null && sequence >= query.getCursor()) {
+                continue;
+            }
+            LogEntry entry = LogEntry.fromMap(sequence, log);
+            if (!query.matches(entry)) {
+                continue;
+            }
+            if (page.size() == query.getLimit()) {
+                return new LogPage(page, page.get(page.size() - 1).getSequence());
+            }
+            page.add(entry);
+        }
+        return new LogPage(page, null);
+    }
+
+    public List<LogEntry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Get the cursor for the next (older) page.
+     *
+     * @return the cursor, or null if there are no more entries
+     */
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Convert to the map representation used by the REST API.
+     *
+     * @return map with the entries and the next cursor
+     */
+    public Map<String, Object> toMap() {
+        List<Map<String, Object>> logs = new ArrayList<>(entries.size());
+        for (LogEntry entry : entries) {
+            logs.add(entry.toMap());
+        }
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("logs", logs);
+        map.put("count", logs.size());
+        map.put("nextCursor", nextCursor);
+        return map;
+    }
+}
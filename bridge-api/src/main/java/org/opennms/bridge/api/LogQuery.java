@@ -0,0 +1,121 @@
+package org.opennms.bridge.api;
+
+import java.time.Instant;
+
+/**
+ * Filter and paging parameters for reading log entries.
+ * Pages are returned newest first; the cursor is the sequence number to continue before.
+ */
+public class LogQuery {
+
+    public static final int DEFAULT_LIMIT = 100;
+
+    private LogEntry.Level minLevel;
+    private String action;
+    private Instant since;
+    private Instant until;
+    private Long cursor;
+    private int limit = DEFAULT_LIMIT;
+
+    /**
+     * Build a query from request parameters. Times are ISO-8601 instants; null parameters are ignored.
+     *
+     * @param level minimum level
+     * @param action action to match
+     * @param since earliest timestamp
+     * @param until latest timestamp
+     * @param cursor cursor returned with the previous page
+     * @param limit maximum number of entries
+     * @return the query
+     * @throws java.time.format.DateTimeParseException if a time cannot be parsed
+     */
+    public static LogQuery fromParameters(String level, String action, String since, String until,
+                                          Long cursor, Integer limit) {
+        LogQuery query = new LogQuery()
+                .setMinLevel(level != null && !level.isEmpty() ? LogEntry.Level.parse(level) : null)
+                .setAction(action != null && !action.isEmpty() ? action : null)
+                .setSince(since != null && !since.isEmpty() ? Instant.parse(since) : null)
+                .setUntil(until != null && !until.isEmpty() ? Instant.parse(until) : null)
+                .setCursor(cursor);
+        if (limit != null) {
+            query.setLimit(limit);
+        }
+        return query;
+    }
+
+    public LogEntry.Level getMinLevel() {
+        return minLevel;
+    }
+
+    public LogQuery setMinLevel(LogEntry.Level minLevel) {
+        this.minLevel = minLevel;
+        return this;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public LogQuery setAction(String action) {
+        this.action = action;
+        return this;
+    }
+
+    public Instant getSince() {
+        return since;
+    }
+
+    public LogQuery setSince(Instant since) {
+        this.since = since;
+        return this;
+    }
+
+    public Instant getUntil() {
+        return until;
+    }
+
+    public LogQuery setUntil(Instant until) {
+        this.until = until;
+        return this;
+    }
+
+    public Long getCursor() {
+        return cursor;
+    }
+
+    public LogQuery setCursor(Long cursor) {
+        this.cursor = cursor;
+        return this;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public LogQuery setLimit(int limit) {
+        this.limit = limit > 0 ? limit : DEFAULT_LIMIT;
+        return this;
+    }
+
+    /**
+     * Check whether an entry passes the level, action and time filters.
+     *
+     * @param entry the log entry
+     * @return true if the entry matches
+     */
+    public boolean matches(LogEntry entry) {
+        if (minLevel != null && entry.getLevel().compareTo(minLevel) < 0) {
+            return false;
+        }
+        if (action != null && !action.equals(entry.getAction())) {
+            return false;
+        }
+        if (since != null && entry.getTimestamp() < since.toEpochMilli()) {
+            return false;
+        }
+        if (until != null && entry.getTimestamp() > until.toEpochMilli()) {
+            return false;
+        }
+        return true;
+    }
+}
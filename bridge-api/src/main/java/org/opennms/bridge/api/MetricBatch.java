@@ -0,0 +1,371 @@
+package org.opennms.bridge.api;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Columnar batch of metric samples.
+ * Each sample is a series ID, an epoch-millisecond timestamp and a value held in parallel primitive arrays;
+ * the metric name and tags are stored once per series and shared by all of its samples.
+ */
+public final class MetricBatch {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private String resourceId;
+    private Instant timestamp;
+    private Map<String, String> tags;
+
+    private final List<String> seriesNames = new ArrayList<>();
+    private final List<Map<String, String>> seriesTags = new ArrayList<>();
+    private final List<SeriesKey> seriesKeys = new ArrayList<>();
+    private int[] dictionaryIds = new int[INITIAL_CAPACITY];
+    private final Map<SeriesSignature, Integer> seriesIndex = new HashMap<>();
+
+    private int[] seriesIds;
+    private long[] timestamps;
+    private double[] values;
+    private int size;
+
+    // Run once the samples have been delivered downstream; guarded by this
+    private List<Runnable> deliveryActions;
+    private boolean delivered;
+
+    public MetricBatch(String resourceId) {
+        this(resourceId, INITIAL_CAPACITY);
+    }
+
+    public MetricBatch(String resourceId, int expectedSamples) {
+        this.resourceId = resourceId;
+        this.timestamp = Instant.now();
+        this.tags = new HashMap<>();
+        int capacity = Math.max(1, expectedSamples);
+        this.seriesIds = new int[capacity];
+        this.timestamps = new long[capacity];
+        this.values = new double[capacity];
+    }
+
+    /**
+     * Build a batch from a metric collection.
+     * A per-metric "timestamp" tag, if present, becomes the sample timestamp; the remaining tags form the series.
+     *
+     * @param collection the metric collection
+     * @return the batch
+     */
+    public static MetricBatch fromCollection(MetricCollection collection) {
+        MetricBatch batch = new MetricBatch(collection.getResourceId(), collection.getMetrics().size());
+        batch.setTimestamp(collection.getTimestamp());
+        batch.getTags().putAll(collection.getTags());
+        long defaultTimestamp = collection.getTimestamp() != null
+                ? collection.getTimestamp().toEpochMilli()
+                : System.currentTimeMillis();
+
+        for (MetricCollection.Metric metric : collection.getMetrics()) {
+            Map<String, String> metricTags = metric.getTags();
+            long sampleTimestamp = defaultTimestamp;
+            String timestampTag = metricTags.get("timestamp");
+            if (timestampTag != null) {
+                try {
+                    sampleTimestamp = Instant.parse(timestampTag).toEpochMilli();
+                } catch (DateTimeParseException e) {
+                    // Keep the collection timestamp
+                }
+                metricTags = new HashMap<>(metricTags);
+                metricTags.remove("timestamp");
+            }
+            batch.add(batch.series(metric.getName(), metricTags), sampleTimestamp, metric.getValue());
+        }
+        return batch;
+    }
+
+    /**
+     * Convert to a metric collection for consumers of the map-based API.
+     * Each sample becomes a metric carrying its series tags and an ISO-8601 "timestamp" tag.
+     *
+     * @return the metric collection
+     */
+    public MetricCollection toCollection() {
+        MetricCollection collection = new MetricCollection(resourceId);
+        collection.setTimestamp(timestamp);
+        collection.setTags(new HashMap<>(tags));
+        List<MetricCollection.Metric> metrics = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            MetricCollection.Metric metric = new MetricCollection.Metric(seriesNames.get(seriesIds[i]), values[i]);
+            Map<String, String> metricTags = new HashMap<>(seriesTags.get(seriesIds[i]));
+            metricTags.put("timestamp", Instant.ofEpochMilli(timestamps[i]).toString());
+            metric.setTags(metricTags);
+            metrics.add(metric);
+        }
+        collection.setMetrics(metrics);
+        return collection;
+    }
+
+    /**
+     * Get or register the series for a metric name and tag set.
+     *
+     * @param name       metric name
+     * @param seriesTags tags shared by all samples of the series
+     * @return the series ID
+     */
+    public int series(String name, Map<String, String> seriesTags) {
+        return register(name, seriesTags, null, -1);
+    }
+
+    /**
+     * Get or register the series for a series key; the series name is derived from the key.
+     *
+     * @param key        provider, resource, namespace, metric and statistic of the series
+     * @param seriesTags tags shared by all samples of the series
+     * @return the series ID
+     */
+    public int series(SeriesKey key, Map<String, String> seriesTags) {
+        return register(key.getSeriesName(), seriesTags, key, -1);
+    }
+
+    /**
+     * Get or register the series for a series key and its {@link SeriesDictionary} ID.
+     *
+     * @param key          provider, resource, namespace, metric and statistic of the series
+     * @param dictionaryId the key's ID in the series dictionary
+     * @param seriesTags   tags shared by all samples of the series
+     * @return the series ID
+     */
+    public int series(SeriesKey key, int dictionaryId, Map<String, String> seriesTags) {
+        return register(key.getSeriesName(), seriesTags, key, dictionaryId);
+    }
+
+    private int register(String name, Map<String, String> seriesTags, SeriesKey key, int dictionaryId) {
+        Map<String, String> lookupTags = seriesTags != null ? seriesTags : Collections.emptyMap();
+        Integer existing = seriesIndex.get(new SeriesSignature(name, lookupTags));
+        if (existing != null) {
+            return existing;
+        }
+        // Only a newly registered series copies its tags
+        Map<String, String> immutableTags = lookupTags.isEmpty()
+                ? Collections.emptyMap()
+                : Collections.unmodifiableMap(new HashMap<>(lookupTags));
+        int seriesId = seriesNames.size();
+        seriesNames.add(name);
+        this.seriesTags.add(immutableTags);
+        seriesKeys.add(key);
+        if (seriesId == dictionaryIds.length) {
+            dictionaryIds = Arrays.copyOf(dictionaryIds, seriesId * 2);
+        }
+        dictionaryIds[seriesId] = dictionaryId;
+        seriesIndex.put(new SeriesSignature(name, immutableTags), seriesId);
+        return seriesId;
+    }
+
+    /**
+     * Append a sample.
+     *
+     * @param seriesId        series ID returned by {@link #series}
+     * @param timestampMillis epoch-millisecond timestamp
+     * @param value           sample value
+     */
+    public void add(int seriesId, long timestampMillis, double value) {
+        if (seriesId < 0 || seriesId >= seriesNames.size()) {
+            throw new IllegalArgumentException("Unknown series ID: " + seriesId);
+        }
+        if (size == values.length) {
+            int capacity = size * 2;
+            seriesIds = Arrays.copyOf(seriesIds, capacity);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        seriesIds[size] = seriesId;
+        timestamps[size] = timestampMillis;
+        values[size] = value;
+        size++;
+    }
+
+    /**
+     * Append all samples of another batch, registering its series in this batch.
+     *
+     * @param other the batch to copy samples from
+     */
+    public void addAll(MetricBatch other) {
+        int[] mapping = new int[other.getSeriesCount()];
+        for (int seriesId = 0; seriesId < mapping.length; seriesId++) {
+            mapping[seriesId] = register(other.seriesNames.get(seriesId), other.seriesTags.get(seriesId),
+                    other.seriesKeys.get(seriesId), other.dictionaryIds[seriesId]);
+        }
+        for (int i = 0; i < other.size; i++) {
+            add(mapping[other.seriesIds[i]], other.timestamps[i], other.values[i]);
+        }
+    }
+
+    /**
+     * Register an action to run once the batch has been delivered downstream, such as advancing the collection
+     * watermarks of its series. The action runs immediately if the batch was already delivered.
+     * Samples of a batch that is never marked delivered are collected again.
+     *
+     * @param action the action
+     */
+    public void onDelivered(Runnable action) {
+        synchronized (this) {
+            if (!delivered) {
+                if (deliveryActions == null) {
+                    deliveryActions = new ArrayList<>();
+                }
+                deliveryActions.add(action);
+                return;
+            }
+        }
+        action.run();
+    }
+
+    /**
+     * Mark the batch delivered and run its delivery actions. Later calls do nothing.
+     */
+    public void markDelivered() {
+        List<Runnable> actions;
+        synchronized (this) {
+            if (delivered) {
+                return;
+            }
+            delivered = true;
+            actions = deliveryActions;
+            deliveryActions = null;
+        }
+        if (actions != null) {
+            actions.forEach(Runnable::run);
+        }
+    }
+
+    public synchronized boolean isDelivered() {
+        return delivered;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getSeriesCount() {
+        return seriesNames.size();
+    }
+
+    public String getSeriesName(int seriesId) {
+        return seriesNames.get(seriesId);
+    }
+
+    public Map<String, String> getSeriesTags(int seriesId) {
+        return seriesTags.get(seriesId);
+    }
+
+    /**
+     * Get the series key, if the series was registered with one.
+     *
+     * @param seriesId series ID
+     * @return the series key, or null
+     */
+    public SeriesKey getSeriesKey(int seriesId) {
+        return seriesKeys.get(seriesId);
+    }
+
+    /**
+     * Get the series' ID in the series dictionary, stable across batches and restarts.
+     *
+     * @param seriesId series ID
+     * @return the dictionary ID, or -1 if the series was registered without one
+     */
+    public int getDictionaryId(int seriesId) {
+        if (seriesId < 0 || seriesId >= seriesNames.size()) {
+            throw new IndexOutOfBoundsException("Unknown series ID: " + seriesId);
+        }
+        return dictionaryIds[seriesId];
+    }
+
+    public int getSeriesId(int index) {
+        checkIndex(index);
+        return seriesIds[index];
+    }
+
+    public long getTimestamp(int index) {
+        checkIndex(index);
+        return timestamps[index];
+    }
+
+    public double getValue(int index) {
+        checkIndex(index);
+        return values[index];
+    }
+
+    public String getResourceId() {
+        return resourceId;
+    }
+
+    public void setResourceId(String resourceId) {
+        this.resourceId = resourceId;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Instant timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public Map<String, String> getTags() {
+        return tags;
+    }
+
+    public void addTag(String key, String value) {
+        this.tags.put(key, value);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "MetricBatch{" +
+                "resourceId='" + resourceId + '\'' +
+                ", series=" + seriesNames.size() +
+                ", samples=" + size +
+                '}';
+    }
+
+    /**
+     * Identity of a series: metric name plus tag set.
+     */
+    private static final class SeriesSignature {
+        private final String name;
+        private final Map<String, String> tags;
+        private final int hash;
+
+        SeriesSignature(String name, Map<String, String> tags) {
+            this.name = name;
+            this.tags = tags;
+            this.hash = Objects.hash(name, tags);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof SeriesSignature)) return false;
+            SeriesSignature that = (SeriesSignature) o;
+            return Objects.equals(name, that.name) && tags.equals(that.tags);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package org.opennms.bridge.api;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Concurrent dictionary of metric series.
+ * Maps (provider, resource, namespace, metric, statistic) to a dense int ID, so stages downstream of collection can
+ * hash, deduplicate, cache and batch on primitive keys. Lookups of known series are lock-free; new series are
+ * registered under a lock with their names interned. IDs of this class last for the life of the instance;
+ * a subclass persists them through {@link #onRegistered} and {@link #restore}.
+ */
+public class SeriesDictionary {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ValueDictionary names = new ValueDictionary(100_000);
+    private final Map<SeriesKey, Integer> ids = new ConcurrentHashMap<>();
+    private final Object registrationLock = new Object();
+
+    // Replaced on every registration; the volatile write publishes the key stored into it before
+    private volatile SeriesKey[] keys = new SeriesKey[INITIAL_CAPACITY];
+    private int nextId;
+
+    /**
+     * Get the ID of a series, registering it if it is new.
+     *
+     * @param key the series key
+     * @return the series ID
+     */
+    public int getId(SeriesKey key) {
+        Integer id = ids.get(key);
+        if (id != null) {
+            return id;
+        }
+        synchronized (registrationLock) {
+            id = ids.get(key);
+            if (id != null) {
+                return id;
+            }
+            SeriesKey canonical = canonical(key);
+            int newId = nextId;
+            store(newId, canonical);
+            onRegistered(newId, canonical);
+            return newId;
+        }
+    }
+
+    /**
+     * Look up the key of a series ID.
+     *
+     * @param id the series ID
+     * @return the series key, or null if the ID is unknown
+     */
+    public SeriesKey getKey(int id) {
+        SeriesKey[] current = keys;
+        return id >= 0 && id < current.length ? current[id] : null;
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+    /**
+     * Called under the registration lock once a new series has its ID, e.g. to persist it.
+     *
+     * @param id  the new series ID
+     * @param key the series key
+     */
+    protected void onRegistered(int id, SeriesKey key) {
+    }
+
+    /**
+     * Register a series with an ID assigned earlier, e.g. by a previous run.
+     * Series already known, and IDs already taken, are left as they are.
+     *
+     * @param id  the series ID
+     * @param key the series key
+     * @return true if the series was restored
+     */
+    protected boolean restore(int id, SeriesKey key) {
+        synchronized (registrationLock) {
+            if (id < 0 || ids.containsKey(key) || getKey(id) != null) {
+                return false;
+            }
+            store(id, canonical(key));
+            return true;
+        }
+    }
+
+    private SeriesKey canonical(SeriesKey key) {
+        return new SeriesKey(names.intern(key.getProviderId()), key.getResourceId(),
+                names.intern(key.getNamespace()), names.intern(key.getMetric()), names.intern(key.getStatistic()));
+    }
+
+    private void store(int id, SeriesKey key) {
+        SeriesKey[] current = keys;
+        SeriesKey[] next = id < current.length ? current : Arrays.copyOf(current, Math.max(current.length * 2, id + 1));
+        next[id] = key;
+        keys = next;
+        // The ID becomes visible through the map only after the reverse entry is published
+        ids.put(key, id);
+        nextId = Math.max(nextId, id + 1);
+    }
+}
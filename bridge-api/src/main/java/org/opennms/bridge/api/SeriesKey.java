@@ -0,0 +1,78 @@
+package org.opennms.bridge.api;
+
+import java.util.Objects;
+
+/**
+ * Identity of a metric series: provider, resource, namespace, metric and statistic.
+ * The hash code is precomputed so the key is cheap to use in maps and dictionaries.
+ */
+public final class SeriesKey {
+
+    private final String providerId;
+    private final String resourceId;
+    private final String namespace;
+    private final String metric;
+    private final String statistic;
+    private final int hash;
+
+    public SeriesKey(String providerId, String resourceId, String namespace, String metric, String statistic) {
+        this.providerId = providerId != null ? providerId : "";
+        this.resourceId = resourceId != null ? resourceId : "";
+        this.namespace = namespace != null ? namespace : "";
+        this.metric = Objects.requireNonNull(metric, "metric");
+        this.statistic = statistic != null ? statistic : "";
+        this.hash = Objects.hash(this.providerId, this.resourceId, this.namespace, this.metric, this.statistic);
+    }
+
+    public String getProviderId() {
+        return providerId;
+    }
+
+    public String getResourceId() {
+        return resourceId;
+    }
+
+    public String getNamespace() {
+        return namespace;
+    }
+
+    public String getMetric() {
+        return metric;
+    }
+
+    public String getStatistic() {
+        return statistic;
+    }
+
+    /**
+     * Get the series name used in measurements, e.g. {@code CPUUtilization.Average}.
+     *
+     * @return the series name
+     */
+    public String getSeriesName() {
+        return statistic.isEmpty() ? metric : metric + "." + statistic;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SeriesKey)) return false;
+        SeriesKey that = (SeriesKey) o;
+        return hash == that.hash
+                && metric.equals(that.metric)
+                && resourceId.equals(that.resourceId)
+                && statistic.equals(that.statistic)
+                && namespace.equals(that.namespace)
+                && providerId.equals(that.providerId);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return providerId + "/" + resourceId + "/" + namespace + "/" + getSeriesName();
+    }
+}
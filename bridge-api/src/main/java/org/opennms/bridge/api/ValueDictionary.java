@@ -0,0 +1,49 @@
+package org.opennms.bridge.api;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Dictionary of canonical string instances for low-cardinality values such as regions,
+ * availability zones, states, instance types and tag keys.
+ * Equal values share one instance, so large inventories do not hold a copy per resource.
+ * Entries are weak: a value nothing refers to any more, e.g. of a terminated instance, is released by the
+ * garbage collector, so the dictionary follows the current inventory instead of every value ever seen.
+ * The dictionary stops growing at its capacity; values beyond that are returned as-is.
+ */
+public class ValueDictionary {
+
+    private final int capacity;
+    private final Map<String, WeakReference<String>> values = new WeakHashMap<>();
+
+    public ValueDictionary(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Get the canonical instance of a value.
+     *
+     * @param value the value, may be null
+     * @return the canonical instance, or the value itself if the dictionary is full
+     */
+    public synchronized String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        WeakReference<String> reference = values.get(value);
+        String canonical = reference != null ? reference.get() : null;
+        if (canonical != null) {
+            return canonical;
+        }
+        if (values.size() >= capacity) {
+            return value;
+        }
+        values.put(value, new WeakReference<>(value));
+        return value;
+    }
+
+    public synchronized int size() {
+        return values.size();
+    }
+}
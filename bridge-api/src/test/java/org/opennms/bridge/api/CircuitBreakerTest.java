@@ -0,0 +1,71 @@
+package org.opennms.bridge.api;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+    @Test
+    void opensWhenFailureRateReached() {
+        CircuitBreaker breaker = new CircuitBreaker(4, 4, 50, 10_000, 100, 60_000, 1);
+        breaker.onSuccess(1);
+        breaker.onFailure(1, new IllegalStateException("down"));
+        breaker.onSuccess(1);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        breaker.onFailure(1, new IllegalStateException("down"));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+        assertEquals("down", breaker.toMap().get("lastFailure"));
+    }
+
+    @Test
+    void opensWhenSlowCallRateReached() {
+        CircuitBreaker breaker = new CircuitBreaker(2, 2, 100, 100, 100, 60_000, 1);
+        breaker.onSuccess(500);
+        breaker.onSuccess(500);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void closesAfterSuccessfulProbes() {
+        CircuitBreaker breaker = new CircuitBreaker(1, 1, 100, 10_000, 100, 0, 2);
+        breaker.onFailure(1, null);
+
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+        breaker.onSuccess(1);
+        breaker.onSuccess(1);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void releasedProbeIsIssuedAgain() {
+        CircuitBreaker breaker = new CircuitBreaker(1, 1, 100, 10_000, 100, 0, 1);
+        breaker.onFailure(1, null);
+
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+
+        // A probe cut short by the caller's deadline neither closes nor reopens the breaker
+        breaker.release();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+        breaker.onSuccess(1);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void releaseWhileClosedRecordsNothing() {
+        CircuitBreaker breaker = new CircuitBreaker(1, 1, 100, 10_000, 100, 60_000, 1);
+        assertTrue(breaker.tryAcquire());
+        breaker.release();
+        assertEquals(0, breaker.toMap().get("calls"));
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+}
@@ -0,0 +1,83 @@
+package org.opennms.bridge.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class CompactCloudResourceTest {
+
+    @Test
+    void propertiesMatchRegularResource() {
+        CompactCloudResource resource = resource();
+
+        Map<String, Object> properties = new HashMap<>(resource.getProperties());
+        assertEquals("aws", properties.get("providerId"));
+        assertEquals("i-1", properties.get("instanceId"));
+        assertEquals("10.0.0.1", properties.get("address"));
+        assertEquals("10.0.0.1", properties.get("privateIpAddress"));
+        assertEquals("ec2-instance", properties.get("resourceType"));
+        // Unset fields are left out, and an extra property never shadows a typed one
+        assertFalse(properties.containsKey("publicAddress"));
+        assertEquals("us-east-1", properties.get("region"));
+        assertEquals(properties.size(), resource.getProperties().size());
+        assertEquals(properties, resource.getProperties());
+        assertSame(resource.getProperties().entrySet(), resource.getProperties().entrySet());
+    }
+
+    @Test
+    void copiesOnWrite() {
+        CompactCloudResource resource = resource();
+        resource.addTag("team", "core");
+        resource.addProperty("providerId", "aws-2");
+        resource.setName("renamed");
+
+        assertEquals("core", resource.getTags().get("team"));
+        assertEquals("web", resource.getTags().get("Name"));
+        assertEquals("aws-2", resource.getProviderId());
+        assertEquals("t3.micro", resource.getInstanceType());
+        assertEquals("ec2-instance", resource.getProperties().get("resourceType"));
+        assertEquals("renamed", resource.getName());
+
+        resource.setProperties(null);
+        assertNull(resource.getProviderId());
+        assertEquals(0, resource.getProperties().size());
+    }
+
+    @Test
+    void rehashesOnNewId() {
+        CompactCloudResource resource = resource();
+        resource.setId("i-2");
+        assertEquals(new CloudResource("i-2", "other", "EC2", "us-east-1").hashCode(), resource.hashCode());
+    }
+
+    @Test
+    void dictionarySharesEqualValues() {
+        ValueDictionary dictionary = new ValueDictionary(2);
+        String zone = new String("us-east-1a");
+        assertSame(zone, dictionary.intern(zone));
+        assertSame(zone, dictionary.intern(new String("us-east-1a")));
+        dictionary.intern("us-east-1b");
+        String full = new String("us-east-1c");
+        assertSame(full, dictionary.intern(full));
+        assertEquals(2, dictionary.size());
+    }
+
+    private static CompactCloudResource resource() {
+        return CompactCloudResource.builder("i-1", "EC2", "us-east-1")
+                .name("web")
+                .status("running")
+                .providerId("aws")
+                .instanceType("t3.micro")
+                .privateAddress("10.0.0.1")
+                .property("resourceType", "ec2-instance")
+                .property("region", "shadowed")
+                .tag("Name", "web", false)
+                .build();
+    }
+}
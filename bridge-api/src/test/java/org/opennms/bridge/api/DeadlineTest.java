@@ -0,0 +1,59 @@
+package org.opennms.bridge.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeadlineTest {
+
+    @Test
+    void recognizesTimeoutsAmongCauses() {
+        assertTrue(Deadline.isTimeout(new Deadline.ExceededException("late")));
+        assertTrue(Deadline.isTimeout(new IllegalStateException(new TimeoutException())));
+        assertTrue(Deadline.isTimeout(new RuntimeException(new SocketTimeoutException("read timed out"))));
+        assertFalse(Deadline.isTimeout(new IllegalStateException("refused")));
+    }
+
+    @Test
+    void recognizesOnlyRegisteredLibraryTimeouts() {
+        assertFalse(Deadline.isTimeout(new TimeoutLookalikeException()));
+        assertFalse(Deadline.isTimeout(new RuntimeException(new LibraryTimeoutException())));
+
+        Deadline.registerTimeoutType(LibraryTimeoutException.class);
+        assertTrue(Deadline.isTimeout(new RuntimeException(new LibraryTimeoutException())));
+        assertFalse(Deadline.isTimeout(new TimeoutLookalikeException()));
+    }
+
+    @Test
+    void limitsTimeoutsWhileEntered() {
+        assertNull(Deadline.current());
+        assertEquals(Duration.ofSeconds(5), Deadline.limit(Duration.ofSeconds(5)));
+
+        Deadline deadline = Deadline.after(Duration.ofMinutes(1));
+        try (Deadline.Scope scope = deadline.enter()) {
+            assertSame(deadline, Deadline.current());
+            assertEquals(Duration.ofSeconds(5), Deadline.limit(Duration.ofSeconds(5)));
+            assertTrue(Deadline.limit(Duration.ofHours(1)).compareTo(Duration.ofMinutes(1)) <= 0);
+        }
+        assertNull(Deadline.current());
+
+        try (Deadline.Scope scope = Deadline.after(Duration.ZERO).enter()) {
+            assertThrows(Deadline.ExceededException.class, () -> Deadline.limit(Duration.ofSeconds(5)));
+        }
+    }
+
+    private static final class TimeoutLookalikeException extends RuntimeException {
+    }
+
+    private static final class LibraryTimeoutException extends RuntimeException {
+    }
+}
@@ -0,0 +1,70 @@
+package org.opennms.bridge.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LogPageTest {
+
+    @Test
+    void pagesNewestFirst() {
+        List<Map<String, Object>> logs = logs(1, 5);
+
+        LogPage first = LogPage.fromMaps(logs, new LogQuery().setLimit(2));
+        assertEquals(List.of(5L, 4L), sequences(first));
+        assertEquals(Long.valueOf(4), first.getNextCursor());
+
+        LogPage second = LogPage.fromMaps(logs, new LogQuery().setLimit(2).setCursor(first.getNextCursor()));
+        assertEquals(List.of(3L, 2L), sequences(second));
+
+        LogPage last = LogPage.fromMaps(logs, new LogQuery().setLimit(2).setCursor(second.getNextCursor()));
+        assertEquals(List.of(1L), sequences(last));
+        assertNull(last.getNextCursor());
+    }
+
+    @Test
+    void cursorSurvivesTrimmedEntries() {
+        List<Map<String, Object>> logs = logs(1, 6);
+        LogPage first = LogPage.fromMaps(logs, new LogQuery().setLimit(2));
+
+        // The two oldest entries are dropped and two new ones appended between page reads
+        logs.subList(0, 2).clear();
+        logs.addAll(logs(7, 8));
+
+        LogPage second = LogPage.fromMaps(logs, new LogQuery().setLimit(2).setCursor(first.getNextCursor()));
+        assertEquals(List.of(4L, 3L), sequences(second));
+    }
+
+    @Test
+    void sequenceIsNotADetail() {
+        LogPage page = LogPage.fromMaps(logs(1, 1), new LogQuery());
+
+        assertFalse(page.getEntries().get(0).getDetails().containsKey("sequence"));
+    }
+
+    private static List<Map<String, Object>> logs(long from, long to) {
+        List<Map<String, Object>> logs = new ArrayList<>();
+        for (long sequence = from; sequence <= to; sequence++) {
+            Map<String, Object> log = new HashMap<>();
+            log.put("sequence", sequence);
+            log.put("message", "entry " + sequence);
+            logs.add(log);
+        }
+        return logs;
+    }
+
+    private static List<Long> sequences(LogPage page) {
+        List<Long> sequences = new ArrayList<>();
+        for (LogEntry entry : page.getEntries()) {
+            sequences.add(entry.getSequence());
+        }
+        return sequences;
+    }
+}
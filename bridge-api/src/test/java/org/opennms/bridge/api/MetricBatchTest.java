@@ -0,0 +1,59 @@
+package org.opennms.bridge.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricBatchTest {
+
+    @Test
+    void deliveryActionsRunOnce() {
+        MetricBatch batch = new MetricBatch("i-1");
+        AtomicInteger runs = new AtomicInteger();
+        batch.onDelivered(runs::incrementAndGet);
+
+        assertFalse(batch.isDelivered());
+        assertEquals(0, runs.get());
+        batch.markDelivered();
+        batch.markDelivered();
+        assertTrue(batch.isDelivered());
+        assertEquals(1, runs.get());
+
+        // Registered after delivery: runs right away
+        batch.onDelivered(runs::incrementAndGet);
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void addAllRegistersSeriesOfOtherBatch() {
+        MetricBatch first = new MetricBatch("i-1");
+        int cpu = first.series("cpu", Collections.emptyMap());
+        first.add(cpu, 100, 1.0);
+        MetricBatch second = new MetricBatch("i-1");
+        second.add(second.series("cpu", Collections.emptyMap()), 200, 2.0);
+        second.add(second.series("net", Collections.emptyMap()), 200, 3.0);
+
+        first.addAll(second);
+        assertEquals(3, first.size());
+        assertEquals(2, first.getSeriesCount());
+        assertEquals(cpu, first.getSeriesId(1));
+    }
+
+    @Test
+    void addAllKeepsDictionaryIds() {
+        MetricBatch first = new MetricBatch("i-1");
+        first.add(first.series("cpu", Collections.emptyMap()), 100, 1.0);
+        MetricBatch second = new MetricBatch("i-1");
+        SeriesKey key = new SeriesKey("aws", "i-1", "AWS/EC2", "NetworkIn", "Sum");
+        second.add(second.series(key, 7, Collections.emptyMap()), 200, 2.0);
+
+        first.addAll(second);
+        assertEquals(-1, first.getDictionaryId(0));
+        assertEquals(7, first.getDictionaryId(1));
+    }
+}
@@ -0,0 +1,81 @@
+package org.opennms.bridge.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class SeriesDictionaryTest {
+
+    @Test
+    void assignsDenseStableIds() {
+        SeriesDictionary dictionary = new SeriesDictionary();
+        SeriesKey cpu = new SeriesKey("aws", "i-1", "AWS/EC2", "CPUUtilization", "Average");
+        SeriesKey net = new SeriesKey("aws", "i-1", "AWS/EC2", "NetworkIn", "Sum");
+
+        assertEquals(0, dictionary.getId(cpu));
+        assertEquals(1, dictionary.getId(net));
+        assertEquals(0, dictionary.getId(new SeriesKey("aws", "i-1", "AWS/EC2", "CPUUtilization", "Average")));
+        assertEquals(net, dictionary.getKey(1));
+        assertNull(dictionary.getKey(2));
+        assertEquals(2, dictionary.size());
+    }
+
+    @Test
+    void internsNamesAcrossSeries() {
+        SeriesDictionary dictionary = new SeriesDictionary();
+        int first = dictionary.getId(new SeriesKey("aws", "i-1", "AWS/EC2", new String("CPUUtilization"), "Average"));
+        int second = dictionary.getId(new SeriesKey("aws", "i-2", "AWS/EC2", new String("CPUUtilization"), "Average"));
+
+        assertSame(dictionary.getKey(first).getMetric(), dictionary.getKey(second).getMetric());
+    }
+
+    @Test
+    void concurrentRegistrationsGetDistinctResolvableIds() throws Exception {
+        SeriesDictionary dictionary = new SeriesDictionary();
+        int threads = 4;
+        int seriesPerThread = 2000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < seriesPerThread; i++) {
+                        // Every thread registers the same series, racing for each new ID
+                        SeriesKey key = new SeriesKey("aws", "i-" + i, "AWS/EC2", "CPUUtilization", "Average");
+                        if (!key.equals(dictionary.getKey(dictionary.getId(key)))) {
+                            synchronized (errors) {
+                                errors.add(key.toString());
+                            }
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join(10000);
+        }
+
+        assertEquals(List.of(), errors);
+        assertEquals(seriesPerThread, dictionary.size());
+        Set<Integer> ids = new HashSet<>();
+        for (int i = 0; i < seriesPerThread; i++) {
+            ids.add(dictionary.getId(new SeriesKey("aws", "i-" + i, "AWS/EC2", "CPUUtilization", "Average")));
+        }
+        assertEquals(seriesPerThread, ids.size());
+    }
+}
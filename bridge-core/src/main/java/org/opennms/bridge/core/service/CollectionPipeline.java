@@ -0,0 +1,305 @@
+package org.opennms.bridge.core.service;
+
+import org.opennms.bridge.api.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single collection path for all schedules.
+ * Each resource is collected at most once per interval: a schedule asking for a resource that another schedule
+ * collected within its interval gets the same batch. Newly collected batches are fanned out once to the
+ * collection log (UI latest results and logs) and to every {@link CollectionListener}, such as OpenNMS submission.
+ * A batch is marked delivered once a listener delivered it and none failed.
+ */
+@Service
+public class CollectionPipeline {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CollectionPipeline.class);
+
+    // A batch younger than this share of the caller's interval is reused, allowing for scheduling jitter
+    private static final double FRESHNESS_RATIO = 0.9;
+
+    // Batches of resources no schedule has asked for in this long are dropped
+    private static final long RETENTION_MILLIS = Duration.ofHours(24).toMillis();
+
+    @Autowired(required = false)
+    private List<CollectionListener> listeners = Collections.emptyList();
+
+    @Autowired(required = false)
+    private CollectionLogService collectionLogService;
+
+    private final Map<String, Collected> latest = new ConcurrentHashMap<>();
+    // Collections in progress by resource key, joined by concurrent callers instead of collected twice
+    private final Map<String, CompletableFuture<MetricBatch>> inFlight = new ConcurrentHashMap<>();
+
+    // Per-provider rollup of collection, reported instead of a log line per resource
+    private final Map<String, LogRollup> rollups = new ConcurrentHashMap<>();
+
+    private final AtomicLong collected = new AtomicLong();
+    private final AtomicLong reused = new AtomicLong();
+
+    /**
+     * Get each resource's samples for the current interval, collecting only resources without a fresh batch.
+     * Each resource is collected by one caller at a time: a concurrent caller asking for a resource that is being
+     * collected waits for that collection, no longer than its own {@link Deadline}, instead of starting another.
+     * Callers collecting different resources of the same provider run in parallel.
+     * Newly collected batches are published to the listeners on the calling thread once collection is done,
+     * so slow listeners never hold up other schedules of the provider.
+     *
+     * @param provider  the cloud provider
+     * @param resources resources of the provider
+     * @param interval  the caller's collection interval
+     * @return the batches and the per-resource failures
+     */
+    public Cycle collect(CloudProvider provider, Collection<CloudResource> resources, Duration interval) {
+        String providerId = provider.getProviderId();
+        long maxAgeMillis = (long) (interval.toMillis() * FRESHNESS_RATIO);
+        Cycle cycle = new Cycle();
+        List<CloudResource> newlyCollected = new ArrayList<>();
+
+        long now = System.currentTimeMillis();
+        latest.values().removeIf(previous -> now - previous.collectedAtMillis > RETENTION_MILLIS);
+        Map<CloudResource, CompletableFuture<MetricBatch>> owned = new LinkedHashMap<>();
+        Map<CloudResource, CompletableFuture<MetricBatch>> pending = new LinkedHashMap<>();
+        for (CloudResource resource : resources) {
+            String key = key(providerId, resource.getResourceId());
+            Collected previous = latest.get(key);
+            if (previous != null && now - previous.collectedAtMillis < maxAgeMillis) {
+                cycle.batches.put(resource.getResourceId(), previous.batch);
+                cycle.reused++;
+                continue;
+            }
+            CompletableFuture<MetricBatch> claim = new CompletableFuture<>();
+            CompletableFuture<MetricBatch> other = inFlight.putIfAbsent(key, claim);
+            if (other == null) {
+                owned.put(resource, claim);
+            } else {
+                pending.put(resource, other);
+            }
+        }
+
+        try {
+            collectOwned(provider, owned, cycle, newlyCollected);
+        } finally {
+            // Resources not reached before the deadline are released for the next caller
+            owned.forEach((resource, claim) -> release(providerId, resource, claim,
+                    new CancellationException("Collection of resource " + resource.getResourceId() + " abandoned")));
+        }
+        awaitPending(pending, cycle);
+        reused.addAndGet(cycle.reused);
+
+        for (CloudResource resource : newlyCollected) {
+            publish(providerId, resource, cycle.batches.get(resource.getResourceId()));
+        }
+        report(providerId, newlyCollected, cycle);
+        return cycle;
+    }
+
+    /**
+     * Collect the resources this caller claimed, fleet-wide where the provider supports it, then one by one.
+     */
+    private void collectOwned(CloudProvider provider, Map<CloudResource, CompletableFuture<MetricBatch>> owned,
+                              Cycle cycle, List<CloudResource> newlyCollected) {
+        String providerId = provider.getProviderId();
+        Map<String, MetricBatch> prefetched = owned.size() > 1
+                ? provider.collectBatches(owned.keySet())
+                : Collections.emptyMap();
+        for (Map.Entry<CloudResource, CompletableFuture<MetricBatch>> entry : owned.entrySet()) {
+            CloudResource resource = entry.getKey();
+            try {
+                MetricBatch batch = prefetched.get(resource.getResourceId());
+                if (batch == null) {
+                    batch = provider.collectBatch(resource);
+                }
+                latest.put(key(providerId, resource.getResourceId()),
+                        new Collected(batch, System.currentTimeMillis()));
+                release(providerId, resource, entry.getValue(), null);
+                entry.getValue().complete(batch);
+                cycle.batches.put(resource.getResourceId(), batch);
+                collected.incrementAndGet();
+                newlyCollected.add(resource);
+            } catch (Exception e) {
+                release(providerId, resource, entry.getValue(), e);
+                cycle.failures.put(resource.getResourceId(), e);
+                if (isDeadlineExceeded(e)) {
+                    // The rest of the resources cannot be collected in time either
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Wait for resources another caller is collecting, within the current thread's deadline.
+     */
+    private void awaitPending(Map<CloudResource, CompletableFuture<MetricBatch>> pending, Cycle cycle) {
+        Deadline deadline = Deadline.current();
+        for (Map.Entry<CloudResource, CompletableFuture<MetricBatch>> entry : pending.entrySet()) {
+            String resourceId = entry.getKey().getResourceId();
+            try {
+                MetricBatch batch = deadline != null
+                        ? entry.getValue().get(deadline.remaining().toMillis(), TimeUnit.MILLISECONDS)
+                        : entry.getValue().get();
+                cycle.batches.put(resourceId, batch);
+                cycle.reused++;
+            } catch (ExecutionException e) {
+                cycle.failures.put(resourceId, e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+            } catch (TimeoutException | CancellationException e) {
+                cycle.failures.put(resourceId, e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cycle.failures.put(resourceId, e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Drop a resource's in-flight claim, failing it for waiting callers unless it is being completed.
+     */
+    private void release(String providerId, CloudResource resource, CompletableFuture<MetricBatch> claim,
+                         Exception failure) {
+        inFlight.remove(key(providerId, resource.getResourceId()), claim);
+        if (failure != null) {
+            claim.completeExceptionally(failure);
+        }
+    }
+
+    /**
+     * Get collection and reuse counts.
+     *
+     * @return map of statistics
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("collected", collected.get());
+        stats.put("reused", reused.get());
+        stats.put("resources", latest.size());
+        stats.put("inFlight", inFlight.size());
+        stats.put("listeners", listeners.size());
+        return stats;
+    }
+
+    /**
+     * Log the provider's collection rollup once per interval instead of a line per resource.
+     */
+    private void report(String providerId, List<CloudResource> newlyCollected, Cycle cycle) {
+        LogRollup rollup = rollups.computeIfAbsent(providerId, id -> new LogRollup(Duration.ofMinutes(1), 3));
+        LogRollup.Summary summary = null;
+        for (CloudResource resource : newlyCollected) {
+            summary = first(summary, rollup.record(cycle.batches.get(resource.getResourceId()).size(), false));
+        }
+        for (int i = 0; i < cycle.failures.size(); i++) {
+            summary = first(summary, rollup.record(0, true));
+        }
+        if (summary != null) {
+            LOG.info("Collected {} samples for {} resources ({} failed) from provider {} in the last {}s",
+                    summary.getAmount(), summary.getEvents(), summary.getFailures(), providerId,
+                    summary.getDurationSeconds());
+        }
+    }
+
+    private static LogRollup.Summary first(LogRollup.Summary summary, LogRollup.Summary next) {
+        return summary != null ? summary : next;
+    }
+
+    /**
+     * Check whether a failure means the caller's deadline has passed, also when a provider wrapped the exception.
+     */
+    static boolean isDeadlineExceeded(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof Deadline.ExceededException) {
+                return true;
+            }
+        }
+        Deadline deadline = Deadline.current();
+        return deadline != null && deadline.isExpired() && Deadline.isTimeout(e);
+    }
+
+    private void publish(String providerId, CloudResource resource, MetricBatch batch) {
+        if (collectionLogService != null) {
+            try {
+                Map<String, Object> logEntry = new HashMap<>();
+                logEntry.put("action", "collection_complete");
+                logEntry.put("resourceId", resource.getResourceId());
+                logEntry.put("samples", batch.size());
+                logEntry.put("series", batch.getSeriesCount());
+                logEntry.put("timestamp", Instant.now().toString());
+                collectionLogService.addLogEntry(providerId, logEntry);
+                collectionLogService.storeCollectionResult(providerId, batch.toCollection());
+            } catch (Exception e) {
+                LOG.warn("Error logging collection of resource {}: {}", resource.getResourceId(), e.getMessage());
+            }
+        }
+        boolean delivered = false;
+        boolean failed = false;
+        for (CollectionListener listener : listeners) {
+            try {
+                delivered |= listener.onCollected(providerId, resource, batch);
+            } catch (Exception e) {
+                // One failing consumer must not keep the samples from the others
+                failed = true;
+                LOG.error("Collection listener {} failed for resource {}: {}",
+                        listener.getClass().getSimpleName(), resource.getResourceId(), e.getMessage(), e);
+            }
+        }
+        // Samples that did not reach every consumer are collected again next interval
+        if (delivered && !failed) {
+            batch.markDelivered();
+        }
+    }
+
+    private static String key(String providerId, String resourceId) {
+        return providerId + ":" + resourceId;
+    }
+
+    /**
+     * Outcome of one {@link #collect} call.
+     */
+    public static final class Cycle {
+        private final Map<String, MetricBatch> batches = new LinkedHashMap<>();
+        private final Map<String, Exception> failures = new LinkedHashMap<>();
+        private int reused;
+
+        /**
+         * @return batches by resource ID, both newly collected and reused
+         */
+        public Map<String, MetricBatch> getBatches() {
+            return batches;
+        }
+
+        /**
+         * @return collection errors by resource ID
+         */
+        public Map<String, Exception> getFailures() {
+            return failures;
+        }
+
+        public int getReused() {
+            return reused;
+        }
+    }
+
+    private static final class Collected {
+        final MetricBatch batch;
+        final long collectedAtMillis;
+
+        Collected(MetricBatch batch, long collectedAtMillis) {
+            this.batch = batch;
+            this.collectedAtMillis = collectedAtMillis;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package org.opennms.bridge.core.service;
+
+import org.opennms.bridge.api.Deadline;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Runs collection and discovery tasks under a deadline.
+ * The task runs with its deadline bound to the worker thread; when the deadline passes first, the returned future
+ * fails with {@link Deadline.ExceededException} and the worker is interrupted, so expired work does not pile up
+ * behind the next cycle.
+ */
+final class DeadlineTasks {
+
+    private DeadlineTasks() {
+    }
+
+    /**
+     * Submit a task with a deadline.
+     *
+     * @param executor  executor running the task
+     * @param scheduler scheduler enforcing the deadline
+     * @param deadline  the deadline
+     * @param task      the task
+     * @return future of the task's result
+     */
+    static <T> CompletableFuture<T> submit(ExecutorService executor, TaskScheduler scheduler, Deadline deadline,
+                                           Callable<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> running = executor.submit(() -> {
+            // Completing inside the scope runs dependent stages under the same deadline
+            try (Deadline.Scope scope = deadline.enter()) {
+                result.complete(task.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e instanceof CompletionException ? e : new CompletionException(e));
+            }
+        });
+        ScheduledFuture<?> timer = scheduler.schedule(() -> {
+            if (result.completeExceptionally(new Deadline.ExceededException("Deadline " + deadline.getExpiry()
+                    + " exceeded"))) {
+                running.cancel(true);
+            }
+        }, deadline.getExpiry());
+        result.whenComplete((value, error) -> timer.cancel(false));
+        return result;
+    }
+}
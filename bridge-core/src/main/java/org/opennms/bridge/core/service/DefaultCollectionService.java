@@ -34,10 +34,14 @@ public class DefaultCollectionService implements CollectionService {
     @Autowired
     private DiscoveryService discoveryService;
     
+    @Autowired
+    private CollectionPipeline collectionPipeline;
+    
     private final Map<String, ScheduledFuture<?>> scheduledTasks = new ConcurrentHashMap<>();
     private final Map<String, CollectionConfiguration> resourceConfigurations = new ConcurrentHashMap<>();
     private final Map<String, CollectionStatus> collectionStatuses = new ConcurrentHashMap<>();
     private final Map<String, CloudProvider> resourceProviders = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<CollectionResult>> runningCollections = new ConcurrentHashMap<>();
     
     // Global collection schedule
     private boolean collectionEnabled = true;
@@ -64,6 +68,22 @@ public class DefaultCollectionService implements CollectionService {
 
     @Override
     public CompletableFuture<CollectionResult> collectMetrics(CloudResource resource) {
+        return collectMetrics(resource, false);
+    }
+    
+    /**
+     * Collect a resource asynchronously within its collection timeout
+     * @param resource the cloud resource
+     * @param deliver whether to submit samples no collection listener delivered to OpenNMS
+     * @return the collection result
+     */
+    private CompletableFuture<CollectionResult> collectMetrics(CloudResource resource, boolean deliver) {
+        CompletableFuture<CollectionResult> running = runningCollections.get(resource.getResourceId());
+        if (running != null && !running.isDone()) {
+            // The previous run is still within its deadline; never stack a second one behind it
+            LOG.warn("Collection for resource {} is still running, skipping this run", resource.getResourceId());
+            return running;
+        }
         LOG.info("Starting metric collection for resource: {}", resource.getResourceId());
         
         CollectionStatus status = collectionStatuses.computeIfAbsent(
@@ -76,7 +96,8 @@ public class DefaultCollectionService implements CollectionService {
         status.setLastStartTime(Instant.now());
         status.setStatus("RUNNING");
         
-        return CompletableFuture.supplyAsync(() -> {
+        Deadline deadline = Deadline.after(getCollectionTimeout(resource));
+        CompletableFuture<CollectionResult> future = DeadlineTasks.submit(executorService, taskScheduler, deadline, () -> {
             try {
                 LOG.debug("Executing collection for resource: {}", resource.getResourceId());
                 
@@ -86,8 +107,9 @@ public class DefaultCollectionService implements CollectionService {
                     throw new IllegalStateException("No provider found for resource: " + resource.getResourceId());
                 }
                 
-                // Collect metrics from the provider
-                MetricCollection metrics = provider.collect(resource);
+                // Collect metrics through the shared pipeline, which also hands them to its listeners and the logs
+                MetricBatch batch = collectResource(provider, resource, getCollectionTimeout(resource));
+                MetricCollection metrics = batch.toCollection();
                 LOG.info("Collected {} metrics from resource: {}", 
                     metrics.getMetrics().size(), resource.getResourceId());
                 
@@ -103,8 +125,15 @@ public class DefaultCollectionService implements CollectionService {
                 status.setLastSuccessTime(Instant.now());
                 status.setLastMetricCount(metrics.getMetrics().size());
                 
+                if (deliver) {
+                    processCollectionResult(batch, resource);
+                }
                 return result;
             } catch (Exception e) {
+                if (Deadline.isTimeout(e) || deadline.isExpired()) {
+                    markTimedOut(status, e);
+                    throw new CompletionException(e);
+                }
                 LOG.error("Error during collection for resource: " + resource.getResourceId(), e);
                 
                 // Update collection status
@@ -114,7 +143,15 @@ public class DefaultCollectionService implements CollectionService {
                 
                 throw new CompletionException(e);
             }
-        }, executorService);
+        });
+        future.whenComplete((result, error) -> {
+            if (error != null && Deadline.isTimeout(error) && !"TIMED_OUT".equals(status.getStatus())) {
+                markTimedOut(status, error);
+            }
+            runningCollections.remove(resource.getResourceId(), future);
+        });
+        runningCollections.put(resource.getResourceId(), future);
+        return future;
     }
     
     @Override
@@ -128,17 +165,11 @@ public class DefaultCollectionService implements CollectionService {
                 .orElseThrow(() -> new CloudProviderException("Provider not found: " + providerId));
         
         try {
-            // Collect metrics
-            MetricCollection metrics = provider.collect(resource);
+            // Collect metrics, reusing samples another schedule collected within the interval
+            MetricCollection metrics = collectResource(provider, resource, collectionInterval).toCollection();
             
             // Update collection status
-            CollectionStatus status = collectionStatuses.computeIfAbsent(
-                resource.getResourceId(), 
-                id -> new CollectionStatus()
-            );
-            
-            status.setResourceId(resource.getResourceId());
-            status.setResourceType(resource.getResourceType());
+            CollectionStatus status = getStatus(resource);
             status.setLastStartTime(Instant.now());
             status.setLastEndTime(Instant.now());
             status.setLastSuccessTime(Instant.now());
@@ -176,49 +207,55 @@ public class DefaultCollectionService implements CollectionService {
                 .findFirst()
                 .orElseThrow(() -> new CloudProviderException("Provider not found: " + providerId));
         
-        try {
+        // The run must end before the next global run starts
+        Deadline deadline = Deadline.current() != null ? Deadline.current() : Deadline.after(collectionInterval);
+        try (Deadline.Scope scope = deadline.enter()) {
             // Get resources for this provider
             Set<CloudResource> resources = discoveryService.discoverResources(provider);
             LOG.info("Found {} resources for provider {}", resources.size(), providerId);
             
-            // Collect metrics for each resource
+            // One collection per resource and interval, shared with every other schedule
+            CollectionPipeline.Cycle cycle = collectionPipeline.collect(provider, resources, collectionInterval);
             List<MetricCollection> collections = new ArrayList<>();
+            int timedOut = 0;
             for (CloudResource resource : resources) {
-                try {
-                    MetricCollection metrics = provider.collect(resource);
+                MetricBatch batch = cycle.getBatches().get(resource.getResourceId());
+                Exception error = cycle.getFailures().get(resource.getResourceId());
+                if (batch != null) {
+                    MetricCollection metrics = batch.toCollection();
                     collections.add(metrics);
                     
                     // Update collection status
-                    CollectionStatus status = collectionStatuses.computeIfAbsent(
-                        resource.getResourceId(), 
-                        id -> new CollectionStatus()
-                    );
-                    
-                    status.setResourceId(resource.getResourceId());
-                    status.setResourceType(resource.getResourceType());
+                    CollectionStatus status = getStatus(resource);
                     status.setLastStartTime(Instant.now());
                     status.setLastEndTime(Instant.now());
                     status.setLastSuccessTime(Instant.now());
                     status.setStatus("COMPLETED");
                     status.setLastMetricCount(metrics.getMetrics().size());
-                } catch (Exception e) {
+                } else if (error == null || Deadline.isTimeout(error)) {
+                    // Resources not reached in time are reported as timed out, not failed
+                    markTimedOut(getStatus(resource), error);
+                    timedOut++;
+                } else {
                     LOG.error("Error collecting metrics for resource {}: {}", 
-                            resource.getResourceId(), e.getMessage(), e);
+                            resource.getResourceId(), error.getMessage(), error);
                     
                     // Update collection status
-                    CollectionStatus status = collectionStatuses.computeIfAbsent(
-                        resource.getResourceId(), 
-                        id -> new CollectionStatus()
-                    );
-                    
-                    status.setResourceId(resource.getResourceId());
-                    status.setResourceType(resource.getResourceType());
+                    CollectionStatus status = getStatus(resource);
                     status.setLastStartTime(Instant.now());
                     status.setLastEndTime(Instant.now());
                     status.setStatus("FAILED");
-                    status.setLastError(e.getMessage());
+                    status.setLastError(error.getMessage());
                 }
             }
+            if (cycle.getReused() > 0) {
+                LOG.debug("Reused {} batches collected earlier in this interval for provider {}",
+                        cycle.getReused(), providerId);
+            }
+            if (timedOut > 0) {
+                LOG.warn("Collection for provider {} timed out for {} of {} resources",
+                        providerId, timedOut, resources.size());
+            }
             
             return collections;
         } catch (Exception e) {
@@ -235,6 +272,12 @@ public class DefaultCollectionService implements CollectionService {
         scheduleInfo.put("interval", collectionInterval.toMinutes());
         scheduleInfo.put("nextRun", nextCollectionRun);
         scheduleInfo.put("lastRun", lastCollectionRun);
+        Map<String, Long> resourcesByStatus = collectionStatuses.values().stream()
+                .filter(status -> status.getStatus() != null)
+                .collect(Collectors.groupingBy(CollectionStatus::getStatus, TreeMap::new, Collectors.counting()));
+        scheduleInfo.put("resourcesByStatus", resourcesByStatus);
+        scheduleInfo.put("running", runningCollections.size());
+        scheduleInfo.put("pipeline", collectionPipeline.getStatistics());
         return scheduleInfo;
     }
     
@@ -296,13 +339,15 @@ public class DefaultCollectionService implements CollectionService {
                     
                     LOG.info("Running global collection for all providers");
                     
-                    // Collect metrics for all providers
-                    for (CloudProvider provider : cloudProviders) {
-                        try {
-                            collectAllMetrics(provider.getProviderId());
-                        } catch (Exception e) {
-                            LOG.error("Error collecting metrics for provider {}: {}", 
-                                    provider.getProviderId(), e.getMessage(), e);
+                    // Collect metrics for all providers, finishing before the next run is due
+                    try (Deadline.Scope scope = Deadline.after(collectionInterval).enter()) {
+                        for (CloudProvider provider : cloudProviders) {
+                            try {
+                                collectAllMetrics(provider.getProviderId());
+                            } catch (Exception e) {
+                                LOG.error("Error collecting metrics for provider {}: {}", 
+                                        provider.getProviderId(), e.getMessage(), e);
+                            }
                         }
                     }
                 } catch (Exception e) {
@@ -333,12 +378,26 @@ public class DefaultCollectionService implements CollectionService {
             resourceProviders.put(resource.getResourceId(), configuration.getProvider());
         }
         
+        // Resources with a fixed collection period run once per period, after its data is published
+        long firstRun = System.currentTimeMillis() + configuration.getInitialDelay().toMillis();
+        Duration interval = configuration.getInterval();
+        Duration period = CollectionTiming.getPeriod(resource);
+        if (period != null) {
+            Duration publicationDelay = configuration.getProvider() != null
+                    ? configuration.getProvider().getPublicationDelay()
+                    : Duration.ZERO;
+            interval = CollectionTiming.alignInterval(interval, period);
+            firstRun = CollectionTiming.nextRun(firstRun, period, publicationDelay);
+            LOG.info("Aligning collection for resource {} to {}s periods with {}s publication delay, interval {}",
+                    resource.getResourceId(), period.getSeconds(), publicationDelay.getSeconds(), interval);
+        }
+        
         // Schedule new task
         ScheduledFuture<?> scheduledTask = taskScheduler.scheduleAtFixedRate(
             () -> {
                 try {
-                    collectMetrics(resource)
-                        .thenAccept(result -> processCollectionResult(result, resource))
+                    // Samples the pipeline's listeners did not deliver are submitted to OpenNMS here
+                    collectMetrics(resource, true)
                         .exceptionally(ex -> {
                             LOG.error("Scheduled collection failed for resource: " + resource.getResourceId(), ex);
                             return null;
@@ -347,8 +406,8 @@ public class DefaultCollectionService implements CollectionService {
                     LOG.error("Error in scheduled collection task for resource: " + resource.getResourceId(), e);
                 }
             },
-            new Date(System.currentTimeMillis() + configuration.getInitialDelay().toMillis()),
-            configuration.getInterval().toMillis()
+            new Date(firstRun),
+            interval.toMillis()
         );
         
         scheduledTasks.put(resource.getResourceId(), scheduledTask);
@@ -396,6 +455,8 @@ public class DefaultCollectionService implements CollectionService {
         // Cancel all scheduled tasks
         scheduledTasks.forEach((id, task) -> task.cancel(false));
         scheduledTasks.clear();
+        runningCollections.forEach((id, task) -> task.cancel(true));
+        runningCollections.clear();
         
         // Shutdown executor
         executorService.shutdown();
@@ -410,13 +471,17 @@ public class DefaultCollectionService implements CollectionService {
     }
     
     /**
-     * Process collection result by submitting metrics to OpenNMS
-     * @param result the collection result
+     * Submit a scheduled collection's samples to OpenNMS, unless a collection listener such as the metric
+     * auto-sync already delivered them
+     * @param batch the collected samples
      * @param resource the cloud resource
      */
-    private void processCollectionResult(CollectionResult result, CloudResource resource) {
-        LOG.info("Processing collection result with {} metrics for resource: {}", 
-                result.getMetrics().getMetrics().size(), resource.getResourceId());
+    private void processCollectionResult(MetricBatch batch, CloudResource resource) {
+        if (batch.isEmpty() || batch.isDelivered()) {
+            return;
+        }
+        LOG.info("Processing collection result with {} samples for resource: {}", 
+                batch.size(), resource.getResourceId());
         
         try {
             // Get OpenNMS node ID for this resource
@@ -427,15 +492,71 @@ public class DefaultCollectionService implements CollectionService {
             }
             
             // Submit metrics to OpenNMS
-            openNMSClient.submitMetrics(nodeId, result.getMetrics());
+            openNMSClient.submitMetrics(nodeId, batch);
+            batch.markDelivered();
             
             LOG.info("Successfully processed metrics for resource: {}", resource.getResourceId());
         } catch (Exception e) {
             LOG.error("Error processing collection result for resource: " + resource.getResourceId(), e);
-            throw new RuntimeException("Failed to process collection result", e);
         }
     }
     
+    /**
+     * Get the time a collection of a resource may take: its collection interval, so a run never overlaps the next
+     * @param resource the cloud resource
+     * @return the collection timeout
+     */
+    private Duration getCollectionTimeout(CloudResource resource) {
+        CollectionConfiguration configuration = resourceConfigurations.get(resource.getResourceId());
+        Duration interval = configuration != null && configuration.getInterval() != null
+                ? configuration.getInterval()
+                : collectionInterval;
+        return interval.isZero() || interval.isNegative() ? collectionInterval : interval;
+    }
+    
+    private CollectionStatus getStatus(CloudResource resource) {
+        CollectionStatus status = collectionStatuses.computeIfAbsent(
+            resource.getResourceId(), 
+            id -> new CollectionStatus()
+        );
+        status.setResourceId(resource.getResourceId());
+        status.setResourceType(resource.getResourceType());
+        return status;
+    }
+    
+    /**
+     * Record that a collection ran out of time
+     * @param status the resource's collection status
+     * @param cause the timeout, or null if the resource was not reached before the deadline
+     */
+    private void markTimedOut(CollectionStatus status, Throwable cause) {
+        LOG.warn("Collection for resource {} timed out", status.getResourceId());
+        status.setStatus("TIMED_OUT");
+        status.setState(CollectionStatus.State.TIMED_OUT);
+        status.setLastEndTime(Instant.now());
+        status.setLastError(cause != null && cause.getMessage() != null
+                ? "Timed out: " + cause.getMessage()
+                : "Timed out before collection deadline");
+    }
+    
+    /**
+     * Collect one resource through the pipeline
+     * @param provider the cloud provider
+     * @param resource the cloud resource
+     * @param interval the caller's collection interval
+     * @return the resource's samples for the interval
+     */
+    private MetricBatch collectResource(CloudProvider provider, CloudResource resource, Duration interval)
+            throws Exception {
+        CollectionPipeline.Cycle cycle = collectionPipeline.collect(provider,
+                Collections.singletonList(resource), interval);
+        Exception error = cycle.getFailures().get(resource.getResourceId());
+        if (error != null) {
+            throw error;
+        }
+        return cycle.getBatches().get(resource.getResourceId());
+    }
+    
     /**
      * Get the provider for a given resource
      * @param resource the cloud resource
@@ -466,4 +587,4 @@ public class DefaultCollectionService implements CollectionService {
             return null;
         }
     }
-}
\ No newline at end of file
+}
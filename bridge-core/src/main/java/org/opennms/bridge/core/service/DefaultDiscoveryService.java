@@ -4,10 +4,12 @@ import org.opennms.bridge.api.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PreDestroy;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.*;
@@ -24,27 +26,40 @@ public class DefaultDiscoveryService implements DiscoveryService {
 
     private final OpenNMSClient openNMSClient;
     private final TaskScheduler taskScheduler;
+    private final RequisitionSync requisitionSync;
     private final ExecutorService executorService;
     
     @Autowired
     private List<CloudProvider> cloudProviders;
     
+    // Deadline of discovery runs that are not scheduled, in seconds
+    @Value("${bridge.discovery.default-timeout:300}")
+    private long defaultTimeoutSeconds = 300;
+    
     private final Map<String, ScheduledFuture<?>> scheduledTasks = new ConcurrentHashMap<>();
     private final Map<String, DiscoveryConfiguration> providerConfigurations = new ConcurrentHashMap<>();
     private final Map<String, DiscoveryStatus> discoveryStatuses = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Set<DiscoveredNode>>> runningDiscoveries = new ConcurrentHashMap<>();
     
     // Cache of discovered resources for quicker access
     private final Map<String, Set<CloudResource>> discoveredResourcesCache = new ConcurrentHashMap<>();
 
     @Autowired
-    public DefaultDiscoveryService(OpenNMSClient openNMSClient, TaskScheduler taskScheduler) {
+    public DefaultDiscoveryService(OpenNMSClient openNMSClient, TaskScheduler taskScheduler,
+                                   RequisitionSync requisitionSync) {
         this.openNMSClient = openNMSClient;
         this.taskScheduler = taskScheduler;
+        this.requisitionSync = requisitionSync;
         this.executorService = Executors.newCachedThreadPool();
     }
 
     @Override
     public CompletableFuture<Set<DiscoveredNode>> discoverNodes(CloudProvider provider) {
+        CompletableFuture<Set<DiscoveredNode>> running = runningDiscoveries.get(provider.getProviderId());
+        if (running != null && !running.isDone()) {
+            LOG.warn("Discovery for provider {} is still running, skipping this run", provider.getProviderId());
+            return running;
+        }
         LOG.info("Starting discovery for provider: {}", provider.getProviderId());
         
         DiscoveryStatus status = new DiscoveryStatus();
@@ -54,7 +69,8 @@ public class DefaultDiscoveryService implements DiscoveryService {
         status.setStatus("RUNNING");
         discoveryStatuses.put(provider.getProviderId(), status);
         
-        return CompletableFuture.supplyAsync(() -> {
+        Deadline deadline = Deadline.after(getDiscoveryTimeout(provider.getProviderId()));
+        CompletableFuture<Set<DiscoveredNode>> future = DeadlineTasks.submit(executorService, taskScheduler, deadline, () -> {
             try {
                 LOG.debug("Executing discovery for provider: {}", provider.getProviderId());
                 
@@ -78,6 +94,10 @@ public class DefaultDiscoveryService implements DiscoveryService {
                 
                 return nodes;
             } catch (Exception e) {
+                if (Deadline.isTimeout(e) || deadline.isExpired()) {
+                    markTimedOut(status, e);
+                    throw new CompletionException(e);
+                }
                 LOG.error("Error during discovery for provider: " + provider.getProviderId(), e);
                 
                 // Update discovery status
@@ -87,7 +107,15 @@ public class DefaultDiscoveryService implements DiscoveryService {
                 
                 throw new CompletionException(e);
             }
-        }, executorService);
+        });
+        future.whenComplete((nodes, error) -> {
+            if (error != null && Deadline.isTimeout(error) && !"TIMED_OUT".equals(status.getStatus())) {
+                markTimedOut(status, error);
+            }
+            runningDiscoveries.remove(provider.getProviderId(), future);
+        });
+        runningDiscoveries.put(provider.getProviderId(), future);
+        return future;
     }
     
     @Override
@@ -212,6 +240,8 @@ public class DefaultDiscoveryService implements DiscoveryService {
         // Cancel all scheduled tasks
         scheduledTasks.forEach((id, task) -> task.cancel(false));
         scheduledTasks.clear();
+        runningDiscoveries.forEach((id, task) -> task.cancel(true));
+        runningDiscoveries.clear();
         
         // Shutdown executor
         executorService.shutdown();
@@ -225,6 +255,35 @@ public class DefaultDiscoveryService implements DiscoveryService {
         }
     }
     
+    /**
+     * Get the time a discovery run may take: the discovery interval of a scheduled provider, so a run never
+     * overlaps the next, or the default timeout otherwise
+     * @param providerId the provider ID
+     * @return the discovery timeout
+     */
+    private Duration getDiscoveryTimeout(String providerId) {
+        DiscoveryConfiguration configuration = providerConfigurations.get(providerId);
+        if (configuration != null && configuration.getInterval() > 0) {
+            return Duration.ofMinutes(configuration.getInterval());
+        }
+        return Duration.ofSeconds(defaultTimeoutSeconds);
+    }
+    
+    /**
+     * Record that a discovery run ran out of time
+     * @param status the provider's discovery status
+     * @param cause the timeout
+     */
+    private void markTimedOut(DiscoveryStatus status, Throwable cause) {
+        LOG.warn("Discovery for provider {} timed out", status.getProviderId());
+        status.setStatus("TIMED_OUT");
+        status.setState(DiscoveryStatus.State.TIMED_OUT);
+        status.setLastEndTime(Instant.now());
+        status.setLastError(cause != null && cause.getMessage() != null
+                ? "Timed out: " + cause.getMessage()
+                : "Timed out before discovery deadline");
+    }
+    
     /**
      * Process discovered nodes by submitting them to OpenNMS
      * @param nodes the discovered nodes
@@ -234,12 +293,9 @@ public class DefaultDiscoveryService implements DiscoveryService {
         LOG.info("Processing {} discovered nodes from provider: {}", nodes.size(), provider.getProviderId());
         
         try {
-            // Create requisition for this provider
+            // Push the nodes that changed to this provider's requisition; the import is batched
             String foreignSource = "cloud-" + provider.getProviderType() + "-" + provider.getProviderId();
-            openNMSClient.createOrUpdateRequisition(foreignSource, nodes);
-            
-            // Synchronize requisition to apply changes
-            openNMSClient.synchronizeRequisition(foreignSource);
+            requisitionSync.sync(foreignSource, nodes);
             
             LOG.info("Successfully processed discovered nodes for provider: {}", provider.getProviderId());
         } catch (Exception e) {
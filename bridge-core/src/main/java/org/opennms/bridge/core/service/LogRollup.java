@@ -0,0 +1,95 @@
+package org.opennms.bridge.core.service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rolls up high-frequency per-resource events into one summary per interval.
+ * Callers log a few sampled events per interval and the summary returned by {@link #record},
+ * instead of one line per resource per cycle.
+ */
+public class LogRollup {
+
+    private final long intervalMillis;
+    private final int samplesPerInterval;
+    private final AtomicLong windowStart = new AtomicLong(System.currentTimeMillis());
+    private final AtomicInteger samples = new AtomicInteger();
+    private final AtomicLong events = new AtomicLong();
+    private final AtomicLong amount = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    /**
+     * @param interval           how often a summary is produced
+     * @param samplesPerInterval how many individual events per interval should be logged in full
+     */
+    public LogRollup(Duration interval, int samplesPerInterval) {
+        this.intervalMillis = interval.toMillis();
+        this.samplesPerInterval = samplesPerInterval;
+    }
+
+    /**
+     * Check whether the current event should be logged individually.
+     *
+     * @return true for the first events of each interval
+     */
+    public boolean sample() {
+        return samples.get() < samplesPerInterval && samples.incrementAndGet() <= samplesPerInterval;
+    }
+
+    /**
+     * Record an event.
+     *
+     * @param eventAmount amount associated with the event, e.g. the number of metrics collected
+     * @param failed      whether the event failed
+     * @return a summary of the finished interval if this event closed it, otherwise null
+     */
+    public Summary record(long eventAmount, boolean failed) {
+        events.incrementAndGet();
+        amount.addAndGet(eventAmount);
+        if (failed) {
+            failures.incrementAndGet();
+        }
+
+        long now = System.currentTimeMillis();
+        long start = windowStart.get();
+        if (now - start < intervalMillis || !windowStart.compareAndSet(start, now)) {
+            return null;
+        }
+        samples.set(0);
+        return new Summary(events.getAndSet(0), amount.getAndSet(0), failures.getAndSet(0), now - start);
+    }
+
+    /**
+     * Totals for one interval.
+     */
+    public static class Summary {
+        private final long events;
+        private final long amount;
+        private final long failures;
+        private final long durationMillis;
+
+        Summary(long events, long amount, long failures, long durationMillis) {
+            this.events = events;
+            this.amount = amount;
+            this.failures = failures;
+            this.durationMillis = durationMillis;
+        }
+
+        public long getEvents() {
+            return events;
+        }
+
+        public long getAmount() {
+            return amount;
+        }
+
+        public long getFailures() {
+            return failures;
+        }
+
+        public long getDurationSeconds() {
+            return durationMillis / 1000;
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package org.opennms.bridge.core.service;
+
+import org.apache.http.conn.ConnectTimeoutException;
+import org.opennms.bridge.api.CloudResource;
+import org.opennms.bridge.api.Deadline;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+
+import javax.annotation.PreDestroy;
+import java.net.ConnectException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Synchronizes the discovered resources of a provider to OpenNMS nodes.
+ * The provider's nodes are looked up once per run, so each resource needs a single request: a create for a new
+ * node, an update for a node whose label changed, and none for an unchanged node. Requests run with bounded
+ * parallelism, are paced to a maximum rate, and transient failures are retried with backoff.
+ */
+@Service
+public class NodeSyncEngine {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NodeSyncEngine.class);
+
+    private final OpenNMSClient openNMSClient;
+    private final int parallelism;
+    private final long requestIntervalNanos;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final boolean deleteMissing;
+
+    private final ExecutorService executor;
+    private final Map<String, Run> runs = new ConcurrentHashMap<>();
+
+    // Start of the next free request slot under the rate limit
+    private long nextRequestNanos = System.nanoTime();
+
+    public NodeSyncEngine(OpenNMSClient openNMSClient,
+                          @Value("${opennms.node-sync.parallelism:8}") int parallelism,
+                          @Value("${opennms.node-sync.max-requests-per-second:20}") double maxRequestsPerSecond,
+                          @Value("${opennms.node-sync.max-attempts:3}") int maxAttempts,
+                          @Value("${opennms.node-sync.retry-backoff:1s}") Duration retryBackoff,
+                          @Value("${opennms.node-sync.delete-missing:false}") boolean deleteMissing) {
+        this.openNMSClient = openNMSClient;
+        this.parallelism = Math.max(1, parallelism);
+        this.requestIntervalNanos = maxRequestsPerSecond > 0 ? (long) (1_000_000_000L / maxRequestsPerSecond) : 0;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoff = retryBackoff;
+        this.deleteMissing = deleteMissing;
+        this.executor = Executors.newFixedThreadPool(this.parallelism, r -> {
+            Thread thread = new Thread(r, "opennms-node-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Bring the nodes of a provider in line with its discovered resources, waiting until done.
+     * A run already in progress for the provider is returned instead of starting another.
+     *
+     * @param providerId the provider ID, also the nodes' foreign source
+     * @param resources all resources currently discovered for the provider
+     * @return the run
+     */
+    public Run sync(String providerId, Collection<CloudResource> resources) {
+        Run run = new Run(providerId);
+        Run current = runs.compute(providerId,
+                (id, previous) -> previous != null && !previous.isDone() ? previous : run);
+        if (current != run) {
+            LOG.warn("Node sync for provider {} is still running, skipping this run", providerId);
+            return current;
+        }
+
+        try {
+            Map<String, Map<String, String>> nodes = openNMSClient.findNodesByForeignSource(providerId);
+            List<Runnable> operations = toOperations(run, providerId, resources.size(),
+                    plan(providerId, resources, nodes, deleteMissing));
+            LOG.info("Node sync for provider {}: {} resources, {} to create, {} to update, {} to delete, {} unchanged",
+                    providerId, resources.size(), run.toCreate, run.toUpdate, run.toDelete, run.unchanged);
+            execute(run, operations);
+        } catch (Exception e) {
+            LOG.error("Node sync for provider {} failed: {}", providerId, e.getMessage());
+            run.error = e.getMessage();
+        } finally {
+            run.endTime = Instant.now();
+        }
+
+        LOG.info("Node sync for provider {} finished in {} ms: {} created, {} updated, {} deleted, {} failed",
+                providerId, run.getDurationMillis(), run.created.get(), run.updated.get(), run.deleted.get(),
+                run.failed.get());
+        return run;
+    }
+
+    /**
+     * Get the most recent run of each provider.
+     *
+     * @return map of settings and runs by provider
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("parallelism", parallelism);
+        stats.put("maxRequestsPerSecond", requestIntervalNanos > 0 ? 1_000_000_000.0 / requestIntervalNanos : 0);
+        stats.put("maxAttempts", maxAttempts);
+        stats.put("deleteMissing", deleteMissing);
+        Map<String, Object> byProvider = new TreeMap<>();
+        runs.forEach((providerId, run) -> byProvider.put(providerId, run.toMap()));
+        stats.put("runs", byProvider);
+        return stats;
+    }
+
+    /**
+     * Work out the node requests that bring a provider's nodes in line with its resources.
+     *
+     * @param providerId the provider ID
+     * @param resources all resources currently discovered for the provider
+     * @param nodes the provider's nodes by foreign ID, with their "id" and "label"
+     * @param deleteMissing whether nodes without a resource are deleted
+     * @return the requests, in order
+     */
+    static List<NodeRequest> plan(String providerId, Collection<CloudResource> resources,
+                                  Map<String, Map<String, String>> nodes, boolean deleteMissing) {
+        List<NodeRequest> requests = new ArrayList<>();
+        Set<String> foreignIds = new HashSet<>();
+        for (CloudResource resource : resources) {
+            String foreignId = providerId + ":" + resource.getResourceId();
+            foreignIds.add(foreignId);
+            Map<String, String> node = nodes.get(foreignId);
+            if (node == null) {
+                requests.add(new NodeRequest(NodeRequest.Kind.CREATE, foreignId, resource, null));
+            } else if (!Objects.equals(node.get("label"), resource.getName())) {
+                requests.add(new NodeRequest(NodeRequest.Kind.UPDATE, foreignId, resource, node.get("id")));
+            }
+        }
+
+        // Without any discovered resources the discovery most likely failed, so nothing is deleted
+        if (deleteMissing && !resources.isEmpty()) {
+            nodes.forEach((foreignId, node) -> {
+                if (!foreignIds.contains(foreignId)) {
+                    requests.add(new NodeRequest(NodeRequest.Kind.DELETE, foreignId, null, node.get("id")));
+                }
+            });
+        }
+        return requests;
+    }
+
+    private List<Runnable> toOperations(Run run, String providerId, int resourceCount,
+                                        List<NodeRequest> requests) {
+        List<Runnable> operations = new ArrayList<>(requests.size());
+        for (NodeRequest request : requests) {
+            switch (request.kind) {
+                case CREATE:
+                    run.toCreate++;
+                    // A create that reached OpenNMS may have succeeded, so it is only retried if it was never sent
+                    operations.add(() -> attempt(run, request.foreignId, false,
+                            () -> openNMSClient.createOrUpdateNode(providerId, request.resource, null), run.created));
+                    break;
+                case UPDATE:
+                    run.toUpdate++;
+                    operations.add(() -> attempt(run, request.foreignId, true,
+                            () -> openNMSClient.createOrUpdateNode(providerId, request.resource, request.nodeId),
+                            run.updated));
+                    break;
+                default:
+                    run.toDelete++;
+                    operations.add(() -> attempt(run, request.foreignId, true,
+                            () -> openNMSClient.deleteNodeById(request.nodeId), run.deleted));
+                    break;
+            }
+        }
+        run.unchanged = resourceCount - run.toCreate - run.toUpdate;
+        run.total = operations.size();
+        return operations;
+    }
+
+    private void execute(Run run, List<Runnable> operations) {
+        // Workers inherit the caller's deadline, if any
+        Deadline deadline = Deadline.current();
+        List<CompletableFuture<Void>> futures = new ArrayList<>(operations.size());
+        for (Runnable operation : operations) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                if (deadline == null) {
+                    operation.run();
+                    return;
+                }
+                try (Deadline.Scope scope = deadline.enter()) {
+                    operation.run();
+                }
+            }, executor));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+    }
+
+    /**
+     * Run one node request, retrying transient failures.
+     */
+    private void attempt(Run run, String foreignId, boolean idempotent, Runnable request, AtomicInteger counter) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Deadline deadline = Deadline.current();
+                if (deadline != null) {
+                    deadline.check();
+                }
+                awaitRequestSlot();
+                request.run();
+                counter.incrementAndGet();
+                break;
+            } catch (Exception e) {
+                if (attempt >= maxAttempts || !isRetryable(e, idempotent)) {
+                    run.failed.incrementAndGet();
+                    run.lastError = foreignId + ": " + e.getMessage();
+                    LOG.debug("Node sync of {} failed after {} attempts: {}", foreignId, attempt, e.getMessage());
+                    break;
+                }
+                try {
+                    Thread.sleep(retryBackoff.toMillis() << (attempt - 1));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    run.failed.incrementAndGet();
+                    break;
+                }
+            }
+        }
+        run.reportProgress();
+    }
+
+    /**
+     * Wait for the next request slot, so requests from all workers together stay within the rate limit.
+     */
+    private void awaitRequestSlot() throws InterruptedException {
+        if (requestIntervalNanos <= 0) {
+            return;
+        }
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            nextRequestNanos = Math.max(nextRequestNanos, now);
+            waitNanos = nextRequestNanos - now;
+            nextRequestNanos += requestIntervalNanos;
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Client errors other than throttling will fail again, and so will work past its deadline.
+     * A request that is not idempotent is only retried when it never reached OpenNMS: on throttling, or when the
+     * connection could not be established.
+     */
+    static boolean isRetryable(Throwable e, boolean idempotent) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof Deadline.ExceededException || t instanceof InterruptedException) {
+                return false;
+            }
+            if (t instanceof HttpClientErrorException) {
+                return ((HttpClientErrorException) t).getRawStatusCode() == 429;
+            }
+            if (t instanceof ConnectException || t instanceof ConnectTimeoutException) {
+                return true;
+            }
+        }
+        return idempotent;
+    }
+
+    /**
+     * One node request of a sync run.
+     */
+    static final class NodeRequest {
+        enum Kind {
+            CREATE,
+            UPDATE,
+            DELETE
+        }
+
+        final Kind kind;
+        final String foreignId;
+        final CloudResource resource;
+        final String nodeId;
+
+        NodeRequest(Kind kind, String foreignId, CloudResource resource, String nodeId) {
+            this.kind = kind;
+            this.foreignId = foreignId;
+            this.resource = resource;
+            this.nodeId = nodeId;
+        }
+    }
+
+    /**
+     * Progress and outcome of one node sync run.
+     */
+    public static final class Run {
+        private final String providerId;
+        private final Instant startTime = Instant.now();
+        private volatile Instant endTime;
+        private volatile String error;
+        private volatile String lastError;
+
+        private int toCreate;
+        private int toUpdate;
+        private int toDelete;
+        private int unchanged;
+        private volatile int total;
+
+        private final AtomicInteger created = new AtomicInteger();
+        private final AtomicInteger updated = new AtomicInteger();
+        private final AtomicInteger deleted = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicInteger completed = new AtomicInteger();
+
+        Run(String providerId) {
+            this.providerId = providerId;
+        }
+
+        public boolean isDone() {
+            return endTime != null;
+        }
+
+        public int getCreated() {
+            return created.get();
+        }
+
+        public int getUpdated() {
+            return updated.get();
+        }
+
+        public int getDeleted() {
+            return deleted.get();
+        }
+
+        public int getUnchanged() {
+            return unchanged;
+        }
+
+        public int getFailed() {
+            return failed.get();
+        }
+
+        public long getDurationMillis() {
+            return Duration.between(startTime, endTime != null ? endTime : Instant.now()).toMillis();
+        }
+
+        /**
+         * Log progress at every tenth of a large run.
+         */
+        private void reportProgress() {
+            int done = completed.incrementAndGet();
+            int step = Math.max(100, total / 10);
+            if (done % step == 0 && done < total) {
+                LOG.info("Node sync for provider {}: {} of {} requests done, {} failed", providerId, done, total,
+                        failed.get());
+            }
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("providerId", providerId);
+            map.put("status", endTime == null ? "RUNNING" : error != null ? "FAILED" : "COMPLETED");
+            map.put("startTime", startTime.toString());
+            if (endTime != null) {
+                map.put("endTime", endTime.toString());
+            }
+            map.put("durationMs", getDurationMillis());
+            map.put("requests", total);
+            map.put("completed", completed.get());
+            map.put("created", created.get());
+            map.put("updated", updated.get());
+            map.put("deleted", deleted.get());
+            map.put("unchanged", unchanged);
+            map.put("failed", failed.get());
+            if (error != null) {
+                map.put("error", error);
+            }
+            if (lastError != null) {
+                map.put("lastError", lastError);
+            }
+            return map;
+        }
+    }
+}
@@ -6,30 +6,42 @@ import org.opennms.bridge.api.DiscoveredNode;
 import org.opennms.bridge.api.MetricCollection;
 import org.opennms.bridge.api.MetricCollection.Metric;
 import org.opennms.bridge.api.CloudResource;
+import org.opennms.bridge.api.Deadline;
+import org.opennms.bridge.api.MetricBatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestClientResponseException;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.web.reactive.function.client.WebClient;
-import reactor.core.publisher.Mono;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import java.io.IOException;
-import java.net.HttpURLConnection;
+import java.net.URI;
+import java.time.Duration;
 
 import java.util.Base64;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
-import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 
@@ -43,7 +55,10 @@ public class OpenNMSClient {
     private static final Logger LOG = LoggerFactory.getLogger(OpenNMSClient.class);
     
     private final RestTemplate restTemplate;
-    private final WebClient webClient;
+    private final RestTemplate noRedirectTemplate;
+    private final RestTemplate streamingTemplate;
+    private final OpenNMSPayloadEncoder payloadEncoder;
+    private final OpenNMSHttpTransport transport;
     private final ObjectMapper objectMapper;
     
     @Value("${opennms.base-url}")
@@ -63,19 +78,56 @@ public class OpenNMSClient {
     
     @Value("${opennms.default-location}")
     private String defaultLocation;
+    
+    @Value("${opennms.read-timeout:60s}")
+    private Duration readTimeout = Duration.ofSeconds(60);
 
-    private boolean isConnected = false;
+    // Interval of the background connectivity probe, in seconds
+    @Value("${opennms.probe-interval:60}")
+    private long probeIntervalSeconds = 60;
+    
+    // Consecutive failed requests after which OpenNMS is considered down
+    @Value("${opennms.failure-threshold:3}")
+    private int failureThreshold = 3;
+    
+    private volatile OpenNMSConnectionState connectionState = new OpenNMSConnectionState(3);
+    
+    private ScheduledExecutorService prober;
     
     private final HttpHeaders authHeaders;
     
+    // Per-cycle rollup of node lookups, reported instead of a log line per lookup
+    private final LogRollup nodeLookupRollup = new LogRollup(Duration.ofMinutes(1), 3);
+    
     @Autowired
     public OpenNMSClient(
-            RestTemplate restTemplate,
-            WebClient.Builder webClientBuilder,
-            ObjectMapper objectMapper) {
+            ObjectMapper objectMapper,
+            OpenNMSHttpTransport transport) {
         
-        this.restTemplate = restTemplate;
+        // A template of its own: the outcome tracking below must not leak into the shared RestTemplate bean
+        this.restTemplate = transport.createRestTemplate(true);
+        this.transport = transport;
+        this.noRedirectTemplate = transport.createRestTemplate(false);
+        this.streamingTemplate = transport.createStreamingRestTemplate();
         this.objectMapper = objectMapper;
+        this.payloadEncoder = new OpenNMSPayloadEncoder(objectMapper.getFactory());
+        
+        // Every request to the configured server updates the cached connection state
+        this.restTemplate.getInterceptors().add((request, body, execution) -> {
+            boolean tracked = isTracked(request.getURI().toString());
+            try {
+                ClientHttpResponse response = execution.execute(request, body);
+                if (tracked) {
+                    recordOutcome(response.getRawStatusCode());
+                }
+                return response;
+            } catch (IOException e) {
+                if (tracked) {
+                    connectionState.recordFailure(e.getMessage());
+                }
+                throw e;
+            }
+        });
         
         // Normalize the baseUrl
         if (this.baseUrl != null) {
@@ -95,14 +147,83 @@ public class OpenNMSClient {
         this.authHeaders.set(HttpHeaders.AUTHORIZATION, "Basic " + encodedAuth);
         this.authHeaders.setContentType(MediaType.APPLICATION_JSON);
         this.authHeaders.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
-        
-        // Setup WebClient with authentication
-        this.webClient = webClientBuilder
-                .baseUrl(this.baseUrl)
-                .defaultHeader(HttpHeaders.AUTHORIZATION, "Basic " + encodedAuth)
-                .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-                .defaultHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
-                .build();
+    }
+    
+    @PostConstruct
+    public void startProbe() {
+        connectionState = new OpenNMSConnectionState(failureThreshold);
+        if (probeIntervalSeconds <= 0) {
+            return;
+        }
+        prober = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "opennms-connection-probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+        prober.scheduleWithFixedDelay(this::probe, probeIntervalSeconds, probeIntervalSeconds, TimeUnit.SECONDS);
+    }
+    
+    @PreDestroy
+    public void stopProbe() {
+        if (prober != null) {
+            prober.shutdownNow();
+        }
+    }
+    
+    /**
+     * Check whether OpenNMS is reachable, from the cached connection state.
+     * Only the first check, before any request outcome is known, makes a request.
+     *
+     * @return true if the connection is up or degraded
+     */
+    public boolean isAvailable() {
+        if (connectionState.getState() == OpenNMSConnectionState.State.UNKNOWN) {
+            testConnection();
+        }
+        return connectionState.isAvailable();
+    }
+    
+    /**
+     * Get the cached connection state.
+     *
+     * @return map of connection state values
+     */
+    public Map<String, Object> getConnectionStatus() {
+        Map<String, Object> status = new LinkedHashMap<>(connectionState.toMap());
+        status.put("transport", transport.getStatistics());
+        return status;
+    }
+    
+    /**
+     * Probe OpenNMS when the cached state needs confirming: while it is not up, or when no request
+     * has reported on it for a probe interval.
+     */
+    private void probe() {
+        try {
+            if (connectionState.getState() != OpenNMSConnectionState.State.UP
+                    || connectionState.getIdleMillis() >= TimeUnit.SECONDS.toMillis(probeIntervalSeconds)) {
+                testConnection();
+            }
+        } catch (Exception e) {
+            LOG.debug("OpenNMS connection probe failed: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Requests to the configured server count towards the connection state; the info endpoints are
+     * left to {@link #testConnection()}, which records its own overall result.
+     */
+    private boolean isTracked(String url) {
+        return baseUrl != null && url.startsWith(baseUrl) && !url.endsWith("/info");
+    }
+    
+    private void recordOutcome(int statusCode) {
+        // Client errors other than authentication failures still mean the server answered
+        if (statusCode >= 500 || statusCode == 401 || statusCode == 403) {
+            connectionState.recordFailure("HTTP " + statusCode);
+        } else {
+            connectionState.recordSuccess();
+        }
     }
     
     /**
@@ -111,7 +232,13 @@ public class OpenNMSClient {
      * @return true if connection is successful
      */
     public boolean testConnection() {
-        return testConnection(this.baseUrl, this.username, this.password);
+        boolean connected = testConnection(this.baseUrl, this.username, this.password);
+        if (connected) {
+            connectionState.recordSuccess();
+        } else {
+            connectionState.recordFailure("Connection test failed");
+        }
+        return connected;
     }
 
     /**
@@ -222,17 +349,9 @@ public class OpenNMSClient {
         try {
             String url = baseUrl + "/api/v2/requisitions";
             
-            // Convert to requisition format
-            Map<String, Object> requisition = createRequisitionObject(foreignSource, nodes);
-            
-            // Send request
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requisition, authHeaders);
-            ResponseEntity<Map> response = restTemplate.exchange(url, HttpMethod.POST, entity, Map.class);
-            
-            if (!response.getStatusCode().is2xxSuccessful()) {
-                LOG.error("Failed to create/update requisition: {}", response.getStatusCode());
-                throw new RestClientException("Failed to create/update requisition: " + response.getStatusCode());
-            }
+            // Stream the requisition straight from the nodes
+            postJson(url, OpenNMSPayloadEncoder.estimateRequisitionSize(nodes.size()),
+                out -> payloadEncoder.writeRequisition(out, foreignSource, nodes));
             
             LOG.info("Successfully created/updated requisition '{}'", foreignSource);
         } catch (Exception e) {
@@ -265,7 +384,52 @@ public class OpenNMSClient {
             throw new RuntimeException("Failed to synchronize requisition", e);
         }
     }
-    
+
+    /**
+     * Add a node to a requisition, or replace the node with the same foreign ID
+     *
+     * @param foreignSource the foreign source name
+     * @param node the node
+     */
+    public void addOrReplaceRequisitionNode(String foreignSource, DiscoveredNode node) {
+        LOG.debug("Adding/replacing node '{}' in requisition '{}'", node.getForeignId(), foreignSource);
+
+        try {
+            String url = baseUrl + "/api/v2/requisitions/" + foreignSource + "/nodes";
+            postJson(url, OpenNMSPayloadEncoder.estimateRequisitionSize(1),
+                out -> payloadEncoder.writeRequisitionNode(out, node));
+        } catch (Exception e) {
+            LOG.error("Error adding/replacing node '{}' in requisition '{}': {}", node.getForeignId(), foreignSource,
+                    e.getMessage());
+            throw new RuntimeException("Failed to add/replace requisition node", e);
+        }
+    }
+
+    /**
+     * Remove a node from a requisition
+     *
+     * @param foreignSource the foreign source name
+     * @param foreignId the foreign ID of the node
+     */
+    public void deleteRequisitionNode(String foreignSource, String foreignId) {
+        LOG.debug("Removing node '{}' from requisition '{}'", foreignId, foreignSource);
+
+        try {
+            // Encoded once as path segments; a String URL would be encoded again as a URI template
+            URI uri = UriComponentsBuilder.fromUriString(baseUrl)
+                .pathSegment("api", "v2", "requisitions", foreignSource, "nodes", foreignId)
+                .build()
+                .encode()
+                .toUri();
+            restTemplate.exchange(uri, HttpMethod.DELETE, new HttpEntity<>(authHeaders), Void.class);
+        } catch (HttpClientErrorException.NotFound e) {
+            LOG.debug("Node '{}' was already removed from requisition '{}'", foreignId, foreignSource);
+        } catch (Exception e) {
+            LOG.error("Error removing node '{}' from requisition '{}': {}", foreignId, foreignSource, e.getMessage());
+            throw new RuntimeException("Failed to remove requisition node", e);
+        }
+    }
+
     /**
      * Create a new monitoring location
      *
@@ -309,25 +473,24 @@ public class OpenNMSClient {
      */
     public void submitMetrics(String nodeId, MetricCollection metrics) {
         LOG.info("Submitting {} metrics for node '{}'", metrics.getMetrics().size(), nodeId);
-        
+        postMeasurements(nodeId, MetricBatch.fromCollection(metrics));
+    }
+    
+    /**
+     * Submit a columnar metric batch to OpenNMS
+     *
+     * @param nodeId the OpenNMS node ID
+     * @param batch the metrics to submit
+     */
+    public void submitMetrics(String nodeId, MetricBatch batch) {
+        LOG.info("Submitting {} metric samples in {} series for node '{}'", batch.size(), batch.getSeriesCount(), nodeId);
+        postMeasurements(nodeId, batch);
+    }
+    
+    private void postMeasurements(String nodeId, MetricBatch batch) {
         try {
-            String url = baseUrl + "/api/v2/measurements";
-            
-            // Convert to measurement format
-            Map<String, Object> measurements = createMeasurementsObject(nodeId, metrics);
-            
-            // Send request using WebClient for better async handling with large metric sets
-            webClient
-                .post()
-                .uri("/api/v2/measurements")
-                .bodyValue(measurements)
-                .retrieve()
-                .onStatus(httpStatus -> !httpStatus.is2xxSuccessful(),
-                    clientResponse -> Mono.error(new RestClientException(
-                        "Failed to submit metrics: " + clientResponse.statusCode()))
-                )
-                .bodyToMono(Map.class)
-                .block(); // Block for simplicity, would be async in production
+            postJson(baseUrl + "/api/v2/measurements", OpenNMSPayloadEncoder.estimateMeasurementsSize(batch),
+                out -> payloadEncoder.writeMeasurements(out, nodeId, batch));
             
             LOG.info("Successfully submitted metrics for node '{}'", nodeId);
         } catch (Exception e) {
@@ -336,6 +499,40 @@ public class OpenNMSClient {
         }
     }
     
+    /**
+     * POST a JSON body written directly to the connection, gzip-compressed when its estimated size calls for it.
+     * The streaming template bypasses the tracking interceptor, so the outcome is recorded here.
+     *
+     * @param url the request URL
+     * @param estimatedSize approximate body size in bytes
+     * @param body writer of the body
+     */
+    private void postJson(String url, int estimatedSize, StreamingHttpOutputMessage.Body body) {
+        boolean compress = transport.shouldCompress(estimatedSize);
+        try {
+            streamingTemplate.execute(url, HttpMethod.POST, request -> {
+                request.getHeaders().putAll(authHeaders);
+                if (compress) {
+                    request.getHeaders().set(HttpHeaders.CONTENT_ENCODING, "gzip");
+                    GZIPOutputStream gzip = new GZIPOutputStream(request.getBody(), 8192);
+                    body.writeTo(gzip);
+                    gzip.finish();
+                } else {
+                    body.writeTo(request.getBody());
+                }
+            }, response -> {
+                recordOutcome(response.getRawStatusCode());
+                return null;
+            });
+        } catch (RestClientResponseException e) {
+            recordOutcome(e.getRawStatusCode());
+            throw e;
+        } catch (ResourceAccessException e) {
+            connectionState.recordFailure(e.getMessage());
+            throw e;
+        }
+    }
+    
     /**
      * Find a node by foreign ID
      *
@@ -344,7 +541,7 @@ public class OpenNMSClient {
      * @return the OpenNMS node ID
      */
     public String findNodeByForeignId(String foreignSource, String foreignId) {
-        LOG.info("Looking up node with foreignSource '{}' and foreignId '{}'", foreignSource, foreignId);
+        LOG.debug("Looking up node with foreignSource '{}' and foreignId '{}'", foreignSource, foreignId);
         
         try {
             String url = baseUrl + "/api/v2/nodes?foreignSource=" + foreignSource 
@@ -354,88 +551,114 @@ public class OpenNMSClient {
             ResponseEntity<Map> response = restTemplate.exchange(url, HttpMethod.GET, entity, Map.class);
             
             if (!response.getStatusCode().is2xxSuccessful()) {
-                LOG.error("Failed to find node: {}", response.getStatusCode());
+                if (nodeLookupRollup.sample()) {
+                    LOG.error("Failed to find node: {}", response.getStatusCode());
+                }
+                reportNodeLookup(false, true);
                 return null;
             }
             
             Map<String, Object> body = response.getBody();
             if (body == null || !body.containsKey("nodes") || ((List)body.get("nodes")).isEmpty()) {
-                LOG.warn("No node found for foreignSource '{}' and foreignId '{}'", foreignSource, foreignId);
+                LOG.debug("No node found for foreignSource '{}' and foreignId '{}'", foreignSource, foreignId);
+                reportNodeLookup(false, false);
                 return null;
             }
             
             Map<String, Object> node = (Map<String, Object>) ((List)body.get("nodes")).get(0);
             String nodeId = node.get("id").toString();
-            LOG.info("Found node ID '{}' for foreignSource '{}' and foreignId '{}'", 
+            LOG.debug("Found node ID '{}' for foreignSource '{}' and foreignId '{}'", 
                     nodeId, foreignSource, foreignId);
+            reportNodeLookup(true, false);
             
             return nodeId;
         } catch (Exception e) {
-            LOG.error("Error finding node by foreign ID", e);
+            if (nodeLookupRollup.sample()) {
+                LOG.error("Error finding node by foreign ID", e);
+            } else {
+                LOG.debug("Error finding node by foreign ID {}: {}", foreignId, e.getMessage());
+            }
+            reportNodeLookup(false, true);
             return null;
         }
     }
     
     /**
-     * Create a requisition object from nodes
-     *
-     * @param foreignSource the foreign source name
-     * @param nodes the nodes to include
-     * @return the requisition object
+     * Log the node lookup rollup once per interval instead of a line per lookup.
      */
-    private Map<String, Object> createRequisitionObject(String foreignSource, Set<DiscoveredNode> nodes) {
-        // Convert nodes to requisition format
-        List<Map<String, Object>> requisitionNodes = nodes.stream()
-            .map(this::convertToRequisitionNode)
-            .collect(Collectors.toList());
-        
-        return Map.of(
-            "foreign-source", foreignSource,
-            "nodes", requisitionNodes
-        );
+    private void reportNodeLookup(boolean found, boolean failed) {
+        LogRollup.Summary summary = nodeLookupRollup.record(found ? 1 : 0, failed);
+        if (summary != null) {
+            LOG.info("Looked up {} nodes by foreign ID ({} found, {} failed) in the last {}s",
+                    summary.getEvents(), summary.getAmount(), summary.getFailures(), summary.getDurationSeconds());
+        }
     }
     
     /**
-     * Convert a discovered node to a requisition node
+     * Find all nodes of a foreign source in a single request
      *
-     * @param node the discovered node
-     * @return the requisition node
+     * @param foreignSource the foreign source
+     * @return map of foreign ID to OpenNMS node ID, empty if none were found
      */
-    private Map<String, Object> convertToRequisitionNode(DiscoveredNode node) {
-        // This is a simplified implementation
-        // In a real implementation, this would map all node attributes
-        return Map.of(
-            "foreign-id", node.getForeignId(),
-            "node-label", node.getNodeLabel(),
-            "location", node.getLocation(),
-            "interfaces", Collections.emptyList()
-        );
+    public Map<String, String> findNodeIdsByForeignSource(String foreignSource) {
+        Map<String, String> nodeIds = new HashMap<>();
+        try {
+            findNodesByForeignSource(foreignSource).forEach((foreignId, node) -> nodeIds.put(foreignId, node.get("id")));
+        } catch (Exception e) {
+            LOG.error("Error finding nodes for foreign source {}: {}", foreignSource, e.getMessage());
+        }
+        return nodeIds;
     }
     
     /**
-     * Create a measurements object from metrics
+     * Find all nodes of a foreign source in a single request, with their labels
      *
-     * @param nodeId the OpenNMS node ID
-     * @param metrics the metrics to submit
-     * @return the measurements object
+     * @param foreignSource the foreign source
+     * @return map of foreign ID to the node's "id" and "label", empty if none were found
+     * @throws RuntimeException if the nodes could not be retrieved
      */
-    private Map<String, Object> createMeasurementsObject(String nodeId, MetricCollection metrics) {
-        // Create a map for the metrics data
-        Map<String, Object> data = new HashMap<>();
-        
-        // Convert each metric to the required format
-        metrics.getMetrics().forEach(metric -> {
-            data.put(metric.getName(), metric.getValue());
-        });
-        
-        // Create the final measurements object
-        Map<String, Object> result = new HashMap<>();
-        result.put("node", nodeId);
-        result.put("metrics", data);
+    public Map<String, Map<String, String>> findNodesByForeignSource(String foreignSource) {
+        LOG.debug("Looking up all nodes with foreignSource '{}'", foreignSource);
         
-        return result;
+        Map<String, Map<String, String>> nodes = new HashMap<>();
+        try {
+            String url = baseUrl + "/api/v2/nodes?foreignSource=" 
+                    + URLEncoder.encode(foreignSource, StandardCharsets.UTF_8) + "&limit=0";
+            
+            HttpEntity<String> entity = new HttpEntity<>(authHeaders);
+            ResponseEntity<Map> response = restTemplate.exchange(url, HttpMethod.GET, entity, Map.class);
+            
+            Map<String, Object> body = response.getBody();
+            if (!response.getStatusCode().is2xxSuccessful()) {
+                throw new RestClientException("Failed to find nodes: " + response.getStatusCode());
+            }
+            if (body == null || !(body.get("nodes") instanceof List)) {
+                return nodes;
+            }
+            
+            for (Object item : (List<?>) body.get("nodes")) {
+                if (item instanceof Map) {
+                    Map<?, ?> node = (Map<?, ?>) item;
+                    Object foreignId = node.get("foreignId");
+                    Object id = node.get("id");
+                    if (foreignId != null && id != null) {
+                        Map<String, String> summary = new HashMap<>();
+                        summary.put("id", id.toString());
+                        Object label = node.get("label");
+                        summary.put("label", label != null ? label.toString() : null);
+                        nodes.put(foreignId.toString(), summary);
+                    }
+                }
+            }
+            
+            LOG.debug("Found {} nodes for foreignSource '{}'", nodes.size(), foreignSource);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to find nodes for foreign source " + foreignSource, e);
+        }
+        return nodes;
     }
     
+    
     /**
      * Check if the base URL is accessible at all, without testing specific API endpoints
      * 
@@ -444,14 +667,7 @@ public class OpenNMSClient {
     public boolean isUrlAccessible() {
         try {
             // Disable redirects to better diagnose issues
-            RestTemplate simpleTemplate = new RestTemplate();
-            simpleTemplate.setRequestFactory(new SimpleClientHttpRequestFactory() {
-                @Override
-                protected void prepareConnection(HttpURLConnection connection, String httpMethod) throws IOException {
-                    super.prepareConnection(connection, httpMethod);
-                    connection.setInstanceFollowRedirects(false);
-                }
-            });
+            RestTemplate simpleTemplate = noRedirectTemplate;
             
             // Create headers with authentication
             HttpHeaders headers = new HttpHeaders();
@@ -482,6 +698,7 @@ public class OpenNMSClient {
     }
 
     public void createOrUpdateNode(CloudResource resource) {
+        String nodeId = null;
         try {
             // First try to get the node by foreign ID
             String foreignId = resource.getProviderId() + ":" + resource.getResourceId();
@@ -495,9 +712,43 @@ public class OpenNMSClient {
             );
             
             if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
+                Object id = response.getBody().get("id");
+                nodeId = id != null ? id.toString() : null;
+            }
+        } catch (Exception e) {
+            LOG.error("Error creating/updating node for resource {}: {}", resource.getResourceId(), e.getMessage());
+            throw new RuntimeException("Failed to create/update node in OpenNMS", e);
+        }
+        
+        createOrUpdateNode(resource, nodeId);
+    }
+    
+    /**
+     * Create or update a node when its OpenNMS node ID is already known, skipping the lookup.
+     *
+     * @param resource the cloud resource
+     * @param nodeId the existing node ID, or null to create a new node
+     */
+    public void createOrUpdateNode(CloudResource resource, String nodeId) {
+        createOrUpdateNode(resource.getProviderId(), resource, nodeId);
+    }
+    
+    /**
+     * Create or update a node of a provider's foreign source when its OpenNMS node ID is already known.
+     * The node gets the foreign ID {@code <providerId>:<resourceId>} in the foreign source {@code providerId},
+     * as {@link #findNodesByForeignSource(String)} expects.
+     *
+     * @param providerId the provider ID, also the node's foreign source
+     * @param resource the cloud resource
+     * @param nodeId the existing node ID, or null to create a new node
+     */
+    public void createOrUpdateNode(String providerId, CloudResource resource, String nodeId) {
+        try {
+            String foreignId = providerId + ":" + resource.getResourceId();
+            String url;
+            
+            if (nodeId != null) {
                 // Node exists, update it
-                Map<String, Object> node = response.getBody();
-                String nodeId = (String) node.get("id");
                 url = baseUrl + v1BasePath + "/nodes/" + nodeId;
                 
                 Map<String, Object> updateData = new HashMap<>();
@@ -518,6 +769,7 @@ public class OpenNMSClient {
                 Map<String, Object> nodeData = new HashMap<>();
                 nodeData.put("label", resource.getName());
                 nodeData.put("location", defaultLocation);
+                nodeData.put("foreignSource", providerId);
                 nodeData.put("foreignId", foreignId);
                 
                 restTemplate.exchange(
@@ -563,6 +815,25 @@ public class OpenNMSClient {
         }
     }
     
+    /**
+     * Delete a node whose OpenNMS node ID is already known, skipping the lookup.
+     *
+     * @param nodeId the OpenNMS node ID
+     */
+    public void deleteNodeById(String nodeId) {
+        try {
+            restTemplate.exchange(
+                baseUrl + v1BasePath + "/nodes/" + nodeId,
+                HttpMethod.DELETE,
+                new HttpEntity<>(authHeaders),
+                Void.class
+            );
+        } catch (Exception e) {
+            LOG.error("Error deleting node {}: {}", nodeId, e.getMessage());
+            throw new RuntimeException("Failed to delete node from OpenNMS", e);
+        }
+    }
+    
     public void updateNodeMetrics(String providerId, String resourceId, Map<String, Double> metrics) {
         try {
             String foreignId = providerId + ":" + resourceId;
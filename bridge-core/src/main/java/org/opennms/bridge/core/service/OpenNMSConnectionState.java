@@ -0,0 +1,109 @@
+package org.opennms.bridge.core.service;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cached health of the OpenNMS connection.
+ * The state is updated passively from the outcome of every request to OpenNMS and actively by a low-rate probe,
+ * so callers can check it without a request of their own. A failed request makes the connection DEGRADED;
+ * {@code failureThreshold} consecutive failures make it DOWN, and any success makes it UP again.
+ */
+public final class OpenNMSConnectionState {
+
+    public enum State {
+        UNKNOWN,
+        UP,
+        DEGRADED,
+        DOWN
+    }
+
+    private final int failureThreshold;
+
+    private State state = State.UNKNOWN;
+    private int consecutiveFailures;
+    private long lastSuccessMillis;
+    private long lastFailureMillis;
+    private long lastChangeMillis = System.currentTimeMillis();
+    private long transitions;
+    private String lastError;
+
+    /**
+     * @param failureThreshold consecutive failures after which the connection is down
+     */
+    public OpenNMSConnectionState(int failureThreshold) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+    }
+
+    /**
+     * Record a request that reached OpenNMS.
+     */
+    public synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        lastSuccessMillis = System.currentTimeMillis();
+        transition(State.UP);
+    }
+
+    /**
+     * Record a request that could not reach OpenNMS or that OpenNMS failed.
+     *
+     * @param error description of the failure
+     */
+    public synchronized void recordFailure(String error) {
+        consecutiveFailures++;
+        lastFailureMillis = System.currentTimeMillis();
+        lastError = error;
+        transition(consecutiveFailures >= failureThreshold ? State.DOWN : State.DEGRADED);
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @return true if requests are expected to reach OpenNMS: the connection is up or degraded
+     */
+    public synchronized boolean isAvailable() {
+        return state == State.UP || state == State.DEGRADED;
+    }
+
+    /**
+     * @return milliseconds since the last request outcome, or since creation without one
+     */
+    public synchronized long getIdleMillis() {
+        long last = Math.max(Math.max(lastSuccessMillis, lastFailureMillis), lastChangeMillis);
+        return System.currentTimeMillis() - last;
+    }
+
+    /**
+     * Get the state and recent outcomes.
+     *
+     * @return map of state values
+     */
+    public synchronized Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("state", state.name());
+        map.put("since", Instant.ofEpochMilli(lastChangeMillis).toString());
+        map.put("consecutiveFailures", consecutiveFailures);
+        map.put("transitions", transitions);
+        if (lastSuccessMillis > 0) {
+            map.put("lastSuccess", Instant.ofEpochMilli(lastSuccessMillis).toString());
+        }
+        if (lastFailureMillis > 0) {
+            map.put("lastFailure", Instant.ofEpochMilli(lastFailureMillis).toString());
+        }
+        if (lastError != null) {
+            map.put("lastError", lastError);
+        }
+        return map;
+    }
+
+    private void transition(State newState) {
+        if (state != newState) {
+            state = newState;
+            lastChangeMillis = System.currentTimeMillis();
+            transitions++;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package org.opennms.bridge.core.service;
+
+import io.netty.channel.ChannelOption;
+import org.apache.http.HeaderElement;
+import org.apache.http.HeaderElementIterator;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.message.BasicHeaderElementIterator;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.protocol.HttpContext;
+import org.opennms.bridge.api.Deadline;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * HTTP transport for requests to OpenNMS.
+ * Both the RestTemplate and the WebClient paths use pooled keep-alive connections with per-route limits,
+ * so submissions reuse warm connections instead of paying TCP and TLS setup on every request.
+ * Request bodies above a size threshold can be gzip-compressed.
+ */
+@Component
+public class OpenNMSHttpTransport {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OpenNMSHttpTransport.class);
+
+    private final Duration connectionTimeout;
+    private final Duration readTimeout;
+    private final Duration keepAlive;
+    private final int maxConnections;
+    private final boolean compression;
+    private final int compressionMinSize;
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+    private final ConnectionProvider connectionProvider;
+
+    public OpenNMSHttpTransport(
+            @Value("${opennms.connection-timeout:30s}") Duration connectionTimeout,
+            @Value("${opennms.read-timeout:60s}") Duration readTimeout,
+            @Value("${opennms.http.keep-alive:60s}") Duration keepAlive,
+            @Value("${opennms.http.max-connections:50}") int maxConnections,
+            @Value("${opennms.http.max-connections-per-route:20}") int maxConnectionsPerRoute,
+            @Value("${opennms.http.compression.enabled:false}") boolean compression,
+            @Value("${opennms.http.compression.min-size:8192}") int compressionMinSize) {
+        this.connectionTimeout = connectionTimeout;
+        this.readTimeout = readTimeout;
+        this.keepAlive = keepAlive;
+        this.maxConnections = Math.max(1, maxConnections);
+        this.compression = compression;
+        this.compressionMinSize = Math.max(0, compressionMinSize);
+
+        connectionManager = new PoolingHttpClientConnectionManager(keepAlive.toMillis(), TimeUnit.MILLISECONDS);
+        connectionManager.setMaxTotal(this.maxConnections);
+        connectionManager.setDefaultMaxPerRoute(Math.max(1, Math.min(maxConnectionsPerRoute, this.maxConnections)));
+        // Check connections idle for a while before reuse, so a connection the server closed is not handed out
+        connectionManager.setValidateAfterInactivity(2000);
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy(keepAliveStrategy())
+                .evictExpiredConnections()
+                .evictIdleConnections(keepAlive.toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+
+        connectionProvider = ConnectionProvider.builder("opennms")
+                .maxConnections(this.maxConnections)
+                .maxIdleTime(keepAlive)
+                .pendingAcquireTimeout(connectionTimeout)
+                .evictInBackground(keepAlive)
+                .metrics(true)
+                .build();
+
+        LOG.info("OpenNMS HTTP transport: {} pooled connections ({} per route), keep-alive {}, compression {}",
+                this.maxConnections, connectionManager.getDefaultMaxPerRoute(), keepAlive,
+                compression ? "above " + this.compressionMinSize + " bytes" : "off");
+    }
+
+    /**
+     * Create a RestTemplate on the pooled connections.
+     *
+     * @param followRedirects whether redirects are followed
+     * @return the RestTemplate
+     */
+    public RestTemplate createRestTemplate(boolean followRedirects) {
+        RestTemplate restTemplate = new RestTemplate(createRequestFactory(followRedirects));
+        if (compression) {
+            restTemplate.getInterceptors().add(compressionInterceptor());
+        }
+        return restTemplate;
+    }
+
+    /**
+     * Create a RestTemplate on the pooled connections that writes request bodies straight to the connection,
+     * chunked, instead of buffering them. Interceptors would buffer the body again, so the template has none:
+     * callers compress and track outcomes themselves.
+     *
+     * @return the RestTemplate
+     */
+    public RestTemplate createStreamingRestTemplate() {
+        HttpComponentsClientHttpRequestFactory requestFactory = createRequestFactory(true);
+        requestFactory.setBufferRequestBody(false);
+        return new RestTemplate(requestFactory);
+    }
+
+    private HttpComponentsClientHttpRequestFactory createRequestFactory(boolean followRedirects) {
+        return new HttpComponentsClientHttpRequestFactory(httpClient) {
+            @Override
+            protected HttpContext createHttpContext(HttpMethod httpMethod, URI uri) {
+                // Requests made by a collection or discovery task are bounded by the time the task has left
+                HttpClientContext context = HttpClientContext.create();
+                context.setRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout((int) Deadline.limit(connectionTimeout).toMillis())
+                        .setConnectionRequestTimeout((int) Deadline.limit(connectionTimeout).toMillis())
+                        .setSocketTimeout((int) Deadline.limit(readTimeout).toMillis())
+                        .setRedirectsEnabled(followRedirects)
+                        .build());
+                return context;
+            }
+        };
+    }
+
+    /**
+     * Get the connector for WebClients on the pooled connections.
+     *
+     * @return the connector
+     */
+    public ClientHttpConnector createConnector() {
+        return new ReactorClientHttpConnector(HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectionTimeout.toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .responseTimeout(readTimeout)
+                .compress(true));
+    }
+
+    /**
+     * Check whether a request body of a given size is sent gzip-compressed.
+     *
+     * @param length body length in bytes
+     * @return true if the body should be compressed
+     */
+    public boolean shouldCompress(int length) {
+        return compression && length >= compressionMinSize;
+    }
+
+    /**
+     * Gzip-compress a request body.
+     *
+     * @param body the body
+     * @return the compressed body
+     */
+    public static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Get connection pool usage.
+     *
+     * @return pool statistics, in total and by route
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pool", toMap(connectionManager.getTotalStats()));
+        Map<String, Object> routes = new TreeMap<>();
+        connectionManager.getRoutes().forEach(route ->
+                routes.put(route.getTargetHost().toURI(), toMap(connectionManager.getStats(route))));
+        stats.put("routes", routes);
+        stats.put("keepAliveSeconds", keepAlive.getSeconds());
+        stats.put("compression", compression);
+        stats.put("compressionMinSize", compressionMinSize);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        try {
+            httpClient.close();
+        } catch (IOException e) {
+            LOG.debug("Error closing OpenNMS HTTP client: {}", e.getMessage());
+        }
+        connectionProvider.disposeLater().subscribe();
+    }
+
+    private ClientHttpRequestInterceptor compressionInterceptor() {
+        return (request, body, execution) -> {
+            if (shouldCompress(body.length) && !request.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)) {
+                request.getHeaders().set(HttpHeaders.CONTENT_ENCODING, "gzip");
+                return execution.execute(request, gzip(body));
+            }
+            return execution.execute(request, body);
+        };
+    }
+
+    /**
+     * Keep connections alive as long as the server allows, and no longer than the configured keep-alive.
+     */
+    private ConnectionKeepAliveStrategy keepAliveStrategy() {
+        return (response, context) -> {
+            HeaderElementIterator it = new BasicHeaderElementIterator(response.headerIterator(HTTP.CONN_KEEP_ALIVE));
+            while (it.hasNext()) {
+                HeaderElement element = it.nextElement();
+                if ("timeout".equalsIgnoreCase(element.getName()) && element.getValue() != null) {
+                    try {
+                        return Math.min(Long.parseLong(element.getValue()) * 1000, keepAlive.toMillis());
+                    } catch (NumberFormatException e) {
+                        break;
+                    }
+                }
+            }
+            return keepAlive.toMillis();
+        };
+    }
+
+    private Map<String, Object> toMap(PoolStats poolStats) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("leased", poolStats.getLeased());
+        map.put("available", poolStats.getAvailable());
+        map.put("pending", poolStats.getPending());
+        map.put("max", poolStats.getMax());
+        return map;
+    }
+}
@@ -0,0 +1,253 @@
+package org.opennms.bridge.core.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.opennms.bridge.api.DiscoveredNode;
+import org.opennms.bridge.api.MetricBatch;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Streaming JSON encoders for requisition and measurement payloads.
+ * Payloads are written field by field from the source objects straight to the request body, so no intermediate
+ * map tree is built and memory does not grow with the number of nodes or samples. The generators use Jackson's
+ * per-thread recycled buffers.
+ */
+public final class OpenNMSPayloadEncoder {
+
+    // Rough encoded sizes, used to decide on compression before a body is written
+    private static final int REQUISITION_NODE_BYTES = 120;
+    private static final int MEASUREMENT_SERIES_BYTES = 120;
+    private static final int MEASUREMENT_SAMPLE_BYTES = 24;
+
+    private final JsonFactory jsonFactory;
+
+    public OpenNMSPayloadEncoder(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    /**
+     * Write a requisition with all of its nodes.
+     *
+     * @param out the body stream, left open
+     * @param foreignSource the foreign source name
+     * @param nodes the nodes
+     */
+    public void writeRequisition(OutputStream out, String foreignSource, Collection<DiscoveredNode> nodes)
+            throws IOException {
+        try (JsonGenerator generator = createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeStringField("foreign-source", foreignSource);
+            generator.writeArrayFieldStart("nodes");
+            for (DiscoveredNode node : nodes) {
+                writeNode(generator, node);
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Write a single requisition node.
+     *
+     * @param out the body stream, left open
+     * @param node the node
+     */
+    public void writeRequisitionNode(OutputStream out, DiscoveredNode node) throws IOException {
+        try (JsonGenerator generator = createGenerator(out)) {
+            writeNode(generator, node);
+        }
+    }
+
+    /**
+     * Write the measurements of a node with every sample of a batch.
+     * The body carries each series with its tags and all of its samples as parallel, time-ordered
+     * {@code timestamps} (epoch milliseconds) and {@code values} arrays, so multi-datapoint windows and backfill
+     * are delivered in one request. A series registered in the series dictionary carries its {@code id}, which
+     * stays the same across requests and restarts, so consumers can key it without parsing names and tags.
+     * The {@code metrics} object keeps the latest value by metric name for consumers of the single-value format.
+     *
+     * @param out the body stream, left open
+     * @param nodeId the OpenNMS node ID
+     * @param batch the metrics
+     */
+    public void writeMeasurements(OutputStream out, String nodeId, MetricBatch batch) throws IOException {
+        int[] order = orderBySeries(batch);
+        int seriesCount = batch.getSeriesCount();
+
+        try (JsonGenerator generator = createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeStringField("node", nodeId);
+            if (batch.getTimestamp() != null) {
+                generator.writeNumberField("timestamp", batch.getTimestamp().toEpochMilli());
+            }
+            writeLatestByName(generator, batch, order);
+
+            generator.writeArrayFieldStart("series");
+            int start = 0;
+            for (int seriesId = 0; seriesId < seriesCount; seriesId++) {
+                int end = start;
+                while (end < order.length && batch.getSeriesId(order[end]) == seriesId) {
+                    end++;
+                }
+                if (end > start) {
+                    writeSeries(generator, batch, seriesId, order, start, end);
+                }
+                start = end;
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Estimate the encoded size of a requisition.
+     *
+     * @param nodeCount number of nodes
+     * @return approximate size in bytes
+     */
+    public static int estimateRequisitionSize(int nodeCount) {
+        return nodeCount * REQUISITION_NODE_BYTES;
+    }
+
+    /**
+     * Estimate the encoded size of a node's measurements.
+     *
+     * @param batch the metrics
+     * @return approximate size in bytes
+     */
+    public static int estimateMeasurementsSize(MetricBatch batch) {
+        return batch.getSeriesCount() * MEASUREMENT_SERIES_BYTES + batch.size() * MEASUREMENT_SAMPLE_BYTES;
+    }
+
+    private JsonGenerator createGenerator(OutputStream out) throws IOException {
+        // The caller owns the stream: it may be a compressing stream still to be finished
+        return jsonFactory.createGenerator(out).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    /**
+     * Order sample indexes by series, and by timestamp within a series.
+     * Samples are grouped with a counting sort; a series already in ascending or strictly descending time order, as
+     * CloudWatch returns it, needs no further sorting.
+     */
+    private static int[] orderBySeries(MetricBatch batch) {
+        int[] offsets = new int[batch.getSeriesCount() + 1];
+        for (int i = 0; i < batch.size(); i++) {
+            offsets[batch.getSeriesId(i) + 1]++;
+        }
+        for (int seriesId = 0; seriesId < batch.getSeriesCount(); seriesId++) {
+            offsets[seriesId + 1] += offsets[seriesId];
+        }
+        int[] order = new int[batch.size()];
+        int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+        for (int i = 0; i < batch.size(); i++) {
+            order[next[batch.getSeriesId(i)]++] = i;
+        }
+        for (int seriesId = 0; seriesId < batch.getSeriesCount(); seriesId++) {
+            sortByTimestamp(batch, order, offsets[seriesId], offsets[seriesId + 1]);
+        }
+        return order;
+    }
+
+    private static void sortByTimestamp(MetricBatch batch, int[] order, int start, int end) {
+        boolean ascending = true;
+        boolean descending = true;
+        for (int i = start + 1; i < end && (ascending || descending); i++) {
+            long previous = batch.getTimestamp(order[i - 1]);
+            long current = batch.getTimestamp(order[i]);
+            ascending &= previous <= current;
+            descending &= previous > current;
+        }
+        if (ascending) {
+            return;
+        }
+        if (descending) {
+            for (int i = start, j = end - 1; i < j; i++, j--) {
+                int swap = order[i];
+                order[i] = order[j];
+                order[j] = swap;
+            }
+            return;
+        }
+        // Stable, so of samples sharing a timestamp the one added last stays last
+        Integer[] segment = new Integer[end - start];
+        for (int i = start; i < end; i++) {
+            segment[i - start] = order[i];
+        }
+        Arrays.sort(segment, Comparator.comparingLong(batch::getTimestamp));
+        for (int i = start; i < end; i++) {
+            order[i] = segment[i - start];
+        }
+    }
+
+    private static void writeLatestByName(JsonGenerator generator, MetricBatch batch, int[] order)
+            throws IOException {
+        // Series sharing a name are reported once, with the most recent sample
+        Map<String, Integer> latestByName = new LinkedHashMap<>();
+        for (int index : order) {
+            Integer latest = latestByName.get(batch.getSeriesName(batch.getSeriesId(index)));
+            if (latest == null || batch.getTimestamp(index) >= batch.getTimestamp(latest)) {
+                latestByName.put(batch.getSeriesName(batch.getSeriesId(index)), index);
+            }
+        }
+        generator.writeObjectFieldStart("metrics");
+        for (Map.Entry<String, Integer> entry : latestByName.entrySet()) {
+            generator.writeNumberField(entry.getKey(), batch.getValue(entry.getValue()));
+        }
+        generator.writeEndObject();
+    }
+
+    private static void writeSeries(JsonGenerator generator, MetricBatch batch, int seriesId, int[] order,
+                                    int start, int end) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("name", batch.getSeriesName(seriesId));
+        int dictionaryId = batch.getDictionaryId(seriesId);
+        if (dictionaryId >= 0) {
+            generator.writeNumberField("id", dictionaryId);
+        }
+        Map<String, String> tags = batch.getSeriesTags(seriesId);
+        if (!tags.isEmpty()) {
+            generator.writeObjectFieldStart("tags");
+            for (Map.Entry<String, String> tag : tags.entrySet()) {
+                generator.writeStringField(tag.getKey(), tag.getValue());
+            }
+            generator.writeEndObject();
+        }
+        // A repeated timestamp keeps only its last sample
+        generator.writeArrayFieldStart("timestamps");
+        for (int i = start; i < end; i++) {
+            if (!isSuperseded(batch, order, i, end)) {
+                generator.writeNumber(batch.getTimestamp(order[i]));
+            }
+        }
+        generator.writeEndArray();
+        generator.writeArrayFieldStart("values");
+        for (int i = start; i < end; i++) {
+            if (!isSuperseded(batch, order, i, end)) {
+                generator.writeNumber(batch.getValue(order[i]));
+            }
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    private static boolean isSuperseded(MetricBatch batch, int[] order, int i, int end) {
+        return i + 1 < end && batch.getTimestamp(order[i + 1]) == batch.getTimestamp(order[i]);
+    }
+
+    private void writeNode(JsonGenerator generator, DiscoveredNode node) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("foreign-id", node.getForeignId());
+        generator.writeStringField("node-label", node.getNodeLabel());
+        generator.writeStringField("location", node.getLocation());
+        generator.writeArrayFieldStart("interfaces");
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,122 @@
+package org.opennms.bridge.core.service;
+
+import org.opennms.bridge.api.SeriesDictionary;
+import org.opennms.bridge.api.SeriesKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Series dictionary whose IDs survive restarts.
+ * Each new series is appended to a dictionary file as its ID, provider, resource, namespace, metric and statistic,
+ * tab-separated with tab, newline, carriage return and backslash escaped; the file is replayed on startup.
+ * Providers, which do not depend on this module, get it injected as their {@link SeriesDictionary}.
+ */
+@Component
+public class PersistentSeriesDictionary extends SeriesDictionary {
+    private static final Logger LOG = LoggerFactory.getLogger(PersistentSeriesDictionary.class);
+
+    @Value("${bridge.series.dictionaryFile:config/series-dictionary.tsv}")
+    private String dictionaryFile = "config/series-dictionary.tsv";
+
+    // Guarded by this
+    private BufferedWriter writer;
+
+    @PostConstruct
+    public void init() {
+        File file = new File(dictionaryFile);
+        if (file.exists()) {
+            load(file);
+        }
+        LOG.info("Series dictionary loaded with {} series from {}", size(), dictionaryFile);
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                LOG.warn("Failed to close series dictionary file {}: {}", dictionaryFile, e.getMessage());
+            }
+            writer = null;
+        }
+    }
+
+    @Override
+    protected synchronized void onRegistered(int id, SeriesKey key) {
+        try {
+            if (writer == null) {
+                File file = new File(dictionaryFile);
+                File dir = file.getAbsoluteFile().getParentFile();
+                if (dir != null && !dir.exists() && !dir.mkdirs()) {
+                    throw new IOException("Failed to create directory: " + dir);
+                }
+                writer = new BufferedWriter(new OutputStreamWriter(
+                        new FileOutputStream(file, true), StandardCharsets.UTF_8));
+            }
+            writer.write(id + "\t" + escape(key.getProviderId()) + "\t" + escape(key.getResourceId()) + "\t"
+                    + escape(key.getNamespace()) + "\t" + escape(key.getMetric()) + "\t"
+                    + escape(key.getStatistic()) + "\n");
+            writer.flush();
+        } catch (IOException e) {
+            // The ID stays valid for this run; it just will not survive a restart
+            LOG.warn("Failed to persist series {} to {}: {}", key, dictionaryFile, e.getMessage());
+        }
+    }
+
+    private void load(File file) {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", -1);
+                if (fields.length != 6) {
+                    continue;
+                }
+                try {
+                    restore(Integer.parseInt(fields[0]), new SeriesKey(unescape(fields[1]), unescape(fields[2]),
+                            unescape(fields[3]), unescape(fields[4]), unescape(fields[5])));
+                } catch (IllegalArgumentException e) {
+                    LOG.debug("Skipping malformed series dictionary line: {}", line);
+                }
+            }
+        } catch (IOException e) {
+            LOG.error("Error loading series dictionary from {}: {}", file, e.getMessage());
+        }
+    }
+
+    static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    static String unescape(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder result = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                result.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+}
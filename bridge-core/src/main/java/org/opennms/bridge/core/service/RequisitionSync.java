@@ -0,0 +1,204 @@
+package org.opennms.bridge.core.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import org.opennms.bridge.api.DiscoveredNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Incremental synchronization of discovered nodes to OpenNMS requisitions.
+ * A content hash of every node last pushed to a foreign source is kept, so a discovery cycle only adds, replaces
+ * or removes the nodes that changed through the per-node requisition endpoints, and sends nothing when nothing
+ * changed. The whole requisition is only posted on the first sync of a foreign source.
+ * Imports are batched: changes within {@code opennms.requisition.min-import-interval} of the last import share
+ * the next one.
+ */
+@Component
+public class RequisitionSync {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RequisitionSync.class);
+
+    // Hashes are taken over the node exactly as it is encoded for OpenNMS
+    private final OpenNMSPayloadEncoder payloadEncoder = new OpenNMSPayloadEncoder(new JsonFactory());
+
+    private final OpenNMSClient openNMSClient;
+    private final TaskScheduler taskScheduler;
+    private final Duration minImportInterval;
+
+    // Foreign source -> foreign ID -> hash of the node as last pushed
+    private final Map<String, Map<String, String>> pushedHashes = new ConcurrentHashMap<>();
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+    private final Map<String, ScheduledFuture<?>> scheduledImports = new ConcurrentHashMap<>();
+    private final Map<String, Instant> lastImports = new ConcurrentHashMap<>();
+
+    private final AtomicLong unchangedCycles = new AtomicLong();
+    private final AtomicLong fullSyncs = new AtomicLong();
+    private final AtomicLong nodesAdded = new AtomicLong();
+    private final AtomicLong nodesChanged = new AtomicLong();
+    private final AtomicLong nodesRemoved = new AtomicLong();
+    private final AtomicLong imports = new AtomicLong();
+
+    public RequisitionSync(OpenNMSClient openNMSClient, TaskScheduler taskScheduler,
+                           @Value("${opennms.requisition.min-import-interval:5m}") Duration minImportInterval) {
+        this.openNMSClient = openNMSClient;
+        this.taskScheduler = taskScheduler;
+        this.minImportInterval = minImportInterval;
+    }
+
+    /**
+     * Bring a requisition in line with the discovered nodes, and schedule an import if anything changed.
+     *
+     * @param foreignSource the foreign source name
+     * @param nodes all nodes currently discovered for the foreign source
+     * @return the number of nodes added, changed or removed
+     */
+    public int sync(String foreignSource, Set<DiscoveredNode> nodes) {
+        synchronized (locks.computeIfAbsent(foreignSource, key -> new Object())) {
+            Map<String, DiscoveredNode> current = new HashMap<>();
+            Map<String, String> currentHashes = new HashMap<>();
+            for (DiscoveredNode node : nodes) {
+                current.put(node.getForeignId(), node);
+                currentHashes.put(node.getForeignId(), hash(node));
+            }
+
+            Map<String, String> pushed = pushedHashes.get(foreignSource);
+            if (pushed == null) {
+                // Nothing known about what OpenNMS holds: replace the whole requisition once
+                openNMSClient.createOrUpdateRequisition(foreignSource, nodes);
+                pushedHashes.put(foreignSource, new ConcurrentHashMap<>(currentHashes));
+                fullSyncs.incrementAndGet();
+                requestImport(foreignSource);
+                return nodes.size();
+            }
+
+            int changes = 0;
+            try {
+                for (Map.Entry<String, String> entry : currentHashes.entrySet()) {
+                    String previous = pushed.get(entry.getKey());
+                    if (entry.getValue().equals(previous)) {
+                        continue;
+                    }
+                    openNMSClient.addOrReplaceRequisitionNode(foreignSource, current.get(entry.getKey()));
+                    pushed.put(entry.getKey(), entry.getValue());
+                    (previous == null ? nodesAdded : nodesChanged).incrementAndGet();
+                    changes++;
+                }
+                for (String foreignId : Set.copyOf(pushed.keySet())) {
+                    if (!currentHashes.containsKey(foreignId)) {
+                        openNMSClient.deleteRequisitionNode(foreignSource, foreignId);
+                        pushed.remove(foreignId);
+                        nodesRemoved.incrementAndGet();
+                        changes++;
+                    }
+                }
+            } finally {
+                // Changes applied before a failure still need importing; the rest are retried next cycle
+                if (changes > 0) {
+                    requestImport(foreignSource);
+                }
+            }
+
+            if (changes == 0) {
+                unchangedCycles.incrementAndGet();
+                LOG.debug("Requisition '{}' unchanged, {} nodes", foreignSource, nodes.size());
+            } else {
+                LOG.info("Requisition '{}': {} of {} nodes added, changed or removed", foreignSource, changes,
+                        nodes.size());
+            }
+            return changes;
+        }
+    }
+
+    /**
+     * Get sync and import counts.
+     *
+     * @return map of statistics
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("fullSyncs", fullSyncs.get());
+        stats.put("unchangedCycles", unchangedCycles.get());
+        stats.put("nodesAdded", nodesAdded.get());
+        stats.put("nodesChanged", nodesChanged.get());
+        stats.put("nodesRemoved", nodesRemoved.get());
+        stats.put("imports", imports.get());
+        stats.put("minImportIntervalSeconds", minImportInterval.getSeconds());
+        Map<String, Object> foreignSources = new TreeMap<>();
+        pushedHashes.forEach((foreignSource, hashes) -> {
+            Map<String, Object> source = new LinkedHashMap<>();
+            source.put("nodes", hashes.size());
+            source.put("importPending", scheduledImports.containsKey(foreignSource));
+            Instant lastImport = lastImports.get(foreignSource);
+            if (lastImport != null) {
+                source.put("lastImport", lastImport.toString());
+            }
+            foreignSources.put(foreignSource, source);
+        });
+        stats.put("foreignSources", foreignSources);
+        return stats;
+    }
+
+    /**
+     * Schedule an import of a foreign source no sooner than the minimum interval after its last one.
+     * A request while an import is already scheduled joins that import.
+     */
+    private void requestImport(String foreignSource) {
+        synchronized (scheduledImports) {
+            if (scheduledImports.containsKey(foreignSource)) {
+                return;
+            }
+            Instant last = lastImports.get(foreignSource);
+            Instant now = Instant.now();
+            Instant at = last == null || last.plus(minImportInterval).isBefore(now) ? now : last.plus(minImportInterval);
+            LOG.debug("Import of requisition '{}' scheduled at {}", foreignSource, at);
+            scheduledImports.put(foreignSource, taskScheduler.schedule(() -> runImport(foreignSource), at));
+        }
+    }
+
+    private void runImport(String foreignSource) {
+        synchronized (scheduledImports) {
+            scheduledImports.remove(foreignSource);
+        }
+        lastImports.put(foreignSource, Instant.now());
+        try {
+            openNMSClient.synchronizeRequisition(foreignSource);
+            imports.incrementAndGet();
+        } catch (Exception e) {
+            LOG.warn("Import of requisition '{}' failed, retrying in {}: {}", foreignSource, minImportInterval,
+                    e.getMessage());
+            requestImport(foreignSource);
+        }
+    }
+
+    private String hash(DiscoveredNode node) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (OutputStream out = new DigestOutputStream(OutputStream.nullOutputStream(), digest)) {
+                payloadEncoder.writeRequisitionNode(out, node);
+            }
+            return Base64.getEncoder().encodeToString(digest.digest());
+        } catch (NoSuchAlgorithmException | IOException e) {
+            throw new IllegalStateException("Cannot hash requisition node " + node.getForeignId(), e);
+        }
+    }
+}
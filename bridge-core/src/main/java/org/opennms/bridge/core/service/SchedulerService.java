@@ -39,6 +39,9 @@ public class SchedulerService {
     private final Duration collectionInterval;
     
     private final Map<String, ScheduledFuture<?>> scheduledTasks = new ConcurrentHashMap<>();
+    
+    @Autowired
+    private CollectionPipeline collectionPipeline;
 
     @Autowired
     public SchedulerService(
@@ -142,35 +145,23 @@ public class SchedulerService {
     }
     
     /**
-     * Run collection for all discovered resources
+     * Run collection for all discovered resources.
+     * Collection goes through the shared pipeline, so resources another schedule already collected in this
+     * interval are not collected again.
      */
     void runCollectionForDiscoveredResources() {
         LOG.info("Running collection for discovered resources");
         
-        // In a real implementation, this would look up all discovered resources
-        // from a registry or database, then trigger collection for each
-        
-        // For this example, we'll simulate by collecting from a fixed set of resources
-        getKnownResources().forEach(resource -> {
-            try {
-                LOG.debug("Starting collection for resource: {}", resource.getResourceId());
-                CloudProvider provider = getProviderForResource(resource);
-                
-                if (provider != null) {
-                    CollectionConfiguration config = new CollectionConfiguration();
-                    config.setInitialDelay(Duration.ZERO); // Run immediately 
-                    config.setInterval(collectionInterval);
-                    config.setProvider(provider);
-                    
-                    // Trigger one-time collection for this resource
-                    collectionService.collectMetrics(resource)
-                        .exceptionally(ex -> {
-                            LOG.error("Collection failed for resource: " + resource.getResourceId(), ex);
-                            return null;
-                        });
-                }
+        cloudProviders.forEach((id, provider) -> {
+            try (Deadline.Scope scope = Deadline.after(collectionInterval).enter()) {
+                Set<CloudResource> resources = discoveryService.discoverResources(provider);
+                CollectionPipeline.Cycle cycle = collectionPipeline.collect(provider, resources, collectionInterval);
+                cycle.getFailures().forEach((resourceId, error) ->
+                        LOG.error("Collection failed for resource {}: {}", resourceId, error.getMessage()));
+                LOG.debug("Collected {} resources of provider {} ({} reused)",
+                        cycle.getBatches().size(), id, cycle.getReused());
             } catch (Exception e) {
-                LOG.error("Error running collection for resource: " + resource.getResourceId(), e);
+                LOG.error("Error running collection for provider: " + id, e);
             }
         });
     }
@@ -269,29 +260,4 @@ public class SchedulerService {
             return defaultDuration;
         }
     }
-    
-    /**
-     * Get known resources (example implementation)
-     *
-     * @return set of cloud resources
-     */
-    private Set<CloudResource> getKnownResources() {
-        // In a real implementation, this would look up resources from a registry or database
-        // For this example, we're returning an empty set
-        return Collections.emptySet();
-    }
-    
-    /**
-     * Get provider for a specific resource (example implementation)
-     *
-     * @param resource the cloud resource
-     * @return the cloud provider
-     */
-    private CloudProvider getProviderForResource(CloudResource resource) {
-        // In a real implementation, this would look up the provider from a registry 
-        // based on the resource details
-        // For this example, we're using a simple approach
-        String providerId = resource.getProviderId();
-        return cloudProviders.get(providerId);
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,278 @@
+package org.opennms.bridge.core.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opennms.bridge.api.CloudProvider;
+import org.opennms.bridge.api.CloudProviderException;
+import org.opennms.bridge.api.CloudResource;
+import org.opennms.bridge.api.CollectionListener;
+import org.opennms.bridge.api.Deadline;
+import org.opennms.bridge.api.MetricBatch;
+import org.opennms.bridge.api.MetricCollection;
+import org.opennms.bridge.api.ValidationResult;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CollectionPipelineTest {
+
+    private static final Duration INTERVAL = Duration.ofMinutes(5);
+
+    private CollectionPipeline pipeline;
+    private FakeProvider provider;
+    private final List<CollectionListener> listeners = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        pipeline = new CollectionPipeline();
+        provider = new FakeProvider();
+        ReflectionTestUtils.setField(pipeline, "listeners", listeners);
+    }
+
+    @Test
+    void reusesBatchCollectedWithinInterval() {
+        CloudResource resource = resource("i-1");
+
+        CollectionPipeline.Cycle first = pipeline.collect(provider, List.of(resource), INTERVAL);
+        CollectionPipeline.Cycle second = pipeline.collect(provider, List.of(resource), INTERVAL);
+
+        assertEquals(1, provider.collections.get());
+        assertEquals(1, second.getReused());
+        assertSame(first.getBatches().get("i-1"), second.getBatches().get("i-1"));
+    }
+
+    @Test
+    void marksBatchDeliveredWhenListenerDelivered() {
+        listeners.add((providerId, resource, batch) -> true);
+
+        MetricBatch batch = pipeline.collect(provider, List.of(resource("i-1")), INTERVAL).getBatches().get("i-1");
+
+        assertTrue(batch.isDelivered());
+    }
+
+    @Test
+    void leavesBatchUndeliveredWhenSkippedOrFailed() {
+        listeners.add((providerId, resource, batch) -> false);
+        MetricBatch skipped = pipeline.collect(provider, List.of(resource("i-1")), INTERVAL).getBatches().get("i-1");
+        assertFalse(skipped.isDelivered());
+
+        listeners.clear();
+        listeners.add((providerId, resource, batch) -> true);
+        listeners.add((providerId, resource, batch) -> {
+            throw new IllegalStateException("OpenNMS unavailable");
+        });
+        MetricBatch failed = pipeline.collect(provider, List.of(resource("i-2")), INTERVAL).getBatches().get("i-2");
+        assertFalse(failed.isDelivered());
+    }
+
+    @Test
+    void publishesWithoutHoldingTheProvider() throws Exception {
+        AtomicInteger nestedBatches = new AtomicInteger();
+        listeners.add((providerId, resource, batch) -> {
+            if (!"i-1".equals(resource.getResourceId())) {
+                return true;
+            }
+            // Another schedule of the same provider must not wait for this listener
+            Thread other = new Thread(() -> nestedBatches.set(
+                    pipeline.collect(provider, List.of(resource("i-2")), INTERVAL).getBatches().size()));
+            other.start();
+            other.join(5000);
+            return !other.isAlive();
+        });
+
+        MetricBatch batch = pipeline.collect(provider, List.of(resource("i-1")), INTERVAL).getBatches().get("i-1");
+
+        assertTrue(batch.isDelivered());
+        assertEquals(1, nestedBatches.get());
+    }
+
+    @Test
+    void stopsAtWrappedDeadlineException() {
+        provider.onCollect = resource -> {
+            throw new CloudProviderException("Failed to collect metrics for resource " + resource.getResourceId(),
+                    new Deadline.ExceededException("Deadline exceeded"));
+        };
+
+        CollectionPipeline.Cycle cycle = pipeline.collect(provider,
+                List.of(resource("i-1"), resource("i-2"), resource("i-3")), INTERVAL);
+
+        assertEquals(1, provider.collections.get());
+        assertEquals(1, cycle.getFailures().size());
+    }
+
+    @Test
+    void collectsDifferentResourcesOfAProviderConcurrently() throws Exception {
+        CountDownLatch bothCollecting = new CountDownLatch(2);
+        AtomicInteger overlapped = new AtomicInteger();
+        provider.onCollect = resource -> {
+            bothCollecting.countDown();
+            try {
+                if (bothCollecting.await(5, TimeUnit.SECONDS)) {
+                    overlapped.incrementAndGet();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        AtomicReference<CollectionPipeline.Cycle> other = new AtomicReference<>();
+        Thread thread = new Thread(() -> other.set(pipeline.collect(provider, List.of(resource("i-2")), INTERVAL)));
+        thread.start();
+        CollectionPipeline.Cycle cycle = pipeline.collect(provider, List.of(resource("i-1")), INTERVAL);
+        thread.join(5000);
+
+        assertEquals(2, overlapped.get());
+        assertEquals(1, cycle.getBatches().size());
+        assertEquals(1, other.get().getBatches().size());
+    }
+
+    @Test
+    void concurrentCallerJoinsPendingCollection() throws Exception {
+        CountDownLatch collecting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        provider.onCollect = resource -> {
+            collecting.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        AtomicReference<CollectionPipeline.Cycle> first = new AtomicReference<>();
+        Thread thread = new Thread(() -> first.set(pipeline.collect(provider, List.of(resource("i-1")), INTERVAL)));
+        thread.start();
+        assertTrue(collecting.await(5, TimeUnit.SECONDS));
+
+        AtomicReference<CollectionPipeline.Cycle> second = new AtomicReference<>();
+        Thread joiner = new Thread(() -> second.set(pipeline.collect(provider, List.of(resource("i-1")), INTERVAL)));
+        joiner.start();
+        Thread.sleep(50);
+        release.countDown();
+        thread.join(5000);
+        joiner.join(5000);
+
+        assertEquals(1, provider.collections.get());
+        assertEquals(1, second.get().getReused());
+        assertSame(first.get().getBatches().get("i-1"), second.get().getBatches().get("i-1"));
+    }
+
+    @Test
+    void joinerGivesUpAtItsDeadline() throws Exception {
+        CountDownLatch collecting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        provider.onCollect = resource -> {
+            collecting.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        Thread thread = new Thread(() -> pipeline.collect(provider, List.of(resource("i-1")), INTERVAL));
+        thread.start();
+        assertTrue(collecting.await(5, TimeUnit.SECONDS));
+
+        CollectionPipeline.Cycle cycle;
+        try (Deadline.Scope ignored = Deadline.after(Duration.ofMillis(50)).enter()) {
+            cycle = pipeline.collect(provider, List.of(resource("i-1")), INTERVAL);
+        } finally {
+            release.countDown();
+            thread.join(5000);
+        }
+
+        assertEquals(1, cycle.getFailures().size());
+        assertEquals(1, provider.collections.get());
+    }
+
+    private static CloudResource resource(String id) {
+        CloudResource resource = new CloudResource(id, id, "EC2", "us-east-1");
+        resource.addProperty("providerId", "fake");
+        return resource;
+    }
+
+    private interface CollectHook {
+        void collect(CloudResource resource) throws CloudProviderException;
+    }
+
+    private static final class FakeProvider implements CloudProvider {
+        final AtomicInteger collections = new AtomicInteger();
+        volatile CollectHook onCollect = resource -> { };
+
+        @Override
+        public MetricBatch collectBatch(CloudResource resource) throws CloudProviderException {
+            collections.incrementAndGet();
+            onCollect.collect(resource);
+            MetricBatch batch = new MetricBatch(resource.getResourceId());
+            batch.add(batch.series("cpu", Collections.emptyMap()), System.currentTimeMillis(), 1.0);
+            return batch;
+        }
+
+        @Override
+        public MetricCollection collect(CloudResource resource) throws CloudProviderException {
+            return collectBatch(resource).toCollection();
+        }
+
+        @Override
+        public String getProviderId() {
+            return "fake";
+        }
+
+        @Override
+        public String getProviderType() {
+            return "fake";
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "Fake";
+        }
+
+        @Override
+        public ValidationResult validate() {
+            return ValidationResult.valid();
+        }
+
+        @Override
+        public Set<CloudResource> discover() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public Set<String> getAvailableRegions() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public Map<String, Object> getConfiguration() {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public void updateConfiguration(Map<String, Object> configuration) {
+        }
+
+        @Override
+        public Set<String> getSupportedMetrics() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.opennms.bridge.core.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogRollupTest {
+
+    @Test
+    void samplesOnlyTheFirstEventsOfAnInterval() {
+        LogRollup rollup = new LogRollup(Duration.ofHours(1), 2);
+
+        assertTrue(rollup.sample());
+        assertTrue(rollup.sample());
+        assertFalse(rollup.sample());
+        assertNull(rollup.record(5, false));
+    }
+
+    @Test
+    void summaryTotalsTheFinishedInterval() throws InterruptedException {
+        LogRollup rollup = new LogRollup(Duration.ofMillis(20), 1);
+        assertNull(rollup.record(3, false));
+        assertTrue(rollup.sample());
+        assertFalse(rollup.sample());
+        Thread.sleep(30);
+
+        LogRollup.Summary summary = rollup.record(4, true);
+        assertNotNull(summary);
+        assertEquals(2, summary.getEvents());
+        assertEquals(7, summary.getAmount());
+        assertEquals(1, summary.getFailures());
+        // A new interval samples again
+        assertTrue(rollup.sample());
+    }
+}
@@ -0,0 +1,96 @@
+package org.opennms.bridge.core.service;
+
+import org.junit.jupiter.api.Test;
+import org.opennms.bridge.api.CloudResource;
+import org.opennms.bridge.api.Deadline;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NodeSyncEngineTest {
+
+    @Test
+    void plansOnlyChangedNodes() {
+        Map<String, Map<String, String>> nodes = new HashMap<>();
+        nodes.put("aws:i-1", node("1", "web"));
+        nodes.put("aws:i-2", node("2", "old-name"));
+        List<CloudResource> resources = List.of(resource("i-1", "web"), resource("i-2", "db"),
+                resource("i-3", "cache"));
+
+        List<NodeSyncEngine.NodeRequest> requests = NodeSyncEngine.plan("aws", resources, nodes, false);
+
+        assertEquals(2, requests.size());
+        NodeSyncEngine.NodeRequest update = find(requests, "aws:i-2");
+        assertEquals(NodeSyncEngine.NodeRequest.Kind.UPDATE, update.kind);
+        assertEquals("2", update.nodeId);
+        NodeSyncEngine.NodeRequest create = find(requests, "aws:i-3");
+        assertEquals(NodeSyncEngine.NodeRequest.Kind.CREATE, create.kind);
+        assertNull(create.nodeId);
+    }
+
+    @Test
+    void deletesNodesWithoutResourceOnlyWhenEnabled() {
+        Map<String, Map<String, String>> nodes = new HashMap<>();
+        nodes.put("aws:i-1", node("1", "web"));
+        nodes.put("aws:i-9", node("9", "gone"));
+        List<CloudResource> resources = List.of(resource("i-1", "web"));
+
+        assertTrue(NodeSyncEngine.plan("aws", resources, nodes, false).isEmpty());
+
+        List<NodeSyncEngine.NodeRequest> requests = NodeSyncEngine.plan("aws", resources, nodes, true);
+        assertEquals(1, requests.size());
+        assertEquals(NodeSyncEngine.NodeRequest.Kind.DELETE, requests.get(0).kind);
+        assertEquals("9", requests.get(0).nodeId);
+
+        // An empty discovery most likely failed
+        assertTrue(NodeSyncEngine.plan("aws", Collections.emptyList(), nodes, true).isEmpty());
+    }
+
+    @Test
+    void createsAreOnlyRetriedWhenNeverSent() {
+        Exception readTimeout = new ResourceAccessException("I/O error", new SocketTimeoutException("Read timed out"));
+        assertTrue(NodeSyncEngine.isRetryable(readTimeout, true));
+        assertFalse(NodeSyncEngine.isRetryable(readTimeout, false));
+
+        Exception refused = new RuntimeException(new ResourceAccessException("I/O error", new ConnectException()));
+        assertTrue(NodeSyncEngine.isRetryable(refused, false));
+
+        Exception unavailable = new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE);
+        assertTrue(NodeSyncEngine.isRetryable(unavailable, true));
+        assertFalse(NodeSyncEngine.isRetryable(unavailable, false));
+
+        assertTrue(NodeSyncEngine.isRetryable(new HttpClientErrorException(HttpStatus.TOO_MANY_REQUESTS), false));
+        assertFalse(NodeSyncEngine.isRetryable(new HttpClientErrorException(HttpStatus.BAD_REQUEST), true));
+        assertFalse(NodeSyncEngine.isRetryable(new Deadline.ExceededException("late"), true));
+    }
+
+    private static NodeSyncEngine.NodeRequest find(List<NodeSyncEngine.NodeRequest> requests, String foreignId) {
+        return requests.stream().filter(request -> request.foreignId.equals(foreignId)).findFirst().orElseThrow();
+    }
+
+    private static Map<String, String> node(String id, String label) {
+        Map<String, String> node = new HashMap<>();
+        node.put("id", id);
+        node.put("label", label);
+        return node;
+    }
+
+    private static CloudResource resource(String resourceId, String name) {
+        CloudResource resource = new CloudResource(resourceId, name, "EC2", "us-east-1");
+        resource.addProperty("providerId", "aws");
+        return resource;
+    }
+}
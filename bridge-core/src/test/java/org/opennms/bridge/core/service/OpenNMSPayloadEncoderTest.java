@@ -0,0 +1,105 @@
+package org.opennms.bridge.core.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import org.junit.jupiter.api.Test;
+import org.opennms.bridge.api.DiscoveredNode;
+import org.opennms.bridge.api.MetricBatch;
+import org.opennms.bridge.api.SeriesKey;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OpenNMSPayloadEncoderTest {
+
+    private final OpenNMSPayloadEncoder encoder = new OpenNMSPayloadEncoder(new JsonFactory());
+
+    @Test
+    void writesRequisitionWithNodes() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.writeRequisition(out, "aws", List.of(node("i-1", "web"), node("i-2", "db")));
+
+        assertEquals("{\"foreign-source\":\"aws\",\"nodes\":["
+                + "{\"foreign-id\":\"i-1\",\"node-label\":\"web\",\"location\":\"us-east-1\",\"interfaces\":[]},"
+                + "{\"foreign-id\":\"i-2\",\"node-label\":\"db\",\"location\":\"us-east-1\",\"interfaces\":[]}]}",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void leavesTheStreamOpen() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                throw new IllegalStateException("closed by the encoder");
+            }
+        };
+        encoder.writeRequisitionNode(out, node("i-1", "web"));
+
+        assertEquals("{\"foreign-id\":\"i-1\",\"node-label\":\"web\",\"location\":\"us-east-1\",\"interfaces\":[]}",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void groupsSamplesBySeriesInTimeOrder() throws IOException {
+        MetricBatch batch = new MetricBatch("i-1");
+        batch.setTimestamp(Instant.ofEpochMilli(5000));
+        int cpu = batch.series("cpu", Map.of("stat", "avg"));
+        int net = batch.series("net", Collections.emptyMap());
+        // cpu arrives unordered with a repeated timestamp, net arrives newest first
+        batch.add(cpu, 3000, 3);
+        batch.add(net, 2000, 20);
+        batch.add(cpu, 1000, 1);
+        batch.add(net, 1000, 10);
+        batch.add(cpu, 2000, 2);
+        batch.add(cpu, 2000, 2.5);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.writeMeasurements(out, "7", batch);
+
+        assertEquals("{\"node\":\"7\",\"timestamp\":5000,\"metrics\":{\"cpu\":3.0,\"net\":20.0},\"series\":["
+                + "{\"name\":\"cpu\",\"tags\":{\"stat\":\"avg\"},"
+                + "\"timestamps\":[1000,2000,3000],\"values\":[1.0,2.5,3.0]},"
+                + "{\"name\":\"net\",\"timestamps\":[1000,2000],\"values\":[10.0,20.0]}]}",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void writesDictionaryIdOfSeries() throws IOException {
+        MetricBatch batch = new MetricBatch("i-1");
+        batch.setTimestamp(Instant.ofEpochMilli(5000));
+        SeriesKey key = new SeriesKey("aws", "i-1", "AWS/EC2", "CPUUtilization", "Average");
+        batch.add(batch.series(key, 42, Collections.emptyMap()), 1000, 1);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.writeMeasurements(out, "7", batch);
+
+        assertEquals("{\"node\":\"7\",\"timestamp\":5000,\"metrics\":{\"CPUUtilization.Average\":1.0},\"series\":["
+                + "{\"name\":\"CPUUtilization.Average\",\"id\":42,\"timestamps\":[1000],\"values\":[1.0]}]}",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void writesEmptyBatch() throws IOException {
+        MetricBatch batch = new MetricBatch("i-1");
+        batch.setTimestamp(Instant.ofEpochMilli(5000));
+        batch.series("cpu", Collections.emptyMap());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.writeMeasurements(out, "7", batch);
+
+        assertEquals("{\"node\":\"7\",\"timestamp\":5000,\"metrics\":{},\"series\":[]}",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    private static DiscoveredNode node(String id, String name) {
+        DiscoveredNode node = new DiscoveredNode(id, name, "EC2", "aws");
+        node.setRegion("us-east-1");
+        return node;
+    }
+}
@@ -0,0 +1,48 @@
+package org.opennms.bridge.core.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.opennms.bridge.api.SeriesKey;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PersistentSeriesDictionaryTest {
+
+    @TempDir
+    File dir;
+
+    @Test
+    void idsSurviveRestart() {
+        String file = new File(dir, "series.tsv").getPath();
+        SeriesKey plain = new SeriesKey("aws", "i-1", "AWS/EC2", "CPUUtilization", "Average");
+        SeriesKey awkward = new SeriesKey("aws\tprod", "i-2\r\n", "Custom\\NS", "Requests", "");
+
+        PersistentSeriesDictionary dictionary = dictionary(file);
+        int plainId = dictionary.getId(plain);
+        int awkwardId = dictionary.getId(awkward);
+        dictionary.close();
+
+        PersistentSeriesDictionary reloaded = dictionary(file);
+        assertEquals(2, reloaded.size());
+        assertEquals(plain, reloaded.getKey(plainId));
+        assertEquals(awkward, reloaded.getKey(awkwardId));
+        assertEquals(awkwardId, reloaded.getId(awkward));
+
+        // New series continue after the restored IDs and are appended to the same file
+        SeriesKey added = new SeriesKey("aws", "i-3", "AWS/EC2", "CPUUtilization", "Average");
+        int addedId = reloaded.getId(added);
+        assertEquals(2, addedId);
+        reloaded.close();
+        assertEquals(added, dictionary(file).getKey(addedId));
+    }
+
+    private static PersistentSeriesDictionary dictionary(String file) {
+        PersistentSeriesDictionary dictionary = new PersistentSeriesDictionary();
+        ReflectionTestUtils.setField(dictionary, "dictionaryFile", file);
+        dictionary.init();
+        return dictionary;
+    }
+}
@@ -0,0 +1,75 @@
+package org.opennms.bridge.core.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opennms.bridge.api.DiscoveredNode;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class RequisitionSyncTest {
+
+    private OpenNMSClient openNMSClient;
+    private TaskScheduler taskScheduler;
+    private RequisitionSync requisitionSync;
+
+    @BeforeEach
+    void setUp() {
+        openNMSClient = mock(OpenNMSClient.class);
+        taskScheduler = mock(TaskScheduler.class);
+        doReturn(mock(ScheduledFuture.class)).when(taskScheduler).schedule(any(Runnable.class), any(Instant.class));
+        requisitionSync = new RequisitionSync(openNMSClient, taskScheduler, Duration.ofMinutes(5));
+    }
+
+    @Test
+    void firstSyncPostsWholeRequisition() {
+        Set<DiscoveredNode> nodes = Set.of(node("i-1", "web"), node("i-2", "db"));
+
+        assertEquals(2, requisitionSync.sync("aws", nodes));
+        verify(openNMSClient).createOrUpdateRequisition("aws", nodes);
+        verify(taskScheduler).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    @Test
+    void unchangedNodesSendNothing() {
+        requisitionSync.sync("aws", Set.of(node("i-1", "web"), node("i-2", "db")));
+
+        assertEquals(0, requisitionSync.sync("aws", Set.of(node("i-1", "web"), node("i-2", "db"))));
+        verify(openNMSClient, never()).addOrReplaceRequisitionNode(anyString(), any(DiscoveredNode.class));
+        verify(openNMSClient, never()).deleteRequisitionNode(anyString(), anyString());
+        verify(openNMSClient, times(1)).createOrUpdateRequisition(anyString(), any());
+    }
+
+    @Test
+    void onlyChangedNodesAreSent() {
+        requisitionSync.sync("aws", Set.of(node("i-1", "web"), node("i-2", "db")));
+
+        DiscoveredNode renamed = node("i-2", "database");
+        DiscoveredNode added = node("i-3", "cache");
+        assertEquals(3, requisitionSync.sync("aws", Set.of(renamed, added)));
+        verify(openNMSClient).addOrReplaceRequisitionNode("aws", renamed);
+        verify(openNMSClient).addOrReplaceRequisitionNode("aws", added);
+        verify(openNMSClient).deleteRequisitionNode("aws", "i-1");
+        assertEquals(1L, requisitionSync.getStatistics().get("nodesAdded"));
+        assertEquals(1L, requisitionSync.getStatistics().get("nodesChanged"));
+        assertEquals(1L, requisitionSync.getStatistics().get("nodesRemoved"));
+    }
+
+    private static DiscoveredNode node(String id, String name) {
+        DiscoveredNode node = new DiscoveredNode(id, name, "EC2", "aws");
+        node.setRegion("us-east-1");
+        return node;
+    }
+}
@@ -0,0 +1,286 @@
+package org.opennms.bridge.aws;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Client-side AWS API quota governor.
+ * Every EC2, CloudWatch and STS call goes through a token bucket per provider (account), region and operation.
+ * Waiting callers are served in arrival order. The rate is halved on a throttling error and recovers additively
+ * after successful calls, so collection runs at the quota rather than over it.
+ * Rates are configured per operation as {@code bridge.aws.quotas.<Operation>} in calls per second.
+ */
+@Component
+public class AwsApiGovernor {
+    private static final Logger LOG = LoggerFactory.getLogger(AwsApiGovernor.class);
+
+    private static final String QUOTA_PREFIX = "bridge.aws.quotas.";
+
+    // Default quotas in calls per second
+    private static final Map<String, Double> DEFAULT_RATES = Map.of(
+            "GetMetricData", 50.0,
+            "ListMetrics", 25.0,
+            "DescribeInstances", 20.0,
+            "DescribeRegions", 10.0,
+            "GetCallerIdentity", 20.0,
+            "AssumeRole", 10.0);
+    private static final double FALLBACK_RATE = 10.0;
+
+    @Autowired(required = false)
+    private Environment environment;
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * Run an AWS API call once the quota allows it.
+     *
+     * @param providerId provider ID, standing for the account
+     * @param region     region the call is made in
+     * @param operation  API operation name, e.g. GetMetricData
+     * @param call       the call
+     * @return the call's result
+     */
+    public <T> T call(String providerId, String region, String operation, Supplier<T> call) {
+        return reserve(providerId, region, operation, call).get();
+    }
+
+    /**
+     * Take a token for a call once the quota allows it, without running the call yet.
+     * Lets a caller spend the wait on its own thread and run the call elsewhere.
+     *
+     * @return the call, to be run once; throttling errors it raises lower the rate
+     */
+    public <T> Supplier<T> reserve(String providerId, String region, String operation, Supplier<T> call) {
+        Bucket bucket = bucket(providerId, region, operation);
+        bucket.acquire();
+        return governed(bucket, providerId, region, operation, call);
+    }
+
+    /**
+     * Take a token for a call only if one is available right away.
+     * Optional extra calls, such as hedges, use this so they never wait for or run over the quota.
+     *
+     * @return the call, to be run once, or null if the quota has no token to spare
+     */
+    public <T> Supplier<T> tryReserve(String providerId, String region, String operation, Supplier<T> call) {
+        Bucket bucket = bucket(providerId, region, operation);
+        return bucket.tryAcquire() ? governed(bucket, providerId, region, operation, call) : null;
+    }
+
+    private Bucket bucket(String providerId, String region, String operation) {
+        return buckets.computeIfAbsent(providerId + "/" + region + "/" + operation,
+                key -> new Bucket(maxRate(operation)));
+    }
+
+    private static <T> Supplier<T> governed(Bucket bucket, String providerId, String region, String operation,
+                                            Supplier<T> call) {
+        return () -> {
+            try {
+                T result = call.get();
+                bucket.onSuccess();
+                return result;
+            } catch (RuntimeException e) {
+                if (isThrottling(e)) {
+                    bucket.onThrottle();
+                    LOG.warn("AWS {} throttled for provider {} in {}; rate reduced to {}/s",
+                            operation, providerId, region, String.format("%.2f", bucket.getRate()));
+                }
+                throw e;
+            }
+        };
+    }
+
+    /**
+     * Check whether an operation is running below its quota after throttling.
+     *
+     * @return true if the operation's rate has been reduced and not yet recovered
+     */
+    public boolean isThrottled(String providerId, String region, String operation) {
+        Bucket bucket = buckets.get(providerId + "/" + region + "/" + operation);
+        return bucket != null && bucket.getRate() < bucket.maxRate;
+    }
+
+    /**
+     * Check whether an operation has spare quota: it is not throttled and no caller is waiting for it.
+     * Low-priority work such as backfill only issues calls while this holds.
+     */
+    public boolean isIdle(String providerId, String region, String operation) {
+        Bucket bucket = buckets.get(providerId + "/" + region + "/" + operation);
+        return bucket == null || (bucket.getRate() >= bucket.maxRate && !bucket.hasWaiters());
+    }
+
+    /**
+     * Get current rates and throttle counts for a provider's buckets.
+     *
+     * @param providerId provider ID
+     * @return statistics keyed by region/operation
+     */
+    public Map<String, Object> getStatistics(String providerId) {
+        String prefix = providerId + "/";
+        Map<String, Object> stats = new TreeMap<>();
+        buckets.forEach((key, bucket) -> {
+            if (key.startsWith(prefix)) {
+                stats.put(key.substring(prefix.length()), bucket.toMap());
+            }
+        });
+        return stats;
+    }
+
+    private double maxRate(String operation) {
+        double defaultRate = DEFAULT_RATES.getOrDefault(operation, FALLBACK_RATE);
+        if (environment == null) {
+            return defaultRate;
+        }
+        Double configured = environment.getProperty(QUOTA_PREFIX + operation, Double.class, defaultRate);
+        return configured > 0 ? configured : defaultRate;
+    }
+
+    /**
+     * Check whether an exception, or one of its causes, is an AWS throttling error.
+     */
+    static boolean isThrottling(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof AwsServiceException) {
+                AwsServiceException serviceException = (AwsServiceException) t;
+                if (serviceException.isThrottlingException()) {
+                    return true;
+                }
+                String code = serviceException.awsErrorDetails() != null
+                        ? serviceException.awsErrorDetails().errorCode()
+                        : null;
+                if ("RequestLimitExceeded".equals(code) || "Throttling".equals(code)
+                        || "ThrottlingException".equals(code) || "TooManyRequestsException".equals(code)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Token bucket with an adaptive rate. A caller takes a token under the lock, going into debt if there is none,
+     * and sleeps off its share of the debt outside the lock, so waiting callers are served in arrival order without
+     * holding up each other or throttling updates.
+     */
+    private static final class Bucket {
+        private final double maxRate;
+        private final double minRate;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong throttles = new AtomicLong();
+        private final AtomicLong waitedMillis = new AtomicLong();
+        private volatile double rate;
+        private double tokens;
+        private long lastRefillNanos;
+
+        Bucket(double maxRate) {
+            this.maxRate = maxRate;
+            this.minRate = Math.max(0.1, maxRate / 50);
+            this.rate = maxRate;
+            this.tokens = Math.max(1, maxRate);
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        void acquire() {
+            long waitNanos;
+            lock.lock();
+            try {
+                refill();
+                tokens -= 1;
+                waitNanos = tokens < 0 ? (long) (-tokens / rate * TimeUnit.SECONDS.toNanos(1)) : 0;
+            } finally {
+                lock.unlock();
+            }
+            if (waitNanos > 0) {
+                waiting.incrementAndGet();
+                try {
+                    TimeUnit.NANOSECONDS.sleep(waitNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for AWS API quota", e);
+                } finally {
+                    waiting.decrementAndGet();
+                }
+            }
+            calls.incrementAndGet();
+            waitedMillis.addAndGet(TimeUnit.NANOSECONDS.toMillis(waitNanos));
+        }
+
+        boolean tryAcquire() {
+            lock.lock();
+            try {
+                refill();
+                if (tokens < 1) {
+                    return false;
+                }
+                tokens -= 1;
+            } finally {
+                lock.unlock();
+            }
+            calls.incrementAndGet();
+            return true;
+        }
+
+        boolean hasWaiters() {
+            return waiting.get() > 0;
+        }
+
+        void onSuccess() {
+            double current = rate;
+            if (current < maxRate) {
+                // Additive increase: regain the full rate over about 100 successful calls
+                rate = Math.min(maxRate, current + maxRate / 100);
+            }
+        }
+
+        void onThrottle() {
+            throttles.incrementAndGet();
+            lock.lock();
+            try {
+                // Multiplicative decrease, and drop the burst so the lower rate takes effect at once;
+                // callers already waiting keep their turn
+                rate = Math.max(minRate, rate / 2);
+                tokens = Math.min(tokens, 0);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        double getRate() {
+            return rate;
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            double elapsedSeconds = (now - lastRefillNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+            lastRefillNanos = now;
+            tokens = Math.min(Math.max(1, rate), tokens + elapsedSeconds * rate);
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("rate", Math.round(rate * 100) / 100.0);
+            map.put("maxRate", maxRate);
+            map.put("calls", calls.get());
+            map.put("throttles", throttles.get());
+            map.put("waitedMillis", waitedMillis.get());
+            map.put("queued", waiting.get());
+            return map;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.opennms.bridge.aws;
+
+import org.opennms.bridge.api.CircuitBreaker;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Circuit breakers per provider and region around collection and discovery.
+ * A region whose calls keep failing or hanging is failed fast while its breaker is open, so collection
+ * threads stay with the regions that respond.
+ */
+@Component
+public class AwsCircuitBreakers {
+
+    @Value("${bridge.aws.circuitBreaker.windowSize:20}")
+    private int windowSize = 20;
+
+    @Value("${bridge.aws.circuitBreaker.minimumCalls:10}")
+    private int minimumCalls = 10;
+
+    @Value("${bridge.aws.circuitBreaker.failureRateThreshold:50}")
+    private double failureRateThreshold = 50;
+
+    @Value("${bridge.aws.circuitBreaker.slowCallSeconds:10}")
+    private int slowCallSeconds = 10;
+
+    @Value("${bridge.aws.circuitBreaker.slowCallRateThreshold:80}")
+    private double slowCallRateThreshold = 80;
+
+    @Value("${bridge.aws.circuitBreaker.openSeconds:60}")
+    private int openSeconds = 60;
+
+    @Value("${bridge.aws.circuitBreaker.halfOpenCalls:3}")
+    private int halfOpenCalls = 3;
+
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    /**
+     * Get the breaker of a provider region.
+     *
+     * @param providerId provider ID
+     * @param region     AWS region
+     * @return the breaker
+     */
+    public CircuitBreaker get(String providerId, String region) {
+        return breakers.computeIfAbsent(providerId + "/" + region, key -> new CircuitBreaker(windowSize, minimumCalls,
+                failureRateThreshold, slowCallSeconds * 1000L, slowCallRateThreshold, openSeconds * 1000L,
+                halfOpenCalls));
+    }
+
+    /**
+     * Get the state of a provider's breakers.
+     *
+     * @param providerId provider ID
+     * @return breaker state by region
+     */
+    public Map<String, Object> getStatistics(String providerId) {
+        String prefix = providerId + "/";
+        Map<String, Object> stats = new TreeMap<>();
+        breakers.forEach((key, breaker) -> {
+            if (key.startsWith(prefix)) {
+                stats.put(key.substring(prefix.length()), breaker.toMap());
+            }
+        });
+        return stats;
+    }
+}
@@ -6,6 +6,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import software.amazon.awssdk.auth.credentials.*;
+import software.amazon.awssdk.core.exception.ApiCallAttemptTimeoutException;
+import software.amazon.awssdk.core.exception.ApiCallTimeoutException;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.regions.providers.DefaultAwsRegionProviderChain;
 import software.amazon.awssdk.services.cloudwatch.CloudWatchClient;
@@ -15,10 +17,6 @@ import software.amazon.awssdk.services.sts.auth.StsAssumeRoleCredentialsProvider
 import software.amazon.awssdk.services.sts.model.AssumeRoleRequest;
 import software.amazon.awssdk.services.sts.model.AssumeRoleResponse;
 
-import java.io.File;
-import java.io.FileWriter;
-import java.io.PrintWriter;
-import java.io.StringWriter;
 import java.util.Date;
 
 import org.springframework.beans.factory.annotation.Value;
@@ -39,100 +37,56 @@ import java.util.Arrays;
 public class AwsCloudProvider implements CloudProvider {
     private static final Logger LOG = LoggerFactory.getLogger(AwsCloudProvider.class);
     
+    // STS calls made while setting up credentials share one quota bucket, whatever endpoint the client resolves
+    private static final String STS_QUOTA_REGION = Region.US_EAST_1.id();
+    
+    static {
+        // SDK call and attempt timeouts are client exceptions rather than JDK timeouts
+        Deadline.registerTimeoutType(ApiCallTimeoutException.class);
+        Deadline.registerTimeoutType(ApiCallAttemptTimeoutException.class);
+    }
+    
     /**
-     * DIRECT DEBUG OUTPUT - Bypasses logging system completely for maximum visibility
+     * DIRECT DEBUG OUTPUT - queued to the diagnostic log writer so callers never block on I/O
      */
     private void directDebug(String message) {
-        try {
-            String output = "[DIRECT-AWS-DEBUG @ " + System.currentTimeMillis() + "] " + message + "\n";
-            
-            // Output to stderr for maximum visibility (bypasses logging system)
-            if (logToStdout) {
-                System.err.println("\n" + output);
-            }
-            
-            // Write directly to a file that will be accessible even if app crashes
-            if (logToFile) {
-                // Use configurable log directory
-                String logDir = getDebugLogDirectory();
-                try (FileWriter fw = new FileWriter(logDir + "/aws-direct-debug.log", true)) {
-                    fw.write(output);
-                }
-            }
-        } catch (Exception ignore) {
-            // Last resort fallback
-            System.err.println("[EMERGENCY] Failed to log debug info: " + message);
-        }
+        diagnosticLog().write("aws-direct-debug.log", "[DIRECT-AWS-DEBUG] " + message, null);
     }
     
     /**
-     * Gets the debug log directory, creating it if it doesn't exist
+     * Gets the debug log directory, defaulting to /tmp
      */
     private String getDebugLogDirectory() {
-        String dir = "/tmp";
         if (logDirectory != null && !logDirectory.trim().isEmpty()) {
-            dir = logDirectory.trim();
-            // Create directory if it doesn't exist
-            File logDir = new File(dir);
-            if (!logDir.exists()) {
-                logDir.mkdirs();
-            }
+            return logDirectory.trim();
         }
-        return dir;
+        return "/tmp";
     }
     
     /**
      * Emergency debug logging for troubleshooting the AWS configuration issue.
+     * The stack trace, if any, is formatted by the writer thread.
      */
     private void awsDebug(String phase, String message, Exception e) {
-        // First use the direct debug method for guaranteed output
-        directDebug(phase + ": " + message);
-        if (e != null) {
-            directDebug("EXCEPTION in " + phase + ": " + e.getMessage());
-            if (e.getCause() != null) {
-                directDebug("CAUSED BY: " + e.getCause().getMessage());
-            }
-            
-            // Get stack trace as string
-            StringWriter sw = new StringWriter();
-            PrintWriter pw = new PrintWriter(sw);
-            e.printStackTrace(pw);
-            directDebug("STACK TRACE: " + sw.toString());
-        }
-        
-        // Also attempt the original debug approach
-        String timestamp = new Date().toString();
-        String threadInfo = Thread.currentThread().getName() + ":" + Thread.currentThread().getId();
-        String fullMessage = "[" + timestamp + "][" + threadInfo + "][" + phase + "] " + message;
-        
-        // Write to system console
-        System.err.println("\n\n------------------ AWS DEBUG: " + phase + " ------------------");
-        System.err.println(fullMessage);
-        if (e != null) {
-            StringWriter sw = new StringWriter();
-            PrintWriter pw = new PrintWriter(sw);
-            e.printStackTrace(pw);
-            System.err.println("EXCEPTION: " + e.getMessage());
-            System.err.println(sw.toString());
-        }
-        System.err.println("-------------------------------------------------------\n\n");
-        
-        // Also write to a separate log file
-        if (logToFile) {
-            try {
-                String logDir = getDebugLogDirectory();
-                PrintWriter writer = new PrintWriter(new FileWriter(logDir + "/aws-provider-debug.log", true));
-                writer.println("\n\n------------------ AWS DEBUG: " + phase + " ------------------");
-                writer.println(fullMessage);
-                if (e != null) {
-                    e.printStackTrace(writer);
+        diagnosticLog().write("aws-provider-debug.log", "[" + phase + "] " + message, e);
+    }
+    
+    /**
+     * Get the diagnostic log writer, starting it on first use.
+     */
+    private DiagnosticLogWriter diagnosticLog() {
+        DiagnosticLogWriter writer = diagnosticLogWriter;
+        if (writer == null) {
+            synchronized (this) {
+                writer = diagnosticLogWriter;
+                if (writer == null) {
+                    writer = new DiagnosticLogWriter(getDebugLogDirectory(), maxLogSizeMb * 1024L * 1024L,
+                            maxLogFiles, logQueueSize, logToStdout, logToFile);
+                    diagnosticLogWriter = writer;
                 }
-                writer.println("-------------------------------------------------------\n\n");
-                writer.close();
-            } catch (Exception logEx) {
-                System.err.println("Failed to write to AWS debug log: " + logEx.getMessage());
             }
         }
+        return writer;
     }
     
     @Autowired
@@ -144,6 +98,24 @@ public class AwsCloudProvider implements CloudProvider {
     @Autowired
     private AwsMetricCollector metricCollector;
     
+    @Autowired
+    private CloudWatchMetricCatalog metricCatalog;
+    
+    @Autowired
+    private AwsApiGovernor apiGovernor;
+    
+    @Autowired
+    private HedgedRequestExecutor hedgedRequests;
+    
+    @Autowired
+    private CloudWatchBackfillEngine backfillEngine;
+    
+    @Autowired
+    private AwsCircuitBreakers circuitBreakers;
+    
+    // Resources last discovered per region, reported while a region cannot be discovered
+    private final Map<String, Set<CloudResource>> lastRegionResources = new ConcurrentHashMap<>();
+    
     @Value("${bridge.debug.aws.extreme_debug:false}")
     private void setExtremeDebug(boolean extremeDebug) {
         EXTREME_DEBUG = extremeDebug;
@@ -165,6 +137,17 @@ public class AwsCloudProvider implements CloudProvider {
     @Value("${bridge.debug.log_file:true}")
     private boolean logToFile;
     
+    @Value("${bridge.debug.aws.max_log_size:10}")
+    private int maxLogSizeMb;
+    
+    @Value("${bridge.debug.aws.max_log_files:5}")
+    private int maxLogFiles;
+    
+    @Value("${bridge.debug.aws.log_queue_size:10000}")
+    private int logQueueSize;
+    
+    private volatile DiagnosticLogWriter diagnosticLogWriter;
+    
     // Cache of EC2 and CloudWatch clients by region
     private final Map<String, Ec2Client> ec2ClientCache = new ConcurrentHashMap<>();
     private final Map<String, CloudWatchClient> cloudWatchClientCache = new ConcurrentHashMap<>();
@@ -184,6 +167,9 @@ public class AwsCloudProvider implements CloudProvider {
     public void cleanup() {
         LOG.info("Closing AWS cloud provider: {}", config.getProviderId());
         close();
+        if (diagnosticLogWriter != null) {
+            diagnosticLogWriter.close();
+        }
     }
     
     /**
@@ -386,7 +372,8 @@ public class AwsCloudProvider implements CloudProvider {
                         
                         try {
                             LOG.debug("Testing STS connection with getCallerIdentity...");
-                            String identity = stsClient.getCallerIdentity().account();
+                            String identity = apiGovernor.call(config.getProviderId(), STS_QUOTA_REGION,
+                                    "GetCallerIdentity", stsClient::getCallerIdentity).account();
                             System.err.println("STS connection successful! Account: " + identity);
                             
                             LOG.debug("Creating assume role request with role ARN: {}", config.getRoleArn());
@@ -399,7 +386,8 @@ public class AwsCloudProvider implements CloudProvider {
                             try {
                                 // Try to assume the role directly first
                                 System.err.println("Attempting direct role assumption...");
-                                AssumeRoleResponse response = stsClient.assumeRole(assumeRoleRequest);
+                                AssumeRoleResponse response = apiGovernor.call(config.getProviderId(),
+                                        STS_QUOTA_REGION, "AssumeRole", () -> stsClient.assumeRole(assumeRoleRequest));
                                 System.err.println("Role assumption successful!");
                                 System.err.println("Assumed role user: " + response.assumedRoleUser().arn());
                                 System.err.println("Temporary credentials expiration: " + response.credentials().expiration());
@@ -428,7 +416,8 @@ public class AwsCloudProvider implements CloudProvider {
                                         .build();
                                 
                                 System.err.println("Created STS assume role credentials provider");
-                                credentialsProvider.resolveCredentials();
+                                apiGovernor.call(config.getProviderId(), STS_QUOTA_REGION, "AssumeRole",
+                                        credentialsProvider::resolveCredentials);
                                 System.err.println("Successfully verified role assumption credentials");
                             }
                         } catch (Exception e) {
@@ -461,7 +450,8 @@ public class AwsCloudProvider implements CloudProvider {
                                     .build();
                             
                             LOG.debug("Testing if the assume role credentials can be resolved...");
-                            credentialsProvider.resolveCredentials();
+                            apiGovernor.call(config.getProviderId(), STS_QUOTA_REGION, "AssumeRole",
+                                    credentialsProvider::resolveCredentials);
                             LOG.info("Successfully assumed AWS role {}", config.getRoleArn());
                         } catch (Exception e) {
                             LOG.error("Failed to assume AWS role {}: {}", config.getRoleArn(), e.getMessage(), e);
@@ -633,7 +623,8 @@ public class AwsCloudProvider implements CloudProvider {
                                         .apiCallAttemptTimeout(Duration.ofSeconds(3)))
                                 .build();
                         
-                        stsClient.getCallerIdentity();
+                        apiGovernor.call(config.getProviderId(), region, "GetCallerIdentity",
+                                stsClient::getCallerIdentity);
                         LOG.debug("Network connectivity to AWS in region {} verified", region);
                     } catch (Exception e) {
                         allRegionsValid = false;
@@ -650,12 +641,12 @@ public class AwsCloudProvider implements CloudProvider {
                     
                     // Try to create and use EC2 client for validation
                     Ec2Client ec2Client = getEc2Client(region);
-                    ec2Client.describeRegions();
+                    apiGovernor.call(config.getProviderId(), region, "DescribeRegions", ec2Client::describeRegions);
                     LOG.debug("EC2 client validation successful for region {}", region);
                     
                     // Try to create and use CloudWatch client for validation
                     CloudWatchClient cloudWatchClient = getCloudWatchClient(region);
-                    cloudWatchClient.listMetrics();
+                    apiGovernor.call(config.getProviderId(), region, "ListMetrics", cloudWatchClient::listMetrics);
                     LOG.debug("CloudWatch client validation successful for region {}", region);
                 } catch (Exception e) {
                     allRegionsValid = false;
@@ -749,15 +740,15 @@ public class AwsCloudProvider implements CloudProvider {
                 
                 // Discover EC2 instances if enabled
                 if (config.getEc2Discovery().isEnabled()) {
-                    Ec2Client ec2Client = getEc2Client(region);
-                    Set<CloudResource> ec2Resources = discoveryStrategy.discoverEc2Instances(ec2Client, region, config);
-                    allResources.addAll(ec2Resources);
+                    allResources.addAll(discoverRegion(region));
                 }
                 
                 // Add other AWS resource types here as needed
             }
             
             LOG.info("Discovered {} resources from AWS provider: {}", allResources.size(), config.getProviderId());
+            metricCollector.retainPlans(config.getProviderId(), allResources);
+            backfillEngine.retain(config.getProviderId(), allResources);
             return allResources;
         } catch (Exception e) {
             LOG.error("Error discovering AWS resources: {}", e.getMessage(), e);
@@ -810,12 +801,152 @@ public class AwsCloudProvider implements CloudProvider {
     
     @Override
     public MetricCollection collect(CloudResource resource) throws CloudProviderException {
-        LOG.info("Collecting metrics for resource {} from AWS provider: {}", resource.getResourceId(), config.getProviderId());
+        return collectBatch(resource).toCollection();
+    }
+    
+    @Override
+    public MetricBatch collectBatch(CloudResource resource) throws CloudProviderException {
+        // Per-resource lines stay at DEBUG; the collection pipeline logs a summary per interval
+        LOG.debug("Collecting metrics for resource {} from AWS provider: {}", resource.getResourceId(), config.getProviderId());
         
+        // Fail fast while the resource's region is not responding
+        CircuitBreaker breaker = EMERGENCY_BYPASS || resource.getRegion() == null
+                ? null
+                : circuitBreakers.get(config.getProviderId(), resource.getRegion());
+        if (breaker != null && !breaker.tryAcquire()) {
+            throw new CloudProviderException("Circuit breaker open for AWS region " + resource.getRegion()
+                    + "; skipping collection of resource " + resource.getResourceId());
+        }
+        
+        long start = System.currentTimeMillis();
+        try {
+            MetricBatch batch = collectResource(resource);
+            if (breaker != null) {
+                breaker.onSuccess(System.currentTimeMillis() - start);
+            }
+            return batch;
+        } catch (CloudProviderException | RuntimeException e) {
+            if (breaker != null) {
+                recordFailure(breaker, start, e);
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * Check whether the caller's deadline has passed; a call cut short by it says nothing about the region.
+     */
+    private static boolean isDeadlineExpired() {
+        Deadline deadline = Deadline.current();
+        return deadline != null && deadline.isExpired();
+    }
+    
+    /**
+     * Record a failed call with a region's breaker, or release its permission if the caller's deadline cut it short,
+     * so a half-open probe is never left outstanding.
+     */
+    private static void recordFailure(CircuitBreaker breaker, long start, Exception e) {
+        if (isDeadlineExpired()) {
+            breaker.release();
+        } else {
+            breaker.onFailure(System.currentTimeMillis() - start, e);
+        }
+    }
+    
+    /**
+     * Discover the EC2 instances of one region through the region's circuit breaker.
+     * While the region is failing or its breaker is open, the instances last discovered in it are reported,
+     * so a degraded region does not make its resources look deleted.
+     *
+     * @param region AWS region
+     * @return resources of the region
+     */
+    private Set<CloudResource> discoverRegion(String region) {
+        CircuitBreaker breaker = circuitBreakers.get(config.getProviderId(), region);
+        Set<CloudResource> lastKnown = lastRegionResources.getOrDefault(region, Collections.emptySet());
+        if (!breaker.tryAcquire()) {
+            LOG.warn("Circuit breaker open for AWS region {}; reporting {} previously discovered resources",
+                    region, lastKnown.size());
+            return lastKnown;
+        }
+        
+        long start = System.currentTimeMillis();
+        try {
+            Set<CloudResource> resources = discoveryStrategy.discoverEc2Instances(getEc2Client(region), region, config);
+            breaker.onSuccess(System.currentTimeMillis() - start);
+            lastRegionResources.put(region, resources);
+            return resources;
+        } catch (RuntimeException e) {
+            recordFailure(breaker, start, e);
+            LOG.warn("Discovery failed for AWS region {}; reporting {} previously discovered resources: {}",
+                    region, lastKnown.size(), e.getMessage());
+            return lastKnown;
+        }
+    }
+    
+    @Override
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("metricCatalog", metricCatalog.getStatistics());
+        status.put("apiQuotas", apiGovernor.getStatistics(config.getProviderId()));
+        status.put("hedging", hedgedRequests.getStatistics(config.getProviderId()));
+        status.put("backfill", backfillEngine.getStatistics(config.getProviderId()));
+        status.put("circuitBreakers", circuitBreakers.getStatistics(config.getProviderId()));
+        return status;
+    }
+    
+    @Override
+    public Duration getPublicationDelay() {
+        return config.getCloudWatchCollection().getPublishDelay();
+    }
+    
+    @Override
+    public Map<String, MetricBatch> collectBatches(Collection<CloudResource> resources) {
+        if (EMERGENCY_BYPASS || !config.getCloudWatchCollection().isEnabled()
+                || !config.getCloudWatchCollection().isInsightsQueryMode()) {
+            return Collections.emptyMap();
+        }
+        
+        // Metrics Insights queries are regional, so group this provider's instances by region
+        Map<String, List<CloudResource>> resourcesByRegion = new HashMap<>();
+        for (CloudResource resource : resources) {
+            if ("EC2".equals(resource.getResourceType()) && resource.getRegion() != null
+                    && config.getProviderId().equals(resource.getProviderId())) {
+                resourcesByRegion.computeIfAbsent(resource.getRegion(), region -> new ArrayList<>()).add(resource);
+            }
+        }
+        
+        Map<String, MetricBatch> batches = new HashMap<>();
+        for (Map.Entry<String, List<CloudResource>> entry : resourcesByRegion.entrySet()) {
+            if (isDeadlineExpired()) {
+                break;
+            }
+            CircuitBreaker breaker = circuitBreakers.get(config.getProviderId(), entry.getKey());
+            if (!breaker.tryAcquire()) {
+                // Per-instance collection of these resources fails fast as well
+                continue;
+            }
+            long start = System.currentTimeMillis();
+            try {
+                Map<String, MetricBatch> regionBatches = metricCollector.collectEc2MetricBatches(
+                        getCloudWatchClient(entry.getKey()), entry.getValue(), config);
+                breaker.onSuccess(System.currentTimeMillis() - start);
+                batches.putAll(regionBatches);
+            } catch (Exception e) {
+                recordFailure(breaker, start, e);
+                // Resources of this region fall back to per-instance collection
+                LOG.warn("Metrics Insights collection failed for region {} of AWS provider {}: {}",
+                        entry.getKey(), config.getProviderId(), e.getMessage());
+            }
+        }
+        return batches;
+    }
+    
+    private MetricBatch collectResource(CloudResource resource) throws CloudProviderException {
         // If emergency bypass is enabled, return mock metrics
         if (EMERGENCY_BYPASS) {
             LOG.warn("EMERGENCY BYPASS mode enabled - returning mock metrics for resource {}", resource.getResourceId());
-            return createMockMetrics(resource);
+            return MetricBatch.fromCollection(createMockMetrics(resource));
         }
         
         try {
@@ -836,19 +967,17 @@ public class AwsCloudProvider implements CloudProvider {
                 case "EC2":
                     if (config.getCloudWatchCollection().isEnabled()) {
                         CloudWatchClient cloudWatchClient = getCloudWatchClient(region);
-                        return metricCollector.collectEc2Metrics(cloudWatchClient, resource, config);
+                        return metricCollector.collectEc2MetricBatch(cloudWatchClient, resource, config);
                     } else {
-                        LOG.info("CloudWatch metric collection is disabled");
-                        MetricCollection collection = new MetricCollection(resource.getResourceId());
-                        collection.setTimestamp(new Date().toInstant());
-                        collection.addTag("providerId", config.getProviderId());
-                        collection.setMetrics(Collections.emptyList());
-                        return collection;
+                        LOG.debug("CloudWatch metric collection is disabled");
+                        MetricBatch batch = new MetricBatch(resource.getResourceId(), 1);
+                        batch.addTag("providerId", config.getProviderId());
+                        return batch;
                     }
                 default:
                     throw new CloudProviderException("Unsupported resource type: " + resource.getResourceType());
             }
-        } catch (CloudProviderException e) {
+        } catch (CloudProviderException | Deadline.ExceededException e) {
             throw e;
         } catch (Exception e) {
             LOG.error("Error collecting metrics for resource {}: {}", resource.getResourceId(), e.getMessage(), e);
@@ -856,7 +985,7 @@ public class AwsCloudProvider implements CloudProvider {
             // If we're in emergency bypass mode, return mock metrics instead of failing
             if (EMERGENCY_BYPASS) {
                 LOG.warn("EMERGENCY BYPASS mode enabled - falling back to mock metrics due to error");
-                return createMockMetrics(resource);
+                return MetricBatch.fromCollection(createMockMetrics(resource));
             }
             
             throw new CloudProviderException("Failed to collect metrics for resource " + resource.getResourceId(), e);
@@ -918,8 +1047,10 @@ public class AwsCloudProvider implements CloudProvider {
     public Set<String> getAvailableRegions() {
         try {
             // Try to get regions from EC2 client
-            Ec2Client ec2Client = getEc2Client(getRegionsToUse().get(0));
-            return ec2Client.describeRegions().regions().stream()
+            String region = getRegionsToUse().get(0);
+            Ec2Client ec2Client = getEc2Client(region);
+            return apiGovernor.call(config.getProviderId(), region, "DescribeRegions", ec2Client::describeRegions)
+                    .regions().stream()
                     .map(r -> r.regionName())
                     .collect(Collectors.toSet());
         } catch (Exception e) {
@@ -945,6 +1076,8 @@ public class AwsCloudProvider implements CloudProvider {
         ec2Config.put("includeTags", config.getEc2Discovery().getIncludeTags());
         ec2Config.put("filterByTags", config.getEc2Discovery().getFilterByTags());
         ec2Config.put("instanceStates", config.getEc2Discovery().getInstanceStates());
+        ec2Config.put("logVerbosity", config.getEc2Discovery().getLogVerbosity());
+        ec2Config.put("logSampleInterval", config.getEc2Discovery().getLogSampleInterval());
         configuration.put("ec2Discovery", ec2Config);
         
         // Include CloudWatch collection configuration
@@ -953,6 +1086,20 @@ public class AwsCloudProvider implements CloudProvider {
         cloudWatchConfig.put("metrics", config.getCloudWatchCollection().getMetrics());
         cloudWatchConfig.put("period", config.getCloudWatchCollection().getPeriod().toMinutes());
         cloudWatchConfig.put("statistics", config.getCloudWatchCollection().getStatistics());
+        cloudWatchConfig.put("incremental", config.getCloudWatchCollection().isIncremental());
+        cloudWatchConfig.put("publishDelay", config.getCloudWatchCollection().getPublishDelay().toMinutes());
+        cloudWatchConfig.put("maxLookback", config.getCloudWatchCollection().getMaxLookback().toMinutes());
+        cloudWatchConfig.put("queryMode", config.getCloudWatchCollection().getQueryMode());
+        cloudWatchConfig.put("alignedTiming", config.getCloudWatchCollection().isAlignedTiming());
+        cloudWatchConfig.put("catalogEnabled", config.getCloudWatchCollection().isCatalogEnabled());
+        cloudWatchConfig.put("catalogRefresh", config.getCloudWatchCollection().getCatalogRefresh().toMinutes());
+        cloudWatchConfig.put("negativeCacheTtl", config.getCloudWatchCollection().getNegativeCacheTtl().toMinutes());
+        cloudWatchConfig.put("hedging", config.getCloudWatchCollection().isHedging());
+        cloudWatchConfig.put("hedgePercentile", config.getCloudWatchCollection().getHedgePercentile());
+        cloudWatchConfig.put("hedgeBudget", config.getCloudWatchCollection().getHedgeBudget());
+        cloudWatchConfig.put("backfill", config.getCloudWatchCollection().isBackfill());
+        cloudWatchConfig.put("backfillMaxAge", config.getCloudWatchCollection().getBackfillMaxAge().toMinutes());
+        cloudWatchConfig.put("backfillRequestsPerMinute", config.getCloudWatchCollection().getBackfillRequestsPerMinute());
         configuration.put("cloudWatchCollection", cloudWatchConfig);
         
         return configuration;
@@ -1645,6 +1792,30 @@ public class AwsCloudProvider implements CloudProvider {
                     LOG.warn("Ignoring invalid instanceStates value type: {}", value != null ? value.getClass().getName() : "null");
                 }
             }
+            
+            if (ec2Config.containsKey("logVerbosity")) {
+                Object value = ec2Config.get("logVerbosity");
+                if (value instanceof String) {
+                    config.getEc2Discovery().setLogVerbosity((String) value);
+                } else {
+                    LOG.warn("Ignoring invalid logVerbosity value type: {}", value != null ? value.getClass().getName() : "null");
+                }
+            }
+            
+            if (ec2Config.containsKey("logSampleInterval")) {
+                Object value = ec2Config.get("logSampleInterval");
+                if (value instanceof Number) {
+                    config.getEc2Discovery().setLogSampleInterval(((Number) value).intValue());
+                } else if (value instanceof String) {
+                    try {
+                        config.getEc2Discovery().setLogSampleInterval(Integer.parseInt((String) value));
+                    } catch (NumberFormatException e) {
+                        LOG.warn("Ignoring invalid logSampleInterval value: {}", value);
+                    }
+                } else {
+                    LOG.warn("Ignoring invalid logSampleInterval value type: {}", value != null ? value.getClass().getName() : "null");
+                }
+            }
         } catch (Exception e) {
             LOG.warn("Error processing EC2 discovery configuration: {}", e.getMessage(), e);
         }
@@ -1749,11 +1920,161 @@ public class AwsCloudProvider implements CloudProvider {
                     LOG.warn("Ignoring invalid statistics value type: {}", value != null ? value.getClass().getName() : "null");
                 }
             }
+            
+            if (cloudWatchConfig.containsKey("incremental")) {
+                Object value = cloudWatchConfig.get("incremental");
+                if (value instanceof Boolean) {
+                    config.getCloudWatchCollection().setIncremental((Boolean) value);
+                } else if (value instanceof String) {
+                    config.getCloudWatchCollection().setIncremental(Boolean.parseBoolean((String) value));
+                } else {
+                    LOG.warn("Ignoring invalid cloudWatchCollection.incremental value type: {}", value != null ? value.getClass().getName() : "null");
+                }
+            }
+            
+            if (cloudWatchConfig.containsKey("queryMode")) {
+                Object value = cloudWatchConfig.get("queryMode");
+                if (value instanceof String) {
+                    config.getCloudWatchCollection().setQueryMode((String) value);
+                } else {
+                    LOG.warn("Ignoring invalid queryMode value type: {}", value != null ? value.getClass().getName() : "null");
+                }
+            }
+            
+            if (cloudWatchConfig.containsKey("alignedTiming")) {
+                Object value = cloudWatchConfig.get("alignedTiming");
+                if (value instanceof Boolean) {
+                    config.getCloudWatchCollection().setAlignedTiming((Boolean) value);
+                } else if (value instanceof String) {
+                    config.getCloudWatchCollection().setAlignedTiming(Boolean.parseBoolean((String) value));
+                } else {
+                    LOG.warn("Ignoring invalid cloudWatchCollection.alignedTiming value type: {}", value != null ? value.getClass().getName() : "null");
+                }
+            }
+            
+            if (cloudWatchConfig.containsKey("catalogEnabled")) {
+                Object value = cloudWatchConfig.get("catalogEnabled");
+                if (value instanceof Boolean) {
+                    config.getCloudWatchCollection().setCatalogEnabled((Boolean) value);
+                } else if (value instanceof String) {
+                    config.getCloudWatchCollection().setCatalogEnabled(Boolean.parseBoolean((String) value));
+                } else {
+                    LOG.warn("Ignoring invalid cloudWatchCollection.catalogEnabled value type: {}", value != null ? value.getClass().getName() : "null");
+                }
+            }
+            
+            Duration catalogRefresh = parseMinutes(cloudWatchConfig, "catalogRefresh");
+            if (catalogRefresh != null) {
+                config.getCloudWatchCollection().setCatalogRefresh(catalogRefresh);
+            }
+            
+            Duration negativeCacheTtl = parseMinutes(cloudWatchConfig, "negativeCacheTtl");
+            if (negativeCacheTtl != null) {
+                config.getCloudWatchCollection().setNegativeCacheTtl(negativeCacheTtl);
+            }
+            
+            if (cloudWatchConfig.containsKey("hedging")) {
+                Object value = cloudWatchConfig.get("hedging");
+                if (value instanceof Boolean) {
+                    config.getCloudWatchCollection().setHedging((Boolean) value);
+                } else if (value instanceof String) {
+                    config.getCloudWatchCollection().setHedging(Boolean.parseBoolean((String) value));
+                } else {
+                    LOG.warn("Ignoring invalid cloudWatchCollection.hedging value type: {}", value != null ? value.getClass().getName() : "null");
+                }
+            }
+            
+            Double hedgePercentile = parseNumber(cloudWatchConfig, "hedgePercentile");
+            if (hedgePercentile != null) {
+                config.getCloudWatchCollection().setHedgePercentile(hedgePercentile);
+            }
+            
+            Double hedgeBudget = parseNumber(cloudWatchConfig, "hedgeBudget");
+            if (hedgeBudget != null) {
+                config.getCloudWatchCollection().setHedgeBudget(hedgeBudget);
+            }
+            
+            if (cloudWatchConfig.containsKey("backfill")) {
+                Object value = cloudWatchConfig.get("backfill");
+                if (value instanceof Boolean) {
+                    config.getCloudWatchCollection().setBackfill((Boolean) value);
+                } else if (value instanceof String) {
+                    config.getCloudWatchCollection().setBackfill(Boolean.parseBoolean((String) value));
+                } else {
+                    LOG.warn("Ignoring invalid cloudWatchCollection.backfill value type: {}", value != null ? value.getClass().getName() : "null");
+                }
+            }
+            
+            Duration backfillMaxAge = parseMinutes(cloudWatchConfig, "backfillMaxAge");
+            if (backfillMaxAge != null) {
+                config.getCloudWatchCollection().setBackfillMaxAge(backfillMaxAge);
+            }
+            
+            Double backfillRequestsPerMinute = parseNumber(cloudWatchConfig, "backfillRequestsPerMinute");
+            if (backfillRequestsPerMinute != null) {
+                config.getCloudWatchCollection().setBackfillRequestsPerMinute(backfillRequestsPerMinute.intValue());
+            }
+            
+            Duration publishDelay = parseMinutes(cloudWatchConfig, "publishDelay");
+            if (publishDelay != null) {
+                config.getCloudWatchCollection().setPublishDelay(publishDelay);
+            }
+            
+            Duration maxLookback = parseMinutes(cloudWatchConfig, "maxLookback");
+            if (maxLookback != null) {
+                config.getCloudWatchCollection().setMaxLookback(maxLookback);
+            }
         } catch (Exception e) {
             LOG.warn("Error processing CloudWatch collection configuration: {}", e.getMessage(), e);
         }
     }
     
+    /**
+     * Read a number from a configuration map.
+     *
+     * @return the number, or null if the key is absent or invalid
+     */
+    private Double parseNumber(Map<String, Object> configuration, String key) {
+        if (!configuration.containsKey(key)) {
+            return null;
+        }
+        Object value = configuration.get(key);
+        try {
+            if (value instanceof Number) {
+                return ((Number) value).doubleValue();
+            } else if (value instanceof String) {
+                return Double.parseDouble((String) value);
+            }
+            LOG.warn("Ignoring invalid {} value type: {}", key, value != null ? value.getClass().getName() : "null");
+        } catch (NumberFormatException e) {
+            LOG.warn("Invalid {} value: {}", key, value);
+        }
+        return null;
+    }
+    
+    /**
+     * Read a duration given in minutes from a configuration map.
+     *
+     * @return the duration, or null if the key is absent or invalid
+     */
+    private Duration parseMinutes(Map<String, Object> configuration, String key) {
+        if (!configuration.containsKey(key)) {
+            return null;
+        }
+        Object value = configuration.get(key);
+        try {
+            if (value instanceof Number) {
+                return Duration.ofMinutes(((Number) value).longValue());
+            } else if (value instanceof String) {
+                return Duration.ofMinutes(Long.parseLong((String) value));
+            }
+            LOG.warn("Ignoring invalid {} value type: {}", key, value != null ? value.getClass().getName() : "null");
+        } catch (NumberFormatException e) {
+            LOG.warn("Invalid {} value: {}", key, value);
+        }
+        return null;
+    }
+    
     /**
      * Validate that the updated configuration works by making a simple API call.
      * 
@@ -1808,7 +2129,8 @@ public class AwsCloudProvider implements CloudProvider {
                 try {
                     // Make a simple call to verify connectivity and authentication
                     LOG.info("Making test AWS API call (getCallerIdentity)...");
-                    String accountId = stsClient.getCallerIdentity().account();
+                    String accountId = apiGovernor.call(config.getProviderId(), testRegion, "GetCallerIdentity",
+                            stsClient::getCallerIdentity).account();
                     LOG.info("Successfully validated AWS configuration. Connected to AWS Account: {}", accountId);
                     stsClient.close();
                 } catch (Exception e) {
@@ -1865,6 +2187,8 @@ public class AwsCloudProvider implements CloudProvider {
         if (source.getEc2Discovery().getInstanceStates() != null) {
             target.getEc2Discovery().setInstanceStates(new ArrayList<>(source.getEc2Discovery().getInstanceStates()));
         }
+        target.getEc2Discovery().setLogVerbosity(source.getEc2Discovery().getLogVerbosity());
+        target.getEc2Discovery().setLogSampleInterval(source.getEc2Discovery().getLogSampleInterval());
         
         // CloudWatch collection configuration
         target.getCloudWatchCollection().setEnabled(source.getCloudWatchCollection().isEnabled());
@@ -1875,6 +2199,20 @@ public class AwsCloudProvider implements CloudProvider {
         if (source.getCloudWatchCollection().getStatistics() != null) {
             target.getCloudWatchCollection().setStatistics(new ArrayList<>(source.getCloudWatchCollection().getStatistics()));
         }
+        target.getCloudWatchCollection().setIncremental(source.getCloudWatchCollection().isIncremental());
+        target.getCloudWatchCollection().setPublishDelay(source.getCloudWatchCollection().getPublishDelay());
+        target.getCloudWatchCollection().setMaxLookback(source.getCloudWatchCollection().getMaxLookback());
+        target.getCloudWatchCollection().setQueryMode(source.getCloudWatchCollection().getQueryMode());
+        target.getCloudWatchCollection().setAlignedTiming(source.getCloudWatchCollection().isAlignedTiming());
+        target.getCloudWatchCollection().setCatalogEnabled(source.getCloudWatchCollection().isCatalogEnabled());
+        target.getCloudWatchCollection().setCatalogRefresh(source.getCloudWatchCollection().getCatalogRefresh());
+        target.getCloudWatchCollection().setNegativeCacheTtl(source.getCloudWatchCollection().getNegativeCacheTtl());
+        target.getCloudWatchCollection().setHedging(source.getCloudWatchCollection().isHedging());
+        target.getCloudWatchCollection().setHedgePercentile(source.getCloudWatchCollection().getHedgePercentile());
+        target.getCloudWatchCollection().setHedgeBudget(source.getCloudWatchCollection().getHedgeBudget());
+        target.getCloudWatchCollection().setBackfill(source.getCloudWatchCollection().isBackfill());
+        target.getCloudWatchCollection().setBackfillMaxAge(source.getCloudWatchCollection().getBackfillMaxAge());
+        target.getCloudWatchCollection().setBackfillRequestsPerMinute(source.getCloudWatchCollection().getBackfillRequestsPerMinute());
     }
     
     @Override
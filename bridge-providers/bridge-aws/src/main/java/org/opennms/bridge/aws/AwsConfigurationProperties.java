@@ -103,6 +103,17 @@ public class AwsConfigurationProperties {
          * Valid values: pending, running, stopping, stopped, shutting-down, terminated
          */
         private List<String> instanceStates = List.of("running");
+        
+        /**
+         * How much per-instance detail to write to the discovery log.
+         * Valid values: summary, sampled, changed, full (default, as before the setting existed)
+         */
+        private String logVerbosity = "full";
+        
+        /**
+         * Log every Nth discovered instance when the log verbosity is "sampled".
+         */
+        private int logSampleInterval = 100;
 
         public boolean isEnabled() {
             return enabled;
@@ -135,6 +146,22 @@ public class AwsConfigurationProperties {
         public void setInstanceStates(List<String> instanceStates) {
             this.instanceStates = instanceStates;
         }
+
+        public String getLogVerbosity() {
+            return logVerbosity;
+        }
+
+        public void setLogVerbosity(String logVerbosity) {
+            this.logVerbosity = logVerbosity;
+        }
+
+        public int getLogSampleInterval() {
+            return logSampleInterval;
+        }
+
+        public void setLogSampleInterval(int logSampleInterval) {
+            this.logSampleInterval = Math.max(1, logSampleInterval);
+        }
     }
     
     /**
@@ -168,6 +195,78 @@ public class AwsConfigurationProperties {
          * CloudWatch metric statistics to collect.
          */
         private List<String> statistics = List.of("Average", "Maximum", "Minimum");
+        
+        /**
+         * Whether to request only datapoints newer than the last one delivered for each series.
+         */
+        private boolean incremental = true;
+        
+        /**
+         * Delay after which CloudWatch datapoints are considered fully published.
+         */
+        private Duration publishDelay = Duration.ofMinutes(2);
+        
+        /**
+         * Maximum time range requested for a series, e.g. after an outage.
+         */
+        private Duration maxLookback = Duration.ofHours(1);
+        
+        /**
+         * How metrics are queried: "metricStat" for one query per instance,
+         * or "insights" for one Metrics Insights query per metric and statistic across a region.
+         */
+        private String queryMode = "metricStat";
+        
+        /**
+         * Whether each instance is collected at its monitoring period (60s detailed, 300s basic),
+         * scheduled just after the publish delay of each period, instead of at the configured period.
+         */
+        private boolean alignedTiming = false;
+        
+        /**
+         * Whether to skip metrics that the ListMetrics catalog or a recent empty response show do not exist.
+         */
+        private boolean catalogEnabled = true;
+        
+        /**
+         * How often the per-region ListMetrics catalog is rebuilt.
+         */
+        private Duration catalogRefresh = Duration.ofHours(6);
+        
+        /**
+         * How long a metric that returned no datapoints is skipped for an instance.
+         */
+        private Duration negativeCacheTtl = Duration.ofHours(1);
+        
+        /**
+         * Whether a GetMetricData call slower than the hedge percentile is duplicated, first response winning.
+         */
+        private boolean hedging = false;
+        
+        /**
+         * Percentile of recent GetMetricData latencies after which a call is hedged.
+         */
+        private double hedgePercentile = 95;
+        
+        /**
+         * Maximum hedged calls as a fraction of GetMetricData calls.
+         */
+        private double hedgeBudget = 0.05;
+        
+        /**
+         * Whether periods skipped because they are older than the maximum lookback are recovered in the background.
+         */
+        private boolean backfill = true;
+        
+        /**
+         * Oldest data backfill recovers; CloudWatch keeps 1-minute data for 15 days.
+         */
+        private Duration backfillMaxAge = Duration.ofDays(14);
+        
+        /**
+         * Upper bound on backfill GetMetricData requests per minute, used only while live collection leaves quota unused.
+         */
+        private int backfillRequestsPerMinute = 60;
 
         public boolean isEnabled() {
             return enabled;
@@ -200,6 +299,122 @@ public class AwsConfigurationProperties {
         public void setStatistics(List<String> statistics) {
             this.statistics = statistics;
         }
+
+        public boolean isIncremental() {
+            return incremental;
+        }
+
+        public void setIncremental(boolean incremental) {
+            this.incremental = incremental;
+        }
+
+        public Duration getPublishDelay() {
+            return publishDelay;
+        }
+
+        public void setPublishDelay(Duration publishDelay) {
+            this.publishDelay = publishDelay;
+        }
+
+        public Duration getMaxLookback() {
+            return maxLookback;
+        }
+
+        public void setMaxLookback(Duration maxLookback) {
+            this.maxLookback = maxLookback;
+        }
+
+        public String getQueryMode() {
+            return queryMode;
+        }
+
+        public void setQueryMode(String queryMode) {
+            this.queryMode = queryMode;
+        }
+
+        public boolean isInsightsQueryMode() {
+            return "insights".equalsIgnoreCase(queryMode);
+        }
+
+        public boolean isAlignedTiming() {
+            return alignedTiming;
+        }
+
+        public void setAlignedTiming(boolean alignedTiming) {
+            this.alignedTiming = alignedTiming;
+        }
+
+        public boolean isCatalogEnabled() {
+            return catalogEnabled;
+        }
+
+        public void setCatalogEnabled(boolean catalogEnabled) {
+            this.catalogEnabled = catalogEnabled;
+        }
+
+        public Duration getCatalogRefresh() {
+            return catalogRefresh;
+        }
+
+        public void setCatalogRefresh(Duration catalogRefresh) {
+            this.catalogRefresh = catalogRefresh;
+        }
+
+        public Duration getNegativeCacheTtl() {
+            return negativeCacheTtl;
+        }
+
+        public void setNegativeCacheTtl(Duration negativeCacheTtl) {
+            this.negativeCacheTtl = negativeCacheTtl;
+        }
+
+        public boolean isHedging() {
+            return hedging;
+        }
+
+        public void setHedging(boolean hedging) {
+            this.hedging = hedging;
+        }
+
+        public double getHedgePercentile() {
+            return hedgePercentile;
+        }
+
+        public void setHedgePercentile(double hedgePercentile) {
+            this.hedgePercentile = Math.min(100, Math.max(1, hedgePercentile));
+        }
+
+        public double getHedgeBudget() {
+            return hedgeBudget;
+        }
+
+        public void setHedgeBudget(double hedgeBudget) {
+            this.hedgeBudget = Math.min(1, Math.max(0, hedgeBudget));
+        }
+
+        public boolean isBackfill() {
+            return backfill;
+        }
+
+        public void setBackfill(boolean backfill) {
+            this.backfill = backfill;
+        }
+
+        public Duration getBackfillMaxAge() {
+            return backfillMaxAge;
+        }
+
+        public void setBackfillMaxAge(Duration backfillMaxAge) {
+            this.backfillMaxAge = backfillMaxAge;
+        }
+
+        public int getBackfillRequestsPerMinute() {
+            return backfillRequestsPerMinute;
+        }
+
+        public void setBackfillRequestsPerMinute(int backfillRequestsPerMinute) {
+            this.backfillRequestsPerMinute = Math.max(1, backfillRequestsPerMinute);
+        }
     }
 
     public String getProviderId() {
@@ -8,8 +8,10 @@ import org.springframework.stereotype.Component;
 import software.amazon.awssdk.services.ec2.Ec2Client;
 import software.amazon.awssdk.services.ec2.model.*;
 
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -20,10 +22,39 @@ import java.util.stream.Collectors;
 public class AwsDiscoveryStrategy {
     private static final Logger LOG = LoggerFactory.getLogger(AwsDiscoveryStrategy.class);
     
+    /**
+     * How much per-instance detail is written to the discovery log.
+     * SUMMARY logs only per-region totals, SAMPLED logs every Nth instance,
+     * CHANGED logs instances that are new or changed since the previous discovery, FULL logs every instance.
+     */
+    enum LogVerbosity {
+        SUMMARY,
+        SAMPLED,
+        CHANGED,
+        FULL;
+
+        static LogVerbosity parse(String value) {
+            if (value != null) {
+                for (LogVerbosity verbosity : values()) {
+                    if (verbosity.name().equalsIgnoreCase(value.trim())) {
+                        return verbosity;
+                    }
+                }
+            }
+            return FULL;
+        }
+    }
+    
     // Mark as not required so tests can run without it
     @Autowired(required = false)
     private DiscoveryLogService discoveryLogService;
     
+    @Autowired(required = false)
+    private AwsApiGovernor apiGovernor;
+    
+    // Fingerprints of the instances seen by the previous discovery, keyed by provider and region
+    private final Map<String, Map<String, Integer>> instanceFingerprints = new ConcurrentHashMap<>();
+    
     // Default constructor for testing
     public AwsDiscoveryStrategy() {
         // Empty constructor
@@ -41,6 +72,7 @@ public class AwsDiscoveryStrategy {
      * @param region          AWS region
      * @param config          AWS configuration properties
      * @return set of discovered cloud resources
+     * @throws RuntimeException if the region could not be queried
      */
     public Set<CloudResource> discoverEc2Instances(Ec2Client ec2Client, String region, AwsConfigurationProperties config) {
         LOG.info("Discovering EC2 instances in region {}", region);
@@ -121,8 +153,12 @@ public class AwsDiscoveryStrategy {
                 discoveryLogService.addLogEntry(config.getProviderId(), apiLogEntry);
             }
             
-            // Make the API call
-            DescribeInstancesResponse response = ec2Client.describeInstances(request);
+            // Make the API call, bounded by the discovery deadline if there is one
+            Deadline deadline = Deadline.current();
+            DescribeInstancesResponse response = apiGovernor != null
+                    ? apiGovernor.call(config.getProviderId(), region, "DescribeInstances",
+                            () -> ec2Client.describeInstances(withDeadline(request, deadline)))
+                    : ec2Client.describeInstances(withDeadline(request, deadline));
             Set<CloudResource> resources = new HashSet<>();
             
             // Log the API response
@@ -143,42 +179,64 @@ public class AwsDiscoveryStrategy {
                 discoveryLogService.addLogEntry(config.getProviderId(), responseLogEntry);
             }
             
+            // Per-instance entries are only built for the instances the configured verbosity retains
+            LogVerbosity verbosity = discoveryLogService != null
+                    ? LogVerbosity.parse(config.getEc2Discovery().getLogVerbosity())
+                    : LogVerbosity.SUMMARY;
+            int sampleInterval = Math.max(1, config.getEc2Discovery().getLogSampleInterval());
+            String fingerprintKey = config.getProviderId() + "/" + region;
+            Map<String, Integer> previousFingerprints = verbosity == LogVerbosity.CHANGED
+                    ? instanceFingerprints.getOrDefault(fingerprintKey, Collections.emptyMap())
+                    : Collections.emptyMap();
+            Map<String, Integer> currentFingerprints = verbosity == LogVerbosity.CHANGED ? new HashMap<>() : null;
+            Map<String, Integer> stateCounts = new TreeMap<>();
+            int instanceIndex = 0;
+            int loggedInstances = 0;
+            int newInstances = 0;
+            int changedInstances = 0;
+            
             // Process each reservation and instance
             for (Reservation reservation : response.reservations()) {
                 for (Instance instance : reservation.instances()) {
                     CloudResource resource = convertInstanceToResource(instance, region, config);
                     resources.add(resource);
+                    stateCounts.merge(resource.getStatus(), 1, Integer::sum);
+                    
+                    boolean logInstance;
+                    switch (verbosity) {
+                        case FULL:
+                            logInstance = true;
+                            break;
+                        case SAMPLED:
+                            logInstance = instanceIndex % sampleInterval == 0;
+                            break;
+                        case CHANGED:
+                            int fingerprint = fingerprint(instance, resource);
+                            currentFingerprints.put(instance.instanceId(), fingerprint);
+                            Integer previous = previousFingerprints.get(instance.instanceId());
+                            if (previous == null) {
+                                newInstances++;
+                            } else if (previous != fingerprint) {
+                                changedInstances++;
+                            }
+                            logInstance = previous == null || previous != fingerprint;
+                            break;
+                        default:
+                            logInstance = false;
+                    }
+                    instanceIndex++;
                     
-                    // Log each discovered instance with details
-                    if (discoveryLogService != null) {
-                        Map<String, Object> instanceLogEntry = new HashMap<>();
-                        instanceLogEntry.put("action", "instance_discovered");
-                        instanceLogEntry.put("region", region);
-                        instanceLogEntry.put("instance_id", instance.instanceId());
-                        instanceLogEntry.put("state", instance.state().nameAsString());
-                        instanceLogEntry.put("type", instance.instanceType().toString());
-                        
-                        // Add key tags for identification
-                        Map<String, String> tags = extractTags(instance);
-                        if (tags.containsKey("Name")) {
-                            instanceLogEntry.put("name", tags.get("Name"));
-                        }
-                        
-                        // Add key properties
-                        instanceLogEntry.put("private_ip", instance.privateIpAddress());
-                        if (instance.publicIpAddress() != null) {
-                            instanceLogEntry.put("public_ip", instance.publicIpAddress());
-                        }
-                        
-                        instanceLogEntry.put("message", "Discovered EC2 instance " + instance.instanceId() + 
-                                (tags.containsKey("Name") ? " (" + tags.get("Name") + ")" : "") + 
-                                " in state " + instance.state().nameAsString());
-                        
-                        discoveryLogService.addLogEntry(config.getProviderId(), instanceLogEntry);
+                    if (logInstance) {
+                        discoveryLogService.addLogEntry(config.getProviderId(), buildInstanceLogEntry(instance, resource, region));
+                        loggedInstances++;
                     }
                 }
             }
             
+            if (currentFingerprints != null) {
+                instanceFingerprints.put(fingerprintKey, currentFingerprints);
+            }
+            
             // Log discovery completion
             LOG.info("Discovered {} EC2 instances in region {}", resources.size(), region);
             
@@ -187,6 +245,14 @@ public class AwsDiscoveryStrategy {
                 completeLogEntry.put("action", "discovery_complete");
                 completeLogEntry.put("region", region);
                 completeLogEntry.put("instance_count", resources.size());
+                completeLogEntry.put("instance_states", stateCounts);
+                completeLogEntry.put("log_verbosity", verbosity.name().toLowerCase(Locale.ROOT));
+                completeLogEntry.put("instances_logged", loggedInstances);
+                if (verbosity == LogVerbosity.CHANGED) {
+                    completeLogEntry.put("instances_new", newInstances);
+                    completeLogEntry.put("instances_changed", changedInstances);
+                    completeLogEntry.put("instances_removed", countRemoved(previousFingerprints, currentFingerprints));
+                }
                 completeLogEntry.put("message", "Completed discovery of " + resources.size() + " EC2 instances in region " + region);
                 discoveryLogService.addLogEntry(config.getProviderId(), completeLogEntry);
                 
@@ -209,8 +275,69 @@ public class AwsDiscoveryStrategy {
                 discoveryLogService.addLogEntry(config.getProviderId(), errorLogEntry);
             }
             
-            return Collections.emptySet();
+            // The caller decides what to report for a region that could not be discovered
+            throw e instanceof RuntimeException
+                    ? (RuntimeException) e
+                    : new IllegalStateException("Error discovering EC2 instances in region " + region, e);
+        }
+    }
+    
+    private static DescribeInstancesRequest withDeadline(DescribeInstancesRequest request, Deadline deadline) {
+        if (deadline == null) {
+            return request;
+        }
+        Duration remaining = deadline.check();
+        return request.toBuilder()
+                .overrideConfiguration(o -> o.apiCallTimeout(remaining))
+                .build();
+    }
+    
+    /**
+     * Build the discovery log entry for a single instance.
+     *
+     * @param instance EC2 instance
+     * @param resource the converted cloud resource
+     * @param region   AWS region
+     * @return log entry
+     */
+    private Map<String, Object> buildInstanceLogEntry(Instance instance, CloudResource resource, String region) {
+        String name = resource.getTags().get("Name");
+        String state = instance.state().nameAsString();
+        
+        Map<String, Object> instanceLogEntry = new HashMap<>();
+        instanceLogEntry.put("action", "instance_discovered");
+        instanceLogEntry.put("region", region);
+        instanceLogEntry.put("instance_id", instance.instanceId());
+        instanceLogEntry.put("state", state);
+        instanceLogEntry.put("type", instance.instanceType().toString());
+        if (name != null) {
+            instanceLogEntry.put("name", name);
+        }
+        instanceLogEntry.put("private_ip", instance.privateIpAddress());
+        if (instance.publicIpAddress() != null) {
+            instanceLogEntry.put("public_ip", instance.publicIpAddress());
         }
+        instanceLogEntry.put("message", "Discovered EC2 instance " + instance.instanceId() + 
+                (name != null ? " (" + name + ")" : "") + " in state " + state);
+        return instanceLogEntry;
+    }
+    
+    /**
+     * Fingerprint the logged attributes of an instance so unchanged instances can be skipped.
+     */
+    private int fingerprint(Instance instance, CloudResource resource) {
+        return Objects.hash(resource.getStatus(), instance.instanceTypeAsString(), resource.getTags().get("Name"),
+                instance.privateIpAddress(), instance.publicIpAddress());
+    }
+    
+    private int countRemoved(Map<String, Integer> previousFingerprints, Map<String, Integer> currentFingerprints) {
+        int removed = 0;
+        for (String instanceId : previousFingerprints.keySet()) {
+            if (!currentFingerprints.containsKey(instanceId)) {
+                removed++;
+            }
+        }
+        return removed;
     }
     
     /**
@@ -222,81 +349,47 @@ public class AwsDiscoveryStrategy {
      * @return cloud resource
      */
     private CloudResource convertInstanceToResource(Instance instance, String region, AwsConfigurationProperties config) {
-        Map<String, String> metadata = new HashMap<>();
-        Map<String, String> tags = extractTags(instance);
-        
-        metadata.put("resourceType", "ec2-instance");
-        metadata.put("instanceId", instance.instanceId());
-        metadata.put("instanceType", instance.instanceType().toString());
-        metadata.put("region", region);
-        metadata.put("availabilityZone", instance.placement().availabilityZone());
-        metadata.put("privateIpAddress", instance.privateIpAddress());
-        
-        // Add public IP if available
-        if (instance.publicIpAddress() != null) {
-            metadata.put("publicIpAddress", instance.publicIpAddress());
-        }
-        
-        // Add instance state
-        metadata.put("state", instance.state().nameAsString());
-        
-        // Add VPC and subnet info if available
-        if (instance.vpcId() != null) {
-            metadata.put("vpcId", instance.vpcId());
-        }
-        if (instance.subnetId() != null) {
-            metadata.put("subnetId", instance.subnetId());
-        }
+        String displayName = instance.instanceId();
+        CompactCloudResource.Builder builder = CompactCloudResource.builder(instance.instanceId(), "EC2", region)
+                .status(instance.state().nameAsString())
+                .providerId(config.getProviderId())
+                .instanceType(instance.instanceTypeAsString())
+                .availabilityZone(instance.placement() != null ? instance.placement().availabilityZone() : null)
+                .privateAddress(instance.privateIpAddress())
+                .publicAddress(instance.publicIpAddress())
+                .vpcId(instance.vpcId())
+                .subnetId(instance.subnetId())
+                .platform(instance.platformAsString() != null ? instance.platformAsString() : "linux")
+                .property("resourceType", "ec2-instance")
+                .property("platformDetails", instance.platformDetails());
         
-        // Add platform details
-        metadata.put("platform", instance.platformAsString() != null ? instance.platformAsString() : "linux");
-        if (instance.platformDetails() != null) {
-            metadata.put("platformDetails", instance.platformDetails());
+        // Detailed monitoring publishes one-minute datapoints, basic monitoring five-minute ones
+        boolean detailedMonitoring = instance.monitoring() != null
+                && MonitoringState.ENABLED.equals(instance.monitoring().state());
+        builder.property("monitoring", detailedMonitoring ? "detailed" : "basic");
+        if (config.getCloudWatchCollection().isAlignedTiming()) {
+            builder.property(CollectionTiming.PERIOD_PROPERTY, detailedMonitoring ? "60" : "300");
         }
         
-        // Add selected tags as metadata
-        for (String tagName : config.getEc2Discovery().getIncludeTags()) {
-            if (tags.containsKey(tagName)) {
-                metadata.put("tag_" + tagName, tags.get(tagName));
+        // Tag values are interned except for the per-instance Name
+        List<String> includeTags = config.getEc2Discovery().getIncludeTags();
+        Set<String> seenTags = new HashSet<>();
+        for (Tag tag : instance.tags()) {
+            if (!seenTags.add(tag.key())) {
+                continue;
+            }
+            boolean isName = "Name".equals(tag.key());
+            if (isName) {
+                displayName = tag.value();
+            }
+            builder.tag(tag.key(), tag.value(), !isName);
+            
+            // Add selected tags as metadata
+            if (includeTags.contains(tag.key())) {
+                builder.property("tag_" + tag.key(), tag.value(), !isName);
             }
         }
         
-        // Extract name from tags for display
-        String displayName = tags.getOrDefault("Name", instance.instanceId());
-        
-        // Create the resource
-        CloudResource resource = new CloudResource(instance.instanceId(), displayName, "EC2", region);
-        resource.setTags(tags);
-        
-        // Set the resource status based on the EC2 instance state
-        String instanceState = instance.state().nameAsString();
-        resource.setStatus(instanceState);
-        
-        // Add properties
-        resource.addProperty("providerId", config.getProviderId());
-        resource.addProperty("address", instance.privateIpAddress());
-        resource.addProperty("publicAddress", instance.publicIpAddress());
-        
-        // Add metadata as properties
-        for (Map.Entry<String, String> entry : metadata.entrySet()) {
-            resource.addProperty(entry.getKey(), entry.getValue());
-        }
-        
-        return resource;
-    }
-    
-    /**
-     * Extract tags from an EC2 instance.
-     *
-     * @param instance EC2 instance
-     * @return map of tag keys to values
-     */
-    private Map<String, String> extractTags(Instance instance) {
-        return instance.tags().stream()
-                .collect(Collectors.toMap(
-                        Tag::key,
-                        Tag::value,
-                        (existing, replacement) -> existing
-                ));
+        return builder.name(displayName).build();
     }
 }
\ No newline at end of file
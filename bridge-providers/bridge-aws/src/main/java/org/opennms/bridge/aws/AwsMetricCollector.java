@@ -3,24 +3,51 @@ package org.opennms.bridge.aws;
 import org.opennms.bridge.api.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import software.amazon.awssdk.services.cloudwatch.CloudWatchClient;
 import software.amazon.awssdk.services.cloudwatch.model.*;
 
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
 /**
  * AWS CloudWatch metric collector.
- * Collects metrics from CloudWatch for a specific cloud resource.
+ * Collects metrics from CloudWatch for a specific cloud resource, or for all instances of a region
+ * at once with Metrics Insights.
  */
 @Component
 public class AwsMetricCollector {
     private static final Logger LOG = LoggerFactory.getLogger(AwsMetricCollector.class);
     
-    private static final String NAMESPACE_EC2 = "AWS/EC2";
+    private static final String NAMESPACE_EC2 = CloudWatchCollectionPlan.NAMESPACE_EC2;
+    
+    // Metrics Insights only covers the last three hours
+    private static final long INSIGHTS_MAX_RANGE_MILLIS = 3 * 60 * 60 * 1000L;
+    
+    @Autowired(required = false)
+    private MetricWatermarkStore watermarkStore;
+    
+    @Autowired(required = false)
+    private CloudWatchMetricCatalog metricCatalog;
+    
+    @Autowired(required = false)
+    private AwsApiGovernor apiGovernor;
+    
+    @Autowired(required = false)
+    private HedgedRequestExecutor hedgedRequests;
+    
+    @Autowired(required = false)
+    private CloudWatchBackfillEngine backfillEngine;
+    
+    // Compiled query plans by provider and instance, and the region-wide Metrics Insights plan
+    private final Map<String, CloudWatchCollectionPlan> instancePlans = new ConcurrentHashMap<>();
+    private volatile CloudWatchCollectionPlan insightsPlan;
+    private volatile PlanSettings planSettings;
     
     /**
      * Collect metrics for an EC2 instance.
@@ -31,19 +58,35 @@ public class AwsMetricCollector {
      * @return metric collection
      */
     public MetricCollection collectEc2Metrics(CloudWatchClient cloudWatchClient, CloudResource resource, AwsConfigurationProperties config) {
-        LOG.info("Collecting CloudWatch metrics for EC2 instance {}", resource.getResourceId());
+        return collectEc2MetricBatch(cloudWatchClient, resource, config).toCollection();
+    }
+    
+    /**
+     * Collect metrics for an EC2 instance into a columnar batch.
+     * All samples of a metric share one series and tag set instead of a tag map per datapoint.
+     * In incremental mode only fully published periods newer than each series' watermark are requested
+     * and returned. Collection does not move the watermarks itself: they advance to the newest datapoint of
+     * the batch once the batch is marked delivered, so samples that never reached a consumer are collected again.
+     * Periods older than the maximum lookback are left to the backfill engine, whose recovered samples
+     * are added to the batch.
+     * The queries come from a compiled plan that is reused until the settings change.
+     *
+     * @param cloudWatchClient CloudWatch client
+     * @param resource         Cloud resource (EC2 instance)
+     * @param config           AWS configuration properties
+     * @return metric batch
+     */
+    public MetricBatch collectEc2MetricBatch(CloudWatchClient cloudWatchClient, CloudResource resource, AwsConfigurationProperties config) {
+        LOG.debug("Collecting CloudWatch metrics for EC2 instance {}", resource.getResourceId());
+        String providerId = resource.getProviderId() != null ? resource.getProviderId() : "";
         
         try {
             
             // Check if CloudWatch collection is disabled
             if (!config.getCloudWatchCollection().isEnabled()) {
-                LOG.info("CloudWatch metric collection is disabled for provider {}", 
+                LOG.debug("CloudWatch metric collection is disabled for provider {}", 
                         resource.getProviderId() != null ? resource.getProviderId() : "unknown");
-                MetricCollection collection = new MetricCollection(resource.getResourceId());
-                collection.setTimestamp(Instant.now());
-                collection.addTag("providerId", resource.getProviderId() != null ? resource.getProviderId() : "");
-                collection.setMetrics(Collections.emptyList());
-                return collection;
+                return emptyBatch(resource, providerId);
             }
             
             // Validate that this is an EC2 instance
@@ -55,130 +98,551 @@ public class AwsMetricCollector {
             String instanceId = resource.getResourceId();
             
             // Calculate time range for metrics
-            Instant endTime = Instant.now();
-            Instant startTime = endTime.minus(config.getCloudWatchCollection().getPeriod().toMillis(), ChronoUnit.MILLIS);
+            AwsConfigurationProperties.CloudWatchCollection cloudWatch = config.getCloudWatchCollection();
+            int periodSeconds = periodSeconds(resource, cloudWatch);
+            CollectionWindow window = collectionWindow(cloudWatch, periodSeconds, 0);
+            CloudWatchCollectionPlan plan = instancePlan(resource, cloudWatch, periodSeconds);
             
-            // Build dimension for EC2 instance
-            Dimension instanceDimension = Dimension.builder()
-                    .name("InstanceId")
-                    .value(instanceId)
-                    .build();
+            // Tags shared by every series of this resource
+            Map<String, String> seriesTags = seriesTags(resource, providerId);
             
             // Collect metrics
-            List<MetricCollection.Metric> metrics = new ArrayList<>();
-            for (String metricName : config.getCloudWatchCollection().getMetrics()) {
+            MetricBatch batch = new MetricBatch(resource.getResourceId());
+            batch.addTag("providerId", providerId);
+            boolean useCatalog = metricCatalog != null && cloudWatch.isCatalogEnabled();
+            RegionFailures failures = new RegionFailures();
+            Map<Integer, Long> newest = new HashMap<>();
+            for (CloudWatchCollectionPlan.MetricQueries metric : plan.getMetrics()) {
+                if (useCatalog && !metricCatalog.shouldQuery(cloudWatchClient, providerId, resource.getRegion(),
+                        instanceId, metric.getMetricName(), cloudWatch)) {
+                    LOG.debug("Skipping metric {} that does not exist for instance {}", metric.getMetricName(), instanceId);
+                    continue;
+                }
                 try {
-                    GetMetricDataRequest.Builder requestBuilder = GetMetricDataRequest.builder()
-                            .startTime(startTime)
-                            .endTime(endTime);
-                    
-                    // Add metric queries for each statistic
-                    List<MetricDataQuery> queries = new ArrayList<>();
-                    int queryId = 0;
-                    
-                    for (String statistic : config.getCloudWatchCollection().getStatistics()) {
-                        String id = "q" + queryId++;
-                        
-                        MetricStat metricStat = MetricStat.builder()
-                                .metric(Metric.builder()
-                                        .namespace(NAMESPACE_EC2)
-                                        .metricName(metricName)
-                                        .dimensions(instanceDimension)
-                                        .build())
-                                .period(config.getCloudWatchCollection().getPeriod().getSeconds() > 0 
-                                       ? (int) config.getCloudWatchCollection().getPeriod().getSeconds() 
-                                       : 300)
-                                .stat(mapStatistic(statistic))
-                                .build();
-                        
-                        MetricDataQuery query = MetricDataQuery.builder()
-                                .id(id)
-                                .metricStat(metricStat)
-                                .returnData(true)
-                                .build();
-                        
-                        queries.add(query);
+                    // The datapoint each series was last delivered up to
+                    int[] seriesIds = new int[metric.getStatisticCount()];
+                    long[] watermarks = new long[seriesIds.length];
+                    long startMillis = window.endMillis;
+                    long gapMillis = Long.MAX_VALUE;
+                    for (int i = 0; i < watermarks.length; i++) {
+                        seriesIds[i] = seriesId(metric.getSeriesKey(i));
+                        watermarks[i] = watermark(seriesIds[i], window);
+                        startMillis = Math.min(startMillis, window.startAfter(watermarks[i]));
+                        gapMillis = Math.min(gapMillis, window.gapStart(watermarks[i]));
+                    }
+                    recordGap(cloudWatchClient, resource, metric.getMetricName(), gapMillis, window, cloudWatch);
+                    if (startMillis >= window.endMillis) {
+                        LOG.debug("No new CloudWatch periods for metric {} of instance {}", metric.getMetricName(), instanceId);
+                        continue;
                     }
                     
-                    GetMetricDataRequest request = requestBuilder
-                            .metricDataQueries(queries)
-                            .build();
-                    
-                    GetMetricDataResponse response = cloudWatchClient.getMetricData(request);
+                    failures.queried++;
+                    GetMetricDataResponse response = getMetricData(cloudWatchClient, providerId, resource.getRegion(),
+                            GetMetricDataRequest.builder()
+                                    .startTime(Instant.ofEpochMilli(startMillis))
+                                    .endTime(Instant.ofEpochMilli(window.endMillis))
+                                    .metricDataQueries(metric.getQueries())
+                                    .build(), cloudWatch);
                     
                     // Process results for this metric
+                    boolean empty = true;
                     for (MetricDataResult result : response.metricDataResults()) {
-                        if (!result.values().isEmpty()) {
-                            String statisticName = result.id();
-                            
-                            // For each timestamp and value, create a metric
-                            for (int i = 0; i < result.timestamps().size(); i++) {
-                                Instant timestamp = result.timestamps().get(i);
-                                Double value = result.values().get(i);
-                                
-                                if (value != null) {
-                                    // Create metric key with name and statistic
-                                    String metricKey = metricName + "." + statisticName;
-                                    
-                                    MetricCollection.Metric metric = new MetricCollection.Metric(metricKey, value);
-                                    metric.addTag("timestamp", timestamp.toString());
-                                    metric.addTag("resourceId", resource.getResourceId());
-                                    metric.addTag("providerId", resource.getProviderId() != null ? resource.getProviderId() : "");
-                                    metric.addTag("type", "GAUGE");
-                                    
-                                    metrics.add(metric);
-                                }
-                            }
+                        int statisticIndex = metric.statisticIndex(result.id());
+                        if (statisticIndex < 0 || result.values().isEmpty()) {
+                            continue;
                         }
+                        empty = false;
+                        appendSeries(batch, metric.getSeriesKey(statisticIndex), seriesIds[statisticIndex], seriesTags,
+                                result, watermarks[statisticIndex], window, newest);
+                    }
+                    if (empty && useCatalog) {
+                        metricCatalog.recordEmpty(providerId, resource.getRegion(), instanceId, metric.getMetricName(), cloudWatch);
                     }
+                } catch (Deadline.ExceededException e) {
+                    throw e;
                 } catch (Exception metricException) {
+                    failures.record(metricException);
                     LOG.warn("Error collecting CloudWatch metric {} for instance {}: {}", 
-                            metricName, instanceId, metricException.getMessage());
+                            metric.getMetricName(), instanceId, metricException.getMessage());
                 }
             }
+            failures.throwIfAllFailed(resource.getRegion());
             
-            LOG.info("Collected {} CloudWatch metrics for EC2 instance {}", metrics.size(), instanceId);
+            addBackfill(batch, resource);
+            advanceOnDelivery(batch, newest);
+            LOG.debug("Collected {} CloudWatch metrics for EC2 instance {}", batch.size(), instanceId);
             
-            // Create metric collection
-            MetricCollection collection = new MetricCollection(resource.getResourceId());
-            collection.setTimestamp(Instant.now());
-            collection.addTag("providerId", resource.getProviderId() != null ? resource.getProviderId() : "");
-            collection.setMetrics(metrics);
-            return collection;
+            batch.setTimestamp(Instant.now());
+            return batch;
             
+        } catch (RegionUnavailableException | Deadline.ExceededException e) {
+            throw e;
         } catch (Exception e) {
             LOG.error("Error collecting CloudWatch metrics for EC2 instance {}: {}", 
                     resource.getResourceId(), e.getMessage(), e);
             
-            // Return empty collection on error
-            MetricCollection collection = new MetricCollection(resource.getResourceId());
-            collection.setTimestamp(Instant.now());
-            collection.addTag("providerId", resource.getProviderId() != null ? resource.getProviderId() : "");
-            collection.setMetrics(Collections.emptyList());
-            return collection;
+            // Return empty batch on error
+            return emptyBatch(resource, providerId);
+        }
+    }
+    
+    /**
+     * Collect metrics for many EC2 instances of one region with CloudWatch Metrics Insights.
+     * Each configured metric is fetched with one {@code GetMetricData} request holding a
+     * {@code SELECT <stat>(<metric>) FROM SCHEMA("AWS/EC2", InstanceId) GROUP BY InstanceId} expression per
+     * statistic, and the results are demultiplexed back to the resources by their InstanceId label.
+     * A query returns at most {@value CloudWatchCollectionPlan#MAX_INSIGHTS_SERIES} instances of the whole account, so
+     * resources that appear in no result are left out for the caller to collect individually. When the query of a
+     * metric fails, every resource is left out, as none of their batches would be complete.
+     *
+     * @param cloudWatchClient CloudWatch client for the region of the resources
+     * @param resources        EC2 instances of one region
+     * @param config           AWS configuration properties
+     * @return metric batches by resource ID
+     */
+    public Map<String, MetricBatch> collectEc2MetricBatches(CloudWatchClient cloudWatchClient, Collection<CloudResource> resources,
+                                                            AwsConfigurationProperties config) {
+        AwsConfigurationProperties.CloudWatchCollection cloudWatch = config.getCloudWatchCollection();
+        CollectionWindow window = collectionWindow(cloudWatch, CloudWatchCollectionPlan.periodSeconds(cloudWatch),
+                INSIGHTS_MAX_RANGE_MILLIS);
+        List<String> statistics = cloudWatch.getStatistics();
+        
+        // Batches and series tags by InstanceId, which is the label of each grouped result
+        Map<String, CloudResource> resourcesById = new HashMap<>();
+        Map<String, MetricBatch> batches = new HashMap<>();
+        Map<String, Map<String, String>> tagsById = new HashMap<>();
+        Map<String, Map<Integer, Long>> newestById = new HashMap<>();
+        for (CloudResource resource : resources) {
+            if (!"EC2".equals(resource.getResourceType())) {
+                continue;
+            }
+            String providerId = resource.getProviderId() != null ? resource.getProviderId() : "";
+            resourcesById.put(resource.getResourceId(), resource);
+            batches.put(resource.getResourceId(), emptyBatch(resource, providerId));
+            tagsById.put(resource.getResourceId(), seriesTags(resource, providerId));
+            newestById.put(resource.getResourceId(), new HashMap<>());
+        }
+        if (resourcesById.isEmpty()) {
+            return batches;
+        }
+        String region = resourcesById.values().iterator().next().getRegion();
+        
+        CloudWatchCollectionPlan plan = insightsPlan(cloudWatch);
+        Set<String> returned = new HashSet<>();
+        boolean incomplete = false;
+        int requests = 0;
+        RegionFailures failures = new RegionFailures();
+        for (CloudWatchCollectionPlan.MetricQueries metric : plan.getMetrics()) {
+            String metricName = metric.getMetricName();
+            try {
+                // Request the oldest period any resource is missing for this metric
+                long startMillis = window.endMillis;
+                for (CloudResource resource : resourcesById.values()) {
+                    long gapMillis = Long.MAX_VALUE;
+                    for (int i = 0; i < metric.getStatisticCount(); i++) {
+                        int seriesId = seriesId(seriesKey(resource, metricName, metric.getStatistic(i)));
+                        long watermark = watermark(seriesId, window);
+                        startMillis = Math.min(startMillis, window.startAfter(watermark));
+                        gapMillis = Math.min(gapMillis, window.gapStart(watermark));
+                    }
+                    recordGap(cloudWatchClient, resource, metricName, gapMillis, window, cloudWatch);
+                }
+                if (startMillis >= window.endMillis) {
+                    LOG.debug("No new CloudWatch periods for metric {}", metricName);
+                    continue;
+                }
+                
+                failures.queried++;
+                String nextToken = null;
+                do {
+                    GetMetricDataResponse response = getMetricData(cloudWatchClient, config.getProviderId(), region,
+                            GetMetricDataRequest.builder()
+                                    .startTime(Instant.ofEpochMilli(startMillis))
+                                    .endTime(Instant.ofEpochMilli(window.endMillis))
+                                    .metricDataQueries(metric.getQueries())
+                                    .nextToken(nextToken)
+                                    .build(), cloudWatch);
+                    requests++;
+                    
+                    for (MetricDataResult result : response.metricDataResults()) {
+                        CloudResource resource = resourcesById.get(result.label());
+                        int statisticIndex = metric.statisticIndex(result.id());
+                        if (resource == null || statisticIndex < 0) {
+                            continue;
+                        }
+                        returned.add(resource.getResourceId());
+                        SeriesKey key = seriesKey(resource, metricName, metric.getStatistic(statisticIndex));
+                        int seriesId = seriesId(key);
+                        appendSeries(batches.get(resource.getResourceId()), key, seriesId,
+                                tagsById.get(resource.getResourceId()), result, watermark(seriesId, window), window,
+                                newestById.get(resource.getResourceId()));
+                    }
+                    nextToken = response.nextToken();
+                } while (nextToken != null);
+            } catch (Deadline.ExceededException e) {
+                throw e;
+            } catch (Exception metricException) {
+                failures.record(metricException);
+                incomplete = true;
+                LOG.warn("Error collecting CloudWatch metric {} with Metrics Insights: {}",
+                        metricName, metricException.getMessage());
+            }
         }
+        failures.throwIfAllFailed(region);
+        
+        if (incomplete) {
+            LOG.warn("Metrics Insights collection of region {} is incomplete; collecting its {} instances individually",
+                    region, resourcesById.size());
+            return Collections.emptyMap();
+        }
+        if (failures.queried > 0) {
+            batches.keySet().retainAll(returned);
+        }
+        Instant now = Instant.now();
+        batches.values().forEach(batch -> batch.setTimestamp(now));
+        for (CloudResource resource : resourcesById.values()) {
+            MetricBatch batch = batches.get(resource.getResourceId());
+            if (batch != null) {
+                addBackfill(batch, resource);
+                advanceOnDelivery(batch, newestById.get(resource.getResourceId()));
+            }
+        }
+        LOG.debug("Collected CloudWatch metrics for {} of {} EC2 instances with {} Metrics Insights requests",
+                returned.size(), resourcesById.size(), requests);
+        return batches;
+    }
+    
+    /**
+     * Drop the compiled plans of instances that are no longer discovered.
+     *
+     * @param providerId the provider whose resources were discovered
+     * @param resources  the discovered resources
+     */
+    public void retainPlans(String providerId, Collection<CloudResource> resources) {
+        Set<String> keys = new HashSet<>();
+        for (CloudResource resource : resources) {
+            keys.add(planKey(providerId, resource.getResourceId()));
+        }
+        String prefix = providerId + ":";
+        instancePlans.keySet().removeIf(key -> key.startsWith(prefix) && !keys.contains(key));
+    }
+    
+    private CloudWatchCollectionPlan instancePlan(CloudResource resource, AwsConfigurationProperties.CloudWatchCollection cloudWatch,
+                                                  int periodSeconds) {
+        String signature = planSignature(cloudWatch);
+        String key = planKey(resource.getProviderId(), resource.getResourceId());
+        CloudWatchCollectionPlan plan = instancePlans.get(key);
+        if (plan == null || !plan.getSignature().equals(signature) || plan.getPeriodSeconds() != periodSeconds) {
+            plan = CloudWatchCollectionPlan.forInstance(resource, cloudWatch, signature, periodSeconds);
+            instancePlans.put(key, plan);
+        }
+        return plan;
+    }
+    
+    private CloudWatchCollectionPlan insightsPlan(AwsConfigurationProperties.CloudWatchCollection cloudWatch) {
+        String signature = planSignature(cloudWatch);
+        CloudWatchCollectionPlan plan = insightsPlan;
+        if (plan == null || !plan.getSignature().equals(signature)) {
+            plan = CloudWatchCollectionPlan.forInsights(cloudWatch, signature);
+            insightsPlan = plan;
+        }
+        return plan;
+    }
+    
+    /**
+     * Get the signature of the current settings. Configuration updates replace the lists and the period,
+     * so the signature is only rebuilt when one of them is a different instance.
+     */
+    private String planSignature(AwsConfigurationProperties.CloudWatchCollection cloudWatch) {
+        PlanSettings settings = planSettings;
+        if (settings == null || !settings.matches(cloudWatch)) {
+            PlanSettings current = new PlanSettings(cloudWatch);
+            settings = current;
+            planSettings = current;
+            instancePlans.values().removeIf(plan -> !plan.getSignature().equals(current.signature));
+            LOG.debug("CloudWatch collection settings changed; plans will be recompiled");
+        }
+        return settings.signature;
+    }
+    
+    /**
+     * Issue a GetMetricData request through the API quota governor, if there is one.
+     * With hedging enabled, a request slower than the hedge percentile is duplicated within the hedge budget;
+     * the duplicate takes its own quota token and is skipped if none is free, and hedging pauses while the
+     * operation is throttled.
+     * Under a deadline, the SDK API call timeout of each attempt is bounded by the time the collection has left.
+     */
+    private GetMetricDataResponse getMetricData(CloudWatchClient cloudWatchClient, String providerId, String region,
+                                                GetMetricDataRequest request,
+                                                AwsConfigurationProperties.CloudWatchCollection cloudWatch) {
+        Deadline deadline = Deadline.current();
+        Supplier<GetMetricDataResponse> call = () -> cloudWatchClient.getMetricData(withDeadline(request, deadline));
+        // The wait for quota is spent here, so it does not count as request latency
+        Supplier<GetMetricDataResponse> primary = apiGovernor != null
+                ? apiGovernor.reserve(providerId, region, "GetMetricData", call)
+                : call;
+        if (hedgedRequests == null || !cloudWatch.isHedging()
+                || (apiGovernor != null && apiGovernor.isThrottled(providerId, region, "GetMetricData"))) {
+            return primary.get();
+        }
+        return hedgedRequests.call(providerId + "/" + region + "/GetMetricData", primary,
+                () -> apiGovernor != null ? apiGovernor.tryReserve(providerId, region, "GetMetricData", call) : call,
+                cloudWatch.getHedgePercentile(), cloudWatch.getHedgeBudget());
     }
     
     /**
-     * Map a simple statistic name to CloudWatch statistic.
+     * Bound a request's API call timeout by a deadline; the deadline is captured by the caller because hedged
+     * attempts run on other threads.
+     */
+    private static GetMetricDataRequest withDeadline(GetMetricDataRequest request, Deadline deadline) {
+        if (deadline == null) {
+            return request;
+        }
+        Duration remaining = deadline.check();
+        return request.toBuilder()
+                .overrideConfiguration(o -> o.apiCallTimeout(remaining))
+                .build();
+    }
+    
+    private static String planKey(String providerId, String resourceId) {
+        return (providerId != null ? providerId : "") + ":" + resourceId;
+    }
+    
+    private static SeriesKey seriesKey(CloudResource resource, String metricName, String statistic) {
+        String providerId = resource.getProviderId() != null ? resource.getProviderId() : "";
+        return new SeriesKey(providerId, resource.getResourceId(), NAMESPACE_EC2, metricName, statistic);
+    }
+    
+    /**
+     * Get the dictionary ID of a series, which keys its watermark and is carried with the batch downstream.
      *
-     * @param statistic Simple statistic name (Average, Maximum, Minimum, Sum)
-     * @return CloudWatch statistic
-     */
-    private String mapStatistic(String statistic) {
-        switch (statistic.toLowerCase()) {
-            case "average":
-                return "Average";
-            case "maximum":
-                return "Maximum";
-            case "minimum":
-                return "Minimum";
-            case "sum":
-                return "Sum";
-            case "samplecount":
-                return "SampleCount";
-            default:
-                return "Average";
-        }
-    }
-}
\ No newline at end of file
+     * @return the series ID, or -1 without a watermark store
+     */
+    private int seriesId(SeriesKey key) {
+        return watermarkStore != null ? watermarkStore.seriesId(key) : -1;
+    }
+    
+    private long watermark(int seriesId, CollectionWindow window) {
+        return window.incremental ? watermarkStore.get(seriesId) : MetricWatermarkStore.NONE;
+    }
+    
+    private static Map<String, String> seriesTags(CloudResource resource, String providerId) {
+        Map<String, String> seriesTags = new HashMap<>();
+        seriesTags.put("resourceId", resource.getResourceId());
+        seriesTags.put("providerId", providerId);
+        seriesTags.put("type", "GAUGE");
+        return seriesTags;
+    }
+    
+    /**
+     * Hand the range before the collection window to the backfill engine, which is empty unless the watermark lies
+     * before it. The engine is told about every collected metric, so it can resume gaps persisted before a restart.
+     *
+     * @param gapMillis first missing period start of any statistic, or {@link Long#MAX_VALUE} for none
+     */
+    private void recordGap(CloudWatchClient cloudWatchClient, CloudResource resource, String metricName, long gapMillis,
+                           CollectionWindow window, AwsConfigurationProperties.CloudWatchCollection cloudWatch) {
+        if (backfillEngine != null) {
+            backfillEngine.recordGap(cloudWatchClient, resource, metricName, gapMillis, window.oldestMillis,
+                    window.periodSeconds(), cloudWatch);
+        }
+    }
+    
+    /**
+     * Add the samples the backfill engine recovered for a resource and that were not delivered yet.
+     */
+    private void addBackfill(MetricBatch batch, CloudResource resource) {
+        int recovered = backfillEngine != null ? backfillEngine.addRecovered(batch, resource) : 0;
+        if (recovered > 0) {
+            LOG.debug("Added {} backfilled samples for instance {}", recovered, resource.getResourceId());
+        }
+    }
+    
+    /**
+     * Advance the watermarks of a batch's series to its newest datapoints once the batch is delivered.
+     *
+     * @param newest newest datapoint timestamp by series ID, as collected into the batch
+     */
+    private void advanceOnDelivery(MetricBatch batch, Map<Integer, Long> newest) {
+        if (watermarkStore != null && !newest.isEmpty()) {
+            batch.onDelivered(() -> newest.forEach(watermarkStore::advance));
+        }
+    }
+    
+    /**
+     * Add the datapoints of a result that are newer than the series watermark, noting the newest one added.
+     */
+    private void appendSeries(MetricBatch batch, SeriesKey key, int seriesDictionaryId, Map<String, String> seriesTags,
+                              MetricDataResult result, long watermark, CollectionWindow window,
+                              Map<Integer, Long> newest) {
+        List<Instant> timestamps = result.timestamps();
+        List<Double> values = result.values();
+        int seriesId = -1;
+        for (int i = 0; i < timestamps.size(); i++) {
+            Double value = values.get(i);
+            long timestamp = timestamps.get(i).toEpochMilli();
+            if (value == null || (window.incremental && (timestamp <= watermark || timestamp >= window.endMillis))) {
+                continue;
+            }
+            if (seriesId < 0) {
+                // Series name is metric and statistic, e.g. CPUUtilization.Average
+                seriesId = batch.series(key, seriesDictionaryId, seriesTags);
+            }
+            batch.add(seriesId, timestamp, value);
+            if (window.incremental) {
+                newest.merge(seriesDictionaryId, timestamp, Math::max);
+            }
+        }
+    }
+    
+    /**
+     * Compute the collection window for this cycle.
+     *
+     * @param maxRangeMillis upper bound on the range imposed by the query type, or 0 for none
+     */
+    private CollectionWindow collectionWindow(AwsConfigurationProperties.CloudWatchCollection cloudWatch, int periodSeconds,
+                                              long maxRangeMillis) {
+        long periodMillis = periodSeconds * 1000L;
+        boolean incremental = cloudWatch.isIncremental() && watermarkStore != null;
+        if (!incremental && !cloudWatch.isAlignedTiming()) {
+            long endMillis = System.currentTimeMillis();
+            return new CollectionWindow(false, periodMillis, endMillis, endMillis - periodMillis);
+        }
+        // Datapoints are stamped with the start of their period; only fully published periods are requested
+        long endMillis = alignToPeriod(System.currentTimeMillis() - cloudWatch.getPublishDelay().toMillis(), periodMillis);
+        if (!incremental) {
+            return new CollectionWindow(false, periodMillis, endMillis, endMillis - periodMillis);
+        }
+        long range = Math.max(periodMillis, cloudWatch.getMaxLookback().toMillis());
+        if (maxRangeMillis > 0) {
+            range = Math.min(range, maxRangeMillis);
+        }
+        return new CollectionWindow(true, periodMillis, endMillis, alignToPeriod(endMillis - range, periodMillis));
+    }
+    
+    /**
+     * Get the collection period of an instance: its monitoring period with aligned timing,
+     * otherwise the configured period.
+     */
+    private static int periodSeconds(CloudResource resource, AwsConfigurationProperties.CloudWatchCollection cloudWatch) {
+        if (cloudWatch.isAlignedTiming() && resource != null) {
+            Duration period = CollectionTiming.getPeriod(resource);
+            if (period != null) {
+                return (int) period.getSeconds();
+            }
+        }
+        return CloudWatchCollectionPlan.periodSeconds(cloudWatch);
+    }
+    
+    /**
+     * Align a timestamp down to the start of its collection period.
+     */
+    private static long alignToPeriod(long timestampMillis, long periodMillis) {
+        return timestampMillis - Math.floorMod(timestampMillis, periodMillis);
+    }
+    
+    private MetricBatch emptyBatch(CloudResource resource, String providerId) {
+        MetricBatch batch = new MetricBatch(resource.getResourceId(), 1);
+        batch.addTag("providerId", providerId);
+        return batch;
+    }
+    
+    
+    /**
+     * Time range of one collection cycle.
+     */
+    private static final class CollectionWindow {
+        private final boolean incremental;
+        private final long periodMillis;
+        private final long endMillis;
+        private final long oldestMillis;
+        
+        CollectionWindow(boolean incremental, long periodMillis, long endMillis, long oldestMillis) {
+            this.incremental = incremental;
+            this.periodMillis = periodMillis;
+            this.endMillis = endMillis;
+            this.oldestMillis = oldestMillis;
+        }
+        
+        int periodSeconds() {
+            return (int) (periodMillis / 1000);
+        }
+        
+        /**
+         * Get the first period start to request for a series with the given watermark.
+         */
+        long startAfter(long watermark) {
+            if (!incremental) {
+                return oldestMillis;
+            }
+            long next = watermark == MetricWatermarkStore.NONE ? endMillis - periodMillis : watermark + periodMillis;
+            return Math.max(oldestMillis, next);
+        }
+        
+        /**
+         * Get the first period after the watermark that is older than the window and so will not be requested.
+         *
+         * @return the period start, or {@link Long#MAX_VALUE} if nothing is skipped
+         */
+        long gapStart(long watermark) {
+            if (!incremental || watermark == MetricWatermarkStore.NONE || watermark + periodMillis >= oldestMillis) {
+                return Long.MAX_VALUE;
+            }
+            return watermark + periodMillis;
+        }
+    }
+    
+    /**
+     * Thrown when every CloudWatch query of a collection failed, so the region's circuit breaker sees the failure.
+     */
+    static final class RegionUnavailableException extends RuntimeException {
+        RegionUnavailableException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+    
+    /**
+     * Failed queries of one collection. Throttling is left to the API governor and does not count as a failure.
+     */
+    private static final class RegionFailures {
+        private int queried;
+        private int failed;
+        private Exception lastFailure;
+        
+        void record(Exception e) {
+            if (!AwsApiGovernor.isThrottling(e)) {
+                failed++;
+                lastFailure = e;
+            }
+        }
+        
+        void throwIfAllFailed(String region) {
+            if (queried > 0 && failed == queried) {
+                throw new RegionUnavailableException("All " + queried + " CloudWatch queries failed in region "
+                        + region + ": " + lastFailure.getMessage(), lastFailure);
+            }
+        }
+    }
+    
+    /**
+     * Collection settings a compiled plan was built from.
+     */
+    private static final class PlanSettings {
+        private final List<String> metrics;
+        private final List<String> statistics;
+        private final Duration period;
+        private final String signature;
+        
+        PlanSettings(AwsConfigurationProperties.CloudWatchCollection cloudWatch) {
+            this.metrics = cloudWatch.getMetrics();
+            this.statistics = cloudWatch.getStatistics();
+            this.period = cloudWatch.getPeriod();
+            this.signature = CloudWatchCollectionPlan.signature(cloudWatch);
+        }
+        
+        boolean matches(AwsConfigurationProperties.CloudWatchCollection cloudWatch) {
+            return metrics == cloudWatch.getMetrics() && statistics == cloudWatch.getStatistics()
+                    && period == cloudWatch.getPeriod();
+        }
+    }
+}
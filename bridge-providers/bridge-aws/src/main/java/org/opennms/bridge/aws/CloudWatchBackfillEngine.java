@@ -0,0 +1,566 @@
+package org.opennms.bridge.aws;
+
+import org.opennms.bridge.api.CloudResource;
+import org.opennms.bridge.api.MetricBatch;
+import org.opennms.bridge.api.SeriesKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.cloudwatch.CloudWatchClient;
+import software.amazon.awssdk.services.cloudwatch.model.GetMetricDataRequest;
+import software.amazon.awssdk.services.cloudwatch.model.GetMetricDataResponse;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDataResult;
+import software.amazon.awssdk.services.cloudwatch.model.ScanBy;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recovers CloudWatch datapoints that live collection skipped, e.g. after the bridge was down for longer
+ * than the maximum lookback. Live collection reports the range between a series' watermark and the start
+ * of its window as a gap; the engine fetches gaps oldest first with large, multi-datapoint GetMetricData
+ * requests on a low-priority thread, only while live collection leaves GetMetricData quota unused.
+ * Recovered samples keep their own timestamps and are handed downstream with every live batch of the resource
+ * until one of those batches is delivered; only then is the recovered range closed. Open gaps are kept in the
+ * {@link MetricWatermarkStore}, so they survive a restart. Failing gaps are retried with backoff, and fetching
+ * pauses while too many recovered samples wait for delivery, so no range is given up short of the maximum age.
+ */
+@Component
+public class CloudWatchBackfillEngine {
+    private static final Logger LOG = LoggerFactory.getLogger(CloudWatchBackfillEngine.class);
+
+    private static final String OPERATION = "GetMetricData";
+
+    // Datapoints requested per statistic in one request; GetMetricData returns up to 100,800 per call
+    private static final int MAX_POINTS_PER_REQUEST = 10_000;
+
+    // Consecutive failures after which a gap is reported as failing; it is still retried
+    private static final int MAX_FAILURES = 5;
+
+    // Retry delay after a failed request, doubled per consecutive failure up to the maximum
+    private static final long RETRY_DELAY_MILLIS = Duration.ofSeconds(30).toMillis();
+    private static final long MAX_RETRY_DELAY_MILLIS = Duration.ofHours(1).toMillis();
+
+    // Recovered samples awaiting delivery, per resource and in total, above which fetching pauses
+    private static final int MAX_PENDING_SAMPLES = 100_000;
+    private static final long MAX_TOTAL_PENDING_SAMPLES = 2_000_000;
+
+    @Autowired(required = false)
+    private AwsApiGovernor apiGovernor;
+
+    @Autowired(required = false)
+    private MetricWatermarkStore watermarkStore;
+
+    private final Map<String, Gap> gaps = new ConcurrentHashMap<>();
+    // Recovered samples by resource, in fetch order; the lists are replaced, never modified
+    private final Map<String, List<Chunk>> pending = new ConcurrentHashMap<>();
+    private final Set<String> restored = ConcurrentHashMap.newKeySet();
+    private final AtomicLong pendingSamples = new AtomicLong();
+    private final AtomicLong gapsDetected = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong samplesRecovered = new AtomicLong();
+    private final AtomicLong samplesDelivered = new AtomicLong();
+    private final AtomicLong periodsExpired = new AtomicLong();
+    private ScheduledExecutorService worker;
+
+    @PostConstruct
+    public void init() {
+        worker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "cloudwatch-backfill");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        worker.schedule(this::runNext, 1, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (worker != null) {
+            worker.shutdownNow();
+        }
+    }
+
+    /**
+     * Record a range of a metric that live collection will not request, merging it with the metric's open gap.
+     * The first call for a metric also resumes the gap persisted for it before a restart, so live collection
+     * reports every metric it collects, with an empty range if nothing is missing.
+     *
+     * @param cloudWatchClient CloudWatch client for the region of the resource
+     * @param resource         EC2 instance
+     * @param metricName       metric name
+     * @param fromMillis       first period start missing, or not before {@code toMillis} if none is
+     * @param toMillis         end of the gap, exclusive; the start of the live window
+     * @param periodSeconds    collection period of the resource
+     * @param cloudWatch       CloudWatch collection settings
+     */
+    public void recordGap(CloudWatchClient cloudWatchClient, CloudResource resource, String metricName,
+                          long fromMillis, long toMillis, int periodSeconds,
+                          AwsConfigurationProperties.CloudWatchCollection cloudWatch) {
+        if (!cloudWatch.isBackfill()) {
+            return;
+        }
+        String key = gapKey(resource, metricName);
+        boolean resume = restored.add(key);
+        if (!resume && fromMillis >= toMillis) {
+            return;
+        }
+        Gap detected = new Gap(key, cloudWatchClient, resource, metricName, fromMillis, toMillis, periodSeconds,
+                cloudWatch, watermarkStore);
+        if (resume) {
+            detected.resume(watermarkStore);
+        }
+        long oldest = oldestMillis(periodSeconds, cloudWatch);
+        detected.fromMillis = Math.max(detected.fromMillis, oldest);
+        detected.fetchedMillis = detected.fromMillis;
+        if (detected.seriesIds.length == 0) {
+            return;
+        }
+        if (detected.fromMillis >= detected.toMillis) {
+            // A resumed gap may have aged out entirely while the bridge was down
+            detected.resolve(detected.toMillis, watermarkStore);
+            return;
+        }
+
+        Gap merged = gaps.merge(key, detected, Gap::merge);
+        merged.persist(watermarkStore);
+        if (merged == detected) {
+            gapsDetected.incrementAndGet();
+            LOG.info("Detected CloudWatch gap for {} of instance {}: {} to {}", metricName, resource.getResourceId(),
+                    Instant.ofEpochMilli(detected.fromMillis), Instant.ofEpochMilli(detected.toMillis));
+        }
+    }
+
+    /**
+     * Add the samples recovered for a resource to its current batch.
+     * The samples stay pending, and are added to later batches as well, until a batch holding them is delivered.
+     *
+     * @param batch    the resource's batch
+     * @param resource EC2 instance
+     * @return the number of samples added
+     */
+    public int addRecovered(MetricBatch batch, CloudResource resource) {
+        String key = resourceKey(resource);
+        List<Chunk> included = pending.get(key);
+        if (included == null) {
+            return 0;
+        }
+        int added = 0;
+        for (Chunk chunk : included) {
+            batch.addAll(chunk.samples);
+            added += chunk.samples.size();
+        }
+        batch.onDelivered(() -> acknowledge(key, included));
+        return added;
+    }
+
+    /**
+     * Drop the gaps and recovered samples of instances that are no longer discovered.
+     * Their persisted gaps are kept and resumed if the instance is discovered again.
+     *
+     * @param providerId the provider whose resources were discovered
+     * @param resources  the discovered resources
+     */
+    public void retain(String providerId, Collection<CloudResource> resources) {
+        Set<String> current = new HashSet<>();
+        for (CloudResource resource : resources) {
+            current.add(resourceKey(resource));
+        }
+        String prefix = providerId + ":";
+        gaps.values().removeIf(gap -> gap.resourceKey.startsWith(prefix) && !current.contains(gap.resourceKey));
+        restored.removeIf(key -> key.startsWith(prefix) && !current.contains(key.substring(0, key.lastIndexOf(':'))));
+        pending.entrySet().removeIf(entry -> {
+            if (!entry.getKey().startsWith(prefix) || current.contains(entry.getKey())) {
+                return false;
+            }
+            entry.getValue().forEach(chunk -> pendingSamples.addAndGet(-chunk.samples.size()));
+            return true;
+        });
+    }
+
+    /**
+     * Get backfill statistics.
+     *
+     * @param providerId provider ID
+     * @return map of statistics
+     */
+    public Map<String, Object> getStatistics(String providerId) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long openGaps = 0;
+        long failingGaps = 0;
+        long remainingPeriods = 0;
+        for (Gap gap : gaps.values()) {
+            if (providerId.equals(gap.providerId)) {
+                openGaps++;
+                failingGaps += gap.failures >= MAX_FAILURES ? 1 : 0;
+                remainingPeriods += (gap.toMillis - gap.fromMillis) / (gap.periodSeconds * 1000L);
+            }
+        }
+        stats.put("openGaps", openGaps);
+        stats.put("failingGaps", failingGaps);
+        stats.put("remainingPeriods", remainingPeriods);
+        stats.put("gapsDetected", gapsDetected.get());
+        stats.put("periodsExpired", periodsExpired.get());
+        stats.put("requests", requests.get());
+        stats.put("samplesRecovered", samplesRecovered.get());
+        stats.put("samplesDelivered", samplesDelivered.get());
+        stats.put("pendingSamples", pendingSamples.get());
+        stats.put("pendingResources", pending.size());
+        return stats;
+    }
+
+    /**
+     * Close the ranges of delivered chunks and release their samples.
+     */
+    private void acknowledge(String resourceKey, List<Chunk> delivered) {
+        pending.computeIfPresent(resourceKey, (key, chunks) -> {
+            List<Chunk> remaining = new ArrayList<>(chunks.size());
+            for (Chunk chunk : chunks) {
+                // By identity: another batch may have delivered some of the same chunks already
+                if (delivered.stream().anyMatch(candidate -> candidate == chunk)) {
+                    pendingSamples.addAndGet(-chunk.samples.size());
+                    samplesDelivered.addAndGet(chunk.samples.size());
+                } else {
+                    remaining.add(chunk);
+                }
+            }
+            return remaining.isEmpty() ? null : Collections.unmodifiableList(remaining);
+        });
+        for (Chunk chunk : delivered) {
+            // With nothing else pending, everything fetched so far is delivered or was empty
+            long resolvedMillis = hasPending(chunk.gap) ? chunk.toMillis : chunk.gap.fetchedMillis;
+            if (chunk.gap.resolve(resolvedMillis, watermarkStore)) {
+                gaps.remove(chunk.gap.key, chunk.gap);
+            }
+        }
+    }
+
+    /**
+     * Work one request of the oldest gap that is due and whose operation has spare quota, then schedule the next run.
+     */
+    private void runNext() {
+        long pauseMillis = 1000;
+        try {
+            long now = System.currentTimeMillis();
+            Gap gap = null;
+            if (pendingSamples.get() < MAX_TOTAL_PENDING_SAMPLES) {
+                for (Gap candidate : gaps.values()) {
+                    if (candidate.fetchedMillis >= candidate.toMillis || candidate.retryAtMillis > now
+                            || pendingSize(candidate.resourceKey) >= MAX_PENDING_SAMPLES) {
+                        // Fetched and awaiting delivery, backing off, or too far ahead of delivery
+                        continue;
+                    }
+                    if (apiGovernor != null && !apiGovernor.isIdle(candidate.providerId, candidate.region, OPERATION)) {
+                        continue;
+                    }
+                    if (gap == null || candidate.fetchedMillis < gap.fetchedMillis) {
+                        gap = candidate;
+                    }
+                }
+            }
+            if (gap != null) {
+                fetch(gap);
+                pauseMillis = Math.max(100, 60_000L / Math.max(1, gap.cloudWatch.getBackfillRequestsPerMinute()));
+            }
+        } catch (Exception e) {
+            LOG.warn("Error in CloudWatch backfill: {}", e.getMessage(), e);
+        } finally {
+            if (!worker.isShutdown()) {
+                worker.schedule(this::runNext, pauseMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void fetch(Gap gap) {
+        CloudWatchCollectionPlan.MetricQueries metric = gap.queries();
+        if (metric == null) {
+            // The metric is no longer configured
+            gaps.remove(gap.key, gap);
+            return;
+        }
+        long periodMillis = gap.periodSeconds * 1000L;
+        long oldest = oldestMillis(gap.periodSeconds, gap.cloudWatch);
+        if (gap.fetchedMillis < oldest) {
+            // CloudWatch no longer holds these periods at the configured resolution
+            periodsExpired.addAndGet((oldest - gap.fetchedMillis) / periodMillis);
+            LOG.info("CloudWatch backfill of {} for instance {} skips {} to {}, older than the maximum age",
+                    gap.metricName, gap.resource.getResourceId(), Instant.ofEpochMilli(gap.fetchedMillis),
+                    Instant.ofEpochMilli(oldest));
+            gap.fetchedMillis = Math.min(oldest, gap.toMillis);
+            if (!hasPending(gap) && gap.resolve(gap.fetchedMillis, watermarkStore)) {
+                gaps.remove(gap.key, gap);
+                return;
+            }
+        }
+        long from = gap.fetchedMillis;
+        long to = Math.min(gap.toMillis, from + periodMillis * MAX_POINTS_PER_REQUEST);
+        if (from >= to) {
+            return;
+        }
+
+        MetricBatch batch = new MetricBatch(gap.resource.getResourceId());
+        Map<String, String> seriesTags = new HashMap<>();
+        seriesTags.put("resourceId", gap.resource.getResourceId());
+        seriesTags.put("providerId", gap.providerId);
+        seriesTags.put("type", "GAUGE");
+        try {
+            String nextToken = null;
+            do {
+                GetMetricDataRequest request = GetMetricDataRequest.builder()
+                        .startTime(Instant.ofEpochMilli(from))
+                        .endTime(Instant.ofEpochMilli(to))
+                        .metricDataQueries(metric.getQueries())
+                        .scanBy(ScanBy.TIMESTAMP_ASCENDING)
+                        .nextToken(nextToken)
+                        .build();
+                GetMetricDataResponse response = apiGovernor != null
+                        ? apiGovernor.call(gap.providerId, gap.region, OPERATION, () -> gap.client.getMetricData(request))
+                        : gap.client.getMetricData(request);
+                requests.incrementAndGet();
+                for (MetricDataResult result : response.metricDataResults()) {
+                    int statisticIndex = metric.statisticIndex(result.id());
+                    if (statisticIndex < 0) {
+                        continue;
+                    }
+                    append(batch, metric, statisticIndex, seriesId(metric.getSeriesKey(statisticIndex)), seriesTags,
+                            result, from, to);
+                }
+                nextToken = response.nextToken();
+            } while (nextToken != null);
+        } catch (RuntimeException e) {
+            if (AwsApiGovernor.isThrottling(e)) {
+                // Live collection needs the quota; retry the same range later
+                return;
+            }
+            int failures = ++gap.failures;
+            long delay = Math.min(MAX_RETRY_DELAY_MILLIS, RETRY_DELAY_MILLIS << Math.min(failures - 1, 16));
+            gap.retryAtMillis = System.currentTimeMillis() + delay;
+            if (failures == MAX_FAILURES) {
+                LOG.warn("CloudWatch backfill of {} for instance {} failed {} times, retrying with backoff: {}",
+                        gap.metricName, gap.resource.getResourceId(), failures, e.getMessage());
+            } else {
+                LOG.debug("CloudWatch backfill of {} for instance {} failed, retrying in {} ms: {}",
+                        gap.metricName, gap.resource.getResourceId(), delay, e.getMessage());
+            }
+            return;
+        }
+
+        gap.failures = 0;
+        gap.retryAtMillis = 0;
+        if (!batch.isEmpty()) {
+            // Pending before the gap's progress moves, so delivery never closes the gap past unseen samples
+            samplesRecovered.addAndGet(batch.size());
+            pendingSamples.addAndGet(batch.size());
+            List<Chunk> chunk = Collections.singletonList(new Chunk(gap, batch, to));
+            pending.merge(gap.resourceKey, chunk, (chunks, added) -> {
+                List<Chunk> merged = new ArrayList<>(chunks);
+                merged.addAll(added);
+                return Collections.unmodifiableList(merged);
+            });
+        } else if (!hasPending(gap) && gap.resolve(to, watermarkStore)) {
+            // Nothing to deliver in this range or before it
+            gaps.remove(gap.key, gap);
+        }
+        LOG.debug("Backfilled {} samples of {} for instance {} from {} to {}", batch.size(), gap.metricName,
+                gap.resource.getResourceId(), Instant.ofEpochMilli(from), Instant.ofEpochMilli(to));
+        gap.fetchedMillis = Math.max(gap.fetchedMillis, to);
+    }
+
+    private int pendingSize(String resourceKey) {
+        List<Chunk> chunks = pending.getOrDefault(resourceKey, Collections.emptyList());
+        return chunks.stream().mapToInt(chunk -> chunk.samples.size()).sum();
+    }
+
+    private boolean hasPending(Gap gap) {
+        List<Chunk> chunks = pending.getOrDefault(gap.resourceKey, Collections.emptyList());
+        return chunks.stream().anyMatch(chunk -> chunk.gap == gap);
+    }
+
+    /**
+     * Get the oldest period start backfill may request.
+     */
+    private static long oldestMillis(int periodSeconds, AwsConfigurationProperties.CloudWatchCollection cloudWatch) {
+        long oldest = System.currentTimeMillis() - cloudWatch.getBackfillMaxAge().toMillis();
+        return oldest - Math.floorMod(oldest, periodSeconds * 1000L);
+    }
+
+    private int seriesId(SeriesKey key) {
+        return watermarkStore != null ? watermarkStore.seriesId(key) : -1;
+    }
+
+    private static void append(MetricBatch batch, CloudWatchCollectionPlan.MetricQueries metric, int statisticIndex,
+                               int seriesDictionaryId, Map<String, String> seriesTags, MetricDataResult result,
+                               long from, long to) {
+        List<Instant> timestamps = result.timestamps();
+        List<Double> values = result.values();
+        int seriesId = -1;
+        for (int i = 0; i < timestamps.size(); i++) {
+            Double value = values.get(i);
+            long timestamp = timestamps.get(i).toEpochMilli();
+            if (value == null || timestamp < from || timestamp >= to) {
+                continue;
+            }
+            if (seriesId < 0) {
+                seriesId = batch.series(metric.getSeriesKey(statisticIndex), seriesDictionaryId, seriesTags);
+            }
+            batch.add(seriesId, timestamp, value);
+        }
+    }
+
+    private static String resourceKey(CloudResource resource) {
+        return (resource.getProviderId() != null ? resource.getProviderId() : "") + ":" + resource.getResourceId();
+    }
+
+    private static String gapKey(CloudResource resource, String metricName) {
+        return resourceKey(resource) + ":" + metricName;
+    }
+
+    /**
+     * Missing range of one metric of one instance. The range shrinks from the front as it is delivered;
+     * {@code fetchedMillis} is where the next request starts.
+     */
+    private static final class Gap {
+        private final String key;
+        private final String resourceKey;
+        private final CloudWatchClient client;
+        private final CloudResource resource;
+        private final String providerId;
+        private final String region;
+        private final String metricName;
+        private final int periodSeconds;
+        private final AwsConfigurationProperties.CloudWatchCollection cloudWatch;
+        // Dictionary IDs of the metric's series, which key the persisted gaps
+        private final int[] seriesIds;
+        private volatile long fromMillis;
+        private volatile long fetchedMillis;
+        private volatile long toMillis;
+        private volatile int failures;
+        private volatile long retryAtMillis;
+
+        Gap(String key, CloudWatchClient client, CloudResource resource, String metricName, long fromMillis,
+            long toMillis, int periodSeconds, AwsConfigurationProperties.CloudWatchCollection cloudWatch,
+            MetricWatermarkStore store) {
+            this.key = key;
+            this.resourceKey = resourceKey(resource);
+            this.client = client;
+            this.resource = resource;
+            this.providerId = resource.getProviderId() != null ? resource.getProviderId() : "";
+            this.region = resource.getRegion();
+            this.metricName = metricName;
+            this.fromMillis = fromMillis;
+            this.fetchedMillis = fromMillis;
+            this.toMillis = toMillis;
+            this.periodSeconds = periodSeconds;
+            this.cloudWatch = cloudWatch;
+            CloudWatchCollectionPlan.MetricQueries metric = queries();
+            this.seriesIds = new int[metric != null ? metric.getStatisticCount() : 0];
+            for (int i = 0; i < seriesIds.length; i++) {
+                seriesIds[i] = store != null ? store.seriesId(metric.getSeriesKey(i)) : -1;
+            }
+        }
+
+        /**
+         * Extend this gap with a repeated report, e.g. when the live cycle that detected it was not delivered.
+         */
+        Gap merge(Gap detected) {
+            synchronized (this) {
+                toMillis = Math.max(toMillis, detected.toMillis);
+            }
+            return this;
+        }
+
+        /**
+         * Take over the gaps persisted for the metric's series.
+         */
+        void resume(MetricWatermarkStore store) {
+            if (store == null) {
+                return;
+            }
+            for (int seriesId : seriesIds) {
+                long[] stored = store.getGap(seriesId);
+                if (stored == null) {
+                    continue;
+                }
+                if (fromMillis >= toMillis) {
+                    fromMillis = stored[0];
+                    toMillis = stored[1];
+                } else {
+                    fromMillis = Math.min(fromMillis, stored[0]);
+                    toMillis = Math.max(toMillis, stored[1]);
+                }
+            }
+            fetchedMillis = fromMillis;
+        }
+
+        void persist(MetricWatermarkStore store) {
+            if (store != null) {
+                for (int seriesId : seriesIds) {
+                    store.recordGap(seriesId, fromMillis, toMillis);
+                }
+            }
+        }
+
+        /**
+         * Close the gap up to a point delivered downstream.
+         *
+         * @return true if the whole gap is closed
+         */
+        boolean resolve(long upToMillis, MetricWatermarkStore store) {
+            synchronized (this) {
+                fromMillis = Math.max(fromMillis, upToMillis);
+            }
+            if (store != null) {
+                for (int seriesId : seriesIds) {
+                    store.resolveGap(seriesId, upToMillis);
+                }
+            }
+            return fromMillis >= toMillis;
+        }
+
+        /**
+         * Compile the per-instance queries of the gap's metric with the current settings.
+         */
+        CloudWatchCollectionPlan.MetricQueries queries() {
+            CloudWatchCollectionPlan plan = CloudWatchCollectionPlan.forInstance(resource, cloudWatch,
+                    CloudWatchCollectionPlan.signature(cloudWatch), periodSeconds);
+            for (CloudWatchCollectionPlan.MetricQueries metric : plan.getMetrics()) {
+                if (metric.getMetricName().equals(metricName)) {
+                    return metric;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Samples of one backfill request, pending until a batch holding them is delivered.
+     */
+    private static final class Chunk {
+        private final Gap gap;
+        private final MetricBatch samples;
+        private final long toMillis;
+
+        Chunk(Gap gap, MetricBatch samples, long toMillis) {
+            this.gap = gap;
+            this.samples = samples;
+            this.toMillis = toMillis;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package org.opennms.bridge.aws;
+
+import org.opennms.bridge.api.CloudResource;
+import org.opennms.bridge.api.SeriesKey;
+import software.amazon.awssdk.services.cloudwatch.model.Dimension;
+import software.amazon.awssdk.services.cloudwatch.model.Metric;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDataQuery;
+import software.amazon.awssdk.services.cloudwatch.model.MetricStat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Precompiled CloudWatch queries for one collection target: a single EC2 instance, or a whole region
+ * in Metrics Insights mode. Plans are immutable; a collection cycle only adds its time window to the
+ * prebuilt queries. A plan is valid as long as the CloudWatch collection settings it was compiled from
+ * have the same {@link #signature}.
+ */
+final class CloudWatchCollectionPlan {
+
+    static final String NAMESPACE_EC2 = "AWS/EC2";
+
+    // Metrics Insights returns at most this many series per query
+    static final int MAX_INSIGHTS_SERIES = 500;
+
+    private final String signature;
+    private final int periodSeconds;
+    private final List<MetricQueries> metrics;
+
+    private CloudWatchCollectionPlan(String signature, int periodSeconds, List<MetricQueries> metrics) {
+        this.signature = signature;
+        this.periodSeconds = periodSeconds;
+        this.metrics = Collections.unmodifiableList(metrics);
+    }
+
+    /**
+     * Get the signature of the collection settings a plan depends on.
+     *
+     * @param cloudWatch CloudWatch collection settings
+     * @return the signature
+     */
+    static String signature(AwsConfigurationProperties.CloudWatchCollection cloudWatch) {
+        return cloudWatch.getMetrics() + "|" + cloudWatch.getStatistics() + "|" + periodSeconds(cloudWatch);
+    }
+
+    /**
+     * Compile the per-instance MetricStat queries of an EC2 instance.
+     *
+     * @param resource      EC2 instance
+     * @param cloudWatch    CloudWatch collection settings
+     * @param signature     signature of the settings
+     * @param periodSeconds collection period of the instance
+     * @return the plan
+     */
+    static CloudWatchCollectionPlan forInstance(CloudResource resource,
+                                                AwsConfigurationProperties.CloudWatchCollection cloudWatch,
+                                                String signature, int periodSeconds) {
+        String providerId = resource.getProviderId() != null ? resource.getProviderId() : "";
+        String[] statistics = statistics(cloudWatch);
+        Dimension instanceDimension = Dimension.builder()
+                .name("InstanceId")
+                .value(resource.getResourceId())
+                .build();
+
+        List<MetricQueries> metrics = new ArrayList<>(cloudWatch.getMetrics().size());
+        for (String metricName : cloudWatch.getMetrics()) {
+            Metric metric = Metric.builder()
+                    .namespace(NAMESPACE_EC2)
+                    .metricName(metricName)
+                    .dimensions(instanceDimension)
+                    .build();
+            SeriesKey[] seriesKeys = new SeriesKey[statistics.length];
+            List<MetricDataQuery> queries = new ArrayList<>(statistics.length);
+            for (int i = 0; i < statistics.length; i++) {
+                seriesKeys[i] = new SeriesKey(providerId, resource.getResourceId(), NAMESPACE_EC2, metricName,
+                        statistics[i]);
+                queries.add(MetricDataQuery.builder()
+                        .id(queryId(i))
+                        .metricStat(MetricStat.builder()
+                                .metric(metric)
+                                .period(periodSeconds)
+                                .stat(mapStatistic(statistics[i]))
+                                .build())
+                        .returnData(true)
+                        .build());
+            }
+            metrics.add(new MetricQueries(metricName, statistics, seriesKeys, queries));
+        }
+        return new CloudWatchCollectionPlan(signature, periodSeconds, metrics);
+    }
+
+    /**
+     * Compile the Metrics Insights expressions that cover all instances of a region.
+     *
+     * @param cloudWatch CloudWatch collection settings
+     * @param signature  signature of the settings
+     * @return the plan
+     */
+    static CloudWatchCollectionPlan forInsights(AwsConfigurationProperties.CloudWatchCollection cloudWatch,
+                                                String signature) {
+        int periodSeconds = periodSeconds(cloudWatch);
+        String[] statistics = statistics(cloudWatch);
+        List<MetricQueries> metrics = new ArrayList<>(cloudWatch.getMetrics().size());
+        for (String metricName : cloudWatch.getMetrics()) {
+            List<MetricDataQuery> queries = new ArrayList<>(statistics.length);
+            for (int i = 0; i < statistics.length; i++) {
+                queries.add(MetricDataQuery.builder()
+                        .id(queryId(i))
+                        .expression(insightsExpression(metricName, statistics[i]))
+                        .period(periodSeconds)
+                        .returnData(true)
+                        .build());
+            }
+            metrics.add(new MetricQueries(metricName, statistics, null, queries));
+        }
+        return new CloudWatchCollectionPlan(signature, periodSeconds, metrics);
+    }
+
+    String getSignature() {
+        return signature;
+    }
+
+    int getPeriodSeconds() {
+        return periodSeconds;
+    }
+
+    List<MetricQueries> getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Get the configured collection period in seconds.
+     */
+    static int periodSeconds(AwsConfigurationProperties.CloudWatchCollection cloudWatch) {
+        return cloudWatch.getPeriod().getSeconds() > 0 ? (int) cloudWatch.getPeriod().getSeconds() : 300;
+    }
+
+    private static String[] statistics(AwsConfigurationProperties.CloudWatchCollection cloudWatch) {
+        return cloudWatch.getStatistics().toArray(new String[0]);
+    }
+
+    private static String queryId(int statisticIndex) {
+        return "q" + statisticIndex;
+    }
+
+    /**
+     * Build the Metrics Insights expression for one metric and statistic across all instances.
+     */
+    private static String insightsExpression(String metricName, String statistic) {
+        String function = insightsFunction(statistic);
+        return "SELECT " + function + "(" + metricName + ") FROM SCHEMA(\"" + NAMESPACE_EC2 + "\", InstanceId)"
+                + " GROUP BY InstanceId ORDER BY " + function + "() DESC LIMIT " + MAX_INSIGHTS_SERIES;
+    }
+
+    /**
+     * Map a simple statistic name to a Metrics Insights aggregate function.
+     */
+    private static String insightsFunction(String statistic) {
+        switch (statistic.toLowerCase()) {
+            case "maximum":
+                return "MAX";
+            case "minimum":
+                return "MIN";
+            case "sum":
+                return "SUM";
+            case "samplecount":
+                return "COUNT";
+            default:
+                return "AVG";
+        }
+    }
+
+    /**
+     * Map a simple statistic name to CloudWatch statistic.
+     *
+     * @param statistic Simple statistic name (Average, Maximum, Minimum, Sum)
+     * @return CloudWatch statistic
+     */
+    private static String mapStatistic(String statistic) {
+        switch (statistic.toLowerCase()) {
+            case "average":
+                return "Average";
+            case "maximum":
+                return "Maximum";
+            case "minimum":
+                return "Minimum";
+            case "sum":
+                return "Sum";
+            case "samplecount":
+                return "SampleCount";
+            default:
+                return "Average";
+        }
+    }
+
+    /**
+     * Prebuilt queries for one metric, one per statistic.
+     */
+    static final class MetricQueries {
+        private final String metricName;
+        private final String[] statistics;
+        private final SeriesKey[] seriesKeys;
+        private final List<MetricDataQuery> queries;
+        private final Map<String, Integer> statisticsByQueryId;
+
+        MetricQueries(String metricName, String[] statistics, SeriesKey[] seriesKeys, List<MetricDataQuery> queries) {
+            this.metricName = metricName;
+            this.statistics = statistics;
+            this.seriesKeys = seriesKeys;
+            this.queries = Collections.unmodifiableList(queries);
+            Map<String, Integer> index = new HashMap<>();
+            for (int i = 0; i < statistics.length; i++) {
+                index.put(queryId(i), i);
+            }
+            this.statisticsByQueryId = index;
+        }
+
+        String getMetricName() {
+            return metricName;
+        }
+
+        int getStatisticCount() {
+            return statistics.length;
+        }
+
+        String getStatistic(int index) {
+            return statistics[index];
+        }
+
+        /**
+         * Get the series key of a statistic; only per-instance plans have series keys.
+         */
+        SeriesKey getSeriesKey(int index) {
+            return seriesKeys[index];
+        }
+
+        List<MetricDataQuery> getQueries() {
+            return queries;
+        }
+
+        /**
+         * Get the statistic index a result belongs to.
+         *
+         * @param queryId ID of the result
+         * @return the index, or -1 if the ID is unknown
+         */
+        int statisticIndex(String queryId) {
+            Integer index = statisticsByQueryId.get(queryId);
+            return index != null ? index : -1;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package org.opennms.bridge.aws;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.cloudwatch.CloudWatchClient;
+import software.amazon.awssdk.services.cloudwatch.model.DimensionFilter;
+import software.amazon.awssdk.services.cloudwatch.model.ListMetricsRequest;
+import software.amazon.awssdk.services.cloudwatch.model.ListMetricsResponse;
+import software.amazon.awssdk.services.cloudwatch.model.Metric;
+
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-region catalog of the EC2 metrics that exist in CloudWatch, built from paginated {@code ListMetrics}
+ * calls and refreshed in the background on a slow schedule.
+ * Collection asks the catalog before querying a metric of an instance: metrics the catalog knows are absent,
+ * and metrics of catalogued instances whose last query came back empty, are skipped until their negative cache
+ * entry expires. Instances the catalog has not seen yet, e.g. launched since the last refresh, are always queried.
+ */
+@Component
+public class CloudWatchMetricCatalog {
+    private static final Logger LOG = LoggerFactory.getLogger(CloudWatchMetricCatalog.class);
+
+    @Autowired(required = false)
+    private AwsApiGovernor apiGovernor;
+
+    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final Map<String, Long> negativeCache = new ConcurrentHashMap<>();
+    private final AtomicLong queriesIssued = new AtomicLong();
+    private final AtomicLong queriesAvoided = new AtomicLong();
+    private final AtomicLong emptyResponses = new AtomicLong();
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "cloudwatch-metric-catalog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    /**
+     * Check whether a metric of an instance should be queried, and schedule a catalog refresh if it is due.
+     *
+     * @param cloudWatchClient CloudWatch client for the region, used to refresh the catalog
+     * @param providerId       provider ID
+     * @param region           region of the instance
+     * @param instanceId       EC2 instance ID
+     * @param metricName       metric name
+     * @param cloudWatch       CloudWatch collection settings
+     * @return false if the metric is known not to exist for the instance
+     */
+    public boolean shouldQuery(CloudWatchClient cloudWatchClient, String providerId, String region, String instanceId,
+                               String metricName, AwsConfigurationProperties.CloudWatchCollection cloudWatch) {
+        long now = System.currentTimeMillis();
+        String catalogKey = catalogKey(providerId, region);
+        Snapshot snapshot = snapshots.get(catalogKey);
+        if (snapshot == null || now - snapshot.builtAt >= cloudWatch.getCatalogRefresh().toMillis()) {
+            refresh(cloudWatchClient, providerId, region, cloudWatch.getMetrics());
+        }
+
+        String negativeKey = negativeKey(catalogKey, instanceId, metricName);
+        Long expiresAt = negativeCache.get(negativeKey);
+        if (expiresAt != null) {
+            if (expiresAt > now) {
+                queriesAvoided.incrementAndGet();
+                return false;
+            }
+            negativeCache.remove(negativeKey, expiresAt);
+        }
+
+        if (snapshot != null && snapshot.isAbsent(instanceId, metricName)) {
+            queriesAvoided.incrementAndGet();
+            return false;
+        }
+        queriesIssued.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Record that a query for a metric of an instance returned no datapoints.
+     * The metric is only skipped for the negative cache TTL if the catalog knows the instance and does not list
+     * the metric for it. Otherwise the empty response is most likely publication lag, or an instance too new for
+     * the catalog, whose metrics are about to appear.
+     */
+    public void recordEmpty(String providerId, String region, String instanceId, String metricName,
+                            AwsConfigurationProperties.CloudWatchCollection cloudWatch) {
+        emptyResponses.incrementAndGet();
+        String catalogKey = catalogKey(providerId, region);
+        Snapshot snapshot = snapshots.get(catalogKey);
+        if (snapshot == null || !snapshot.knows(instanceId) || snapshot.isPresent(instanceId, metricName)) {
+            return;
+        }
+        negativeCache.put(negativeKey(catalogKey, instanceId, metricName),
+                System.currentTimeMillis() + cloudWatch.getNegativeCacheTtl().toMillis());
+    }
+
+    /**
+     * Get catalog and negative cache statistics.
+     *
+     * @return map of statistics
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queriesIssued", queriesIssued.get());
+        stats.put("queriesAvoided", queriesAvoided.get());
+        stats.put("emptyResponses", emptyResponses.get());
+        stats.put("negativeCacheEntries", negativeCache.size());
+
+        Map<String, Object> regions = new LinkedHashMap<>();
+        snapshots.forEach((key, snapshot) -> {
+            Map<String, Object> region = new HashMap<>();
+            region.put("instances", snapshot.instances.size());
+            region.put("builtAt", Instant.ofEpochMilli(snapshot.builtAt).toString());
+            regions.put(key, region);
+        });
+        stats.put("catalogs", regions);
+        return stats;
+    }
+
+    private void refresh(CloudWatchClient cloudWatchClient, String providerId, String region, List<String> metricNames) {
+        String catalogKey = catalogKey(providerId, region);
+        if (!refreshing.add(catalogKey)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    long now = System.currentTimeMillis();
+                    negativeCache.values().removeIf(expiresAt -> expiresAt <= now);
+                    Snapshot snapshot = build(cloudWatchClient, providerId, region, metricNames);
+                    snapshots.put(catalogKey, snapshot);
+                    LOG.debug("Refreshed CloudWatch metric catalog for {}: {} instances", catalogKey,
+                            snapshot.instances.size());
+                } catch (Exception e) {
+                    // Without a catalog nothing is skipped; retry at the next refresh interval
+                    LOG.warn("Failed to refresh CloudWatch metric catalog for {}: {}", catalogKey, e.getMessage());
+                    Snapshot previous = snapshots.get(catalogKey);
+                    snapshots.put(catalogKey, previous != null
+                            ? new Snapshot(previous.instances, previous.metrics, System.currentTimeMillis())
+                            : Snapshot.empty());
+                } finally {
+                    refreshing.remove(catalogKey);
+                }
+            });
+        } catch (RuntimeException e) {
+            refreshing.remove(catalogKey);
+            LOG.debug("Could not schedule catalog refresh for {}: {}", catalogKey, e.getMessage());
+        }
+    }
+
+    private Snapshot build(CloudWatchClient cloudWatchClient, String providerId, String region,
+                           List<String> metricNames) {
+        Set<String> instances = new HashSet<>();
+        Map<String, Set<String>> metrics = new HashMap<>();
+        DimensionFilter instanceFilter = DimensionFilter.builder().name("InstanceId").build();
+        for (String metricName : metricNames) {
+            Set<String> metricInstances = new HashSet<>();
+            String nextToken = null;
+            do {
+                ListMetricsRequest request = ListMetricsRequest.builder()
+                        .namespace(CloudWatchCollectionPlan.NAMESPACE_EC2)
+                        .metricName(metricName)
+                        .dimensions(instanceFilter)
+                        .nextToken(nextToken)
+                        .build();
+                ListMetricsResponse response = apiGovernor != null
+                        ? apiGovernor.call(providerId, region, "ListMetrics", () -> cloudWatchClient.listMetrics(request))
+                        : cloudWatchClient.listMetrics(request);
+                for (Metric metric : response.metrics()) {
+                    metric.dimensions().stream()
+                            .filter(dimension -> "InstanceId".equals(dimension.name()))
+                            .findFirst()
+                            .ifPresent(dimension -> metricInstances.add(dimension.value()));
+                }
+                nextToken = response.nextToken();
+            } while (nextToken != null);
+            instances.addAll(metricInstances);
+            metrics.put(metricName, metricInstances);
+        }
+        return new Snapshot(instances, metrics, System.currentTimeMillis());
+    }
+
+    private static String catalogKey(String providerId, String region) {
+        return providerId + "/" + region;
+    }
+
+    private static String negativeKey(String catalogKey, String instanceId, String metricName) {
+        return catalogKey + "/" + instanceId + "/" + metricName;
+    }
+
+    /**
+     * Immutable result of one catalog build.
+     */
+    private static final class Snapshot {
+        private final Set<String> instances;
+        private final Map<String, Set<String>> metrics;
+        private final long builtAt;
+
+        Snapshot(Set<String> instances, Map<String, Set<String>> metrics, long builtAt) {
+            this.instances = instances;
+            this.metrics = metrics;
+            this.builtAt = builtAt;
+        }
+
+        static Snapshot empty() {
+            return new Snapshot(Collections.emptySet(), Collections.emptyMap(), System.currentTimeMillis());
+        }
+
+        /**
+         * A metric is known to be absent if the instance has other metrics but not this one.
+         */
+        boolean isAbsent(String instanceId, String metricName) {
+            Set<String> metricInstances = metrics.get(metricName);
+            return metricInstances != null && instances.contains(instanceId) && !metricInstances.contains(instanceId);
+        }
+
+        boolean knows(String instanceId) {
+            return instances.contains(instanceId);
+        }
+
+        boolean isPresent(String instanceId, String metricName) {
+            Set<String> metricInstances = metrics.get(metricName);
+            return metricInstances != null && metricInstances.contains(instanceId);
+        }
+    }
+}
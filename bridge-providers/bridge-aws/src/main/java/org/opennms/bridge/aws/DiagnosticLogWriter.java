@@ -0,0 +1,261 @@
+package org.opennms.bridge.aws;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Non-blocking diagnostic log channel.
+ * Callers enqueue lines into a bounded queue and return immediately; a single writer thread
+ * formats them, appends to buffered files and rotates files that exceed the size limit.
+ * Lines are dropped (and counted) when the queue is full rather than stalling the caller.
+ */
+public class DiagnosticLogWriter {
+    private static final Logger LOG = LoggerFactory.getLogger(DiagnosticLogWriter.class);
+
+    private static final int DRAIN_BATCH = 256;
+
+    private final String directory;
+    private final long maxFileSize;
+    private final int maxFiles;
+    private final boolean toStderr;
+    private final boolean toFile;
+    private final BlockingQueue<Line> queue;
+    private final AtomicLong dropped = new AtomicLong();
+    private final Map<String, OpenFile> openFiles = new HashMap<>();
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    /**
+     * @param directory     directory for the log files
+     * @param maxFileSize   size in bytes at which a file is rotated
+     * @param maxFiles      number of rotated files to keep per log
+     * @param queueCapacity maximum number of pending lines
+     * @param toStderr      whether to echo lines to stderr
+     * @param toFile        whether to write lines to files
+     */
+    public DiagnosticLogWriter(String directory, long maxFileSize, int maxFiles, int queueCapacity,
+                               boolean toStderr, boolean toFile) {
+        this.directory = directory;
+        this.maxFileSize = Math.max(1024, maxFileSize);
+        this.maxFiles = Math.max(1, maxFiles);
+        this.toStderr = toStderr;
+        this.toFile = toFile;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.writerThread = new Thread(this::run, "aws-diagnostic-log-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Enqueue a diagnostic line without blocking.
+     *
+     * @param fileName  target file name within the log directory
+     * @param message   the message
+     * @param throwable optional exception whose stack trace is written after the message
+     */
+    public void write(String fileName, String message, Throwable throwable) {
+        if (!running || !queue.offer(new Line(fileName, System.currentTimeMillis(), Thread.currentThread().getName(),
+                message, throwable))) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Get the number of lines dropped because the queue was full.
+     *
+     * @return dropped line count
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Stop the writer thread after flushing pending lines.
+     */
+    public void close() {
+        running = false;
+        writerThread.interrupt();
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<Line> batch = new ArrayList<>(DRAIN_BATCH);
+        while (running || !queue.isEmpty()) {
+            try {
+                Line first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, DRAIN_BATCH - 1);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    queue.drainTo(batch);
+                    writeBatch(batch);
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+        for (OpenFile file : openFiles.values()) {
+            file.close();
+        }
+        openFiles.clear();
+    }
+
+    private void writeBatch(List<Line> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long droppedSinceLast = dropped.getAndSet(0);
+        StringBuilder stderr = toStderr ? new StringBuilder() : null;
+        for (Line line : batch) {
+            String text = line.format();
+            if (stderr != null) {
+                stderr.append(text);
+            }
+            if (toFile) {
+                append(line.fileName, text);
+            }
+        }
+        if (droppedSinceLast > 0) {
+            LOG.warn("Dropped {} diagnostic log lines because the queue was full", droppedSinceLast);
+        }
+        if (stderr != null) {
+            System.err.print(stderr);
+        }
+        for (OpenFile file : openFiles.values()) {
+            file.flush();
+        }
+    }
+
+    private void append(String fileName, String text) {
+        OpenFile file = openFiles.computeIfAbsent(fileName, OpenFile::new);
+        try {
+            file.append(text);
+        } catch (IOException e) {
+            LOG.debug("Failed to write diagnostic log {}: {}", fileName, e.getMessage());
+            file.close();
+            openFiles.remove(fileName);
+        }
+    }
+
+    /**
+     * Buffered append-only UTF-8 file with size-based rotation (name.log, name.log.1, ...).
+     * Sizes are counted in encoded bytes, so the limit holds for non-ASCII messages too.
+     */
+    private class OpenFile {
+        private final File file;
+        private OutputStream writer;
+        private long size;
+
+        OpenFile(String fileName) {
+            File dir = new File(directory);
+            if (!dir.exists()) {
+                dir.mkdirs();
+            }
+            this.file = new File(dir, fileName);
+        }
+
+        void append(String text) throws IOException {
+            if (writer == null) {
+                size = file.length();
+                writer = new BufferedOutputStream(new FileOutputStream(file, true));
+            }
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            if (size + bytes.length > maxFileSize) {
+                rotate();
+            }
+            writer.write(bytes);
+            size += bytes.length;
+        }
+
+        private void rotate() throws IOException {
+            writer.close();
+            new File(file.getPath() + "." + maxFiles).delete();
+            for (int i = maxFiles - 1; i >= 1; i--) {
+                File older = new File(file.getPath() + "." + i);
+                if (older.exists()) {
+                    older.renameTo(new File(file.getPath() + "." + (i + 1)));
+                }
+            }
+            file.renameTo(new File(file.getPath() + ".1"));
+            writer = new BufferedOutputStream(new FileOutputStream(file, false));
+            size = 0;
+        }
+
+        void flush() {
+            try {
+                if (writer != null) {
+                    writer.flush();
+                }
+            } catch (IOException e) {
+                LOG.debug("Failed to flush diagnostic log {}: {}", file, e.getMessage());
+            }
+        }
+
+        void close() {
+            try {
+                if (writer != null) {
+                    writer.close();
+                }
+            } catch (IOException e) {
+                LOG.debug("Failed to close diagnostic log {}: {}", file, e.getMessage());
+            }
+            writer = null;
+        }
+    }
+
+    /**
+     * Pending diagnostic line; formatting is deferred to the writer thread.
+     */
+    private static class Line {
+        private final String fileName;
+        private final long timestamp;
+        private final String threadName;
+        private final String message;
+        private final Throwable throwable;
+
+        Line(String fileName, long timestamp, String threadName, String message, Throwable throwable) {
+            this.fileName = fileName;
+            this.timestamp = timestamp;
+            this.threadName = threadName;
+            this.message = message;
+            this.throwable = throwable;
+        }
+
+        String format() {
+            StringBuilder text = new StringBuilder(message.length() + 64)
+                    .append('[').append(timestamp).append("][").append(threadName).append("] ")
+                    .append(message).append('\n');
+            if (throwable != null) {
+                StringWriter sw = new StringWriter();
+                throwable.printStackTrace(new PrintWriter(sw));
+                text.append(sw);
+            }
+            return text.toString();
+        }
+    }
+}
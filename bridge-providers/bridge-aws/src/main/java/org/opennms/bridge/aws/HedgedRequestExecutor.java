@@ -0,0 +1,292 @@
+package org.opennms.bridge.aws;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Runs slow-tailed API calls with request hedging.
+ * If a call has not completed by a percentile of the recent latencies of its target, one duplicate
+ * is issued and the first successful response wins. Hedges are limited by a budget, a fraction of
+ * the calls made, so hedging cannot multiply the load on a slow or throttling endpoint. A hedge also needs a
+ * permit from the caller, e.g. an API quota token, and is skipped when none is available right away.
+ */
+@Component
+public class HedgedRequestExecutor {
+    private static final Logger LOG = LoggerFactory.getLogger(HedgedRequestExecutor.class);
+
+    // Latencies needed before a target's percentile is trusted
+    private static final long MIN_SAMPLES = 50;
+
+    // Unused hedge budget is kept for at most this many hedges
+    private static final double MAX_CREDIT = 10.0;
+
+    private final Map<String, Target> targets = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "aws-hedged-request");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Run a call, hedging it if it is slower than the given percentile of recent calls to the same target.
+     *
+     * @param target     key of the endpoint the call goes to, e.g. providerId/region/operation
+     * @param call       the call; it may run twice
+     * @param percentile latency percentile (0-100) after which a hedge is issued
+     * @param budget     maximum hedges as a fraction of calls, e.g. 0.05
+     * @return the first successful response
+     */
+    public <T> T call(String target, Supplier<T> call, double percentile, double budget) {
+        return call(target, call, () -> call, percentile, budget);
+    }
+
+    /**
+     * Run a call, hedging it with a separately permitted duplicate if it is slower than the given percentile of
+     * recent calls to the same target.
+     *
+     * @param target     key of the endpoint the call goes to, e.g. providerId/region/operation
+     * @param call       the call
+     * @param hedge      supplies the duplicate call when it is needed, or null if it may not be issued now
+     * @param percentile latency percentile (0-100) after which a hedge is issued
+     * @param budget     maximum hedges as a fraction of calls, e.g. 0.05
+     * @return the first successful response
+     */
+    public <T> T call(String target, Supplier<T> call, Supplier<Supplier<T>> hedge, double percentile,
+                      double budget) {
+        Target state = targets.computeIfAbsent(target, key -> new Target());
+        state.calls.incrementAndGet();
+        state.addCredit(budget);
+
+        long hedgeDelayMillis = state.histogram.percentile(percentile, MIN_SAMPLES);
+        if (hedgeDelayMillis < 0) {
+            // Not enough history yet to tell a slow call from a normal one
+            return state.timed(call);
+        }
+
+        CompletableFuture<T> primary = CompletableFuture.supplyAsync(() -> state.timed(call), executor);
+        try {
+            return primary.get(hedgeDelayMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (!state.takeCredit()) {
+                return await(primary);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + target, e);
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        }
+
+        Supplier<T> duplicate = hedge.get();
+        if (duplicate == null) {
+            // No permit for a second request: the budget is kept for a later hedge
+            state.returnCredit();
+            state.hedgesSkipped.incrementAndGet();
+            return await(primary);
+        }
+        state.hedges.incrementAndGet();
+        LOG.debug("Hedging call to {} after {} ms", target, hedgeDelayMillis);
+        CompletableFuture<T> secondary = CompletableFuture.supplyAsync(() -> state.timed(duplicate), executor);
+        CompletableFuture<T> first = firstSuccess(primary, secondary);
+        T result = await(first);
+        if (secondary.isDone() && !secondary.isCompletedExceptionally()
+                && (!primary.isDone() || primary.isCompletedExceptionally())) {
+            state.hedgeWins.incrementAndGet();
+        }
+        return result;
+    }
+
+    /**
+     * Get latency and hedging statistics for the targets of a provider.
+     *
+     * @param providerId provider ID the target keys start with
+     * @return statistics keyed by the rest of the target key
+     */
+    public Map<String, Object> getStatistics(String providerId) {
+        String prefix = providerId + "/";
+        Map<String, Object> stats = new TreeMap<>();
+        targets.forEach((key, state) -> {
+            if (key.startsWith(prefix)) {
+                Map<String, Object> target = new LinkedHashMap<>();
+                target.put("calls", state.calls.get());
+                target.put("hedges", state.hedges.get());
+                target.put("hedgeWins", state.hedgeWins.get());
+                target.put("hedgesSkipped", state.hedgesSkipped.get());
+                target.put("p50Millis", state.histogram.percentile(50, 1));
+                target.put("p99Millis", state.histogram.percentile(99, 1));
+                stats.put(key.substring(prefix.length()), target);
+            }
+        });
+        return stats;
+    }
+
+    private static <T> CompletableFuture<T> firstSuccess(CompletableFuture<T> a, CompletableFuture<T> b) {
+        CompletableFuture<T> first = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        for (CompletableFuture<T> future : List.of(a, b)) {
+            future.whenComplete((value, error) -> {
+                if (error == null) {
+                    first.complete(value);
+                } else if (failures.incrementAndGet() == 2) {
+                    first.completeExceptionally(error);
+                }
+            });
+        }
+        return first;
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable cause) {
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        return new IllegalStateException(cause);
+    }
+
+    /**
+     * Latency history and hedge budget of one target.
+     */
+    private static final class Target {
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong hedges = new AtomicLong();
+        private final AtomicLong hedgeWins = new AtomicLong();
+        private final AtomicLong hedgesSkipped = new AtomicLong();
+        private double credit;
+
+        <T> T timed(Supplier<T> call) {
+            long start = System.nanoTime();
+            T result = call.get();
+            histogram.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return result;
+        }
+
+        synchronized void addCredit(double budget) {
+            credit = Math.min(MAX_CREDIT, credit + Math.max(0, budget));
+        }
+
+        synchronized boolean takeCredit() {
+            if (credit < 1) {
+                return false;
+            }
+            credit -= 1;
+            return true;
+        }
+
+        synchronized void returnCredit() {
+            credit = Math.min(MAX_CREDIT, credit + 1);
+        }
+    }
+
+    /**
+     * Rolling histogram of call latencies with exponentially sized buckets.
+     * Samples are kept in two generations that rotate every minute, so percentiles cover the last one to two minutes.
+     */
+    static final class LatencyHistogram {
+        private static final int BUCKETS = 64;
+        private static final double GROWTH = 1.2;
+        private static final long GENERATION_MILLIS = 60_000;
+
+        private volatile AtomicLongArray current = new AtomicLongArray(BUCKETS);
+        private volatile AtomicLongArray previous = new AtomicLongArray(BUCKETS);
+        private volatile long generationStart = System.currentTimeMillis();
+
+        void record(long latencyMillis) {
+            rotateIfDue();
+            current.incrementAndGet(bucket(latencyMillis));
+        }
+
+        /**
+         * Get a latency percentile.
+         *
+         * @param percentile percentile, 0-100
+         * @param minSamples samples required for a result
+         * @return the upper bound of the percentile's bucket in milliseconds, or -1 with too few samples
+         */
+        long percentile(double percentile, long minSamples) {
+            rotateIfDue();
+            AtomicLongArray newer = current;
+            AtomicLongArray older = previous;
+            long[] counts = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = newer.get(i) + older.get(i);
+                total += counts[i];
+            }
+            if (total == 0 || total < minSamples) {
+                return -1;
+            }
+            long rank = (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100.0);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank && counts[i] > 0) {
+                    return upperBound(i);
+                }
+            }
+            return upperBound(BUCKETS - 1);
+        }
+
+        private void rotateIfDue() {
+            long now = System.currentTimeMillis();
+            if (now - generationStart < GENERATION_MILLIS) {
+                return;
+            }
+            synchronized (this) {
+                if (now - generationStart < GENERATION_MILLIS) {
+                    return;
+                }
+                // Drop both generations if nothing was recorded for a whole generation
+                previous = now - generationStart < 2 * GENERATION_MILLIS ? current : new AtomicLongArray(BUCKETS);
+                current = new AtomicLongArray(BUCKETS);
+                generationStart = now;
+            }
+        }
+
+        private static int bucket(long latencyMillis) {
+            if (latencyMillis <= 1) {
+                return 0;
+            }
+            int index = (int) Math.ceil(Math.log(latencyMillis) / Math.log(GROWTH));
+            return Math.min(BUCKETS - 1, index);
+        }
+
+        private static long upperBound(int bucket) {
+            return (long) Math.ceil(Math.pow(GROWTH, bucket));
+        }
+    }
+}
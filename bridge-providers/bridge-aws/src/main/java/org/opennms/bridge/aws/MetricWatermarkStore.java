@@ -0,0 +1,332 @@
+package org.opennms.bridge.aws;
+
+import org.opennms.bridge.api.SeriesDictionary;
+import org.opennms.bridge.api.SeriesKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-series high-watermark of the last CloudWatch datapoint delivered downstream.
+ * Collection requests only datapoints newer than the watermark, so datapoints are neither fetched
+ * nor delivered twice. Watermarks are kept in memory and written to a file in the background
+ * whenever they change, and reloaded on startup. Key fields are written with tab, newline, carriage
+ * return and backslash escaped as {@code \t}, {@code \n}, {@code \r} and {@code \\}.
+ * The store also keeps each series' open backfill gap, the range behind the watermark that live collection
+ * skipped and that has not been delivered yet, so gaps outlive a restart.
+ * In memory, series are keyed by their {@link SeriesDictionary} ID; the file holds the keys themselves, so it does
+ * not depend on the dictionary's IDs.
+ */
+@Component
+public class MetricWatermarkStore {
+    private static final Logger LOG = LoggerFactory.getLogger(MetricWatermarkStore.class);
+
+    /**
+     * Watermark of a series that has not been collected yet.
+     */
+    public static final long NONE = Long.MIN_VALUE;
+
+    @Value("${bridge.collection.watermarkFile:config/collection-watermarks.tsv}")
+    private String watermarkFile = "config/collection-watermarks.tsv";
+
+    @Value("${bridge.collection.watermarkFlushSeconds:30}")
+    private int flushSeconds = 30;
+
+    // Shared with the collector and the backfill engine; an instance of its own when none is configured
+    @Autowired(required = false)
+    private SeriesDictionary seriesDictionary = new SeriesDictionary();
+
+    private final Map<Integer, Long> watermarks = new ConcurrentHashMap<>();
+    private final Map<Integer, long[]> gaps = new ConcurrentHashMap<>();
+    private volatile boolean dirty;
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    public void init() {
+        File file = new File(watermarkFile);
+        if (file.exists()) {
+            load(file);
+        }
+        LOG.info("Loaded {} collection watermarks and {} backfill gaps from {}", watermarks.size(), gaps.size(),
+                watermarkFile);
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "metric-watermark-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1, flushSeconds);
+        flusher.scheduleWithFixedDelay(this::flushIfDirty, interval, interval, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        flushIfDirty();
+    }
+
+    /**
+     * Get the dictionary ID the store keys a series by.
+     *
+     * @param key the series key
+     * @return the series ID
+     */
+    public int seriesId(SeriesKey key) {
+        return seriesDictionary.getId(key);
+    }
+
+    /**
+     * Get the watermark of a series.
+     *
+     * @param key the series key
+     * @return epoch-millisecond timestamp of the last delivered datapoint, or {@link #NONE}
+     */
+    public long get(SeriesKey key) {
+        return get(seriesId(key));
+    }
+
+    /**
+     * Get the watermark of a series.
+     *
+     * @param seriesId the series ID from {@link #seriesId}
+     * @return epoch-millisecond timestamp of the last delivered datapoint, or {@link #NONE}
+     */
+    public long get(int seriesId) {
+        Long watermark = watermarks.get(seriesId);
+        return watermark != null ? watermark : NONE;
+    }
+
+    /**
+     * Same as {@link #advance(int, long)} for a series key.
+     */
+    public void advance(SeriesKey key, long timestampMillis) {
+        advance(seriesId(key), timestampMillis);
+    }
+
+    /**
+     * Advance the watermark of a series. Older timestamps are ignored.
+     *
+     * @param seriesId        the series ID from {@link #seriesId}
+     * @param timestampMillis epoch-millisecond timestamp of the newest delivered datapoint
+     */
+    public void advance(int seriesId, long timestampMillis) {
+        Long previous = watermarks.get(seriesId);
+        if (previous != null && previous >= timestampMillis) {
+            return;
+        }
+        watermarks.merge(seriesId, timestampMillis, Math::max);
+        dirty = true;
+    }
+
+    /**
+     * Same as {@link #getGap(int)} for a series key.
+     */
+    public long[] getGap(SeriesKey key) {
+        return getGap(seriesId(key));
+    }
+
+    /**
+     * Get the open backfill gap of a series.
+     *
+     * @param seriesId the series ID from {@link #seriesId}
+     * @return the first missing and the end (exclusive) epoch-millisecond timestamps, or null if there is none
+     */
+    public long[] getGap(int seriesId) {
+        long[] gap = gaps.get(seriesId);
+        return gap != null ? gap.clone() : null;
+    }
+
+    /**
+     * Same as {@link #recordGap(int, long, long)} for a series key.
+     */
+    public void recordGap(SeriesKey key, long fromMillis, long toMillis) {
+        recordGap(seriesId(key), fromMillis, toMillis);
+    }
+
+    /**
+     * Record a range of a series to be backfilled, merging it with the series' open gap.
+     *
+     * @param seriesId   the series ID from {@link #seriesId}
+     * @param fromMillis first missing period start
+     * @param toMillis   end of the range, exclusive
+     */
+    public void recordGap(int seriesId, long fromMillis, long toMillis) {
+        if (fromMillis >= toMillis) {
+            return;
+        }
+        gaps.merge(seriesId, new long[]{fromMillis, toMillis},
+                (gap, added) -> new long[]{Math.min(gap[0], added[0]), Math.max(gap[1], added[1])});
+        dirty = true;
+    }
+
+    /**
+     * Same as {@link #resolveGap(int, long)} for a series key.
+     */
+    public void resolveGap(SeriesKey key, long upToMillis) {
+        resolveGap(seriesId(key), upToMillis);
+    }
+
+    /**
+     * Mark the start of a series' gap as delivered, closing the gap once all of it is.
+     *
+     * @param seriesId   the series ID from {@link #seriesId}
+     * @param upToMillis end of the delivered range, exclusive
+     */
+    public void resolveGap(int seriesId, long upToMillis) {
+        gaps.computeIfPresent(seriesId, (k, gap) -> upToMillis >= gap[1] ? null
+                : new long[]{Math.max(gap[0], upToMillis), gap[1]});
+        dirty = true;
+    }
+
+    public int size() {
+        return watermarks.size();
+    }
+
+    private void load(File file) {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // Key fields and watermark, optionally followed by the open gap
+                String[] fields = line.split("\t", -1);
+                if (fields.length != 6 && fields.length != 8) {
+                    continue;
+                }
+                try {
+                    SeriesKey key = new SeriesKey(unescape(fields[0]), unescape(fields[1]), unescape(fields[2]),
+                            unescape(fields[3]), unescape(fields[4]));
+                    int seriesId = seriesId(key);
+                    long watermark = Long.parseLong(fields[5]);
+                    if (watermark != NONE) {
+                        watermarks.put(seriesId, watermark);
+                    }
+                    if (fields.length == 8) {
+                        gaps.put(seriesId, new long[]{Long.parseLong(fields[6]), Long.parseLong(fields[7])});
+                    }
+                } catch (IllegalArgumentException e) {
+                    LOG.debug("Skipping malformed watermark line: {}", line);
+                }
+            }
+        } catch (IOException e) {
+            LOG.error("Error loading collection watermarks from {}: {}", file, e.getMessage());
+        }
+    }
+
+    private synchronized void flushIfDirty() {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        File file = new File(watermarkFile);
+        File tmpFile = new File(watermarkFile + ".tmp");
+        try {
+            File dir = file.getAbsoluteFile().getParentFile();
+            if (dir != null && !dir.exists() && !dir.mkdirs()) {
+                throw new IOException("Failed to create directory: " + dir);
+            }
+            try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(tmpFile), StandardCharsets.UTF_8))) {
+                Set<Integer> seriesIds = new HashSet<>(watermarks.keySet());
+                seriesIds.addAll(gaps.keySet());
+                for (int seriesId : seriesIds) {
+                    SeriesKey key = seriesDictionary.getKey(seriesId);
+                    writer.write(escape(key.getProviderId()) + "\t" + escape(key.getResourceId()) + "\t"
+                            + escape(key.getNamespace()) + "\t" + escape(key.getMetric()) + "\t"
+                            + escape(key.getStatistic()) + "\t" + get(seriesId));
+                    long[] gap = gaps.get(seriesId);
+                    if (gap != null) {
+                        writer.write("\t" + gap[0] + "\t" + gap[1]);
+                    }
+                    writer.write("\n");
+                }
+            }
+            Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            dirty = true;
+            LOG.warn("Failed to save collection watermarks to {}: {}", watermarkFile, e.getMessage());
+        }
+    }
+
+    static String escape(String field) {
+        StringBuilder escaped = new StringBuilder(field.length());
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            switch (c) {
+                case '\\':
+                    escaped.append("\\\\");
+                    break;
+                case '\t':
+                    escaped.append("\\t");
+                    break;
+                case '\n':
+                    escaped.append("\\n");
+                    break;
+                case '\r':
+                    escaped.append("\\r");
+                    break;
+                default:
+                    escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    static String unescape(String field) {
+        if (field.indexOf('\\') < 0) {
+            return field;
+        }
+        StringBuilder unescaped = new StringBuilder(field.length());
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c != '\\') {
+                unescaped.append(c);
+                continue;
+            }
+            if (++i == field.length()) {
+                throw new IllegalArgumentException("Dangling escape in watermark field: " + field);
+            }
+            switch (field.charAt(i)) {
+                case '\\':
+                    unescaped.append('\\');
+                    break;
+                case 't':
+                    unescaped.append('\t');
+                    break;
+                case 'n':
+                    unescaped.append('\n');
+                    break;
+                case 'r':
+                    unescaped.append('\r');
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown escape in watermark field: " + field);
+            }
+        }
+        return unescaped.toString();
+    }
+}
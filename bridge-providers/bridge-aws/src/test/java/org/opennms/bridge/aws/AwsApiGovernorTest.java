@@ -0,0 +1,116 @@
+package org.opennms.bridge.aws;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AwsApiGovernorTest {
+
+    @Test
+    void spacesCallsBeyondTheBurstAtTheRate() {
+        AwsApiGovernor governor = governor(10);
+        long start = System.nanoTime();
+        for (int i = 0; i < 15; i++) {
+            governor.call("aws", "us-east-1", "Test", () -> null);
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // A burst of 10, then 5 more at 10 per second
+        assertTrue(elapsedMillis >= 400, "took " + elapsedMillis + " ms");
+        assertTrue(elapsedMillis < 2000, "took " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void tryReserveOnlySucceedsWithASpareToken() {
+        AwsApiGovernor governor = governor(2);
+        for (int i = 0; i < 2; i++) {
+            assertNotNull(governor.tryReserve("aws", "us-east-1", "Test", () -> null));
+        }
+
+        // The burst is spent: an optional call is refused instead of waiting or going into debt
+        assertNull(governor.tryReserve("aws", "us-east-1", "Test", () -> null));
+        assertEquals(2L, bucketStats(governor).get("calls"));
+    }
+
+    @Test
+    void halvesTheRateOnThrottling() {
+        AwsApiGovernor governor = governor(10);
+        assertFalse(governor.isThrottled("aws", "us-east-1", "Test"));
+
+        assertThrows(AwsServiceException.class, () -> governor.call("aws", "us-east-1", "Test", () -> {
+            throw throttling();
+        }));
+        assertTrue(governor.isThrottled("aws", "us-east-1", "Test"));
+        assertFalse(governor.isIdle("aws", "us-east-1", "Test"));
+        assertEquals(5.0, bucketStats(governor).get("rate"));
+        assertEquals(1L, bucketStats(governor).get("throttles"));
+    }
+
+    @Test
+    void waitingCallersDoNotHoldUpThrottling() throws Exception {
+        AwsApiGovernor governor = governor(1);
+        CompletableFuture<Void> waiter = new CompletableFuture<>();
+
+        long start = System.nanoTime();
+        assertThrows(AwsServiceException.class, () -> governor.call("aws", "us-east-1", "Test", () -> {
+            // Another caller queues for the next token, about a second away, while this call is in flight
+            CompletableFuture.runAsync(() -> governor.call("aws", "us-east-1", "Test", () -> null))
+                    .whenComplete((result, error) -> waiter.complete(null));
+            sleep(100);
+            throw throttling();
+        }));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsedMillis < 700, "throttled call returned after " + elapsedMillis + " ms");
+        assertEquals(1, bucketStats(governor).get("queued"));
+        waiter.get(5, TimeUnit.SECONDS);
+        assertEquals(0, bucketStats(governor).get("queued"));
+    }
+
+    @Test
+    void recognizesThrottlingErrorCodes() {
+        assertTrue(AwsApiGovernor.isThrottling(new RuntimeException(throttling())));
+        assertFalse(AwsApiGovernor.isThrottling(AwsServiceException.builder()
+                .awsErrorDetails(AwsErrorDetails.builder().errorCode("UnauthorizedOperation").build())
+                .build()));
+    }
+
+    private static AwsApiGovernor governor(double rate) {
+        AwsApiGovernor governor = new AwsApiGovernor();
+        ReflectionTestUtils.setField(governor, "environment",
+                new MockEnvironment().withProperty("bridge.aws.quotas.Test", String.valueOf(rate)));
+        return governor;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> bucketStats(AwsApiGovernor governor) {
+        return (Map<String, Object>) governor.getStatistics("aws").get("us-east-1/Test");
+    }
+
+    private static AwsServiceException throttling() {
+        return AwsServiceException.builder()
+                .awsErrorDetails(AwsErrorDetails.builder().errorCode("Throttling").build())
+                .build();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.opennms.bridge.aws;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DiagnosticLogWriterTest {
+
+    @TempDir
+    File dir;
+
+    @Test
+    void rotationCountsEncodedBytes() {
+        DiagnosticLogWriter writer = new DiagnosticLogWriter(dir.getPath(), 1024, 2, 100, false, true);
+        // Two bytes per character in UTF-8
+        String message = "\u00fc".repeat(100);
+        for (int i = 0; i < 20; i++) {
+            writer.write("aws.log", message, null);
+        }
+        writer.close();
+
+        for (String name : new String[] { "aws.log", "aws.log.1", "aws.log.2" }) {
+            File file = new File(dir, name);
+            assertTrue(file.exists(), name);
+            assertTrue(file.length() <= 1024, name + " has " + file.length() + " bytes");
+        }
+        assertEquals(0, writer.getDroppedCount());
+    }
+}
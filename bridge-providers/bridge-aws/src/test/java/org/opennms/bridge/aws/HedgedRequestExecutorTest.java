@@ -0,0 +1,85 @@
+package org.opennms.bridge.aws;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HedgedRequestExecutorTest {
+
+    private static final String TARGET = "aws/us-east-1/GetMetricData";
+
+    private HedgedRequestExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new HedgedRequestExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void firstSuccessfulResponseWins() {
+        warmUp(0.05);
+
+        String result = executor.call(TARGET, slow("primary"), () -> () -> "hedge", 90, 0.05);
+
+        assertEquals("hedge", result);
+        assertEquals(1L, statistics().get("hedges"));
+        assertEquals(1L, statistics().get("hedgeWins"));
+    }
+
+    @Test
+    void hedgesStayWithinBudget() {
+        // 52 calls at 2% earn just over one hedge
+        warmUp(0.02);
+        AtomicInteger hedges = new AtomicInteger();
+        Supplier<Supplier<String>> hedge = () -> {
+            hedges.incrementAndGet();
+            return () -> "hedge";
+        };
+
+        assertEquals("hedge", executor.call(TARGET, slow("primary"), hedge, 90, 0.02));
+        assertEquals("primary", executor.call(TARGET, slow("primary"), hedge, 90, 0.02));
+        assertEquals(1, hedges.get());
+    }
+
+    @Test
+    void hedgeWithoutPermitIsSkipped() {
+        warmUp(0.05);
+
+        assertEquals("primary", executor.call(TARGET, slow("primary"), () -> null, 90, 0.05));
+        assertEquals(0L, statistics().get("hedges"));
+        assertEquals(1L, statistics().get("hedgesSkipped"));
+    }
+
+    private void warmUp(double budget) {
+        for (int i = 0; i < 50; i++) {
+            executor.call(TARGET, () -> "fast", 90, budget);
+        }
+    }
+
+    private static Supplier<String> slow(String result) {
+        return () -> {
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return result;
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> statistics() {
+        return (Map<String, Object>) executor.getStatistics("aws").get("us-east-1/GetMetricData");
+    }
+}
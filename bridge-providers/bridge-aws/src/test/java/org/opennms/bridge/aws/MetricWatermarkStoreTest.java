@@ -0,0 +1,113 @@
+package org.opennms.bridge.aws;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.opennms.bridge.api.SeriesDictionary;
+import org.opennms.bridge.api.SeriesKey;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MetricWatermarkStoreTest {
+
+    @TempDir
+    File dir;
+
+    @Test
+    void advanceKeepsNewestTimestamp() {
+        MetricWatermarkStore store = new MetricWatermarkStore();
+        SeriesKey key = new SeriesKey("aws", "i-1", "AWS/EC2", "CPUUtilization", "Average");
+
+        assertEquals(MetricWatermarkStore.NONE, store.get(key));
+        store.advance(key, 2000);
+        store.advance(key, 1000);
+        assertEquals(2000, store.get(key));
+    }
+
+    @Test
+    void keysSeriesByTheSharedDictionaryId() {
+        SeriesDictionary dictionary = new SeriesDictionary();
+        MetricWatermarkStore store = new MetricWatermarkStore();
+        ReflectionTestUtils.setField(store, "seriesDictionary", dictionary);
+        SeriesKey key = new SeriesKey("aws", "i-1", "AWS/EC2", "CPUUtilization", "Average");
+
+        store.advance(dictionary.getId(key), 3000);
+        assertEquals(store.seriesId(key), dictionary.getId(key));
+        assertEquals(3000, store.get(key));
+    }
+
+    @Test
+    void escapedFieldsRoundTrip() {
+        for (String field : new String[]{"", "plain", "tab\there", "line\nbreak\r", "back\\slash", "\\t"}) {
+            assertEquals(field, MetricWatermarkStore.unescape(MetricWatermarkStore.escape(field)));
+        }
+        assertEquals("a\\tb", MetricWatermarkStore.escape("a\tb"));
+    }
+
+    @Test
+    void watermarksSurviveRestart() {
+        String file = new File(dir, "watermarks.tsv").getPath();
+        SeriesKey plain = new SeriesKey("aws", "i-1", "AWS/EC2", "CPUUtilization", "Average");
+        SeriesKey awkward = new SeriesKey("aws\tprod", "i-2\n", "Custom\\NS", "Requests", "");
+
+        MetricWatermarkStore store = new MetricWatermarkStore();
+        ReflectionTestUtils.setField(store, "watermarkFile", file);
+        store.init();
+        store.advance(plain, 1000);
+        store.advance(awkward, 2000);
+        store.shutdown();
+
+        MetricWatermarkStore reloaded = new MetricWatermarkStore();
+        ReflectionTestUtils.setField(reloaded, "watermarkFile", file);
+        reloaded.init();
+        assertEquals(2, reloaded.size());
+        assertEquals(1000, reloaded.get(plain));
+        assertEquals(2000, reloaded.get(awkward));
+        reloaded.shutdown();
+    }
+
+    @Test
+    void gapsMergeAndCloseAsTheyAreDelivered() {
+        MetricWatermarkStore store = new MetricWatermarkStore();
+        SeriesKey key = new SeriesKey("aws", "i-1", "AWS/EC2", "CPUUtilization", "Average");
+
+        store.recordGap(key, 1000, 5000);
+        store.recordGap(key, 2000, 8000);
+        assertArrayEquals(new long[]{1000, 8000}, store.getGap(key));
+
+        store.resolveGap(key, 3000);
+        assertArrayEquals(new long[]{3000, 8000}, store.getGap(key));
+        store.resolveGap(key, 2000);
+        assertArrayEquals(new long[]{3000, 8000}, store.getGap(key));
+        store.resolveGap(key, 8000);
+        assertNull(store.getGap(key));
+    }
+
+    @Test
+    void gapsSurviveRestart() {
+        String file = new File(dir, "watermarks.tsv").getPath();
+        SeriesKey withWatermark = new SeriesKey("aws", "i-1", "AWS/EC2", "CPUUtilization", "Average");
+        SeriesKey gapOnly = new SeriesKey("aws", "i-2", "AWS/EC2", "CPUUtilization", "Average");
+
+        MetricWatermarkStore store = new MetricWatermarkStore();
+        ReflectionTestUtils.setField(store, "watermarkFile", file);
+        store.init();
+        store.advance(withWatermark, 9000);
+        store.recordGap(withWatermark, 1000, 4000);
+        store.recordGap(gapOnly, 2000, 3000);
+        store.shutdown();
+
+        MetricWatermarkStore reloaded = new MetricWatermarkStore();
+        ReflectionTestUtils.setField(reloaded, "watermarkFile", file);
+        reloaded.init();
+        assertEquals(9000L, reloaded.get(withWatermark));
+        assertArrayEquals(new long[]{1000, 4000}, reloaded.getGap(withWatermark));
+        assertEquals(MetricWatermarkStore.NONE, reloaded.get(gapOnly));
+        assertArrayEquals(new long[]{2000, 3000}, reloaded.getGap(gapOnly));
+        reloaded.shutdown();
+    }
+}
@@ -14,6 +14,8 @@ import org.opennms.bridge.webapp.service.IntegrationConfigService;
 import org.opennms.bridge.webapp.service.MockAwsCloudProvider;
 import org.opennms.bridge.webapp.service.MockDiscoveryLogService;
 import org.opennms.bridge.webapp.service.MockCollectionLogService;
+import org.opennms.bridge.webapp.service.RingBufferCollectionLogService;
+import org.opennms.bridge.webapp.service.RingBufferDiscoveryLogService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -36,7 +38,7 @@ public class BeanConfig {
     private static final Logger LOG = LoggerFactory.getLogger(BeanConfig.class);
     
     @Value("${cloud.providers.useMock:false}")
-    private boolean useMockProviders;
+    private volatile boolean useMockProviders;
     
     @Autowired
     private IntegrationConfigService integrationConfigService;
@@ -71,10 +73,10 @@ public class BeanConfig {
         }
     }
     
-    @Value("${discovery.logs.useMock:true}")
+    @Value("${bridge.discovery.logs.useMock:true}")
     private boolean useMockLogs;
     
-    @Value("${collection.logs.useMock:true}")
+    @Value("${bridge.collection.logs.useMock:true}")
     private boolean useMockCollectionLogs;
     
     /**
@@ -132,16 +134,18 @@ public class BeanConfig {
      * Will use mock service for development and testing.
      * 
      * @param mockDiscoveryLogService Mock discovery log service
+     * @param ringBufferDiscoveryLogService Ring buffer backed discovery log service
      * @return DiscoveryLogService implementation
      */
     @Bean
-    public DiscoveryLogService discoveryLogService(MockDiscoveryLogService mockDiscoveryLogService) {
+    public DiscoveryLogService discoveryLogService(MockDiscoveryLogService mockDiscoveryLogService,
+                                                   RingBufferDiscoveryLogService ringBufferDiscoveryLogService) {
         if (useMockLogs) {
             LOG.info("Using mock discovery log service");
             return mockDiscoveryLogService;
         } else {
-            LOG.info("No production discovery log service available, using mock");
-            return mockDiscoveryLogService;
+            LOG.info("Using ring buffer discovery log service");
+            return ringBufferDiscoveryLogService;
         }
     }
     
@@ -150,16 +154,18 @@ public class BeanConfig {
      * Will use mock service for development and testing.
      * 
      * @param mockCollectionLogService Mock collection log service
+     * @param ringBufferCollectionLogService Ring buffer backed collection log service
      * @return CollectionLogService implementation
      */
     @Bean
-    public CollectionLogService collectionLogService(MockCollectionLogService mockCollectionLogService) {
+    public CollectionLogService collectionLogService(MockCollectionLogService mockCollectionLogService,
+                                                     RingBufferCollectionLogService ringBufferCollectionLogService) {
         if (useMockCollectionLogs) {
             LOG.info("Using mock collection log service");
             return mockCollectionLogService;
         } else {
-            LOG.info("No production collection log service available, using mock");
-            return mockCollectionLogService;
+            LOG.info("Using ring buffer collection log service");
+            return ringBufferCollectionLogService;
         }
     }
     
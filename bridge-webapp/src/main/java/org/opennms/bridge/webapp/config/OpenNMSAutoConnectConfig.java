@@ -2,7 +2,13 @@ package org.opennms.bridge.webapp.config;
 
 import org.opennms.bridge.api.CloudProvider;
 import org.opennms.bridge.api.CloudResource;
+import org.opennms.bridge.api.CollectionListener;
+import org.opennms.bridge.api.Deadline;
+import org.opennms.bridge.api.DiscoveryService;
+import org.opennms.bridge.api.MetricBatch;
 import org.opennms.bridge.api.MetricCollection;
+import org.opennms.bridge.core.service.CollectionPipeline;
+import org.opennms.bridge.core.service.NodeSyncEngine;
 import org.opennms.bridge.core.service.OpenNMSClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,10 +35,11 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * Auto-connect to OpenNMS on application startup and handle automatic synchronization.
  * This component attempts to connect to OpenNMS when the application starts and provides
  * automatic synchronization of discovered resources and metrics with OpenNMS.
+ * Metrics reach OpenNMS as a listener of the collection pipeline, so they are submitted once per collection.
  */
 @Component
 @EnableScheduling
-public class OpenNMSAutoConnectConfig {
+public class OpenNMSAutoConnectConfig implements CollectionListener {
     
     private static final Logger LOG = LoggerFactory.getLogger(OpenNMSAutoConnectConfig.class);
     
@@ -45,6 +52,15 @@ public class OpenNMSAutoConnectConfig {
     @Autowired
     private TaskScheduler taskScheduler;
 
+    @Autowired
+    private CollectionPipeline collectionPipeline;
+
+    @Autowired
+    private DiscoveryService discoveryService;
+
+    @Autowired
+    private NodeSyncEngine nodeSyncEngine;
+
     private final Map<String, ScheduledFuture<?>> scheduledTasks = new ConcurrentHashMap<>();
     private final AtomicBoolean autoSyncNodes = new AtomicBoolean(false);
     private final AtomicBoolean autoSyncMetrics = new AtomicBoolean(false);
@@ -221,28 +237,45 @@ public class OpenNMSAutoConnectConfig {
 
     /**
      * Handle discovery completion event
-     * If auto-sync is enabled, this will sync the discovered nodes to OpenNMS
+     * If auto-sync is enabled, this will sync the discovered nodes to OpenNMS: new resources are created,
+     * renamed ones updated and unchanged ones skipped, with bounded parallelism
      *
      * @param providerId the provider ID
      * @param resources the discovered resources
      */
     public void handleDiscoveryCompletion(String providerId, Set<CloudResource> resources) {
-        if (!autoSyncNodes.get() || !openNMSClient.testConnection()) {
+        if (!autoSyncNodes.get() || !openNMSClient.isAvailable()) {
             return;
         }
 
         LOG.info("Auto-syncing {} resources from provider {} to OpenNMS", resources.size(), providerId);
 
-        for (CloudResource resource : resources) {
-            try {
-                openNMSClient.createOrUpdateNode(resource);
-                LOG.debug("Auto-synced resource to OpenNMS: {}", resource.getResourceId());
-            } catch (Exception e) {
-                LOG.error("Error auto-syncing resource to OpenNMS: {}", resource.getResourceId(), e);
-            }
+        NodeSyncEngine.Run run = nodeSyncEngine.sync(providerId, resources);
+        if (run.getFailed() > 0) {
+            LOG.error("Failed to auto-sync {} resources from provider {} to OpenNMS", run.getFailed(), providerId);
         }
     }
 
+    /**
+     * Submit each newly collected batch to OpenNMS when auto-sync of metrics is enabled.
+     * A failed submission is thrown, so the samples are not marked delivered and are collected again.
+     */
+    @Override
+    public boolean onCollected(String providerId, CloudResource resource, MetricBatch batch) throws Exception {
+        if (batch.isEmpty() || !autoSyncMetrics.get() || !openNMSClient.isAvailable()) {
+            return false;
+        }
+
+        String nodeId = resolveNodeId(providerId, resource.getResourceId(), resource);
+        if (nodeId == null) {
+            return false;
+        }
+        openNMSClient.submitMetrics(nodeId, batch);
+        LOG.debug("Auto-synced {} samples to OpenNMS for resource: {}", batch.size(), resource.getResourceId());
+        lastSyncTimes.put(resource.getResourceId(), System.currentTimeMillis());
+        return true;
+    }
+
     /**
      * Handle collection completion event
      * If auto-sync is enabled, this will sync the collected metrics to OpenNMS
@@ -252,7 +285,7 @@ public class OpenNMSAutoConnectConfig {
      * @param metrics the collected metrics
      */
     public void handleCollectionCompletion(String providerId, String resourceId, MetricCollection metrics) {
-        if (!autoSyncMetrics.get() || !openNMSClient.testConnection()) {
+        if (!autoSyncMetrics.get() || !openNMSClient.isAvailable()) {
             return;
         }
 
@@ -260,38 +293,9 @@ public class OpenNMSAutoConnectConfig {
                 metrics.getMetrics().size(), resourceId, providerId);
 
         try {
-            // Find the node ID in OpenNMS
-            String foreignId = providerId + ":" + resourceId;
-            String nodeId = openNMSClient.findNodeByForeignId(providerId, foreignId);
-
+            String nodeId = resolveNodeId(providerId, resourceId, null);
             if (nodeId == null) {
-                // Node doesn't exist yet, need to get the resource and create it
-                CloudProvider provider = cloudProviders.get(providerId);
-                if (provider == null) {
-                    LOG.error("Provider not found for auto-sync: {}", providerId);
-                    return;
-                }
-
-                Set<CloudResource> resources = provider.discover();
-                CloudResource resource = resources.stream()
-                        .filter(r -> resourceId.equals(r.getResourceId()))
-                        .findFirst()
-                        .orElse(null);
-
-                if (resource == null) {
-                    LOG.error("Resource not found for auto-sync: {}", resourceId);
-                    return;
-                }
-
-                // Create the node
-                openNMSClient.createOrUpdateNode(resource);
-
-                // Try to get the node ID again
-                nodeId = openNMSClient.findNodeByForeignId(providerId, foreignId);
-                if (nodeId == null) {
-                    LOG.error("Failed to get node ID after creation for auto-sync");
-                    return;
-                }
+                return;
             }
 
             // Submit the metrics
@@ -305,12 +309,55 @@ public class OpenNMSAutoConnectConfig {
         }
     }
 
+    /**
+     * Find the OpenNMS node of a resource, creating it if it does not exist yet
+     *
+     * @param providerId the provider ID
+     * @param resourceId the resource ID
+     * @param resource the resource, or null to look it up among the discovered resources
+     * @return the node ID, or null if the node could not be found or created
+     */
+    private String resolveNodeId(String providerId, String resourceId, CloudResource resource) throws Exception {
+        String foreignId = providerId + ":" + resourceId;
+        String nodeId = openNMSClient.findNodeByForeignId(providerId, foreignId);
+        if (nodeId != null) {
+            return nodeId;
+        }
+
+        // Node doesn't exist yet, need the resource to create it
+        if (resource == null) {
+            CloudProvider provider = cloudProviders.get(providerId);
+            if (provider == null) {
+                LOG.error("Provider not found for auto-sync: {}", providerId);
+                return null;
+            }
+            resource = discoveryService.discoverResources(provider).stream()
+                    .filter(r -> resourceId.equals(r.getResourceId()))
+                    .findFirst()
+                    .orElse(null);
+            if (resource == null) {
+                LOG.error("Resource not found for auto-sync: {}", resourceId);
+                return null;
+            }
+        }
+
+        // Create the node and get its ID
+        openNMSClient.createOrUpdateNode(resource);
+        nodeId = openNMSClient.findNodeByForeignId(providerId, foreignId);
+        if (nodeId == null) {
+            LOG.error("Failed to get node ID after creation for auto-sync");
+        }
+        return nodeId;
+    }
+
     /**
      * Sync all metrics to OpenNMS from all providers
-     * This is run on a schedule when auto-sync metrics is enabled
+     * This is run on a schedule when auto-sync metrics is enabled.
+     * Collection goes through the shared pipeline: resources already collected in this interval are not
+     * collected again, and newly collected samples reach OpenNMS through {@link #onCollected}.
      */
     public void syncAllMetricsToOpenNMS() {
-        if (!autoSyncMetrics.get() || !openNMSClient.testConnection()) {
+        if (!autoSyncMetrics.get() || !openNMSClient.isAvailable()) {
             return;
         }
 
@@ -320,24 +367,16 @@ public class OpenNMSAutoConnectConfig {
             String providerId = entry.getKey();
             CloudProvider provider = entry.getValue();
 
-            try {
-                // Discover all resources
-                Set<CloudResource> resources = provider.discover();
-                LOG.info("Discovered {} resources from provider {}", resources.size(), providerId);
-
-                // Collect and sync metrics for each resource
-                for (CloudResource resource : resources) {
-                    try {
-                        MetricCollection metrics = provider.collect(resource);
-                        if (metrics != null && !metrics.getMetrics().isEmpty()) {
-                            handleCollectionCompletion(providerId, resource.getResourceId(), metrics);
-                        }
-                    } catch (Exception e) {
-                        LOG.error("Error collecting metrics for resource {}: {}", resource.getResourceId(), e.getMessage());
-                    }
-                }
+            try (Deadline.Scope scope = Deadline.after(syncInterval).enter()) {
+                // Previously discovered resources; discovery runs on its own schedule
+                Set<CloudResource> resources = discoveryService.discoverResources(provider);
+                CollectionPipeline.Cycle cycle = collectionPipeline.collect(provider, resources, syncInterval);
+                cycle.getFailures().forEach((resourceId, error) ->
+                        LOG.error("Error collecting metrics for resource {}: {}", resourceId, error.getMessage()));
+                LOG.info("Synced {} resources from provider {} ({} already collected in this interval)",
+                        cycle.getBatches().size(), providerId, cycle.getReused());
             } catch (Exception e) {
-                LOG.error("Error discovering resources from provider {}: {}", providerId, e.getMessage());
+                LOG.error("Error syncing metrics from provider {}: {}", providerId, e.getMessage());
             }
         }
     }
@@ -353,6 +392,7 @@ public class OpenNMSAutoConnectConfig {
         status.put("autoSyncMetrics", autoSyncMetrics.get());
         status.put("syncIntervalMinutes", syncInterval.toMinutes());
         status.put("lastSyncTimes", lastSyncTimes);
+        status.put("nodeSync", nodeSyncEngine.getStatistics());
         return status;
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package org.opennms.bridge.webapp.config;
 
+import org.opennms.bridge.core.service.OpenNMSHttpTransport;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
@@ -7,17 +8,18 @@ import org.springframework.web.reactive.function.client.WebClient;
 
 /**
  * Configuration for REST clients.
+ * Both clients use the pooled keep-alive connections of the OpenNMS HTTP transport.
  */
 @Configuration
 public class RestConfig {
 
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(OpenNMSHttpTransport transport) {
+        return transport.createRestTemplate(true);
     }
     
     @Bean
-    public WebClient.Builder webClientBuilder() {
-        return WebClient.builder();
+    public WebClient.Builder webClientBuilder(OpenNMSHttpTransport transport) {
+        return WebClient.builder().clientConnector(transport.createConnector());
     }
-}
\ No newline at end of file
+}
@@ -22,7 +22,7 @@ import org.springframework.context.ApplicationContext;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.opennms.bridge.webapp.service.ProviderFilterService;
+import org.opennms.bridge.webapp.service.ProviderRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -31,6 +31,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -65,7 +66,7 @@ public class CloudProviderController {
     private CollectionService collectionService;
     
     @Autowired
-    private ProviderFilterService providerFilterService;
+    private ProviderRegistry providerRegistry;
     
     @Value("${bridge.debug.aws.log_directory:logs/aws}")
     private String debugLogDirectory;
@@ -80,9 +81,7 @@ public class CloudProviderController {
     @GetMapping
     public ResponseEntity<List<Map<String, Object>>> getAllCloudProviders() {
         // Filter providers based on mock provider setting
-        List<CloudProvider> filteredProviders = cloudProviders.stream()
-                .filter(provider -> providerFilterService.shouldIncludeProvider(provider))
-                .collect(Collectors.toList());
+        List<CloudProvider> filteredProviders = providerRegistry.getProviders();
         
         List<Map<String, Object>> providerData = filteredProviders.stream()
                 .map(provider -> {
@@ -108,6 +107,7 @@ public class CloudProviderController {
                         // Add provider capabilities
                         data.put("supportedMetrics", provider.getSupportedMetrics());
                         data.put("availableRegions", provider.getAvailableRegions());
+                        data.put("status", provider.getStatus());
                         
                         // Add next collection time
                         try {
@@ -137,10 +137,7 @@ public class CloudProviderController {
     
     @GetMapping("/{id}")
     public ResponseEntity<Map<String, Object>> getCloudProvider(@PathVariable String id) {
-        return cloudProviders.stream()
-                .filter(provider -> provider.getProviderId().equals(id))
-                .filter(provider -> providerFilterService.shouldIncludeProvider(provider))
-                .findFirst()
+        return Optional.ofNullable(providerRegistry.getProvider(id))
                 .map(provider -> {
                     try {
                         // Convert provider to a map of properties for the API
@@ -164,6 +161,7 @@ public class CloudProviderController {
                         // Add provider capabilities
                         data.put("supportedMetrics", provider.getSupportedMetrics());
                         data.put("availableRegions", provider.getAvailableRegions());
+                        data.put("status", provider.getStatus());
                         
                         // Add next collection time
                         try {
@@ -189,12 +187,21 @@ public class CloudProviderController {
                 .orElse(ResponseEntity.notFound().build());
     }
     
+    @GetMapping("/{id}/status")
+    public ResponseEntity<Map<String, Object>> getCloudProviderStatus(@PathVariable String id) {
+        return Optional.ofNullable(providerRegistry.getProvider(id))
+                .map(provider -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("id", provider.getProviderId());
+                    response.put("status", provider.getStatus());
+                    return ResponseEntity.ok(response);
+                })
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
     @GetMapping("/{id}/validate")
     public ResponseEntity<Map<String, Object>> validateCloudProvider(@PathVariable String id) {
-        return cloudProviders.stream()
-                .filter(provider -> provider.getProviderId().equals(id))
-                .filter(provider -> providerFilterService.shouldIncludeProvider(provider))
-                .findFirst()
+        return Optional.ofNullable(providerRegistry.getProvider(id))
                 .map(provider -> {
                     try {
                         ValidationResult result = provider.validate();
@@ -246,6 +253,7 @@ public class CloudProviderController {
             
             // Add to providers list
             cloudProviders.add(newProvider);
+            providerRegistry.register(newProvider);
             
             // Get provider configuration for response
             Map<String, Object> createdConfig = newProvider.getConfiguration();
@@ -608,6 +616,7 @@ public class CloudProviderController {
                 // Update provider configuration
                 emergencyDebugLog("CALLING updateConfiguration ON PROVIDER", null);
                 provider.updateConfiguration(safeConfig);
+                providerRegistry.refresh();
                 emergencyDebugLog("PROVIDER CONFIGURATION UPDATED SUCCESSFULLY", null);
                 
                 // Get updated configuration
@@ -660,6 +669,7 @@ public class CloudProviderController {
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteCloudProvider(@PathVariable String id) {
         boolean removed = cloudProviders.removeIf(provider -> provider.getProviderId().equals(id));
+        removed |= providerRegistry.unregister(id);
         
         if (removed) {
             // Clean up any stored credentials
@@ -834,17 +844,12 @@ public class CloudProviderController {
         LOG.info("Getting resources for provider: {}", id);
         
         // Find the provider and filter based on mock provider setting
-        CloudProvider provider = cloudProviders.stream()
-                .filter(p -> p.getProviderId().equals(id))
-                .filter(p -> providerFilterService.shouldIncludeProvider(p))
-                .findFirst()
-                .orElse(null);
+        CloudProvider provider = providerRegistry.getProvider(id);
                 
-        // If provider wasn't found but should have been included based on ID, log details
-        if (provider == null && providerFilterService.shouldIncludeProvider(id)) {
-            LOG.warn("Provider with ID '{}' should be included but wasn't found", id);
-        } else if (provider == null && !providerFilterService.shouldIncludeProvider(id)) {
+        if (provider == null && providerRegistry.isExcluded(id)) {
             LOG.info("Provider with ID '{}' was not included because mock providers are disabled", id);
+        } else if (provider == null) {
+            LOG.warn("Provider with ID '{}' not found", id);
         }
         
         if (provider == null) {
@@ -4,7 +4,7 @@ import org.opennms.bridge.api.*;
 import org.opennms.bridge.core.service.ProviderSettingsService;
 import org.opennms.bridge.core.service.SchedulerService;
 import org.opennms.bridge.webapp.service.MockCollectionService;
-import org.opennms.bridge.webapp.service.ProviderFilterService;
+import org.opennms.bridge.webapp.service.ProviderRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,7 +13,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import javax.annotation.PostConstruct;
-import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
@@ -37,9 +36,6 @@ public class CollectionController {
     @Autowired
     private DiscoveryService discoveryService;
     
-    @Autowired
-    private List<CloudProvider> cloudProviders;
-    
     @Autowired
     private SchedulerService schedulerService;
     
@@ -47,7 +43,7 @@ public class CollectionController {
     private ProviderSettingsService providerSettingsService;
     
     @Autowired
-    private ProviderFilterService providerFilterService;
+    private ProviderRegistry providerRegistry;
     
     // In-memory job tracking (would be persisted in a real implementation)
     private final Map<String, CollectionJob> collectionJobs = new ConcurrentHashMap<>();
@@ -73,25 +69,18 @@ public class CollectionController {
         LOG.info("Starting collection for provider: {}, resource: {}", providerId, resourceId);
         
         // Normalize the provider ID if needed
-        final String normalizedProviderId = normalizeProviderId(providerId);
+        final String normalizedProviderId = providerRegistry.normalizeProviderId(providerId);
         if (!normalizedProviderId.equals(providerId)) {
             LOG.info("Normalized provider ID for collection: {} -> {}", providerId, normalizedProviderId);
             providerId = normalizedProviderId;
         }
         
-        // Use the final normalized ID for provider lookup
-        final String finalProviderId = providerId;
-        CloudProvider provider = cloudProviders.stream()
-                .filter(p -> p.getProviderId().equals(finalProviderId))
-                .filter(p -> providerFilterService.shouldIncludeProvider(p))
-                .findFirst()
-                .orElse(null);
+        CloudProvider provider = providerRegistry.getProvider(providerId);
                 
-        // If provider wasn't found but should have been included based on ID, log details
-        if (provider == null && providerFilterService.shouldIncludeProvider(finalProviderId)) {
-            LOG.warn("Provider with ID '{}' should be included but wasn't found", finalProviderId);
-        } else if (provider == null && !providerFilterService.shouldIncludeProvider(finalProviderId)) {
-            LOG.info("Provider with ID '{}' was not included because mock providers are disabled", finalProviderId);
+        if (provider == null && providerRegistry.isExcluded(providerId)) {
+            LOG.info("Provider with ID '{}' was not included because mock providers are disabled", providerId);
+        } else if (provider == null) {
+            LOG.warn("Provider with ID '{}' not found", providerId);
         }
         
         if (provider == null) {
@@ -202,7 +191,7 @@ public class CollectionController {
         List<Map<String, Object>> jobList = allJobs.stream()
                 .filter(job -> {
                     String jobProviderId = (String) job.get("providerId");
-                    return providerFilterService.shouldIncludeProvider(jobProviderId);
+                    return providerRegistry.isIncluded(jobProviderId);
                 })
                 .collect(Collectors.toList());
         
@@ -264,11 +253,7 @@ public class CollectionController {
             List<Map<String, Object>> providerSchedules = new ArrayList<>();
             
             // Filter providers based on mock provider setting
-            List<CloudProvider> filteredProviders = cloudProviders.stream()
-                    .filter(provider -> providerFilterService.shouldIncludeProvider(provider))
-                    .collect(Collectors.toList());
-                    
-            for (CloudProvider provider : filteredProviders) {
+            for (CloudProvider provider : providerRegistry.getProviders()) {
                 String providerId = provider.getProviderId();
                 Map<String, Object> providerSchedule = new HashMap<>();
                 providerSchedule.put("providerId", providerId);
@@ -348,25 +333,18 @@ public class CollectionController {
         
         try {
             // Normalize the provider ID if needed
-            final String normalizedProviderId = normalizeProviderId(providerId);
+            final String normalizedProviderId = providerRegistry.normalizeProviderId(providerId);
             if (!normalizedProviderId.equals(providerId)) {
                 LOG.info("Normalized provider ID for schedule update: {} -> {}", providerId, normalizedProviderId);
                 providerId = normalizedProviderId;
             }
             
-            // Use the final normalized ID for provider lookup
-            final String finalProviderId = providerId;
-            CloudProvider provider = cloudProviders.stream()
-                    .filter(p -> p.getProviderId().equals(finalProviderId))
-                    .filter(p -> providerFilterService.shouldIncludeProvider(p))
-                    .findFirst()
-                    .orElse(null);
+            CloudProvider provider = providerRegistry.getProvider(providerId);
                     
-            // If provider wasn't found but should have been included based on ID, log details
-            if (provider == null && providerFilterService.shouldIncludeProvider(finalProviderId)) {
-                LOG.warn("Provider with ID '{}' should be included but wasn't found", finalProviderId);
-            } else if (provider == null && !providerFilterService.shouldIncludeProvider(finalProviderId)) {
-                LOG.info("Provider with ID '{}' was not included because mock providers are disabled", finalProviderId);
+            if (provider == null && providerRegistry.isExcluded(providerId)) {
+                LOG.info("Provider with ID '{}' was not included because mock providers are disabled", providerId);
+            } else if (provider == null) {
+                LOG.warn("Provider with ID '{}' not found", providerId);
             }
             
             if (provider == null) {
@@ -566,75 +544,24 @@ public class CollectionController {
         
         Map<String, Object> result = new HashMap<>();
         
-        // Get all intervals from MockCollectionService
-        if (collectionService instanceof MockCollectionService) {
-            try {
-                MockCollectionService mockService = (MockCollectionService) collectionService;
-                java.lang.reflect.Field field = MockCollectionService.class.getDeclaredField("providerIntervals");
-                field.setAccessible(true);
-                
-                @SuppressWarnings("unchecked")
-                Map<String, Duration> intervals = (Map<String, Duration>) field.get(mockService);
-                
-                Map<String, Object> intervalMap = new HashMap<>();
-                for (Map.Entry<String, Duration> entry : intervals.entrySet()) {
-                    intervalMap.put(entry.getKey(), entry.getValue().toMinutes());
-                }
-                
-                result.put("providerIntervals", intervalMap);
-                
-                // Get the normalizeProviderId method to show mapping
-                java.lang.reflect.Method normalizeMethod = MockCollectionService.class.getDeclaredMethod("normalizeProviderId", String.class);
-                normalizeMethod.setAccessible(true);
-                
-                // Show ID mapping for each provider
-                Map<String, String> idMapping = new HashMap<>();
-                for (CloudProvider provider : cloudProviders) {
-                    String originalId = provider.getProviderId();
-                    String normalizedId = (String) normalizeMethod.invoke(mockService, originalId);
-                    
-                    if (!originalId.equals(normalizedId)) {
-                        idMapping.put(originalId, normalizedId);
-                    }
-                }
-                
-                if (!idMapping.isEmpty()) {
-                    result.put("idNormalization", idMapping);
-                }
-            } catch (Exception e) {
-                LOG.error("Error accessing intervals from MockCollectionService: {}", e.getMessage(), e);
-                result.put("error", "Failed to access intervals: " + e.getMessage());
-            }
+        // Show ID mapping for provider aliases
+        Map<String, String> idMapping = providerRegistry.getAliases();
+        if (!idMapping.isEmpty()) {
+            result.put("idNormalization", idMapping);
         }
         
-        // Get scheduler service intervals
-        try {
-            java.lang.reflect.Field field = schedulerService.getClass().getDeclaredField("providerCollectionIntervals");
-            field.setAccessible(true);
-            
-            @SuppressWarnings("unchecked")
-            Map<String, Duration> intervals = (Map<String, Duration>) field.get(schedulerService);
-            
-            Map<String, Object> intervalMap = new HashMap<>();
-            for (Map.Entry<String, Duration> entry : intervals.entrySet()) {
-                intervalMap.put(entry.getKey(), entry.getValue().toMinutes());
-            }
-            
-            result.put("schedulerIntervals", intervalMap);
-        } catch (Exception e) {
-            LOG.error("Error accessing intervals from SchedulerService: {}", e.getMessage(), e);
-            result.put("schedulerError", "Failed to access intervals: " + e.getMessage());
+        // The mock collection service runs every provider on its one schedule
+        Object mockInterval = null;
+        if (collectionService instanceof MockCollectionService) {
+            mockInterval = collectionService.getScheduleInfo().get("interval");
         }
         
         // Add provider info
         List<Map<String, Object>> providers = new ArrayList<>();
+        Map<String, Object> schedulerIntervals = new HashMap<>();
+        Map<String, Object> providerIntervals = new HashMap<>();
         
-        // Filter providers based on mock provider setting
-        List<CloudProvider> filteredProviders = cloudProviders.stream()
-                .filter(provider -> providerFilterService.shouldIncludeProvider(provider))
-                .collect(Collectors.toList());
-                
-        for (CloudProvider provider : filteredProviders) {
+        for (CloudProvider provider : providerRegistry.getProviders()) {
             Map<String, Object> providerInfo = new HashMap<>();
             String providerId = provider.getProviderId();
             
@@ -646,10 +573,15 @@ public class CollectionController {
             try {
                 long interval = schedulerService.getProviderCollectionInterval(providerId);
                 providerInfo.put("interval", interval);
+                schedulerIntervals.put(providerId, interval);
             } catch (Exception e) {
                 providerInfo.put("interval", "error: " + e.getMessage());
             }
             
+            if (mockInterval != null) {
+                providerIntervals.put(providerId, mockInterval);
+            }
+            
             // Get next collection time
             try {
                 Instant nextTime = collectionService.getNextCollectionTime(providerId);
@@ -670,6 +602,10 @@ public class CollectionController {
         }
         
         result.put("providers", providers);
+        result.put("schedulerIntervals", schedulerIntervals);
+        if (mockInterval != null) {
+            result.put("providerIntervals", providerIntervals);
+        }
         
         // Include the provider settings content
         try {
@@ -685,37 +621,4 @@ public class CollectionController {
         
         return ResponseEntity.ok(result);
     }
-    
-    /**
-     * Normalize provider IDs to prevent duplicates.
-     * This method delegates to the MockCollectionService's normalization logic.
-     * 
-     * @param providerId original provider ID
-     * @return normalized provider ID
-     */
-    private String normalizeProviderId(String providerId) {
-        if (providerId == null) {
-            return "unknown";
-        }
-        
-        if (collectionService instanceof MockCollectionService) {
-            try {
-                MockCollectionService mockService = (MockCollectionService) collectionService;
-                java.lang.reflect.Method normalizeMethod = 
-                        MockCollectionService.class.getDeclaredMethod("normalizeProviderId", String.class);
-                normalizeMethod.setAccessible(true);
-                
-                return (String) normalizeMethod.invoke(mockService, providerId);
-            } catch (Exception e) {
-                LOG.error("Error normalizing provider ID: {}", e.getMessage(), e);
-            }
-        }
-        
-        // If we can't normalize via MockCollectionService, do simple normalization
-        if ("awsCloudProvider".equals(providerId) || "mockAwsCloudProvider".equals(providerId)) {
-            return "aws-mock";
-        }
-        
-        return providerId;
-    }
-}
\ No newline at end of file
+}
@@ -1,12 +1,14 @@
 package org.opennms.bridge.webapp.controller;
 
 import org.opennms.bridge.api.CollectionLogService;
+import org.opennms.bridge.api.LogQuery;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.format.DateTimeParseException;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -56,6 +58,46 @@ public class CollectionLogController {
         }
     }
 
+    /**
+     * Query collection logs for a provider, newest first.
+     * Supports a minimum level, an action, an ISO-8601 time range and cursor paging.
+     */
+    @GetMapping("/{providerId}/query")
+    public ResponseEntity<Map<String, Object>> queryCollectionLogs(
+            @PathVariable String providerId,
+            @RequestParam(required = false) String level,
+            @RequestParam(required = false) String action,
+            @RequestParam(required = false) String since,
+            @RequestParam(required = false) String until,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Integer limit) {
+        if (collectionLogService == null) {
+            return ResponseEntity.ok(Map.of(
+                "message", "Collection logs not available - log service not configured",
+                "providerId", providerId,
+                "logs", Collections.emptyList()
+            ));
+        }
+        
+        try {
+            LogQuery query = LogQuery.fromParameters(level, action, since, until, cursor, limit);
+            Map<String, Object> response = collectionLogService.queryLogs(providerId, query).toMap();
+            response.put("providerId", providerId);
+            return ResponseEntity.ok(response);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "Invalid time parameter: " + e.getParsedString(),
+                "providerId", providerId
+            ));
+        } catch (Exception e) {
+            LOG.error("Error querying collection logs: {}", e.getMessage(), e);
+            return ResponseEntity.status(500).body(Map.of(
+                "error", "Failed to query collection logs: " + e.getMessage(),
+                "providerId", providerId
+            ));
+        }
+    }
+
     /**
      * Clear collection logs for a provider.
      */
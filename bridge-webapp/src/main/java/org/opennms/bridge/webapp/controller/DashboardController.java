@@ -5,7 +5,7 @@ import org.opennms.bridge.api.CloudProviderException;
 import org.opennms.bridge.api.CloudResource;
 import org.opennms.bridge.api.DiscoveryService;
 import org.opennms.bridge.api.CollectionService;
-import org.opennms.bridge.webapp.service.ProviderFilterService;
+import org.opennms.bridge.webapp.service.ProviderRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,9 +28,6 @@ import java.util.stream.Collectors;
 public class DashboardController {
     private static final Logger LOG = LoggerFactory.getLogger(DashboardController.class);
 
-    @Autowired
-    private List<CloudProvider> cloudProviders;
-    
     @Autowired
     private DiscoveryService discoveryService;
     
@@ -44,7 +41,7 @@ public class DashboardController {
     private CollectionController collectionController;
     
     @Autowired
-    private ProviderFilterService providerFilterService;
+    private ProviderRegistry providerRegistry;
 
     @GetMapping("/summary")
     public ResponseEntity<Map<String, Object>> getDashboardSummary() {
@@ -52,7 +49,7 @@ public class DashboardController {
         
         try {
             // Count active cloud providers
-            int providerCount = cloudProviders.size();
+            int providerCount = providerRegistry.getProviders().size();
             
             // Count active discovery jobs
             Map<String, Object> discoveryJobs = discoveryController.getAllDiscoveryJobs().getBody();
@@ -103,15 +100,13 @@ public class DashboardController {
             List<Map<String, Object>> providerSummaries = new ArrayList<>();
             
             // Filter providers based on mock provider setting
-            List<CloudProvider> filteredProviders = cloudProviders.stream()
-                    .filter(provider -> providerFilterService.shouldIncludeProvider(provider))
-                    .collect(Collectors.toList());
+            List<CloudProvider> filteredProviders = providerRegistry.getProviders();
                     
             // Create summary data map
             Map<String, Object> summaryData = new HashMap<>();
             
             // Check if real providers are enabled but we don't have any
-            if (filteredProviders.isEmpty() && !providerFilterService.isUseMockProviders()) {
+            if (filteredProviders.isEmpty() && !providerRegistry.isUseMockProviders()) {
                  // Special message for when we're filtering out mocks but have no real providers
                 summaryData.put("mockProviderDisabled", true);
                 summaryData.put("warningMessage", "Real cloud providers are enabled but no valid providers are configured. "
@@ -250,15 +245,11 @@ public class DashboardController {
             
             if (providerId != null && !providerId.isEmpty()) {
                 // Filter by provider ID and mock provider setting
-                targetProviders = cloudProviders.stream()
-                        .filter(p -> p.getProviderId().equals(providerId))
-                        .filter(p -> providerFilterService.shouldIncludeProvider(p))
-                        .collect(Collectors.toList());
+                CloudProvider provider = providerRegistry.getProvider(providerId);
+                targetProviders = provider != null ? List.of(provider) : List.of();
             } else {
                 // Use all filtered providers
-                targetProviders = cloudProviders.stream()
-                        .filter(provider -> providerFilterService.shouldIncludeProvider(provider))
-                        .collect(Collectors.toList());
+                targetProviders = providerRegistry.getProviders();
             }
             
             // Collect metrics from each provider
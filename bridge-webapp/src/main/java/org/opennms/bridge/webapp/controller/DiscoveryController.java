@@ -5,7 +5,7 @@ import org.opennms.bridge.api.CloudResource;
 import org.opennms.bridge.api.DiscoveryLogService;
 import org.opennms.bridge.api.DiscoveryService;
 import org.opennms.bridge.webapp.service.MockDiscoveryService;
-import org.opennms.bridge.webapp.service.ProviderFilterService;
+import org.opennms.bridge.webapp.service.ProviderRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -33,14 +33,11 @@ public class DiscoveryController {
     @Autowired
     private MockDiscoveryService mockDiscoveryService;
     
-    @Autowired
-    private List<CloudProvider> cloudProviders;
-    
     @Autowired
     private DiscoveryLogService discoveryLogService;
     
     @Autowired
-    private ProviderFilterService providerFilterService;
+    private ProviderRegistry providerRegistry;
     
     // In-memory job tracking (would be persisted in a real implementation)
     private final Map<String, DiscoveryJob> discoveryJobs = new ConcurrentHashMap<>();
@@ -65,10 +62,7 @@ public class DiscoveryController {
         LOG.info("Starting discovery for provider: {}", providerId);
         
         // Check if provider exists
-        CloudProvider provider = cloudProviders.stream()
-                .filter(p -> p.getProviderId().equals(providerId))
-                .findFirst()
-                .orElse(null);
+        CloudProvider provider = providerRegistry.getProvider(providerId);
         
         if (provider == null) {
             Map<String, Object> errorResponse = new HashMap<>();
@@ -207,7 +201,7 @@ public class DiscoveryController {
         List<Map<String, Object>> jobList = allJobs.stream()
                 .filter(job -> {
                     String jobProviderId = (String) job.get("providerId");
-                    return providerFilterService.shouldIncludeProvider(jobProviderId);
+                    return providerRegistry.isIncluded(jobProviderId);
                 })
                 .collect(Collectors.toList());
         
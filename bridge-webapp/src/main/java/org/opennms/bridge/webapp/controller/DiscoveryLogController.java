@@ -1,58 +1,28 @@
 package org.opennms.bridge.webapp.controller;
 
-import org.opennms.bridge.api.CloudProvider;
-import org.opennms.bridge.api.CloudResource;
 import org.opennms.bridge.api.DiscoveryLogService;
+import org.opennms.bridge.api.LogQuery;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.format.DateTimeParseException;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * REST controller for discovery logs.
- * This controller provides endpoints to view detailed logs from discovery operations.
+ * This controller provides endpoints to view detailed logs from discovery operations,
+ * as recorded by the configured discovery log service.
  */
 @RestController
 @RequestMapping("/api/discovery-logs")
-public class DiscoveryLogController implements DiscoveryLogService {
+public class DiscoveryLogController {
     private static final Logger LOG = LoggerFactory.getLogger(DiscoveryLogController.class);
     
     @Autowired
-    private List<CloudProvider> cloudProviders;
-    
-    // Store logs by provider ID
-    private final Map<String, List<Map<String, Object>>> discoveryLogs = new ConcurrentHashMap<>();
-    
-    // Store the latest discovered resources for each provider
-    private final Map<String, Set<CloudResource>> discoveredResources = new ConcurrentHashMap<>();
-    
-    @Override
-    public void addLogEntry(String providerId, Map<String, Object> logEntry) {
-        // Create list if it doesn't exist
-        discoveryLogs.computeIfAbsent(providerId, k -> new ArrayList<>());
-        
-        // Add log entry with timestamp
-        logEntry.put("timestamp", new Date());
-        List<Map<String, Object>> logs = discoveryLogs.get(providerId);
-        
-        // Limit to 100 entries per provider
-        if (logs.size() >= 100) {
-            logs.remove(0);
-        }
-        
-        logs.add(logEntry);
-        LOG.debug("Added discovery log entry for provider {}: {}", providerId, logEntry);
-    }
-    
-    @Override
-    public void storeDiscoveredResources(String providerId, Set<CloudResource> resources) {
-        discoveredResources.put(providerId, resources);
-        LOG.debug("Stored {} discovered resources for provider {}", resources.size(), providerId);
-    }
+    private DiscoveryLogService discoveryLogService;
     
     /**
      * Get discovery logs for a provider via REST
@@ -60,16 +30,34 @@ public class DiscoveryLogController implements DiscoveryLogService {
     @GetMapping("/{providerId}")
     public ResponseEntity<List<Map<String, Object>>> getProviderLogsRest(@PathVariable String providerId) {
         LOG.debug("Getting discovery logs for provider: {}", providerId);
-        List<Map<String, Object>> logs = getProviderLogs(providerId);
+        List<Map<String, Object>> logs = discoveryLogService.getProviderLogs(providerId);
         return ResponseEntity.ok(logs);
     }
     
     /**
-     * Implementation of the interface method
+     * Query discovery logs for a provider via REST, newest first.
+     * Supports a minimum level, an action, an ISO-8601 time range and cursor paging.
      */
-    @Override
-    public List<Map<String, Object>> getProviderLogs(String providerId) {
-        return discoveryLogs.getOrDefault(providerId, new ArrayList<>());
+    @GetMapping("/{providerId}/query")
+    public ResponseEntity<Map<String, Object>> queryLogsRest(
+            @PathVariable String providerId,
+            @RequestParam(required = false) String level,
+            @RequestParam(required = false) String action,
+            @RequestParam(required = false) String since,
+            @RequestParam(required = false) String until,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            LogQuery query = LogQuery.fromParameters(level, action, since, until, cursor, limit);
+            Map<String, Object> response = discoveryLogService.queryLogs(providerId, query).toMap();
+            response.put("providerId", providerId);
+            return ResponseEntity.ok(response);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "Invalid time parameter: " + e.getParsedString(),
+                "providerId", providerId
+            ));
+        }
     }
     
     /**
@@ -78,36 +66,23 @@ public class DiscoveryLogController implements DiscoveryLogService {
     @GetMapping("/{providerId}/resources")
     public ResponseEntity<List<Map<String, Object>>> getDiscoveredResourcesRest(@PathVariable String providerId) {
         LOG.debug("Getting discovered resources for provider: {}", providerId);
-        List<Map<String, Object>> resources = getDiscoveredResources(providerId);
-        return ResponseEntity.ok(resources);
-    }
-    
-    /**
-     * Implementation of the interface method
-     */
-    @Override
-    public List<Map<String, Object>> getDiscoveredResources(String providerId) {
-        Set<CloudResource> resources = discoveredResources.getOrDefault(providerId, Collections.emptySet());
         List<Map<String, Object>> resourceData = new ArrayList<>();
         
-        for (CloudResource resource : resources) {
+        for (Map<String, Object> resource : discoveryLogService.getDiscoveredResources(providerId)) {
             Map<String, Object> data = new HashMap<>();
-            data.put("id", resource.getResourceId());
-            data.put("name", resource.getDisplayName());
-            data.put("type", resource.getResourceType());
-            data.put("status", resource.getStatus());
-            data.put("region", resource.getRegion());
+            data.put("id", resource.get("resourceId"));
+            data.put("name", resource.get("name"));
+            data.put("type", resource.get("resourceType"));
+            data.put("status", resource.get("status"));
+            data.put("region", resource.get("region"));
             
-            // Combine tags and properties for detailed view
-            Map<String, Object> details = new HashMap<>();
-            details.putAll(resource.getProperties());
-            resource.getTags().forEach(details::put);
-            data.put("details", details);
+            // Tags and properties combined for detailed view
+            data.put("details", resource.getOrDefault("metadata", Collections.emptyMap()));
             
             resourceData.add(data);
         }
         
-        return resourceData;
+        return ResponseEntity.ok(resourceData);
     }
     
     /**
@@ -116,18 +91,10 @@ public class DiscoveryLogController implements DiscoveryLogService {
     @DeleteMapping("/{providerId}")
     public ResponseEntity<Map<String, Object>> clearProviderLogsRest(@PathVariable String providerId) {
         LOG.info("Clearing discovery logs for provider: {}", providerId);
-        clearProviderLogs(providerId);
+        discoveryLogService.clearProviderLogs(providerId);
         return ResponseEntity.ok(Map.of(
             "message", "Logs cleared for provider " + providerId,
             "providerId", providerId
         ));
     }
-    
-    /**
-     * Implementation of the interface method
-     */
-    @Override
-    public void clearProviderLogs(String providerId) {
-        discoveryLogs.remove(providerId);
-    }
-}
\ No newline at end of file
+}
@@ -5,9 +5,12 @@ import org.opennms.bridge.api.CloudResource;
 import org.opennms.bridge.api.DiscoveredNode;
 import org.opennms.bridge.api.MetricCollection;
 import org.opennms.bridge.core.service.OpenNMSClient;
+import org.opennms.bridge.core.service.RequisitionSync;
 import org.opennms.bridge.webapp.config.BeanConfig;
 import org.opennms.bridge.webapp.service.AwsConfigRefresher;
+import org.opennms.bridge.webapp.service.BulkTransferService;
 import org.opennms.bridge.webapp.service.IntegrationConfigService;
+import org.opennms.bridge.webapp.service.ProviderRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -48,7 +51,7 @@ public class OpenNMSController {
     private IntegrationConfigService integrationConfigService;
     
     @Autowired
-    private List<CloudProvider> cloudProviders;
+    private ProviderRegistry providerRegistry;
     
     private static final Logger LOG = LoggerFactory.getLogger(OpenNMSController.class);
 
@@ -58,9 +61,15 @@ public class OpenNMSController {
     @Autowired
     private BeanConfig beanConfig;
     
+    @Autowired(required = false)
+    private RequisitionSync requisitionSync;
+    
     @Autowired
     private AwsConfigRefresher awsConfigRefresher;
     
+    @Autowired
+    private BulkTransferService bulkTransferService;
+    
     @Value("${opennms.base-url}")
     private String baseUrl;
     
@@ -84,6 +93,10 @@ public class OpenNMSController {
         connectionInfo.put("username", username);
         connectionInfo.put("defaultLocation", defaultLocation);
         connectionInfo.put("connectionStatus", isConnected);
+        connectionInfo.put("connectionState", openNMSClient.getConnectionStatus());
+        if (requisitionSync != null) {
+            connectionInfo.put("requisitions", requisitionSync.getStatistics());
+        }
         
         return ResponseEntity.ok(connectionInfo);
     }
@@ -274,8 +287,9 @@ public class OpenNMSController {
         Map<String, Object> status = new HashMap<>();
         
         try {
-            boolean connected = openNMSClient.testConnection();
+            boolean connected = openNMSClient.isAvailable();
             status.put("connected", connected);
+            status.put("connection", openNMSClient.getConnectionStatus());
             
             if (connected) {
                 // In a real implementation, these would be actual metrics
@@ -315,8 +329,8 @@ public class OpenNMSController {
         Map<String, Object> response = new HashMap<>();
         
         try {
-            // Verify connection to OpenNMS
-            if (!openNMSClient.testConnection()) {
+            // Check the cached connection state
+            if (!openNMSClient.isAvailable()) {
                 response.put("success", false);
                 response.put("message", "Not connected to OpenNMS. Please check your connection settings.");
                 return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
@@ -412,8 +426,8 @@ public class OpenNMSController {
         Map<String, Object> response = new HashMap<>();
         
         try {
-            // Verify connection to OpenNMS
-            if (!openNMSClient.testConnection()) {
+            // Check the cached connection state
+            if (!openNMSClient.isAvailable()) {
                 response.put("success", false);
                 response.put("message", "Not connected to OpenNMS. Please check your connection settings.");
                 return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
@@ -526,6 +540,86 @@ public class OpenNMSController {
         }
     }
     
+    /**
+     * Create or update many nodes in OpenNMS as a single job
+     * 
+     * @param request the bulk request with resources and/or provider, region and tag selectors
+     * @return the response with job ID
+     */
+    @PostMapping("/nodes/bulk")
+    public ResponseEntity<Map<String, Object>> createOrUpdateNodes(@RequestBody Map<String, Object> request) {
+        LOG.info("Starting bulk node transfer to OpenNMS");
+        return startBulkTransfer(request, false);
+    }
+    
+    /**
+     * Collect and send metrics for many resources to OpenNMS as a single job
+     * 
+     * @param request the bulk request with resources and/or provider, region and tag selectors
+     * @return the response with job ID
+     */
+    @PostMapping("/metrics/bulk")
+    public ResponseEntity<Map<String, Object>> sendMetricsBulk(@RequestBody Map<String, Object> request) {
+        LOG.info("Starting bulk metrics transfer to OpenNMS");
+        return startBulkTransfer(request, true);
+    }
+    
+    /**
+     * Get the status of a bulk transfer job
+     * 
+     * @param jobId the job ID
+     * @param includeResults whether to include per-item results
+     * @return the job status
+     */
+    @GetMapping("/transfers/bulk/{jobId}")
+    public ResponseEntity<Map<String, Object>> getBulkTransferStatus(
+            @PathVariable String jobId,
+            @RequestParam(defaultValue = "true") boolean includeResults) {
+        LOG.debug("Getting bulk transfer job status: {}", jobId);
+        
+        BulkTransferService.BulkTransferJob job = bulkTransferService.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        return ResponseEntity.ok(job.toMap(includeResults));
+    }
+    
+    private ResponseEntity<Map<String, Object>> startBulkTransfer(Map<String, Object> request, boolean metrics) {
+        Map<String, Object> response = new HashMap<>();
+        
+        try {
+            BulkTransferService.BulkSelector selector = BulkTransferService.BulkSelector.fromRequest(request);
+            
+            // Check the cached connection state once for the whole job
+            if (!openNMSClient.isAvailable()) {
+                response.put("success", false);
+                response.put("message", "Not connected to OpenNMS. Please check your connection settings.");
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+            }
+            
+            int parallelism = request.get("parallelism") instanceof Number
+                    ? ((Number) request.get("parallelism")).intValue() : 0;
+            
+            BulkTransferService.BulkTransferJob job = metrics
+                    ? bulkTransferService.startMetricsTransfer(selector, parallelism)
+                    : bulkTransferService.startNodeTransfer(selector, parallelism);
+            
+            response.put("success", true);
+            response.putAll(job.toMap(false));
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            LOG.error("Error processing bulk transfer request", e);
+            response.put("success", false);
+            response.put("message", "Error processing request: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+    
     /**
      * Get the status of a transfer job
      * 
@@ -696,14 +790,7 @@ public class OpenNMSController {
      * @return the provider or null if not found
      */
     private CloudProvider findProviderById(String providerId) {
-        if (providerId == null) {
-            return null;
-        }
-        
-        return cloudProviders.stream()
-                .filter(p -> providerId.equals(p.getProviderId()))
-                .findFirst()
-                .orElse(null);
+        return providerRegistry.getProvider(providerId);
     }
     
     /**
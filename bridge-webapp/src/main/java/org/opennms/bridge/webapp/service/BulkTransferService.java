@@ -0,0 +1,599 @@
+package org.opennms.bridge.webapp.service;
+
+import org.opennms.bridge.api.CloudProvider;
+import org.opennms.bridge.api.CloudResource;
+import org.opennms.bridge.api.MetricBatch;
+import org.opennms.bridge.core.service.OpenNMSClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Service for transferring many resources to OpenNMS as a single job.
+ * Each provider is discovered once per job, node IDs are looked up once per foreign source,
+ * and the per-resource OpenNMS calls run with bounded parallelism.
+ */
+@Service
+public class BulkTransferService {
+    private static final Logger LOG = LoggerFactory.getLogger(BulkTransferService.class);
+
+    @Autowired
+    private ProviderRegistry providerRegistry;
+
+    @Autowired
+    private OpenNMSClient openNMSClient;
+
+    @Value("${opennms.bulk.max-parallelism:8}")
+    private int maxParallelism;
+
+    @Value("${opennms.bulk.max-retained-jobs:50}")
+    private int maxRetainedJobs;
+
+    private final Map<String, BulkTransferJob> jobs = new ConcurrentHashMap<>();
+
+    private ExecutorService jobExecutor;
+    private ExecutorService workerExecutor;
+
+    @PostConstruct
+    public void init() {
+        maxParallelism = Math.max(1, maxParallelism);
+        jobExecutor = Executors.newCachedThreadPool();
+        workerExecutor = Executors.newFixedThreadPool(maxParallelism);
+        LOG.info("Bulk transfer service initialized with max parallelism {}", maxParallelism);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+        workerExecutor.shutdownNow();
+    }
+
+    /**
+     * Start a bulk node create/update job.
+     *
+     * @param selector the resources to transfer
+     * @param parallelism requested parallelism, capped at the configured maximum
+     * @return the started job
+     */
+    public BulkTransferJob startNodeTransfer(BulkSelector selector, int parallelism) {
+        return startJob(BulkTransferType.NODES, selector, parallelism);
+    }
+
+    /**
+     * Start a bulk metrics collection and submission job.
+     *
+     * @param selector the resources to transfer
+     * @param parallelism requested parallelism, capped at the configured maximum
+     * @return the started job
+     */
+    public BulkTransferJob startMetricsTransfer(BulkSelector selector, int parallelism) {
+        return startJob(BulkTransferType.METRICS, selector, parallelism);
+    }
+
+    /**
+     * Get a bulk transfer job.
+     *
+     * @param jobId the job ID
+     * @return the job or null if not found
+     */
+    public BulkTransferJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    /**
+     * Get all retained bulk transfer jobs, newest first.
+     *
+     * @return list of jobs
+     */
+    public List<BulkTransferJob> getJobs() {
+        List<BulkTransferJob> result = new ArrayList<>(jobs.values());
+        result.sort(Comparator.comparing(BulkTransferJob::getStartTime).reversed());
+        return result;
+    }
+
+    private BulkTransferJob startJob(BulkTransferType type, BulkSelector selector, int parallelism) {
+        int effectiveParallelism = parallelism > 0 ? Math.min(parallelism, maxParallelism) : maxParallelism;
+
+        BulkTransferJob job = new BulkTransferJob(UUID.randomUUID().toString(), type, effectiveParallelism);
+        job.setStatus("RUNNING");
+        job.setMessage("Resolving resources...");
+        jobs.put(job.getJobId(), job);
+        trimJobs();
+
+        jobExecutor.submit(() -> runJob(job, selector));
+        return job;
+    }
+
+    private void runJob(BulkTransferJob job, BulkSelector selector) {
+        try {
+            Map<String, List<CloudResource>> resourcesByProvider = resolveResources(job, selector);
+            int total = resourcesByProvider.values().stream().mapToInt(List::size).sum();
+            // Resources that were requested but could not be resolved count as failed items
+            job.setTotal(total + job.getFailedCount());
+            job.setMessage("Transferring " + total + " resources");
+            LOG.info("Bulk {} job {} resolved {} resources across {} providers",
+                    job.getType(), job.getJobId(), total, resourcesByProvider.size());
+
+            for (Map.Entry<String, List<CloudResource>> entry : resourcesByProvider.entrySet()) {
+                String providerId = entry.getKey();
+                CloudProvider provider = findProvider(providerId);
+
+                // One lookup per foreign source instead of one per resource
+                Map<String, String> nodeIds = new ConcurrentHashMap<>(openNMSClient.findNodeIdsByForeignSource(providerId));
+
+                if (job.getType() == BulkTransferType.NODES) {
+                    runParallel(job, entry.getValue(), resource -> transferNode(job, providerId, resource, nodeIds));
+                } else {
+                    transferMetrics(job, provider, providerId, entry.getValue(), nodeIds);
+                }
+            }
+
+            boolean anyFailed = job.getFailedCount() > 0 || job.getFailedProviderCount() > 0;
+            job.setStatus(anyFailed && job.getSucceededCount() == 0 ? "FAILED" : "COMPLETED");
+            String message = "Transferred " + job.getSucceededCount() + " of " + job.getTotal() + " resources, "
+                    + job.getFailedCount() + " failed";
+            if (job.getFailedProviderCount() > 0) {
+                message += ", " + job.getFailedProviderCount() + " providers failed";
+            }
+            job.setMessage(message);
+        } catch (Exception e) {
+            LOG.error("Bulk transfer job {} failed: {}", job.getJobId(), e.getMessage(), e);
+            job.setStatus("FAILED");
+            job.setMessage("Bulk transfer failed: " + e.getMessage());
+        } finally {
+            job.setEndTime(Instant.now());
+            LOG.info("Bulk {} job {} finished: {}", job.getType(), job.getJobId(), job.getMessage());
+        }
+    }
+
+    /**
+     * Resolve the selector into resources, discovering each provider at most once.
+     */
+    private Map<String, List<CloudResource>> resolveResources(BulkTransferJob job, BulkSelector selector) {
+        Map<String, List<CloudResource>> resourcesByProvider = new LinkedHashMap<>();
+
+        Set<String> providerIds = new LinkedHashSet<>(selector.getProviderIds());
+        providerIds.addAll(selector.getResourceIds().keySet());
+
+        for (String providerId : providerIds) {
+            CloudProvider provider = findProvider(providerId);
+            Set<String> requestedIds = selector.getResourceIds().getOrDefault(providerId, Collections.emptySet());
+
+            if (provider == null) {
+                job.failProvider(providerId, "provider not found");
+                requestedIds.forEach(id -> job.fail(providerId + ":" + id, "provider not found"));
+                continue;
+            }
+
+            Map<String, CloudResource> discovered = new HashMap<>();
+            try {
+                for (CloudResource resource : provider.discover()) {
+                    discovered.put(resource.getResourceId(), resource);
+                }
+            } catch (Exception e) {
+                LOG.warn("Discovery failed for provider {} in bulk job {}: {}", providerId, job.getJobId(), e.getMessage());
+                job.failProvider(providerId, "discovery failed: " + e.getMessage());
+                requestedIds.forEach(id -> job.fail(providerId + ":" + id, "discovery failed"));
+                continue;
+            }
+
+            Map<String, CloudResource> selected = new LinkedHashMap<>();
+            for (String resourceId : requestedIds) {
+                CloudResource resource = discovered.get(resourceId);
+                if (resource == null) {
+                    job.fail(providerId + ":" + resourceId, "resource not found");
+                } else {
+                    selected.put(resourceId, resource);
+                }
+            }
+
+            if (selector.getProviderIds().contains(providerId)) {
+                for (CloudResource resource : discovered.values()) {
+                    if (selector.matches(resource)) {
+                        selected.putIfAbsent(resource.getResourceId(), resource);
+                    }
+                }
+            }
+
+            if (!selected.isEmpty()) {
+                resourcesByProvider.put(providerId, new ArrayList<>(selected.values()));
+            }
+        }
+
+        return resourcesByProvider;
+    }
+
+    private void transferNode(BulkTransferJob job, String providerId, CloudResource resource, Map<String, String> nodeIds) {
+        String foreignId = providerId + ":" + resource.getResourceId();
+        try {
+            openNMSClient.createOrUpdateNode(providerId, resource, nodeIds.get(foreignId));
+            job.succeed(foreignId);
+        } catch (Exception e) {
+            job.fail(foreignId, rootMessage(e));
+        }
+    }
+
+    /**
+     * Collect all resources first, create the missing nodes, refresh the node IDs once, then submit.
+     */
+    private void transferMetrics(BulkTransferJob job, CloudProvider provider, String providerId,
+                                 List<CloudResource> resources, Map<String, String> nodeIds) {
+        Map<CloudResource, MetricBatch> collected = new ConcurrentHashMap<>();
+        AtomicInteger createdNodes = new AtomicInteger();
+
+        // Fleet-wide collection where the provider supports it; the rest is collected per resource
+        Map<String, MetricBatch> prefetched = provider.collectBatches(resources);
+
+        runParallel(job, resources, resource -> {
+            String foreignId = providerId + ":" + resource.getResourceId();
+            try {
+                MetricBatch metrics = prefetched.get(resource.getResourceId());
+                if (metrics == null) {
+                    metrics = provider.collectBatch(resource);
+                }
+                if (metrics == null || metrics.isEmpty()) {
+                    job.fail(foreignId, "no metrics collected");
+                    return;
+                }
+                if (!nodeIds.containsKey(foreignId)) {
+                    openNMSClient.createOrUpdateNode(providerId, resource, null);
+                    createdNodes.incrementAndGet();
+                }
+                collected.put(resource, metrics);
+            } catch (Exception e) {
+                job.fail(foreignId, rootMessage(e));
+            }
+        });
+
+        if (createdNodes.get() > 0) {
+            nodeIds.putAll(openNMSClient.findNodeIdsByForeignSource(providerId));
+        }
+
+        runParallel(job, collected.keySet(), resource -> {
+            String foreignId = providerId + ":" + resource.getResourceId();
+            String nodeId = nodeIds.get(foreignId);
+            if (nodeId == null) {
+                job.fail(foreignId, "node ID not found in OpenNMS");
+                return;
+            }
+            try {
+                MetricBatch metrics = collected.get(resource);
+                openNMSClient.submitMetrics(nodeId, metrics);
+                // Scheduled collection need not deliver these samples again
+                metrics.markDelivered();
+                job.addMetrics(metrics.size());
+                job.succeed(foreignId);
+            } catch (Exception e) {
+                job.fail(foreignId, rootMessage(e));
+            }
+        });
+    }
+
+    /**
+     * Run a task for each resource on the shared worker pool, allowing at most the job's parallelism at once.
+     */
+    private void runParallel(BulkTransferJob job, Collection<CloudResource> resources, Consumer<CloudResource> task) {
+        Semaphore permits = new Semaphore(job.getParallelism());
+        List<CompletableFuture<Void>> futures = new ArrayList<>(resources.size());
+
+        try {
+            for (CloudResource resource : resources) {
+                permits.acquire();
+                futures.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        task.accept(resource);
+                    } finally {
+                        permits.release();
+                    }
+                }, workerExecutor));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(f -> f.cancel(true));
+            throw new IllegalStateException("Bulk transfer interrupted", e);
+        }
+    }
+
+    private CloudProvider findProvider(String providerId) {
+        return providerRegistry.getProvider(providerId);
+    }
+
+    private void trimJobs() {
+        if (jobs.size() <= maxRetainedJobs) {
+            return;
+        }
+        jobs.values().stream()
+                .filter(job -> job.getEndTime() != null)
+                .sorted(Comparator.comparing(BulkTransferJob::getStartTime))
+                .limit(jobs.size() - maxRetainedJobs)
+                .forEach(job -> jobs.remove(job.getJobId()));
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable cause = e;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+    }
+
+    /**
+     * Bulk transfer job type
+     */
+    public enum BulkTransferType {
+        NODES,
+        METRICS
+    }
+
+    /**
+     * Selects the resources of a bulk transfer, either explicitly or by provider, region and tags.
+     */
+    public static class BulkSelector {
+        private final Map<String, Set<String>> resourceIds = new LinkedHashMap<>();
+        private final Set<String> providerIds = new LinkedHashSet<>();
+        private final Set<String> regions = new LinkedHashSet<>();
+        private final Map<String, String> tags = new HashMap<>();
+
+        /**
+         * Parse a selector from a request body. Supported keys are
+         * {@code resources} (list of {@code {providerId, resourceId}} objects or {@code "providerId:resourceId"} strings),
+         * {@code providerId}/{@code providerIds}, {@code region}/{@code regions} and {@code tags}.
+         *
+         * @param request the request body
+         * @return the selector
+         * @throws IllegalArgumentException if the request selects nothing
+         */
+        @SuppressWarnings("unchecked")
+        public static BulkSelector fromRequest(Map<String, Object> request) {
+            BulkSelector selector = new BulkSelector();
+
+            Object resources = request.get("resources");
+            if (resources instanceof Collection) {
+                for (Object item : (Collection<Object>) resources) {
+                    if (item instanceof Map) {
+                        Map<String, Object> ref = (Map<String, Object>) item;
+                        selector.addResource((String) ref.get("providerId"), (String) ref.get("resourceId"));
+                    } else if (item instanceof String) {
+                        String[] parts = ((String) item).split(":", 2);
+                        if (parts.length == 2) {
+                            selector.addResource(parts[0], parts[1]);
+                        }
+                    }
+                }
+            }
+
+            addValues(selector.providerIds, request.get("providerId"));
+            addValues(selector.providerIds, request.get("providerIds"));
+            addValues(selector.regions, request.get("region"));
+            addValues(selector.regions, request.get("regions"));
+
+            Object tags = request.get("tags");
+            if (tags instanceof Map) {
+                ((Map<String, Object>) tags).forEach((key, value) -> selector.tags.put(key, String.valueOf(value)));
+            }
+
+            if (selector.resourceIds.isEmpty() && selector.providerIds.isEmpty()) {
+                throw new IllegalArgumentException("Either resources or providerId(s) must be specified");
+            }
+            return selector;
+        }
+
+        private static void addValues(Set<String> target, Object value) {
+            if (value instanceof String && !((String) value).isEmpty()) {
+                target.add((String) value);
+            } else if (value instanceof Collection) {
+                for (Object item : (Collection<?>) value) {
+                    if (item != null) {
+                        target.add(item.toString());
+                    }
+                }
+            }
+        }
+
+        private void addResource(String providerId, String resourceId) {
+            if (providerId != null && resourceId != null) {
+                resourceIds.computeIfAbsent(providerId, k -> new LinkedHashSet<>()).add(resourceId);
+            }
+        }
+
+        /**
+         * Check whether a discovered resource matches the region and tag filters.
+         *
+         * @param resource the resource
+         * @return true if the resource is selected
+         */
+        public boolean matches(CloudResource resource) {
+            if (!regions.isEmpty() && !regions.contains(resource.getRegion())) {
+                return false;
+            }
+            for (Map.Entry<String, String> tag : tags.entrySet()) {
+                Map<String, String> resourceTags = resource.getTags();
+                if (resourceTags == null || !tag.getValue().equals(resourceTags.get(tag.getKey()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public Map<String, Set<String>> getResourceIds() {
+            return resourceIds;
+        }
+
+        public Set<String> getProviderIds() {
+            return providerIds;
+        }
+
+        public Set<String> getRegions() {
+            return regions;
+        }
+
+        public Map<String, String> getTags() {
+            return tags;
+        }
+    }
+
+    /**
+     * Bulk transfer job tracking class. Per-item results are kept compact:
+     * succeeded items as foreign IDs, failed items as foreign ID to reason.
+     * Providers that could not be resolved at all are tracked apart from the items,
+     * since the number of resources they would have contributed is unknown.
+     */
+    public static class BulkTransferJob {
+        private final String jobId;
+        private final BulkTransferType type;
+        private final int parallelism;
+        private final Instant startTime = Instant.now();
+        private final Queue<String> succeeded = new ConcurrentLinkedQueue<>();
+        private final Map<String, String> failed = new ConcurrentHashMap<>();
+        private final Map<String, String> failedProviders = new ConcurrentHashMap<>();
+        private final AtomicLong metricCount = new AtomicLong();
+        private volatile String status;
+        private volatile String message;
+        private volatile Instant endTime;
+        private volatile int total;
+
+        public BulkTransferJob(String jobId, BulkTransferType type, int parallelism) {
+            this.jobId = jobId;
+            this.type = type;
+            this.parallelism = parallelism;
+        }
+
+        void succeed(String foreignId) {
+            succeeded.add(foreignId);
+        }
+
+        void fail(String foreignId, String reason) {
+            failed.put(foreignId, reason);
+        }
+
+        void failProvider(String providerId, String reason) {
+            failedProviders.put(providerId, reason);
+        }
+
+        void addMetrics(int count) {
+            metricCount.addAndGet(count);
+        }
+
+        /**
+         * Convert the job to a response map.
+         *
+         * @param includeResults whether to include the per-item results
+         * @return the job as a map
+         */
+        public Map<String, Object> toMap(boolean includeResults) {
+            Map<String, Object> data = new HashMap<>();
+            data.put("jobId", jobId);
+            data.put("type", type.toString());
+            data.put("status", status);
+            data.put("message", message);
+            data.put("parallelism", parallelism);
+            data.put("startTime", startTime);
+            if (endTime != null) {
+                data.put("endTime", endTime);
+            }
+            data.put("total", total);
+            data.put("succeeded", succeeded.size());
+            data.put("failed", failed.size());
+            data.put("failedProviders", failedProviders.size());
+            if (type == BulkTransferType.METRICS) {
+                data.put("metricCount", metricCount.get());
+            }
+            if (includeResults) {
+                Map<String, Object> results = new HashMap<>();
+                results.put("succeeded", new ArrayList<>(succeeded));
+                results.put("failed", new HashMap<>(failed));
+                results.put("failedProviders", new HashMap<>(failedProviders));
+                data.put("results", results);
+            }
+            return data;
+        }
+
+        public String getJobId() {
+            return jobId;
+        }
+
+        public BulkTransferType getType() {
+            return type;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public Instant getStartTime() {
+            return startTime;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public void setStatus(String status) {
+            this.status = status;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+
+        public Instant getEndTime() {
+            return endTime;
+        }
+
+        public void setEndTime(Instant endTime) {
+            this.endTime = endTime;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public void setTotal(int total) {
+            this.total = total;
+        }
+
+        public int getSucceededCount() {
+            return succeeded.size();
+        }
+
+        public int getFailedCount() {
+            return failed.size();
+        }
+
+        public int getFailedProviderCount() {
+            return failedProviders.size();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package org.opennms.bridge.webapp.service;
+
+import org.opennms.bridge.api.LogEntry;
+import org.opennms.bridge.api.LogPage;
+import org.opennms.bridge.api.LogQuery;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-capacity, lock-free ring buffer of log entries.
+ * Writers claim a sequence number with a single atomic increment and publish the entry into its slot,
+ * overwriting the oldest entry once the buffer is full. Readers never block writers; a slot whose entry
+ * does not carry the expected sequence number has been overwritten or is not yet published and is skipped.
+ */
+public class LogRingBuffer {
+
+    private final int capacity;
+    private final AtomicReferenceArray<LogEntry> slots;
+    private final AtomicLong lastSequence = new AtomicLong();
+
+    public LogRingBuffer(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.slots = new AtomicReferenceArray<>(this.capacity);
+    }
+
+    /**
+     * Append a map-based log entry.
+     *
+     * @param logEntry the log entry
+     * @return the stored entry
+     */
+    public LogEntry append(Map<String, Object> logEntry) {
+        long sequence = lastSequence.incrementAndGet();
+        LogEntry entry = LogEntry.fromMap(sequence, logEntry);
+        publish(entry);
+        return entry;
+    }
+
+    /**
+     * Append a typed log entry.
+     *
+     * @return the stored entry
+     */
+    public LogEntry append(LogEntry.Level level, String action, String region, String resourceId,
+                           String message, Map<String, Object> details) {
+        long sequence = lastSequence.incrementAndGet();
+        LogEntry entry = new LogEntry(sequence, System.currentTimeMillis(), level, action, region,
+                resourceId, message, details);
+        publish(entry);
+        return entry;
+    }
+
+    /**
+     * Read a page of entries, newest first.
+     *
+     * @param query the filter and paging parameters
+     * @return the matching page
+     */
+    public LogPage query(LogQuery query) {
+        long newest = lastSequence.get();
+        long oldest = Math.max(1, newest - capacity + 1);
+        long start = query.getCursor() != null ? Math.min(newest, query.getCursor() - 1) : newest;
+
+        List<LogEntry> page = new ArrayList<>(Math.min(query.getLimit(), capacity));
+        for (long sequence = start; sequence >= oldest; sequence--) {
+            LogEntry entry = read(sequence);
+            if (entry == null || !query.matches(entry)) {
+                continue;
+            }
+            if (page.size() == query.getLimit()) {
+                return new LogPage(page, page.get(page.size() - 1).getSequence());
+            }
+            page.add(entry);
+        }
+        return new LogPage(page, null);
+    }
+
+    /**
+     * Get all retained entries as maps, oldest first.
+     *
+     * @return list of log entries
+     */
+    public List<Map<String, Object>> toMaps() {
+        long newest = lastSequence.get();
+        long oldest = Math.max(1, newest - capacity + 1);
+        List<Map<String, Object>> logs = new ArrayList<>((int) (newest - oldest + 1));
+        for (long sequence = oldest; sequence <= newest; sequence++) {
+            LogEntry entry = read(sequence);
+            if (entry != null) {
+                logs.add(entry.toMap());
+            }
+        }
+        return logs;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Store an entry in its slot unless a writer that lapped it has already stored a newer one there.
+     */
+    void publish(LogEntry entry) {
+        slots.accumulateAndGet(slot(entry.getSequence()), entry,
+                (current, next) -> current == null || current.getSequence() < next.getSequence() ? next : current);
+    }
+
+    private LogEntry read(long sequence) {
+        LogEntry entry = slots.get(slot(sequence));
+        return entry != null && entry.getSequence() == sequence ? entry : null;
+    }
+
+    private int slot(long sequence) {
+        return (int) (sequence % capacity);
+    }
+}
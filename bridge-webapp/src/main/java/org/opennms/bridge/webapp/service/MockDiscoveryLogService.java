@@ -11,6 +11,7 @@ import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Mock implementation of the DiscoveryLogService interface for testing.
@@ -26,10 +27,13 @@ public class MockDiscoveryLogService implements DiscoveryLogService {
     // Store the latest discovered resources for each provider
     private final Map<String, Set<CloudResource>> discoveredResources = new ConcurrentHashMap<>();
     
+    private final AtomicLong lastSequence = new AtomicLong();
+    
     @PostConstruct
     public void init() {
         // Create some sample log entries for the mock AWS provider
         List<Map<String, Object>> mockLogs = createSampleLogs("aws-mock");
+        mockLogs.forEach(log -> log.put("sequence", lastSequence.incrementAndGet()));
         discoveryLogs.put("aws-mock", mockLogs);
         
         LOG.info("Initialized mock discovery logs for 'aws-mock' provider");
@@ -45,6 +49,9 @@ public class MockDiscoveryLogService implements DiscoveryLogService {
             logEntry.put("timestamp", new Date());
         }
         
+        // Sequence numbers keep query cursors stable when old entries are dropped
+        logEntry.put("sequence", lastSequence.incrementAndGet());
+        
         List<Map<String, Object>> logs = discoveryLogs.get(providerId);
         
         // Limit to 100 entries per provider
@@ -0,0 +1,244 @@
+package org.opennms.bridge.webapp.service;
+
+import org.opennms.bridge.api.CloudProvider;
+import org.opennms.bridge.webapp.config.BeanConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Registry of cloud providers indexed by provider ID and alias.
+ * This is the one place the mock/real provider filter lives. It is applied once whenever the mock provider setting
+ * changes, so lookups are a single hash lookup against an immutable snapshot.
+ */
+@Service
+public class ProviderRegistry {
+    private static final Logger LOG = LoggerFactory.getLogger(ProviderRegistry.class);
+
+    // Bean names the UI used for the mock provider before providers were looked up by ID
+    private static final String MOCK_PROVIDER_ID = "aws-mock";
+    private static final List<String> LEGACY_MOCK_ALIASES = List.of("awsCloudProvider", "mockAwsCloudProvider");
+
+    @Autowired
+    private List<CloudProvider> cloudProviders;
+
+    @Autowired
+    private BeanConfig beanConfig;
+
+    private final List<CloudProvider> registeredProviders = new CopyOnWriteArrayList<>();
+
+    private volatile Snapshot snapshot;
+
+    @PostConstruct
+    public void init() {
+        registeredProviders.addAll(cloudProviders);
+        refresh();
+    }
+
+    /**
+     * Get a provider by ID or alias, honoring the mock provider setting.
+     *
+     * @param idOrAlias provider ID, lowercase ID or bean name
+     * @return the provider or null if not found or filtered out
+     */
+    public CloudProvider getProvider(String idOrAlias) {
+        if (idOrAlias == null) {
+            return null;
+        }
+        return currentSnapshot().byAlias.get(idOrAlias);
+    }
+
+    /**
+     * Get all providers included by the current mock provider setting.
+     *
+     * @return immutable list of providers
+     */
+    public List<CloudProvider> getProviders() {
+        return currentSnapshot().providers;
+    }
+
+    /**
+     * Normalize a provider ID or alias to the canonical provider ID.
+     *
+     * @param idOrAlias provider ID or alias
+     * @return the canonical provider ID, or the input if it is unknown
+     */
+    public String normalizeProviderId(String idOrAlias) {
+        if (idOrAlias == null) {
+            return "unknown";
+        }
+        String providerId = currentSnapshot().idByAlias.get(idOrAlias);
+        if (providerId != null) {
+            return providerId;
+        }
+        return LEGACY_MOCK_ALIASES.contains(idOrAlias) ? MOCK_PROVIDER_ID : idOrAlias;
+    }
+
+    /**
+     * Check whether a provider exists but is excluded because mock providers are disabled.
+     *
+     * @param idOrAlias provider ID or alias
+     * @return true if the provider is registered but filtered out
+     */
+    public boolean isExcluded(String idOrAlias) {
+        return idOrAlias != null && currentSnapshot().excluded.containsKey(idOrAlias);
+    }
+
+    /**
+     * Check whether results for a provider ID should be shown under the current mock provider setting.
+     *
+     * @param idOrAlias provider ID or alias, e.g. of a job
+     * @return false if the provider is registered but filtered out
+     */
+    public boolean isIncluded(String idOrAlias) {
+        return !isExcluded(idOrAlias);
+    }
+
+    /**
+     * Get the current state of the mock providers setting.
+     *
+     * @return true if mock providers are enabled
+     */
+    public boolean isUseMockProviders() {
+        return beanConfig.getUseMockProviders();
+    }
+
+    /**
+     * Check whether a provider is a mock provider.
+     *
+     * @param provider the provider
+     * @return true for mock providers
+     */
+    public static boolean isMockProvider(CloudProvider provider) {
+        return simpleClassName(provider).contains("Mock");
+    }
+
+    /**
+     * Get the aliases that map to a different provider ID.
+     *
+     * @return map of alias to provider ID
+     */
+    public Map<String, String> getAliases() {
+        Map<String, String> aliases = new HashMap<>();
+        currentSnapshot().idByAlias.forEach((alias, providerId) -> {
+            if (!alias.equals(providerId)) {
+                aliases.put(alias, providerId);
+            }
+        });
+        return aliases;
+    }
+
+    /**
+     * Register a provider created at runtime.
+     *
+     * @param provider the provider
+     */
+    public void register(CloudProvider provider) {
+        registeredProviders.add(provider);
+        refresh();
+    }
+
+    /**
+     * Remove a provider by ID.
+     *
+     * @param providerId the provider ID
+     * @return true if a provider was removed
+     */
+    public boolean unregister(String providerId) {
+        boolean removed = registeredProviders.removeIf(provider -> provider.getProviderId().equals(providerId));
+        if (removed) {
+            refresh();
+        }
+        return removed;
+    }
+
+    /**
+     * Rebuild the index, e.g. after a provider ID has been reconfigured.
+     */
+    public void refresh() {
+        snapshot = buildSnapshot(beanConfig.getUseMockProviders());
+    }
+
+    private Snapshot currentSnapshot() {
+        Snapshot current = snapshot;
+        boolean useMock = beanConfig.getUseMockProviders();
+        if (current == null || current.useMockProviders != useMock) {
+            current = buildSnapshot(useMock);
+            snapshot = current;
+        }
+        return current;
+    }
+
+    private Snapshot buildSnapshot(boolean useMockProviders) {
+        List<CloudProvider> providers = new ArrayList<>();
+        Map<String, CloudProvider> byAlias = new HashMap<>();
+        Map<String, String> idByAlias = new HashMap<>();
+        Map<String, CloudProvider> excluded = new HashMap<>();
+
+        for (CloudProvider provider : registeredProviders) {
+            String className = simpleClassName(provider);
+            boolean included = useMockProviders || !isMockProvider(provider);
+
+            String providerId = provider.getProviderId();
+            String beanName = Character.toLowerCase(className.charAt(0)) + className.substring(1);
+            for (String alias : new String[] { providerId, providerId.toLowerCase(Locale.ROOT), beanName }) {
+                if (included) {
+                    byAlias.putIfAbsent(alias, provider);
+                    idByAlias.putIfAbsent(alias, providerId);
+                } else {
+                    excluded.putIfAbsent(alias, provider);
+                }
+            }
+            if (included) {
+                providers.add(provider);
+            }
+            if (included && MOCK_PROVIDER_ID.equals(providerId)) {
+                // Legacy aliases always meant the mock provider, even where they name a real provider's bean
+                for (String alias : LEGACY_MOCK_ALIASES) {
+                    byAlias.put(alias, provider);
+                    idByAlias.put(alias, providerId);
+                }
+            }
+        }
+
+        LOG.info("Indexed {} cloud providers ({} excluded, mock providers {})",
+                providers.size(), registeredProviders.size() - providers.size(), useMockProviders ? "enabled" : "disabled");
+        return new Snapshot(useMockProviders, Collections.unmodifiableList(providers), byAlias, idByAlias, excluded);
+    }
+
+    private static String simpleClassName(CloudProvider provider) {
+        String className = provider.getClass().getSimpleName();
+        int proxySuffix = className.indexOf("$$");
+        return proxySuffix > 0 ? className.substring(0, proxySuffix) : className;
+    }
+
+    /**
+     * Immutable index of the providers for one mock provider setting.
+     */
+    private static class Snapshot {
+        private final boolean useMockProviders;
+        private final List<CloudProvider> providers;
+        private final Map<String, CloudProvider> byAlias;
+        private final Map<String, String> idByAlias;
+        private final Map<String, CloudProvider> excluded;
+
+        Snapshot(boolean useMockProviders, List<CloudProvider> providers, Map<String, CloudProvider> byAlias,
+                 Map<String, String> idByAlias, Map<String, CloudProvider> excluded) {
+            this.useMockProviders = useMockProviders;
+            this.providers = providers;
+            this.byAlias = byAlias;
+            this.idByAlias = idByAlias;
+            this.excluded = excluded;
+        }
+    }
+}
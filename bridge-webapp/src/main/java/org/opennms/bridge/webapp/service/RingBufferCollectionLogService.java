@@ -0,0 +1,78 @@
+package org.opennms.bridge.webapp.service;
+
+import org.opennms.bridge.api.CollectionLogService;
+import org.opennms.bridge.api.LogEntry;
+import org.opennms.bridge.api.LogPage;
+import org.opennms.bridge.api.LogQuery;
+import org.opennms.bridge.api.MetricCollection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collection log service that keeps the most recent log entries and collection results
+ * for each provider in fixed-capacity lock-free ring buffers.
+ */
+@Service
+public class RingBufferCollectionLogService implements CollectionLogService {
+    private static final Logger LOG = LoggerFactory.getLogger(RingBufferCollectionLogService.class);
+
+    @Value("${bridge.collection.logs.maxLogs:100}")
+    private int maxLogs;
+
+    @Value("${bridge.collection.logs.maxResults:100}")
+    private int maxResults;
+
+    private final Map<String, LogRingBuffer> collectionLogs = new ConcurrentHashMap<>();
+
+    private final Map<String, LogRingBuffer> collectionResults = new ConcurrentHashMap<>();
+
+    @Override
+    public void addLogEntry(String providerId, Map<String, Object> logEntry) {
+        collectionLogs.computeIfAbsent(providerId, k -> new LogRingBuffer(maxLogs)).append(logEntry);
+    }
+
+    @Override
+    public void storeCollectionResult(String providerId, MetricCollection collection) {
+        Map<String, Object> details = new HashMap<>();
+        details.put("metricCount", collection.getMetrics() != null ? collection.getMetrics().size() : 0);
+        if (collection.getTimestamp() != null) {
+            details.put("collectionTimestamp", collection.getTimestamp().toString());
+        }
+        collectionResults.computeIfAbsent(providerId, k -> new LogRingBuffer(maxResults))
+                .append(LogEntry.Level.INFO, "collection_result", null, collection.getResourceId(), null, details);
+    }
+
+    @Override
+    public List<Map<String, Object>> getProviderLogs(String providerId) {
+        LogRingBuffer logs = collectionLogs.get(providerId);
+        return logs != null ? logs.toMaps() : new ArrayList<>();
+    }
+
+    @Override
+    public LogPage queryLogs(String providerId, LogQuery query) {
+        LogRingBuffer logs = collectionLogs.get(providerId);
+        return logs != null ? logs.query(query) : new LogPage(Collections.emptyList(), null);
+    }
+
+    @Override
+    public List<Map<String, Object>> getCollectionResults(String providerId) {
+        LogRingBuffer results = collectionResults.get(providerId);
+        return results != null ? results.toMaps() : new ArrayList<>();
+    }
+
+    @Override
+    public void clearProviderLogs(String providerId) {
+        collectionLogs.remove(providerId);
+        collectionResults.remove(providerId);
+        LOG.info("Cleared collection logs for provider {}", providerId);
+    }
+}
@@ -0,0 +1,88 @@
+package org.opennms.bridge.webapp.service;
+
+import org.opennms.bridge.api.CloudResource;
+import org.opennms.bridge.api.DiscoveryLogService;
+import org.opennms.bridge.api.LogPage;
+import org.opennms.bridge.api.LogQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Discovery log service that keeps the most recent entries for each provider
+ * in a fixed-capacity lock-free ring buffer.
+ */
+@Service
+public class RingBufferDiscoveryLogService implements DiscoveryLogService {
+    private static final Logger LOG = LoggerFactory.getLogger(RingBufferDiscoveryLogService.class);
+
+    @Value("${bridge.discovery.logs.maxLogs:100}")
+    private int maxLogs;
+
+    private final Map<String, LogRingBuffer> discoveryLogs = new ConcurrentHashMap<>();
+
+    private final Map<String, Set<CloudResource>> discoveredResources = new ConcurrentHashMap<>();
+
+    @Override
+    public void addLogEntry(String providerId, Map<String, Object> logEntry) {
+        discoveryLogs.computeIfAbsent(providerId, k -> new LogRingBuffer(maxLogs)).append(logEntry);
+    }
+
+    @Override
+    public void storeDiscoveredResources(String providerId, Set<CloudResource> resources) {
+        discoveredResources.put(providerId, resources);
+        LOG.debug("Stored {} discovered resources for provider {}", resources.size(), providerId);
+    }
+
+    @Override
+    public List<Map<String, Object>> getProviderLogs(String providerId) {
+        LogRingBuffer logs = discoveryLogs.get(providerId);
+        return logs != null ? logs.toMaps() : new ArrayList<>();
+    }
+
+    @Override
+    public LogPage queryLogs(String providerId, LogQuery query) {
+        LogRingBuffer logs = discoveryLogs.get(providerId);
+        return logs != null ? logs.query(query) : new LogPage(Collections.emptyList(), null);
+    }
+
+    @Override
+    public List<Map<String, Object>> getDiscoveredResources(String providerId) {
+        Set<CloudResource> resources = discoveredResources.getOrDefault(providerId, Collections.emptySet());
+        List<Map<String, Object>> resourceData = new ArrayList<>(resources.size());
+
+        for (CloudResource resource : resources) {
+            Map<String, Object> data = new HashMap<>();
+            data.put("resourceId", resource.getResourceId());
+            data.put("name", resource.getDisplayName());
+            data.put("resourceType", resource.getResourceType());
+            data.put("status", resource.getStatus());
+            data.put("region", resource.getRegion());
+            data.put("providerId", providerId);
+
+            Map<String, Object> metadata = new HashMap<>();
+            resource.getProperties().forEach(metadata::put);
+            resource.getTags().forEach(metadata::put);
+            data.put("metadata", metadata);
+
+            resourceData.add(data);
+        }
+
+        return resourceData;
+    }
+
+    @Override
+    public void clearProviderLogs(String providerId) {
+        discoveryLogs.remove(providerId);
+        LOG.info("Cleared discovery logs for provider {}", providerId);
+    }
+}
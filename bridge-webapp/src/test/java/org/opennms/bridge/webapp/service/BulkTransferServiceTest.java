@@ -0,0 +1,225 @@
+package org.opennms.bridge.webapp.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opennms.bridge.api.CloudProvider;
+import org.opennms.bridge.api.CloudResource;
+import org.opennms.bridge.api.MetricBatch;
+import org.opennms.bridge.api.MetricCollection;
+import org.opennms.bridge.api.ValidationResult;
+import org.opennms.bridge.core.service.OpenNMSClient;
+import org.opennms.bridge.webapp.service.BulkTransferService.BulkSelector;
+import org.opennms.bridge.webapp.service.BulkTransferService.BulkTransferJob;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BulkTransferServiceTest {
+
+    private final FakeProvider provider = new FakeProvider();
+
+    private OpenNMSClient openNMSClient;
+    private BulkTransferService service;
+
+    @BeforeEach
+    void setUp() {
+        ProviderRegistry providerRegistry = mock(ProviderRegistry.class);
+        when(providerRegistry.getProvider("fake")).thenReturn(provider);
+        openNMSClient = mock(OpenNMSClient.class);
+        when(openNMSClient.findNodeIdsByForeignSource(anyString())).thenReturn(Collections.emptyMap());
+
+        service = new BulkTransferService();
+        ReflectionTestUtils.setField(service, "providerRegistry", providerRegistry);
+        ReflectionTestUtils.setField(service, "openNMSClient", openNMSClient);
+        ReflectionTestUtils.setField(service, "maxParallelism", 8);
+        ReflectionTestUtils.setField(service, "maxRetainedJobs", 50);
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void nodeTransferStaysWithinTheJobParallelism() throws Exception {
+        provider.add(8);
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        doAnswer(invocation -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            active.decrementAndGet();
+            return null;
+        }).when(openNMSClient).createOrUpdateNode(anyString(), any(), any());
+
+        BulkTransferJob job = await(service.startNodeTransfer(selector("fake"), 2));
+
+        assertEquals("COMPLETED", job.getStatus());
+        assertEquals(8, job.getSucceededCount());
+        assertTrue(maxActive.get() <= 2, "at most 2 concurrent calls, saw " + maxActive.get());
+    }
+
+    @Test
+    void metricsArePrefetchedOncePerProvider() throws Exception {
+        provider.add(4);
+        provider.prefetchable.addAll(Set.of("i-1", "i-2", "i-3"));
+        Map<String, String> nodeIds = new HashMap<>();
+        for (int i = 1; i <= 4; i++) {
+            nodeIds.put("fake:i-" + i, String.valueOf(i));
+        }
+        when(openNMSClient.findNodeIdsByForeignSource("fake")).thenReturn(nodeIds);
+
+        BulkTransferJob job = await(service.startMetricsTransfer(selector("fake"), 4));
+
+        assertEquals("COMPLETED", job.getStatus());
+        assertEquals(4, job.getSucceededCount());
+        assertEquals(1, provider.prefetches.get());
+        // Only the resource the fleet-wide call did not cover is collected on its own
+        assertEquals(1, provider.collections.get());
+    }
+
+    @Test
+    void failedProvidersAreNotCountedAsResources() throws Exception {
+        provider.add(3);
+        Map<String, Object> request = new HashMap<>();
+        request.put("providerIds", List.of("fake", "missing"));
+
+        BulkTransferJob job = await(service.startNodeTransfer(BulkSelector.fromRequest(request), 2));
+
+        assertEquals("COMPLETED", job.getStatus());
+        assertEquals(3, job.getTotal());
+        assertEquals(3, job.getSucceededCount());
+        assertEquals(0, job.getFailedCount());
+        assertEquals(1, job.getFailedProviderCount());
+    }
+
+    @Test
+    void jobWithOnlyFailedProvidersFails() throws Exception {
+        BulkTransferJob job = await(service.startNodeTransfer(selector("missing"), 2));
+
+        assertEquals("FAILED", job.getStatus());
+        assertEquals(0, job.getTotal());
+        assertEquals(1, job.getFailedProviderCount());
+    }
+
+    private static BulkSelector selector(String providerId) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("providerId", providerId);
+        return BulkSelector.fromRequest(request);
+    }
+
+    private static BulkTransferJob await(BulkTransferJob job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (job.getEndTime() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        return job;
+    }
+
+    private static final class FakeProvider implements CloudProvider {
+        final Set<CloudResource> resources = new LinkedHashSet<>();
+        final Set<String> prefetchable = new LinkedHashSet<>();
+        final AtomicInteger prefetches = new AtomicInteger();
+        final AtomicInteger collections = new AtomicInteger();
+
+        void add(int count) {
+            for (int i = 1; i <= count; i++) {
+                resources.add(new CloudResource("i-" + i, "i-" + i, "ec2-instance", "us-east-1"));
+            }
+        }
+
+        @Override
+        public Map<String, MetricBatch> collectBatches(Collection<CloudResource> requested) {
+            prefetches.incrementAndGet();
+            Map<String, MetricBatch> batches = new HashMap<>();
+            for (CloudResource resource : requested) {
+                if (prefetchable.contains(resource.getResourceId())) {
+                    batches.put(resource.getResourceId(), batch(resource));
+                }
+            }
+            return batches;
+        }
+
+        @Override
+        public MetricBatch collectBatch(CloudResource resource) {
+            collections.incrementAndGet();
+            return batch(resource);
+        }
+
+        private static MetricBatch batch(CloudResource resource) {
+            MetricBatch batch = new MetricBatch(resource.getResourceId());
+            batch.add(batch.series("cpu", Collections.emptyMap()), System.currentTimeMillis(), 1.0);
+            return batch;
+        }
+
+        @Override
+        public MetricCollection collect(CloudResource resource) {
+            return collectBatch(resource).toCollection();
+        }
+
+        @Override
+        public String getProviderId() {
+            return "fake";
+        }
+
+        @Override
+        public String getProviderType() {
+            return "fake";
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "Fake";
+        }
+
+        @Override
+        public ValidationResult validate() {
+            return ValidationResult.valid();
+        }
+
+        @Override
+        public Set<CloudResource> discover() {
+            return resources;
+        }
+
+        @Override
+        public Set<String> getAvailableRegions() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public Map<String, Object> getConfiguration() {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public void updateConfiguration(Map<String, Object> configuration) {
+        }
+
+        @Override
+        public Set<String> getSupportedMetrics() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.opennms.bridge.webapp.service;
+
+import org.junit.jupiter.api.Test;
+import org.opennms.bridge.api.LogEntry;
+import org.opennms.bridge.api.LogPage;
+import org.opennms.bridge.api.LogQuery;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LogRingBufferTest {
+
+    @Test
+    void keepsNewestEntriesAfterWrapAround() {
+        LogRingBuffer buffer = new LogRingBuffer(4);
+        for (int i = 1; i <= 10; i++) {
+            buffer.append(Map.of("message", "entry " + i));
+        }
+
+        List<Object> sequences = new ArrayList<>();
+        buffer.toMaps().forEach(log -> sequences.add(log.get("sequence")));
+        assertEquals(List.of(7L, 8L, 9L, 10L), sequences);
+
+        LogPage page = buffer.query(new LogQuery().setLimit(2));
+        assertEquals(2, page.getEntries().size());
+        assertEquals(Long.valueOf(9), page.getNextCursor());
+    }
+
+    @Test
+    void lappedWriterDoesNotOverwriteNewerEntry() {
+        LogRingBuffer buffer = new LogRingBuffer(4);
+        for (int i = 1; i <= 6; i++) {
+            buffer.append(Map.of("message", "entry " + i));
+        }
+
+        // A writer that claimed sequence 2 publishes late, into the slot sequence 6 already holds
+        buffer.publish(new LogEntry(2, System.currentTimeMillis(), LogEntry.Level.INFO, null, null, null,
+                "late", Collections.emptyMap()));
+
+        List<Object> messages = new ArrayList<>();
+        buffer.toMaps().forEach(log -> messages.add(log.get("message")));
+        assertEquals(List.of("entry 3", "entry 4", "entry 5", "entry 6"), messages);
+    }
+}
@@ -0,0 +1,152 @@
+package org.opennms.bridge.webapp.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opennms.bridge.api.CloudProvider;
+import org.opennms.bridge.api.CloudResource;
+import org.opennms.bridge.api.MetricCollection;
+import org.opennms.bridge.api.ValidationResult;
+import org.opennms.bridge.webapp.config.BeanConfig;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProviderRegistryTest {
+
+    private final CloudProvider realProvider = new AwsCloudProvider("aws");
+    private final CloudProvider mockProvider = new MockAwsCloudProvider("aws-mock");
+
+    private BeanConfig beanConfig;
+    private ProviderRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        beanConfig = mock(BeanConfig.class);
+        registry = new ProviderRegistry();
+        ReflectionTestUtils.setField(registry, "cloudProviders", List.of(realProvider, mockProvider));
+        ReflectionTestUtils.setField(registry, "beanConfig", beanConfig);
+    }
+
+    @Test
+    void mockProvidersAreFilteredWhenDisabled() {
+        when(beanConfig.getUseMockProviders()).thenReturn(false);
+        registry.init();
+
+        assertEquals(List.of(realProvider), registry.getProviders());
+        assertNull(registry.getProvider("aws-mock"));
+        assertTrue(registry.isExcluded("aws-mock"));
+        assertFalse(registry.isIncluded("aws-mock"));
+        assertTrue(registry.isIncluded("aws"));
+        assertTrue(registry.isIncluded("some-other-provider"));
+    }
+
+    @Test
+    void settingChangeRebuildsIndex() {
+        when(beanConfig.getUseMockProviders()).thenReturn(false);
+        registry.init();
+        when(beanConfig.getUseMockProviders()).thenReturn(true);
+
+        assertEquals(List.of(realProvider, mockProvider), registry.getProviders());
+        assertSame(mockProvider, registry.getProvider("aws-mock"));
+        assertTrue(registry.isIncluded("aws-mock"));
+    }
+
+    @Test
+    void legacyAliasesNormalizeToMockProvider() {
+        when(beanConfig.getUseMockProviders()).thenReturn(true);
+        registry.init();
+
+        assertEquals("aws-mock", registry.normalizeProviderId("awsCloudProvider"));
+        assertEquals("aws-mock", registry.normalizeProviderId("mockAwsCloudProvider"));
+        assertSame(mockProvider, registry.getProvider("awsCloudProvider"));
+
+        when(beanConfig.getUseMockProviders()).thenReturn(false);
+        assertEquals("aws", registry.normalizeProviderId("awsCloudProvider"));
+        assertEquals("aws-mock", registry.normalizeProviderId("mockAwsCloudProvider"));
+        assertEquals("unknown-provider", registry.normalizeProviderId("unknown-provider"));
+    }
+
+    @Test
+    void mockProvidersAreRecognizedByClass() {
+        assertTrue(ProviderRegistry.isMockProvider(mockProvider));
+        assertFalse(ProviderRegistry.isMockProvider(realProvider));
+    }
+
+    private static class AwsCloudProvider implements CloudProvider {
+        private final String providerId;
+
+        AwsCloudProvider(String providerId) {
+            this.providerId = providerId;
+        }
+
+        @Override
+        public String getProviderId() {
+            return providerId;
+        }
+
+        @Override
+        public String getProviderType() {
+            return "aws";
+        }
+
+        @Override
+        public String getDisplayName() {
+            return providerId;
+        }
+
+        @Override
+        public ValidationResult validate() {
+            return null;
+        }
+
+        @Override
+        public Set<CloudResource> discover() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public MetricCollection collect(CloudResource resource) {
+            return null;
+        }
+
+        @Override
+        public Set<String> getAvailableRegions() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public Map<String, Object> getConfiguration() {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public void updateConfiguration(Map<String, Object> configuration) {
+        }
+
+        @Override
+        public Set<String> getSupportedMetrics() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static class MockAwsCloudProvider extends AwsCloudProvider {
+        MockAwsCloudProvider(String providerId) {
+            super(providerId);
+        }
+    }
+}